@@ -2,6 +2,7 @@ package org.ironrhino.core.aop;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.JoinPoint;
@@ -13,6 +14,7 @@ import org.ironrhino.core.util.AuthzUtils;
 import org.ironrhino.core.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
@@ -22,6 +24,10 @@ import lombok.Setter;
 
 public class BaseAspect implements Ordered {
 
+	private static final String[] NO_PARAMETER_NAMES = new String[0];
+
+	private static final Map<AnnotatedElementKey, String[]> parameterNamesCache = new ConcurrentHashMap<>();
+
 	protected Logger logger = LoggerFactory.getLogger(getClass());
 
 	@Getter
@@ -33,10 +39,10 @@ public class BaseAspect implements Ordered {
 	}
 
 	protected Map<String, Object> buildContext(JoinPoint jp) {
-		Map<String, Object> context = new HashMap<>();
 		Object[] args = jp.getArgs();
-		String[] paramNames = ReflectionUtils.getParameterNames(jp);
-		if (paramNames == null) {
+		Map<String, Object> context = new HashMap<>((args.length + 8) * 4 / 3);
+		String[] paramNames = getParameterNames(jp);
+		if (paramNames == NO_PARAMETER_NAMES) {
 			throw new RuntimeException("No parameter names discovered for method, please consider using @Param");
 		} else {
 			for (int i = 0; i < args.length; i++)
@@ -50,6 +56,19 @@ public class BaseAspect implements Ordered {
 		return context;
 	}
 
+	private static String[] getParameterNames(JoinPoint jp) {
+		AnnotatedElementKey key = new AnnotatedElementKey(((MethodSignature) jp.getSignature()).getMethod(),
+				jp.getTarget().getClass());
+		String[] paramNames = parameterNamesCache.get(key);
+		if (paramNames == null) {
+			paramNames = ReflectionUtils.getParameterNames(jp);
+			if (paramNames == null)
+				paramNames = NO_PARAMETER_NAMES;
+			parameterNamesCache.put(key, paramNames);
+		}
+		return paramNames;
+	}
+
 	protected void putReturnValueIntoContext(Map<String, Object> context, Object value) {
 		String oldName = AopContext.CONTEXT_KEY_RETVAL.substring(1);
 		if (!context.containsKey(oldName))
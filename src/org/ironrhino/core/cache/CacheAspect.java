@@ -1,8 +1,11 @@
 package org.ironrhino.core.cache;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -13,10 +16,11 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.ironrhino.core.aop.BaseAspect;
+import org.ironrhino.core.metrics.CacheMetrics;
 import org.ironrhino.core.metrics.Metrics;
 import org.ironrhino.core.model.NullObject;
 import org.ironrhino.core.tracing.Tracing;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 import org.mvel2.PropertyAccessException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
@@ -28,6 +32,12 @@ public class CacheAspect extends BaseAspect {
 
 	private final static String MUTEX = "_MUTEX_";
 
+	private final static String REFRESH = "_REFRESH_";
+
+	final static String EXPIRATION = "_EXPIRATION_";
+
+	private final static int REFRESH_TIMEOUT = 10000;
+
 	@Autowired
 	private CacheManager cacheManager;
 
@@ -41,7 +51,7 @@ public class CacheAspect extends BaseAspect {
 			return jp.proceed();
 		Map<String, Object> context = buildContext(jp);
 		String namespace = evalNamespace(checkCache.namespace(), jp, context);
-		List<String> keys = ExpressionUtils.evalList(checkCache.key(), context);
+		List<String> keys = ExpressionTemplate.of(checkCache.key()).evalList(context);
 		if (keys != null)
 			keys = keys.stream().filter(s -> s != null).collect(Collectors.toList());
 		if (keys == null || keys.isEmpty())
@@ -49,12 +59,31 @@ public class CacheAspect extends BaseAspect {
 		String keyMutex = MUTEX + String.join("_", keys);
 		boolean mutexed = false;
 		Class<?> returnType = ((MethodSignature) jp.getSignature()).getMethod().getReturnType();
-		int timeToIdle = ExpressionUtils.evalInt(checkCache.timeToIdle(), context, 0);
+		int timeToIdle = ExpressionTemplate.of(checkCache.timeToIdle()).evalInt(context, 0);
+		boolean refreshable = isRefreshable(checkCache, context);
 		for (String key : keys) {
-			Object value = timeToIdle > 0 ? cacheManager.getWithTti(key, namespace, timeToIdle, checkCache.timeUnit())
-					: cacheManager.get(key, namespace);
+			Object value;
+			CacheExpiration expiration = null;
+			if (refreshable) {
+				// logical expiration is stored beside value and fetched in same round trip
+				List<String> keyWithExpiration = Arrays.asList(key, EXPIRATION + key);
+				Map<String, Object> map = timeToIdle > 0
+						? cacheManager.mgetWithTti(keyWithExpiration, namespace, timeToIdle, checkCache.timeUnit())
+						: cacheManager.mget(keyWithExpiration, namespace);
+				value = map != null ? map.get(key) : null;
+				if (map != null && map.get(EXPIRATION + key) instanceof CacheExpiration)
+					expiration = (CacheExpiration) map.get(EXPIRATION + key);
+			} else {
+				value = timeToIdle > 0 ? cacheManager.getWithTti(key, namespace, timeToIdle, checkCache.timeUnit())
+						: cacheManager.get(key, namespace);
+			}
+			// stale value is served to others while caller wins the refresh, which keeps its own context
+			if (value != null && expiration != null && shouldRefresh(expiration, checkCache.refreshAheadBeta())
+					&& cacheManager.increment(REFRESH + String.join("_", keys), 1, REFRESH_TIMEOUT,
+							TimeUnit.MILLISECONDS, namespace) == 1)
+				return refresh(jp, checkCache, context, keys, namespace);
 			if (value instanceof NullObject) {
-				ExpressionUtils.eval(checkCache.onHit(), context);
+				ExpressionTemplate.of(checkCache.onHit()).eval(context);
 				instrument(namespace, true);
 				return null;
 			}
@@ -62,7 +91,7 @@ public class CacheAspect extends BaseAspect {
 				if (returnType.isPrimitive() && value.getClass() == ClassUtils.primitiveToWrapper(returnType)
 						|| returnType.isInstance(value)) {
 					putReturnValueIntoContext(context, value);
-					ExpressionUtils.eval(checkCache.onHit(), context);
+					ExpressionTemplate.of(checkCache.onHit()).eval(context);
 					instrument(namespace, true);
 					return value;
 				} else {
@@ -79,51 +108,108 @@ public class CacheAspect extends BaseAspect {
 		if (cacheManager.increment(keyMutex, 1, waitTimeout, TimeUnit.MILLISECONDS, namespace) <= throughPermits) {
 			mutexed = true;
 		} else {
-			Thread.sleep(waitTimeout);
-			for (String key : keys) {
-				Object value = cacheManager.get(key, namespace);
-				if (value instanceof NullObject) {
-					ExpressionUtils.eval(checkCache.onHit(), context);
-					instrument(namespace, true);
-					return null;
-				}
-				if (value != null) {
-					if (returnType.isPrimitive() && value.getClass() == ClassUtils.primitiveToWrapper(returnType)
-							|| returnType.isInstance(value)) {
-						putReturnValueIntoContext(context, value);
-						ExpressionUtils.eval(checkCache.onHit(), context);
+			long waitStart = System.nanoTime();
+			try {
+				Thread.sleep(waitTimeout);
+				for (String key : keys) {
+					Object value = cacheManager.get(key, namespace);
+					if (value instanceof NullObject) {
+						ExpressionTemplate.of(checkCache.onHit()).eval(context);
 						instrument(namespace, true);
-						return value;
-					} else {
-						cacheManager.delete(key, namespace);
+						return null;
+					}
+					if (value != null) {
+						if (returnType.isPrimitive()
+								&& value.getClass() == ClassUtils.primitiveToWrapper(returnType)
+								|| returnType.isInstance(value)) {
+							putReturnValueIntoContext(context, value);
+							ExpressionTemplate.of(checkCache.onHit()).eval(context);
+							instrument(namespace, true);
+							return value;
+						} else {
+							cacheManager.delete(key, namespace);
+						}
 					}
 				}
+			} finally {
+				CacheMetrics.recordStampedeWait(namespace, System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
 			}
 		}
-		ExpressionUtils.eval(checkCache.onMiss(), context);
+		ExpressionTemplate.of(checkCache.onMiss()).eval(context);
 		instrument(namespace, false);
+		long start = System.currentTimeMillis();
 		Object result = jp.proceed();
 		putReturnValueIntoContext(context, result);
-		if (ExpressionUtils.evalBoolean(checkCache.when(), context, true)) {
-			Object cacheResult = (result == null && checkCache.cacheNull()) ? NullObject.get() : result;
-			if (cacheResult != null) {
-				if (checkCache.eternal()) {
-					for (String key : keys)
-						cacheManager.putIfAbsent(key, cacheResult, 0, checkCache.timeUnit(), namespace);
-				} else {
-					int timeToLive = ExpressionUtils.evalInt(checkCache.timeToLive(), context, 0);
-					for (String key : keys)
-						cacheManager.putIfAbsent(key, cacheResult, timeToLive, checkCache.timeUnit(), namespace);
-				}
-			}
-			if (result != null)
-				ExpressionUtils.eval(checkCache.onPut(), context);
-		}
+		putIntoCache(checkCache, context, keys, namespace, result, System.currentTimeMillis() - start, false);
 		if (mutexed)
 			cacheManager.decrement(keyMutex, 1, 0, TimeUnit.MILLISECONDS, namespace);
 		return result;
 	}
 
+	private void putIntoCache(CheckCache checkCache, Map<String, Object> context, List<String> keys,
+			String namespace, Object result, long computeTime, boolean overwrite) {
+		if (!ExpressionTemplate.of(checkCache.when()).evalBoolean(context, true))
+			return;
+		Object cacheResult = (result == null && checkCache.cacheNull()) ? NullObject.get() : result;
+		if (cacheResult != null) {
+			int timeToLive = 0;
+			CacheExpiration expiration = null;
+			if (!checkCache.eternal()) {
+				timeToLive = ExpressionTemplate.of(checkCache.timeToLive()).evalInt(context, 0);
+				if (isRefreshable(checkCache, context)) {
+					expiration = new CacheExpiration(
+							System.currentTimeMillis() + checkCache.timeUnit().toMillis(timeToLive), computeTime);
+					timeToLive += ExpressionTemplate.of(checkCache.staleTimeToLive()).evalInt(context, 0);
+				}
+			}
+			for (String key : keys) {
+				boolean stored = true;
+				if (overwrite)
+					cacheManager.put(key, cacheResult, timeToLive, checkCache.timeUnit(), namespace);
+				else
+					stored = cacheManager.putIfAbsent(key, cacheResult, timeToLive, checkCache.timeUnit(), namespace);
+				if (expiration != null && stored)
+					cacheManager.put(EXPIRATION + key, expiration, timeToLive, checkCache.timeUnit(), namespace);
+			}
+		}
+		if (result != null)
+			ExpressionTemplate.of(checkCache.onPut()).eval(context);
+	}
+
+	private Object refresh(ProceedingJoinPoint jp, CheckCache checkCache, Map<String, Object> context,
+			List<String> keys, String namespace) throws Throwable {
+		try {
+			long start = System.currentTimeMillis();
+			Object result = jp.proceed();
+			putReturnValueIntoContext(context, result);
+			putIntoCache(checkCache, context, keys, namespace, result, System.currentTimeMillis() - start, true);
+			instrumentRefresh(namespace, true);
+			return result;
+		} catch (Throwable e) {
+			instrumentRefresh(namespace, false);
+			throw e;
+		} finally {
+			cacheManager.delete(REFRESH + String.join("_", keys), namespace);
+		}
+	}
+
+	private static boolean isRefreshable(CheckCache checkCache, Map<String, Object> context) {
+		if (checkCache.eternal() || ExpressionTemplate.of(checkCache.timeToLive()).evalInt(context, 0) <= 0)
+			return false;
+		return checkCache.refreshAheadBeta() > 0
+				|| ExpressionTemplate.of(checkCache.staleTimeToLive()).evalInt(context, 0) > 0;
+	}
+
+	private static boolean shouldRefresh(CacheExpiration value, double beta) {
+		if (value.isStale())
+			return true;
+		if (beta <= 0)
+			return false;
+		// XFetch: probabilistic early expiration
+		return System.currentTimeMillis() - value.getComputeTime() * beta
+				* Math.log(ThreadLocalRandom.current().nextDouble()) >= value.getExpiresAt();
+	}
+
 	@Around("execution(public * *(..)) and @annotation(evictCache)")
 	public Object remove(ProceedingJoinPoint jp, EvictCache evictCache) throws Throwable {
 		if (isBypass())
@@ -133,7 +219,7 @@ public class CacheAspect extends BaseAspect {
 		boolean fallback = false;
 		List<String> keys = null;
 		try {
-			keys = ExpressionUtils.evalList(evictCache.key(), context);
+			keys = ExpressionTemplate.of(evictCache.key()).evalList(context);
 			if (keys == null)
 				fallback = true; // id generated after proceed
 		} catch (PropertyAccessException e) {
@@ -142,21 +228,23 @@ public class CacheAspect extends BaseAspect {
 		Object retval = jp.proceed();
 		putReturnValueIntoContext(context, retval);
 		if (fallback)
-			keys = ExpressionUtils.evalList(evictCache.key(), context);
+			keys = ExpressionTemplate.of(evictCache.key()).evalList(context);
 		if (keys != null)
 			keys = keys.stream().filter(s -> s != null).collect(Collectors.toList());
 		if (keys == null || keys.isEmpty())
 			return retval;
-		cacheManager.mdelete(new HashSet<>(keys), namespace);
-		ExpressionUtils.eval(evictCache.onEvict(), context);
+		Set<String> keysToDelete = new HashSet<>(keys);
+		keys.forEach(key -> keysToDelete.add(EXPIRATION + key));
+		cacheManager.mdelete(keysToDelete, namespace);
+		ExpressionTemplate.of(evictCache.onEvict()).eval(context);
 		if (StringUtils.isNotBlank(evictCache.renew())) {
-			Object value = ExpressionUtils.eval(evictCache.renew(), context);
+			Object value = ExpressionTemplate.of(evictCache.renew()).eval(context);
 			// keys may be changed, eval again
 			if (!fallback) {
-				keys = ExpressionUtils.evalList(evictCache.key(), context);
+				keys = ExpressionTemplate.of(evictCache.key()).evalList(context);
 				keys = keys.stream().filter(s -> s != null).collect(Collectors.toList());
 			}
-			int timeToLive = ExpressionUtils.evalInt(evictCache.renewTimeToLive(), context, 0);
+			int timeToLive = ExpressionTemplate.of(evictCache.renewTimeToLive()).evalInt(context, 0);
 			for (Object key : keys)
 				cacheManager.put(key.toString(), value, timeToLive, TimeUnit.SECONDS, namespace);
 		}
@@ -168,7 +256,7 @@ public class CacheAspect extends BaseAspect {
 		if (namespace.isEmpty() && target instanceof CacheNamespaceProvider)
 			return ((CacheNamespaceProvider) target).getCacheNamespace();
 		else
-			return ExpressionUtils.evalString(namespace, context);
+			return ExpressionTemplate.of(namespace).evalString(context);
 	}
 
 	private static void instrument(String namespace, boolean hit) {
@@ -176,4 +264,8 @@ public class CacheAspect extends BaseAspect {
 		Tracing.setTags("cache.namespace", namespace, "cache.hit", hit);
 	}
 
+	private static void instrumentRefresh(String namespace, boolean success) {
+		Metrics.increment("cache.refresh", "namespace", namespace, "success", String.valueOf(success));
+	}
+
 }
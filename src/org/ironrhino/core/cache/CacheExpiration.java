@@ -0,0 +1,27 @@
+package org.ironrhino.core.cache;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// stored beside cached value, so readers of the value itself never see it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheExpiration implements Serializable {
+
+	private static final long serialVersionUID = -5188207905862442531L;
+
+	// logical expiration, entry is stale but still present after it
+	private long expiresAt;
+
+	// TimeUnit.MILLISECONDS, time spent to compute value
+	private long computeTime;
+
+	public boolean isStale() {
+		return System.currentTimeMillis() >= expiresAt;
+	}
+
+}
@@ -0,0 +1,31 @@
+package org.ironrhino.core.cache;
+
+import java.util.List;
+
+import org.ironrhino.core.event.BaseEvent;
+
+import lombok.Getter;
+
+public class CacheInvalidationEvent extends BaseEvent<String> {
+
+	private static final long serialVersionUID = -3719512377052916514L;
+
+	// null means whole namespace
+	@Getter
+	private List<String> keys;
+
+	public CacheInvalidationEvent(String namespace, List<String> keys) {
+		super(namespace);
+		this.keys = keys;
+	}
+
+	public String getNamespace() {
+		return getSource();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + "[namespace=" + getSource() + ",keys=" + keys + "]";
+	}
+
+}
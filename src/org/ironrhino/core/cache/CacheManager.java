@@ -1,7 +1,11 @@
 package org.ironrhino.core.cache;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 public interface CacheManager {
@@ -28,10 +32,29 @@ public interface CacheManager {
 
 	Map<String, Object> mget(Collection<String> keys, String namespace);
 
+	default Map<String, Object> mgetWithTti(Collection<String> keys, String namespace, int timeToIdle,
+			TimeUnit timeUnit) {
+		if (keys == null)
+			throw new IllegalArgumentException("keys should not be null");
+		Map<String, Object> result = new HashMap<>();
+		for (String key : keys)
+			result.put(key, getWithTti(key, namespace, timeToIdle, timeUnit));
+		return result;
+	}
+
 	void mdelete(Collection<String> keys, String namespace);
 
 	boolean putIfAbsent(String key, Object value, int timeToLive, TimeUnit timeUnit, String namespace);
 
+	default Map<String, Boolean> mputIfAbsent(Map<String, Object> map, int timeToLive, TimeUnit timeUnit,
+			String namespace) {
+		if (map == null)
+			throw new IllegalArgumentException("map should not be null");
+		Map<String, Boolean> result = new HashMap<>();
+		map.forEach((key, value) -> result.put(key, putIfAbsent(key, value, timeToLive, timeUnit, namespace)));
+		return result;
+	}
+
 	// timeToLive = 0 not change expiration, timeToLive < 0 permanent
 	long increment(String key, long delta, int timeToLive, TimeUnit timeUnit, String namespace);
 
@@ -52,6 +75,30 @@ public interface CacheManager {
 		return result;
 	}
 
+	default CompletableFuture<Object> getAsync(String key, String namespace) {
+		return CompletableFuture.supplyAsync(() -> get(key, namespace), getAsyncExecutor());
+	}
+
+	default CompletableFuture<Map<String, Object>> mgetAsync(Collection<String> keys, String namespace) {
+		return CompletableFuture.supplyAsync(() -> mget(keys, namespace), getAsyncExecutor());
+	}
+
+	default CompletableFuture<Void> putAsync(String key, Object value, int timeToLive, TimeUnit timeUnit,
+			String namespace) {
+		return CompletableFuture.runAsync(() -> put(key, value, timeToLive, timeUnit, namespace), getAsyncExecutor());
+	}
+
+	default CompletableFuture<Long> incrementAsync(String key, long delta, int timeToLive, TimeUnit timeUnit,
+			String namespace) {
+		return CompletableFuture.supplyAsync(() -> increment(key, delta, timeToLive, timeUnit, namespace),
+				getAsyncExecutor());
+	}
+
+	// blocking methods are executed on it by default async methods
+	default Executor getAsyncExecutor() {
+		return ForkJoinPool.commonPool();
+	}
+
 	boolean supportsGetTtl();
 
 	boolean supportsUpdateTtl();
@@ -36,6 +36,12 @@ public @interface CheckCache {
 	// TimeUnit.MILLISECONDS
 	int waitTimeout() default 200;
 
+	// mvel or spel expression, serve stale value to others while one caller refreshes it after timeToLive
+	String staleTimeToLive() default "0";
+
+	// refresh before expiration with probability grows as expiration approaches, 1.0 is recommended
+	double refreshAheadBeta() default 0;
+
 	// mvel or spel expression
 	String onHit() default "";
 
@@ -3,36 +3,70 @@ package org.ironrhino.core.cache.impl;
 import static org.ironrhino.core.metadata.Profiles.CLOUD;
 import static org.ironrhino.core.metadata.Profiles.DUAL;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.ironrhino.core.cache.CacheInvalidationEvent;
 import org.ironrhino.core.cache.CacheManager;
+import org.ironrhino.core.event.EventPublisher;
+import org.ironrhino.core.metadata.Scope;
+import org.ironrhino.core.metrics.CacheMetrics;
+import org.ironrhino.core.metrics.Metrics;
 import org.ironrhino.core.spring.configuration.PriorityQualifier;
 import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
+import org.ironrhino.core.spring.data.redis.CompressingRedisSerializer;
+import org.ironrhino.core.spring.data.redis.CompressionCodec;
 import org.ironrhino.core.spring.data.redis.FallbackToStringSerializer;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
 
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import lombok.extern.slf4j.Slf4j;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -47,6 +81,22 @@ public class RedisCacheManager implements CacheManager {
 
 	public static final String TEMPLATES_PREFIX = "redisCacheManager.templates.";
 
+	// value is class name of CompressionCodec, entries written before enabled are still readable
+	public static final String COMPRESSORS_PREFIX = "redisCacheManager.compressors.";
+
+	// values smaller than it will not be compressed
+	public static final String COMPRESSION_THRESHOLD = "redisCacheManager.compressionThreshold";
+
+	// value is entry capacity of local near cache, namespace without it will not be near cached
+	public static final String NEAR_CACHES_PREFIX = "redisCacheManager.nearCaches.";
+
+	// TimeUnit.SECONDS
+	public static final String NEAR_CACHE_TIME_TO_LIVE = "redisCacheManager.nearCacheTimeToLive";
+
+	private static final int DEFAULT_NEAR_CACHE_TIME_TO_LIVE = 60;
+
+	private static final AtomicInteger INSTANCE_NUMBER = new AtomicInteger();
+
 	@Autowired
 	@PriorityQualifier
 	private RedisTemplate cacheRedisTemplate;
@@ -59,8 +109,18 @@ public class RedisCacheManager implements CacheManager {
 	@Autowired
 	private ApplicationContext ctx;
 
+	@Autowired(required = false)
+	private EventPublisher eventPublisher;
+
+	@Autowired(required = false)
+	private ExecutorService executorService;
+
 	private Map<String, RedisTemplate> cache = new ConcurrentHashMap<>();
 
+	private Map<String, Optional<Cache<String, Object>>> nearCaches = new ConcurrentHashMap<>();
+
+	private volatile org.cache2k.CacheManager nearCacheManager;
+
 	private RedisScript<Long> incrementAndExpireScript = new DefaultRedisScript<>(
 			"local v=redis.call('incrby',KEYS[1],ARGV[1]) redis.call('pexpire',KEYS[1],ARGV[2]) return v", Long.class);
 
@@ -83,6 +143,12 @@ public class RedisCacheManager implements CacheManager {
 		}
 	}
 
+	@PreDestroy
+	public void destroy() {
+		if (nearCacheManager != null)
+			nearCacheManager.close();
+	}
+
 	@Override
 	public void put(String key, Object value, int timeToLive, TimeUnit timeUnit, String namespace) {
 		if (value == null)
@@ -90,18 +156,28 @@ public class RedisCacheManager implements CacheManager {
 		String actualKey = generateKey(key, namespace);
 		RedisTemplate redisTemplate = findRedisTemplate(namespace);
 		try {
-			if (timeToLive > 0)
-				redisTemplate.opsForValue().set(actualKey, value, timeToLive, timeUnit);
-			else
-				redisTemplate.opsForValue().set(actualKey, value);
+			byte[] rawKey = redisTemplate.getKeySerializer().serialize(actualKey);
+			byte[] rawValue = serializeValue(redisTemplate, value, namespace);
+			redisTemplate.execute((RedisCallback) conn -> timeToLive > 0
+					? conn.set(rawKey, rawValue, Expiration.from(timeToLive, timeUnit), SetOption.upsert())
+					: conn.set(rawKey, rawValue));
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
+			return;
+		}
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			putNearCache(nearCache, key, value, timeToLive, timeUnit);
+			publishInvalidation(namespace, Collections.singletonList(key));
 		}
 	}
 
 	@Override
 	public boolean exists(String key, String namespace) {
 		String actualKey = generateKey(key, namespace);
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null && nearCache.containsKey(key))
+			return true;
 		try {
 			Boolean b = findRedisTemplate(namespace).hasKey(actualKey);
 			return b != null && b;
@@ -114,8 +190,28 @@ public class RedisCacheManager implements CacheManager {
 	@Override
 	public Object get(String key, String namespace) {
 		String actualKey = generateKey(key, namespace);
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			Object value = nearCache.peek(key);
+			instrumentNearCache(namespace, "l1", value != null);
+			if (value != null)
+				return value;
+		}
 		try {
-			return findRedisTemplate(namespace).opsForValue().get(actualKey);
+			RedisTemplate redisTemplate = findRedisTemplate(namespace);
+			if (nearCache == null)
+				return redisTemplate.opsForValue().get(actualKey);
+			// remaining ttl is fetched in same round trip, near cache should not outlive redis entry
+			List<Object> results = redisTemplate.executePipelined((SessionCallback) operations -> {
+				operations.opsForValue().get(actualKey);
+				operations.getExpire(actualKey, TimeUnit.MILLISECONDS);
+				return null;
+			});
+			Object value = results.get(0);
+			instrumentNearCache(namespace, "l2", value != null);
+			if (value != null)
+				putNearCache(nearCache, key, value, (Long) results.get(1));
+			return value;
 		} catch (SerializationException e) {
 			log.warn(e.getMessage());
 			delete(key, namespace);
@@ -131,6 +227,7 @@ public class RedisCacheManager implements CacheManager {
 		String actualKey = generateKey(key, namespace);
 		RedisTemplate redisTemplate = findRedisTemplate(namespace);
 		try {
+			// near cache is bypassed since every access should touch expiration
 			Object result = redisTemplate.opsForValue().get(actualKey);
 			if (result != null && timeToIdle > 0)
 				redisTemplate.expire(actualKey, timeToIdle, timeUnit);
@@ -161,6 +258,10 @@ public class RedisCacheManager implements CacheManager {
 		if (timeToLive <= 0)
 			throw new IllegalArgumentException("timeToLive should be postive");
 		findRedisTemplate(namespace).expire(generateKey(key, namespace), timeToLive, timeUnit);
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null)
+			nearCache.expireAt(key, System.currentTimeMillis() + Math.min(timeUnit.toMillis(timeToLive),
+					TimeUnit.SECONDS.toMillis(getNearCacheTimeToLive())));
 	}
 
 	@Override
@@ -171,6 +272,11 @@ public class RedisCacheManager implements CacheManager {
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			nearCache.remove(key);
+			publishInvalidation(namespace, Collections.singletonList(key));
+		}
 	}
 
 	@Override
@@ -179,13 +285,27 @@ public class RedisCacheManager implements CacheManager {
 			throw new IllegalArgumentException("map should not be null");
 		RedisTemplate redisTemplate = findRedisTemplate(namespace);
 		try {
-			Map<String, Object> temp = new HashMap<>();
-			map.forEach((key, value) -> temp.put(generateKey(key, namespace), value));
-			redisTemplate.opsForValue().multiSet(temp);
-			if (timeToLive > 0)
-				temp.keySet().forEach(key -> redisTemplate.expire(key, timeToLive, timeUnit));
+			Map<byte[], byte[]> temp = new HashMap<>();
+			map.forEach((key, value) -> temp.put(redisTemplate.getKeySerializer().serialize(generateKey(key, namespace)),
+					serializeValue(redisTemplate, value, namespace)));
+			if (timeToLive > 0) {
+				// SET with PX for every key in one round trip, keys never exist without ttl
+				Expiration expiration = Expiration.from(timeToLive, timeUnit);
+				redisTemplate.executePipelined((RedisCallback) conn -> {
+					temp.forEach((key, value) -> conn.set(key, value, expiration, SetOption.upsert()));
+					return null;
+				});
+			} else {
+				redisTemplate.execute((RedisCallback) conn -> conn.mSet(temp));
+			}
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
+			return;
+		}
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			map.forEach((key, value) -> putNearCache(nearCache, key, value, timeToLive, timeUnit));
+			publishInvalidation(namespace, new ArrayList<>(map.keySet()));
 		}
 	}
 
@@ -194,13 +314,43 @@ public class RedisCacheManager implements CacheManager {
 		if (keys == null)
 			throw new IllegalArgumentException("keys should not be null");
 		keys = keys.stream().filter(StringUtils::isNotBlank).collect(Collectors.toCollection(HashSet::new));
+		Map<String, Object> result = new HashMap<>();
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			Map<String, Object> nearResult = nearCache.peekAll(keys);
+			for (String key : keys)
+				instrumentNearCache(namespace, "l1", nearResult.containsKey(key));
+			if (!nearResult.isEmpty()) {
+				result.putAll(nearResult);
+				keys = keys.stream().filter(key -> !nearResult.containsKey(key)).collect(Collectors.toList());
+				if (keys.isEmpty())
+					return result;
+			}
+		}
 		try {
-			List<Object> list = findRedisTemplate(namespace).opsForValue()
-					.multiGet(keys.stream().map(key -> generateKey(key, namespace)).collect(Collectors.toList()));
-			Map<String, Object> result = new HashMap<>();
+			RedisTemplate redisTemplate = findRedisTemplate(namespace);
+			List<String> actualKeys = keys.stream().map(key -> generateKey(key, namespace))
+					.collect(Collectors.toList());
+			List<Object> list;
+			if (nearCache == null) {
+				list = redisTemplate.opsForValue().multiGet(actualKeys);
+			} else {
+				// remaining ttl is fetched in same round trip, near cache should not outlive redis entry
+				list = redisTemplate.executePipelined((SessionCallback) operations -> {
+					actualKeys.forEach(key -> operations.opsForValue().get(key));
+					actualKeys.forEach(key -> operations.getExpire(key, TimeUnit.MILLISECONDS));
+					return null;
+				});
+			}
 			int i = 0;
 			for (String key : keys) {
-				result.put(key, list.get(i));
+				Object value = list.get(i);
+				result.put(key, value);
+				if (nearCache != null) {
+					instrumentNearCache(namespace, "l2", value != null);
+					if (value != null)
+						putNearCache(nearCache, key, value, (Long) list.get(keys.size() + i));
+				}
 				i++;
 			}
 			return result;
@@ -210,6 +360,40 @@ public class RedisCacheManager implements CacheManager {
 		}
 	}
 
+	@Override
+	public Map<String, Object> mgetWithTti(Collection<String> keys, String namespace, int timeToIdle,
+			TimeUnit timeUnit) {
+		if (keys == null)
+			throw new IllegalArgumentException("keys should not be null");
+		if (timeToIdle <= 0)
+			return mget(keys, namespace);
+		List<String> list = keys.stream().filter(StringUtils::isNotBlank).distinct().collect(Collectors.toList());
+		Map<String, Object> result = new HashMap<>();
+		if (list.isEmpty())
+			return result;
+		RedisTemplate redisTemplate = findRedisTemplate(namespace);
+		try {
+			// near cache is bypassed since every access should touch expiration
+			List<String> actualKeys = list.stream().map(key -> generateKey(key, namespace))
+					.collect(Collectors.toList());
+			List<Object> values = redisTemplate.executePipelined((SessionCallback) operations -> {
+				actualKeys.forEach(key -> operations.opsForValue().get(key));
+				actualKeys.forEach(key -> operations.expire(key, timeToIdle, timeUnit));
+				return null;
+			});
+			for (int i = 0; i < list.size(); i++)
+				result.put(list.get(i), values.get(i));
+			return result;
+		} catch (SerializationException e) {
+			log.warn(e.getMessage());
+			mdelete(list, namespace);
+			return null;
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+			return null;
+		}
+	}
+
 	@Override
 	public void mdelete(Collection<String> keys, final String namespace) {
 		if (keys == null)
@@ -220,6 +404,12 @@ public class RedisCacheManager implements CacheManager {
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			List<String> list = keys.stream().filter(StringUtils::isNotBlank).collect(Collectors.toList());
+			nearCache.removeAll(list);
+			publishInvalidation(namespace, list);
+		}
 	}
 
 	@Override
@@ -228,14 +418,62 @@ public class RedisCacheManager implements CacheManager {
 			throw new IllegalArgumentException("value should not be null");
 		String actualkey = generateKey(key, namespace);
 		RedisTemplate redisTemplate = findRedisTemplate(namespace);
-		Boolean result;
-		if (timeToLive > 0) {
-			result = redisTemplate.opsForValue().setIfAbsent(actualkey, value, timeToLive, timeUnit);
-		} else {
-			result = redisTemplate.opsForValue().setIfAbsent(actualkey, value);
-		}
+		byte[] rawKey = redisTemplate.getKeySerializer().serialize(actualkey);
+		byte[] rawValue = serializeValue(redisTemplate, value, namespace);
+		Boolean result = (Boolean) redisTemplate.execute((RedisCallback) conn -> timeToLive > 0
+				? conn.set(rawKey, rawValue, Expiration.from(timeToLive, timeUnit), SetOption.ifAbsent())
+				: conn.setNX(rawKey, rawValue));
 		if (result == null)
 			throw new RuntimeException("Unexpected null");
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null && result) {
+			putNearCache(nearCache, key, value, timeToLive, timeUnit);
+			publishInvalidation(namespace, Collections.singletonList(key));
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Boolean> mputIfAbsent(Map<String, Object> map, int timeToLive, TimeUnit timeUnit,
+			String namespace) {
+		if (map == null)
+			throw new IllegalArgumentException("map should not be null");
+		map.values().forEach(value -> {
+			if (value == null)
+				throw new IllegalArgumentException("value should not be null");
+		});
+		List<String> keys = new ArrayList<>(map.keySet());
+		Map<String, Boolean> result = new HashMap<>();
+		if (keys.isEmpty())
+			return result;
+		RedisTemplate redisTemplate = findRedisTemplate(namespace);
+		List<byte[]> rawValues = new ArrayList<>(keys.size());
+		for (String key : keys)
+			rawValues.add(serializeValue(redisTemplate, map.get(key), namespace));
+		List<Object> list = redisTemplate.executePipelined((RedisCallback) conn -> {
+			for (int i = 0; i < keys.size(); i++) {
+				byte[] rawKey = redisTemplate.getKeySerializer().serialize(generateKey(keys.get(i), namespace));
+				if (timeToLive > 0)
+					conn.set(rawKey, rawValues.get(i), Expiration.from(timeToLive, timeUnit), SetOption.ifAbsent());
+				else
+					conn.setNX(rawKey, rawValues.get(i));
+			}
+			return null;
+		});
+		List<String> absentKeys = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			Boolean b = (Boolean) list.get(i);
+			if (b == null)
+				throw new RuntimeException("Unexpected null");
+			result.put(keys.get(i), b);
+			if (b)
+				absentKeys.add(keys.get(i));
+		}
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null && !absentKeys.isEmpty()) {
+			absentKeys.forEach(key -> putNearCache(nearCache, key, map.get(key), timeToLive, timeUnit));
+			publishInvalidation(namespace, absentKeys);
+		}
 		return result;
 	}
 
@@ -253,6 +491,7 @@ public class RedisCacheManager implements CacheManager {
 		}
 		if (result == null)
 			throw new RuntimeException("Unexpected null");
+		evictNearCache(key, namespace);
 		return result;
 	}
 
@@ -272,9 +511,196 @@ public class RedisCacheManager implements CacheManager {
 			throw new IllegalStateException("namespace:" + namespace + ", key:" + key + " does not exist");
 		if (result == -2)
 			throw new IllegalStateException("namespace:" + namespace + ", key:" + key + " is less than " + delta);
+		evictNearCache(key, namespace);
 		return result;
 	}
 
+	@Override
+	public CompletableFuture<Object> getAsync(String key, String namespace) {
+		RedisTemplate redisTemplate = findRedisTemplate(namespace);
+		if (!supportsAsync(redisTemplate))
+			return CacheManager.super.getAsync(key, namespace);
+		String actualKey = generateKey(key, namespace);
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			Object value = nearCache.peek(key);
+			instrumentNearCache(namespace, "l1", value != null);
+			if (value != null)
+				return CompletableFuture.completedFuture(value);
+		}
+		byte[] rawKey = redisTemplate.getKeySerializer().serialize(actualKey);
+		CompletableFuture<byte[]> future = executeAsync(redisTemplate, commands -> commands.get(rawKey));
+		if (nearCache == null)
+			return future.thenApply(bytes -> redisTemplate.getValueSerializer().deserialize(bytes)).exceptionally(e -> {
+				Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+				if (cause instanceof SerializationException) {
+					log.warn(cause.getMessage());
+					executeAsync(redisTemplate, commands -> commands.del(rawKey));
+				} else {
+					log.error(cause.getMessage(), cause);
+				}
+				return null;
+			});
+		// remaining ttl is fetched on same connection, near cache should not outlive redis entry
+		CompletableFuture<Long> pttl = executeAsync(redisTemplate, commands -> commands.pttl(rawKey));
+		return future.thenCombine(pttl, (bytes, remainingTimeToLive) -> {
+			Object value = redisTemplate.getValueSerializer().deserialize(bytes);
+			instrumentNearCache(namespace, "l2", value != null);
+			if (value != null)
+				putNearCache(nearCache, key, value, remainingTimeToLive);
+			return value;
+		}).exceptionally(e -> {
+			Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+			if (cause instanceof SerializationException) {
+				log.warn(cause.getMessage());
+				executeAsync(redisTemplate, commands -> commands.del(rawKey));
+			} else {
+				log.error(cause.getMessage(), cause);
+			}
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> mgetAsync(Collection<String> keys, String namespace) {
+		if (keys == null)
+			throw new IllegalArgumentException("keys should not be null");
+		RedisTemplate redisTemplate = findRedisTemplate(namespace);
+		if (!supportsAsync(redisTemplate))
+			return CacheManager.super.mgetAsync(keys, namespace);
+		List<String> list = keys.stream().filter(StringUtils::isNotBlank).distinct().collect(Collectors.toList());
+		Map<String, Object> result = new HashMap<>();
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			Map<String, Object> nearResult = nearCache.peekAll(list);
+			for (String key : list)
+				instrumentNearCache(namespace, "l1", nearResult.containsKey(key));
+			result.putAll(nearResult);
+			list.removeAll(nearResult.keySet());
+		}
+		if (list.isEmpty())
+			return CompletableFuture.completedFuture(result);
+		byte[][] rawKeys = new byte[list.size()][];
+		for (int i = 0; i < rawKeys.length; i++)
+			rawKeys[i] = redisTemplate.getKeySerializer().serialize(generateKey(list.get(i), namespace));
+		CompletableFuture<List<KeyValue<byte[], byte[]>>> future = executeAsync(redisTemplate,
+				commands -> commands.mget(rawKeys));
+		CompletableFuture<Long>[] pttls = new CompletableFuture[nearCache != null ? rawKeys.length : 0];
+		// remaining ttl is fetched on same connection, near cache should not outlive redis entry
+		for (int i = 0; i < pttls.length; i++) {
+			byte[] rawKey = rawKeys[i];
+			pttls[i] = executeAsync(redisTemplate, commands -> commands.pttl(rawKey));
+		}
+		return future.thenCombine(CompletableFuture.allOf(pttls), (keyValues, v) -> {
+			List<byte[]> corruptedKeys = new ArrayList<>();
+			for (int i = 0; i < list.size(); i++) {
+				String key = list.get(i);
+				Object value;
+				try {
+					value = redisTemplate.getValueSerializer().deserialize(keyValues.get(i).getValueOrElse(null));
+				} catch (SerializationException e) {
+					log.warn(e.getMessage());
+					corruptedKeys.add(rawKeys[i]);
+					value = null;
+				}
+				result.put(key, value);
+				if (nearCache != null) {
+					instrumentNearCache(namespace, "l2", value != null);
+					if (value != null)
+						putNearCache(nearCache, key, value, pttls[i].join());
+				}
+			}
+			if (!corruptedKeys.isEmpty())
+				executeAsync(redisTemplate, commands -> commands.del(corruptedKeys.toArray(new byte[0][])));
+			return result;
+		}).exceptionally(e -> {
+			Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+			log.error(cause.getMessage(), cause);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> putAsync(String key, Object value, int timeToLive, TimeUnit timeUnit,
+			String namespace) {
+		if (value == null)
+			throw new IllegalArgumentException("value should not be null");
+		RedisTemplate redisTemplate = findRedisTemplate(namespace);
+		if (!supportsAsync(redisTemplate))
+			return CacheManager.super.putAsync(key, value, timeToLive, timeUnit, namespace);
+		byte[] rawKey = redisTemplate.getKeySerializer().serialize(generateKey(key, namespace));
+		byte[] rawValue = serializeValue(redisTemplate, value, namespace);
+		CompletableFuture<Void> future = executeAsync(redisTemplate,
+				commands -> timeToLive > 0
+						? commands.set(rawKey, rawValue, SetArgs.Builder.px(timeUnit.toMillis(timeToLive)))
+						: commands.set(rawKey, rawValue)).<Void>thenApply(s -> null).exceptionally(e -> {
+							Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+							log.error(cause.getMessage(), cause);
+							return null;
+						});
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache == null)
+			return future;
+		// publishing is blocking, should not run on redis event loop
+		return future.thenRunAsync(() -> {
+			putNearCache(nearCache, key, value, timeToLive, timeUnit);
+			publishInvalidation(namespace, Collections.singletonList(key));
+		}, getAsyncExecutor());
+	}
+
+	@Override
+	public CompletableFuture<Long> incrementAsync(String key, long delta, int timeToLive, TimeUnit timeUnit,
+			String namespace) {
+		RedisTemplate redisTemplate = findRedisTemplate(namespace);
+		if (!supportsAsync(redisTemplate))
+			return CacheManager.super.incrementAsync(key, delta, timeToLive, timeUnit, namespace);
+		byte[] rawKey = redisTemplate.getKeySerializer().serialize(generateKey(key, namespace));
+		CompletableFuture<Long> future = executeAsync(redisTemplate,
+				commands -> timeToLive > 0
+						? commands.<Long>eval(incrementAndExpireScript.getScriptAsString(), ScriptOutputType.INTEGER,
+								new byte[][] { rawKey }, String.valueOf(delta).getBytes(StandardCharsets.UTF_8),
+								String.valueOf(timeUnit.toMillis(timeToLive)).getBytes(StandardCharsets.UTF_8))
+						: commands.incrby(rawKey, delta));
+		if (findNearCache(namespace) == null)
+			return future;
+		return future.thenApplyAsync(result -> {
+			evictNearCache(key, namespace);
+			return result;
+		}, getAsyncExecutor());
+	}
+
+	private static boolean supportsAsync(RedisTemplate redisTemplate) {
+		// dedicated connection is released on close() even though commands are still in flight
+		RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+		return connectionFactory instanceof LettuceConnectionFactory
+				&& ((LettuceConnectionFactory) connectionFactory).getShareNativeConnection();
+	}
+
+	private static <T> CompletableFuture<T> executeAsync(RedisTemplate redisTemplate,
+			Function<RedisClusterAsyncCommands<byte[], byte[]>, RedisFuture<T>> function) {
+		// non-blocking commands are issued on shared native connection, close() will not close it
+		RedisConnection conn = redisTemplate.getRequiredConnectionFactory().getConnection();
+		try {
+			return function.apply(((LettuceConnection) conn).getNativeConnection()).toCompletableFuture();
+		} finally {
+			conn.close();
+		}
+	}
+
+	private static byte[] serializeValue(RedisTemplate redisTemplate, Object value, String namespace) {
+		RedisSerializer serializer = redisTemplate.getValueSerializer();
+		byte[] bytes = serializer.serialize(value);
+		// CompressingRedisSerializer records both raw and stored size
+		if (bytes != null && !(serializer instanceof CompressingRedisSerializer))
+			CacheMetrics.recordSize(namespace, "stored", bytes.length);
+		return bytes;
+	}
+
+	@Override
+	public Executor getAsyncExecutor() {
+		return executorService != null ? executorService : ForkJoinPool.commonPool();
+	}
+
 	private String generateKey(String key, String namespace) {
 		if (key == null)
 			throw new IllegalArgumentException("key should not be null");
@@ -300,6 +726,91 @@ public class RedisCacheManager implements CacheManager {
 				"local keys = redis.call('keys', ARGV[1]) \n for i=1,#keys,5000 do \n redis.call('del', unpack(keys, i, math.min(i+4999, #keys))) \n end \n return true",
 				Boolean.class);
 		cacheStringRedisTemplate.execute(script, Collections.emptyList(), namespace + ":*");
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			nearCache.clear();
+			publishInvalidation(namespace, null);
+		}
+	}
+
+	@EventListener(condition = "!#event.local")
+	public void onApplicationEvent(CacheInvalidationEvent event) {
+		Optional<Cache<String, Object>> optional = nearCaches.get(event.getNamespace());
+		if (optional == null || !optional.isPresent())
+			return;
+		Cache<String, Object> nearCache = optional.get();
+		if (event.getKeys() == null)
+			nearCache.clear();
+		else
+			nearCache.removeAll(event.getKeys());
+	}
+
+	protected Cache<String, Object> findNearCache(String namespace) {
+		if (StringUtils.isBlank(namespace))
+			return null;
+		Optional<Cache<String, Object>> optional = nearCaches.get(namespace);
+		if (optional != null)
+			return optional.orElse(null);
+		return nearCaches.computeIfAbsent(namespace, ns -> {
+			int capacity = ctx.getEnvironment().getProperty(NEAR_CACHES_PREFIX + ns, Integer.class, 0);
+			if (capacity <= 0)
+				return Optional.empty();
+			return Optional.of(Cache2kBuilder.of(String.class, Object.class).manager(getNearCacheManager())
+					.name(ns.replaceAll(":", ".")).entryCapacity(capacity)
+					.expireAfterWrite(getNearCacheTimeToLive(), TimeUnit.SECONDS).build());
+		}).orElse(null);
+	}
+
+	private org.cache2k.CacheManager getNearCacheManager() {
+		if (nearCacheManager == null) {
+			synchronized (this) {
+				if (nearCacheManager == null) {
+					int number = INSTANCE_NUMBER.getAndIncrement();
+					nearCacheManager = org.cache2k.CacheManager
+							.getInstance(number > 0 ? "redisCacheManager" + number : "redisCacheManager");
+				}
+			}
+		}
+		return nearCacheManager;
+	}
+
+	private int getNearCacheTimeToLive() {
+		return ctx.getEnvironment().getProperty(NEAR_CACHE_TIME_TO_LIVE, Integer.class,
+				DEFAULT_NEAR_CACHE_TIME_TO_LIVE);
+	}
+
+	private void putNearCache(Cache<String, Object> nearCache, String key, Object value, int timeToLive,
+			TimeUnit timeUnit) {
+		long nearCacheTimeToLive = TimeUnit.SECONDS.toMillis(getNearCacheTimeToLive());
+		long expiry = System.currentTimeMillis()
+				+ (timeToLive > 0 ? Math.min(timeUnit.toMillis(timeToLive), nearCacheTimeToLive) : nearCacheTimeToLive);
+		nearCache.invoke(key, e -> e.setValue(value).setExpiryTime(expiry));
+	}
+
+	private void putNearCache(Cache<String, Object> nearCache, String key, Object value, Long remainingTimeToLive) {
+		// -1 means no ttl, -2 means already expired
+		if (remainingTimeToLive == null || remainingTimeToLive == -1)
+			putNearCache(nearCache, key, value, 0, TimeUnit.MILLISECONDS);
+		else if (remainingTimeToLive > 0)
+			putNearCache(nearCache, key, value, (int) Math.min(remainingTimeToLive, Integer.MAX_VALUE),
+					TimeUnit.MILLISECONDS);
+	}
+
+	private void evictNearCache(String key, String namespace) {
+		Cache<String, Object> nearCache = findNearCache(namespace);
+		if (nearCache != null) {
+			nearCache.remove(key);
+			publishInvalidation(namespace, Collections.singletonList(key));
+		}
+	}
+
+	private void publishInvalidation(String namespace, List<String> keys) {
+		if (eventPublisher != null)
+			eventPublisher.publish(new CacheInvalidationEvent(namespace, keys), Scope.GLOBAL);
+	}
+
+	private static void instrumentNearCache(String namespace, String tier, boolean hit) {
+		Metrics.increment("cache.near", "namespace", namespace, "tier", tier, "hit", String.valueOf(hit));
 	}
 
 	protected RedisTemplate findRedisTemplate(String namespace) {
@@ -309,14 +820,27 @@ public class RedisCacheManager implements CacheManager {
 		if (StringUtils.isNotBlank(templateBeanName))
 			return ctx.getBean(templateBeanName, RedisTemplate.class);
 		String serializerClass = ctx.getEnvironment().getProperty(SERIALIZERS_PREFIX + namespace);
-		if (StringUtils.isBlank(serializerClass))
+		String compressorClass = ctx.getEnvironment().getProperty(COMPRESSORS_PREFIX + namespace);
+		if (StringUtils.isBlank(serializerClass) && StringUtils.isBlank(compressorClass))
 			return cacheRedisTemplate;
 		return cache.computeIfAbsent(namespace, key -> {
 			RedisTemplate rt = new RedisTemplate();
 			BeanUtils.copyProperties(cacheRedisTemplate, rt);
 			try {
-				rt.setValueSerializer((RedisSerializer) BeanUtils.instantiateClass(
-						ClassUtils.forName(serializerClass, RedisCacheManager.class.getClassLoader())));
+				RedisSerializer serializer = cacheRedisTemplate.getValueSerializer();
+				if (StringUtils.isNotBlank(serializerClass))
+					serializer = (RedisSerializer) BeanUtils.instantiateClass(
+							ClassUtils.forName(serializerClass, RedisCacheManager.class.getClassLoader()));
+				if (StringUtils.isNotBlank(compressorClass)) {
+					CompressionCodec codec = (CompressionCodec) BeanUtils.instantiateClass(
+							ClassUtils.forName(compressorClass, RedisCacheManager.class.getClassLoader()));
+					int threshold = ctx.getEnvironment().getProperty(COMPRESSION_THRESHOLD, Integer.class,
+							CompressingRedisSerializer.DEFAULT_THRESHOLD);
+					CompressingRedisSerializer crs = new CompressingRedisSerializer(serializer, codec, threshold);
+					crs.setMetrics("cache.size", "namespace", namespace);
+					serializer = crs;
+				}
+				rt.setValueSerializer(serializer);
 			} catch (Exception e) {
 				throw new RuntimeException(e);
 			}
@@ -29,4 +29,12 @@ public interface LockService {
 
 	void unlock(String name);
 
+	/**
+	 * @return fencing token of lock held by current thread which increases
+	 *         monotonically for the same lock, -1 if not held or not supported
+	 */
+	default long getFencingToken(String name) {
+		return -1;
+	}
+
 }
\ No newline at end of file
@@ -3,14 +3,18 @@ package org.ironrhino.core.coordination.impl;
 import static org.ironrhino.core.metadata.Profiles.CLOUD;
 import static org.ironrhino.core.metadata.Profiles.DUAL;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import org.ironrhino.core.coordination.LockService;
@@ -21,37 +25,82 @@ import org.ironrhino.core.util.NameableThreadFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
 @Component("lockService")
 @ServiceImplementationConditional(profiles = { DUAL, CLOUD })
+@Slf4j
 public class RedisLockService implements LockService {
 
 	private static final String NAMESPACE = "lock:";
 
+	private static final String CHANNEL = NAMESPACE + "released";
+
+	// poll interval if release notification is unavailable
+	private static final long POLL_INTERVAL = 100;
+
+	// upper bound of waiting for notification in case it's lost
+	private static final long MAX_AWAIT = 1000;
+
 	@Getter
 	@Value("${lockService.watchdogTimeout:30000}")
 	private int watchdogTimeout = 30000;
 
+	// fencing counter expires if lock is not acquired or renewed for such a long time
+	@Getter
+	@Value("${lockService.fencingTokenTimeout:604800000}")
+	private long fencingTokenTimeout = 604800000;
+
 	@Autowired
 	@Qualifier("stringRedisTemplate")
 	@PriorityQualifier
 	private StringRedisTemplate coordinationStringRedisTemplate;
 
+	@Autowired(required = false)
+	@PriorityQualifier
+	private RedisMessageListenerContainer coordinationRedisMessageListenerContainer;
+
 	private ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
 			new NameableThreadFactory("redis-lock"));
 
-	private Map<String, ScheduledFuture<?>> renewalFutures = new ConcurrentHashMap<>();
+	// name -> lock held by this jvm
+	private Map<String, Holding> holdings = new ConcurrentHashMap<>();
+
+	// key -> threads waiting for release
+	private Map<String, Waiters> waiters = new ConcurrentHashMap<>();
+
+	// return fencing token if acquired otherwise negative ttl of lock, lock
+	// without ttl is treated as ttl of watchdogTimeout
+	private RedisScript<Long> acquireScript = new DefaultRedisScript<>(
+			"if redis.call('set',KEYS[1],ARGV[1],'px',ARGV[2],'nx') then local token = redis.call('incr',KEYS[2]) redis.call('pexpire',KEYS[2],ARGV[3]) return token else local ttl = redis.call('pttl',KEYS[1]) if ttl < 0 then ttl = tonumber(ARGV[2]) end return -math.max(ttl,1) end",
+			Long.class);
 
 	private RedisScript<Long> compareAndDeleteScript = new DefaultRedisScript<>(
-			"if redis.call('get',KEYS[1]) == ARGV[1] then return redis.call('del',KEYS[1]) else return redis.call('exists',KEYS[1]) == 0 and 2 or 0 end",
+			"if redis.call('get',KEYS[1]) == ARGV[1] then redis.call('publish','" + CHANNEL
+					+ "',KEYS[1]) return redis.call('del',KEYS[1]) else return redis.call('exists',KEYS[1]) == 0 and 2 or 0 end",
 			Long.class);
 
+	@PostConstruct
+	private void init() {
+		if (coordinationRedisMessageListenerContainer != null)
+			coordinationRedisMessageListenerContainer.addMessageListener((message, pattern) -> {
+				Waiters w = waiters.get(new String(message.getBody(), StandardCharsets.UTF_8));
+				if (w != null)
+					w.signal();
+			}, new ChannelTopic(CHANNEL));
+		long delay = watchdogTimeout / 3;
+		scheduler.scheduleWithFixedDelay(this::renew, delay, delay, TimeUnit.MILLISECONDS);
+	}
+
 	@PreDestroy
 	private void destroy() {
 		scheduler.shutdown();
@@ -59,27 +108,40 @@ public class RedisLockService implements LockService {
 
 	@Override
 	public boolean tryLock(String name) {
+		return acquire(name) > 0;
+	}
+
+	@Override
+	public boolean tryLock(String name, long timeout, TimeUnit unit) {
+		long ret = acquire(name);
+		if (ret > 0)
+			return true;
+		if (timeout <= 0)
+			return false;
 		String key = NAMESPACE + name;
-		String holder = holder();
-		Boolean success = coordinationStringRedisTemplate.opsForValue().setIfAbsent(key, holder, this.watchdogTimeout,
-				TimeUnit.MILLISECONDS);
-		if (success == null)
-			throw new RuntimeException("Unexpected null");
-		if (success) {
-			long delay = watchdogTimeout / 3;
-			renewalFutures.computeIfAbsent(name, k -> scheduler.scheduleWithFixedDelay(() -> {
-				Boolean b = coordinationStringRedisTemplate.expire(key, this.watchdogTimeout, TimeUnit.MILLISECONDS);
-				if (b == null)
-					throw new RuntimeException("Unexpected null");
-				if (!b) {
-					ScheduledFuture<?> future = renewalFutures.remove(name);
-					if (future != null)
-						future.cancel(true);
-				}
-			}, delay, delay, TimeUnit.MILLISECONDS));
+		long timeoutNanos = unit.toNanos(timeout);
+		long start = System.nanoTime();
+		Waiters w = waiters.compute(key, (k, v) -> (v != null ? v : new Waiters()).enter());
+		try {
+			long version = w.version();
+			ret = acquire(name);
+			while (ret <= 0) {
+				long remaining = TimeUnit.NANOSECONDS.toMillis(timeoutNanos - (System.nanoTime() - start));
+				if (remaining <= 0)
+					return false;
+				// wake up on release notification or lock expiry, poll instead if
+				// notification is unavailable
+				long wait = coordinationRedisMessageListenerContainer != null ? Math.min(-ret, MAX_AWAIT)
+						: POLL_INTERVAL;
+				if (!w.await(version, Math.min(remaining, wait)))
+					return false;
+				version = w.version();
+				ret = acquire(name);
+			}
 			return true;
+		} finally {
+			waiters.computeIfPresent(key, (k, v) -> v.leave() ? null : v);
 		}
-		return false;
 	}
 
 	@Override
@@ -91,18 +153,117 @@ public class RedisLockService implements LockService {
 		if (ret == null)
 			throw new RuntimeException("Unexpected null");
 		if (ret == 1) {
-			ScheduledFuture<?> future = renewalFutures.remove(name);
-			if (future != null)
-				future.cancel(true);
+			holdings.remove(name);
 		} else if (ret == 0) {
 			throw new IllegalStateException("Lock[" + name + "] is not held by :" + holder);
 		} else if (ret == 2) {
 			// lock hold timeout
+			holdings.remove(name);
 		}
 	}
 
+	@Override
+	public long getFencingToken(String name) {
+		Holding holding = holdings.get(name);
+		return holding != null && holding.threadId == Thread.currentThread().getId() ? holding.token : -1;
+	}
+
+	private long acquire(String name) {
+		String key = NAMESPACE + name;
+		Long ret = coordinationStringRedisTemplate.execute(acquireScript, Arrays.asList(key, fencingKey(key)),
+				holder(), String.valueOf(watchdogTimeout), String.valueOf(fencingTokenTimeout));
+		if (ret == null)
+			throw new RuntimeException("Unexpected null");
+		if (ret > 0)
+			holdings.put(name, new Holding(key, Thread.currentThread().getId(), ret));
+		return ret;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void renew() {
+		List<Map.Entry<String, Holding>> entries = new ArrayList<>(holdings.entrySet());
+		if (entries.isEmpty())
+			return;
+		try {
+			List<Object> results = coordinationStringRedisTemplate.executePipelined((SessionCallback) operations -> {
+				for (Map.Entry<String, Holding> entry : entries) {
+					operations.expire(entry.getValue().key, watchdogTimeout, TimeUnit.MILLISECONDS);
+					// keep counter alive as long as lock is held
+					operations.expire(fencingKey(entry.getValue().key), fencingTokenTimeout, TimeUnit.MILLISECONDS);
+				}
+				return null;
+			});
+			for (int i = 0; i < entries.size(); i++) {
+				if (!Boolean.TRUE.equals(results.get(i * 2))) {
+					Map.Entry<String, Holding> entry = entries.get(i);
+					holdings.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+		}
+	}
+
+	// hash tag makes counter stay in the same slot with lock key
+	private static String fencingKey(String key) {
+		return '{' + key + "}:fencing";
+	}
+
 	static String holder() {
 		return AppInfo.getInstanceId() + '$' + Thread.currentThread().getId();
 	}
 
+	private static class Holding {
+
+		private final String key;
+
+		private final long threadId;
+
+		private final long token;
+
+		Holding(String key, long threadId, long token) {
+			this.key = key;
+			this.threadId = threadId;
+			this.token = token;
+		}
+
+	}
+
+	private static class Waiters {
+
+		private int count;
+
+		private long version;
+
+		Waiters enter() {
+			count++;
+			return this;
+		}
+
+		boolean leave() {
+			return --count == 0;
+		}
+
+		synchronized long version() {
+			return version;
+		}
+
+		synchronized void signal() {
+			version++;
+			notifyAll();
+		}
+
+		synchronized boolean await(long version, long timeout) {
+			try {
+				if (this.version == version)
+					wait(timeout);
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+	}
+
 }
@@ -3,100 +3,109 @@ package org.ironrhino.core.coordination.impl;
 import static org.ironrhino.core.metadata.Profiles.CLOUD;
 import static org.ironrhino.core.metadata.Profiles.DUAL;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.ironrhino.core.coordination.LeaderChangeListener;
 import org.ironrhino.core.coordination.Membership;
+import org.ironrhino.core.redis.RedisKeyspaceEventListener;
 import org.ironrhino.core.spring.configuration.PriorityQualifier;
 import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
 import org.ironrhino.core.util.AppInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Members renew their heartbeat in a sorted set scored by expiry time, leader
+ * holds a lease key renewed by heartbeat, leadership view is cached locally
+ * and refreshed by heartbeat and keyspace notification of lease key. Local
+ * leadership expires with the lease if heartbeat fails to renew it, so that a
+ * partitioned leader steps down before another member takes over.
+ * <p>
+ * Nodes before this layout keep members in list {@code membership:<group>} and
+ * elect the head of it. To survive rolling upgrade, with
+ * {@code redis.membership.legacyCompatible} enabled, upgraded members keep
+ * registering themselves in the list and defer to its head while it is a node
+ * not yet upgraded. Disable it once all nodes are upgraded.
+ */
 @Component("membership")
 @ServiceImplementationConditional(profiles = { DUAL, CLOUD })
-public class RedisMembership implements Membership {
+@Slf4j
+public class RedisMembership implements Membership, RedisKeyspaceEventListener {
 
 	private static final String NAMESPACE = "membership:";
 
+	private static final String LEADER_SUFFIX = "}:leader";
+
+	private static final String MEMBERS_SUFFIX = "}:members";
+
+	private static final String UPGRADED_SUFFIX = "}:upgraded";
+
 	private Set<String> groups = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
+	// group -> leader
+	private Map<String, String> leaders = new ConcurrentHashMap<>();
+
+	// group -> nanoTime when leader lease held by self expires
+	private Map<String, Long> leaseExpiries = new ConcurrentHashMap<>();
+
 	@Autowired
 	private TaskScheduler taskScheduler;
 
-	@Value("${redis.membership.heartbeat:60000}")
-	private int heartbeat = 60000;
+	@Value("${redis.membership.heartbeat:10000}")
+	private int heartbeat = 10000;
+
+	@Value("${redis.membership.legacyCompatible:true}")
+	private boolean legacyCompatible = true;
 
 	@Autowired
 	@Qualifier("stringRedisTemplate")
 	@PriorityQualifier
 	private StringRedisTemplate coordinationStringRedisTemplate;
 
+	@Autowired(required = false)
+	private List<LeaderChangeListener> leaderChangeListeners = Collections.emptyList();
+
+	// KEYS: leader, members ARGV: self, ttl
+	// server time is used to avoid clock skew between members
+	private RedisScript<String> heartbeatScript = new DefaultRedisScript<>(
+			"redis.replicate_commands() local t = redis.call('time') local now = t[1] * 1000 + math.floor(t[2] / 1000) "
+					+ "redis.call('zadd',KEYS[2],now+ARGV[2],ARGV[1]) redis.call('zremrangebyscore',KEYS[2],'-inf',now) redis.call('pexpire',KEYS[2],ARGV[2]) "
+					+ "local leader = redis.call('get',KEYS[1]) if not leader then redis.call('set',KEYS[1],ARGV[1],'px',ARGV[2]) return ARGV[1] end "
+					+ "if leader == ARGV[1] then redis.call('pexpire',KEYS[1],ARGV[2]) end return leader",
+			String.class);
+
+	private RedisScript<Long> compareAndDeleteScript = new DefaultRedisScript<>(
+			"if redis.call('get',KEYS[1]) == ARGV[1] then return redis.call('del',KEYS[1]) else return 0 end",
+			Long.class);
+
 	@PostConstruct
 	public void afterPropertiesSet() {
-		if (AppInfo.getContextPath() == null) // not in servlet container
-			return;
 		taskScheduler.scheduleAtFixedRate(() -> {
 			for (String group : groups) {
-				List<String> members = getMembers(group);
-				String self = AppInfo.getInstanceId();
-				if (!members.contains(self))
-					coordinationStringRedisTemplate.opsForList().rightPush(NAMESPACE + group, self);
-				for (String member : members) {
-					if (member.equals(self))
-						continue;
-					boolean alive = false;
-					String url = "http://" + member.substring(member.lastIndexOf('@') + 1)
-							+ "/_ping?_internal_testing_";
-					try {
-						HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-						conn.setConnectTimeout(3000);
-						conn.setReadTimeout(2000);
-						conn.setInstanceFollowRedirects(false);
-						conn.setDoOutput(false);
-						conn.setUseCaches(false);
-						conn.connect();
-						if (conn.getResponseCode() == 200) {
-							try (BufferedReader br = new BufferedReader(
-									new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-								String value = br.lines().collect(Collectors.joining("\n"));
-								if (value.equals(member)) {
-									alive = true;
-								} else {
-									if (!members.contains(value) && value.length() <= 100
-											&& value.matches("[\\w-]+@[\\w.:]+")) {
-										if (AppInfo.getAppName().equals(value.substring(0, value.lastIndexOf('-')))) {
-											coordinationStringRedisTemplate.opsForList().rightPush(NAMESPACE + group,
-													value);
-										} else {
-											// multiple virtual host
-											alive = true;
-										}
-									}
-								}
-							}
-						}
-						conn.disconnect();
-					} catch (IOException e) {
-					}
-					if (!alive)
-						coordinationStringRedisTemplate.opsForList().remove(NAMESPACE + group, 0, member);
+				try {
+					heartbeat(group);
+				} catch (Exception e) {
+					log.error(e.getMessage(), e);
+					checkLease(group);
 				}
 			}
 		}, heartbeat);
@@ -104,14 +113,20 @@ public class RedisMembership implements Membership {
 
 	@Override
 	public void join(String group) {
-		coordinationStringRedisTemplate.opsForList().leftPush(NAMESPACE + group, AppInfo.getInstanceId());
 		groups.add(group);
+		heartbeat(group);
 	}
 
 	@Override
 	public void leave(String group) {
-		coordinationStringRedisTemplate.opsForList().remove(NAMESPACE + group, 0, AppInfo.getInstanceId());
 		groups.remove(group);
+		String self = AppInfo.getInstanceId();
+		coordinationStringRedisTemplate.opsForZSet().remove(membersKey(group), self);
+		if (legacyCompatible)
+			coordinationStringRedisTemplate.opsForList().remove(legacyKey(group), 0, self);
+		coordinationStringRedisTemplate.execute(compareAndDeleteScript, Collections.singletonList(leaderKey(group)),
+				self);
+		updateLeader(group, null);
 	}
 
 	@Override
@@ -121,21 +136,158 @@ public class RedisMembership implements Membership {
 
 	@Override
 	public String getLeader(String group) {
-		List<String> list = getMembers(group);
-		if (!list.isEmpty())
-			return list.get(0);
-		return null;
+		if (groups.contains(group)) {
+			checkLease(group);
+			return leaders.get(group);
+		}
+		return coordinationStringRedisTemplate.opsForValue().get(leaderKey(group));
 	}
 
 	@Override
 	public List<String> getMembers(String group) {
-		return coordinationStringRedisTemplate.opsForList().range(NAMESPACE + group, 0, -1);
+		Set<String> members = coordinationStringRedisTemplate.opsForZSet().rangeByScore(membersKey(group),
+				serverTime(), Double.POSITIVE_INFINITY);
+		List<String> list = members != null ? new ArrayList<>(members) : new ArrayList<>();
+		if (legacyCompatible) {
+			List<String> legacyMembers = coordinationStringRedisTemplate.opsForList().range(legacyKey(group), 0, -1);
+			if (legacyMembers != null && !legacyMembers.isEmpty()) {
+				Set<String> upgraded = coordinationStringRedisTemplate.opsForSet().members(upgradedKey(group));
+				for (String member : legacyMembers)
+					if (!list.contains(member) && (upgraded == null || !upgraded.contains(member)))
+						list.add(member);
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void onEvent(String event, String key) {
+		if (!key.startsWith(NAMESPACE + '{') || !key.endsWith(LEADER_SUFFIX))
+			return;
+		String group = key.substring(NAMESPACE.length() + 1, key.length() - LEADER_SUFFIX.length());
+		if (!groups.contains(group))
+			return;
+		if ("set".equals(event))
+			updateLeader(group, coordinationStringRedisTemplate.opsForValue().get(key));
+		else if ("del".equals(event) || "expired".equals(event))
+			heartbeat(group); // take over without waiting for next heartbeat
 	}
 
 	@PreDestroy
 	public void destroy() {
-		for (String group : groups)
-			coordinationStringRedisTemplate.opsForList().remove(NAMESPACE + group, 0, AppInfo.getInstanceId());
+		for (String group : new ArrayList<>(groups)) {
+			try {
+				leave(group);
+			} catch (Exception e) {
+				log.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	private void heartbeat(String group) {
+		long ttl = 3L * heartbeat;
+		// lease is counted from sending request to stay within expiry on server
+		long expiry = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl);
+		String self = AppInfo.getInstanceId();
+		String leader = coordinationStringRedisTemplate.execute(heartbeatScript,
+				Arrays.asList(leaderKey(group), membersKey(group)), self, String.valueOf(ttl));
+		if (legacyCompatible)
+			leader = reconcileLegacy(group, self, leader);
+		if (groups.contains(group)) {
+			if (self.equals(leader))
+				leaseExpiries.put(group, expiry);
+			updateLeader(group, leader);
+		}
+	}
+
+	private String reconcileLegacy(String group, String self, String leader) {
+		String legacyKey = legacyKey(group);
+		String upgradedKey = upgradedKey(group);
+		coordinationStringRedisTemplate.opsForSet().add(upgradedKey, self);
+		coordinationStringRedisTemplate.expire(upgradedKey, 1, TimeUnit.DAYS);
+		List<String> legacyMembers = coordinationStringRedisTemplate.opsForList().range(legacyKey, 0, -1);
+		if (legacyMembers == null)
+			return leader;
+		if (!legacyMembers.contains(self))
+			coordinationStringRedisTemplate.opsForList().rightPush(legacyKey, self);
+		Set<String> upgraded = coordinationStringRedisTemplate.opsForSet().members(upgradedKey);
+		if (upgraded == null)
+			upgraded = Collections.emptySet();
+		Set<String> alive = coordinationStringRedisTemplate.opsForZSet().rangeByScore(membersKey(group), serverTime(),
+				Double.POSITIVE_INFINITY);
+		String legacyLeader = null;
+		for (String member : legacyMembers) {
+			if (member.equals(self))
+				break;
+			if (!upgraded.contains(member)) {
+				legacyLeader = member;
+				break;
+			}
+			if (alive == null || !alive.contains(member)) {
+				// upgraded member crashed, no legacy node may be left to remove it
+				coordinationStringRedisTemplate.opsForList().remove(legacyKey, 0, member);
+				continue;
+			}
+			break;
+		}
+		// legacy node regards itself as leader, lease holder keeps the lease but
+		// must not act as leader until legacy nodes are gone
+		return legacyLeader != null ? legacyLeader : leader;
+	}
+
+	private void checkLease(String group) {
+		Long expiry = leaseExpiries.get(group);
+		if (expiry != null && System.nanoTime() - expiry >= 0 && AppInfo.getInstanceId().equals(leaders.get(group))) {
+			log.warn("Leader lease of group '{}' expired without renewal", group);
+			updateLeader(group, null);
+		}
+	}
+
+	private long serverTime() {
+		Long time = coordinationStringRedisTemplate.execute((RedisConnection connection) -> connection.time());
+		return time != null ? time : System.currentTimeMillis();
+	}
+
+	private synchronized void updateLeader(String group, String leader) {
+		String previous = leader != null ? leaders.put(group, leader) : leaders.remove(group);
+		String self = AppInfo.getInstanceId();
+		if (!self.equals(leader))
+			leaseExpiries.remove(group);
+		boolean wasLeader = self.equals(previous);
+		boolean isLeader = self.equals(leader);
+		if (wasLeader == isLeader)
+			return;
+		log.info("{} leadership of group '{}'", isLeader ? "Acquired" : "Lost", group);
+		for (LeaderChangeListener listener : leaderChangeListeners) {
+			if (!listener.supports(group))
+				continue;
+			try {
+				if (isLeader)
+					listener.isLeader();
+				else
+					listener.notLeader();
+			} catch (Exception e) {
+				log.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	// hash tag keeps keys of one group in the same slot
+	private static String leaderKey(String group) {
+		return NAMESPACE + '{' + group + LEADER_SUFFIX;
+	}
+
+	private static String membersKey(String group) {
+		return NAMESPACE + '{' + group + MEMBERS_SUFFIX;
+	}
+
+	private static String upgradedKey(String group) {
+		return NAMESPACE + '{' + group + UPGRADED_SUFFIX;
+	}
+
+	// key of legacy list layout
+	private static String legacyKey(String group) {
+		return NAMESPACE + group;
 	}
 
 }
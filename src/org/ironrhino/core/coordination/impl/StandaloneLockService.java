@@ -4,6 +4,7 @@ import static org.ironrhino.core.metadata.Profiles.DEFAULT;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.ironrhino.core.coordination.LockService;
 import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
@@ -15,17 +16,34 @@ public class StandaloneLockService implements LockService {
 
 	private Map<String, Long> locks = new ConcurrentHashMap<>();
 
+	private Map<String, Long> fencingTokens = new ConcurrentHashMap<>();
+
+	private AtomicLong fencingSequence = new AtomicLong();
+
 	@Override
 	public boolean tryLock(String name) {
-		return locks.putIfAbsent(name, Thread.currentThread().getId()) == null;
+		if (locks.putIfAbsent(name, Thread.currentThread().getId()) != null)
+			return false;
+		fencingTokens.put(name, fencingSequence.incrementAndGet());
+		return true;
 	}
 
 	@Override
 	public void unlock(String name) {
+		Long token = fencingTokens.get(name);
 		if (!locks.remove(name, Thread.currentThread().getId())) {
 			throw new IllegalStateException(
 					"Lock[" + name + "] is not held by thread:" + Thread.currentThread().getName());
 		}
+		if (token != null)
+			fencingTokens.remove(name, token);
+	}
+
+	@Override
+	public long getFencingToken(String name) {
+		Long threadId = locks.get(name);
+		Long token = fencingTokens.get(name);
+		return threadId != null && threadId == Thread.currentThread().getId() && token != null ? token : -1;
 	}
 
 }
\ No newline at end of file
@@ -3,13 +3,16 @@ package org.ironrhino.core.coordination.impl;
 import static org.ironrhino.core.metadata.Profiles.DEFAULT;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.ironrhino.core.coordination.LeaderChangeListener;
 import org.ironrhino.core.coordination.Membership;
 import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
 import org.ironrhino.core.util.AppInfo;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component("membership")
@@ -18,6 +21,9 @@ public class StandaloneMembership implements Membership {
 
 	private Map<String, List<String>> groups = new HashMap<>();
 
+	@Autowired(required = false)
+	private List<LeaderChangeListener> leaderChangeListeners = Collections.emptyList();
+
 	@Override
 	public void join(String group) {
 		List<String> members = groups.get(group);
@@ -26,8 +32,11 @@ public class StandaloneMembership implements Membership {
 			groups.put(group, members);
 		}
 		String instanceId = AppInfo.getInstanceId();
-		if (!members.contains(instanceId))
+		if (!members.contains(instanceId)) {
 			members.add(instanceId);
+			if (members.size() == 1)
+				leaderChanged(group, true);
+		}
 	}
 
 	@Override
@@ -35,7 +44,10 @@ public class StandaloneMembership implements Membership {
 		List<String> members = groups.get(group);
 		if (members != null) {
 			String instanceId = AppInfo.getInstanceId();
+			boolean wasLeader = isLeader(group);
 			members.remove(instanceId);
+			if (wasLeader)
+				leaderChanged(group, false);
 		}
 	}
 
@@ -58,4 +70,15 @@ public class StandaloneMembership implements Membership {
 		return groups.get(group);
 	}
 
+	private void leaderChanged(String group, boolean isLeader) {
+		for (LeaderChangeListener listener : leaderChangeListeners) {
+			if (!listener.supports(group))
+				continue;
+			if (isLeader)
+				listener.isLeader();
+			else
+				listener.notLeader();
+		}
+	}
+
 }
@@ -7,7 +7,7 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.ironrhino.core.aop.BaseAspect;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 
 @Aspect
 public class DataRouteAspect extends BaseAspect {
@@ -18,9 +18,12 @@ public class DataRouteAspect extends BaseAspect {
 
 	@Around("execution(public * *(..)) and @annotation(dataRoute)")
 	public Object routeByMethod(ProceedingJoinPoint pjp, DataRoute dataRoute) throws Throwable {
-		Map<String, Object> context = buildContext(pjp);
-		String nodeName = ExpressionUtils.evalString(dataRoute.nodeName(), context);
-		Object routingKey = ExpressionUtils.eval(dataRoute.routingKey(), context);
+		ExpressionTemplate nodeNameTemplate = ExpressionTemplate.of(dataRoute.nodeName());
+		ExpressionTemplate routingKeyTemplate = ExpressionTemplate.of(dataRoute.routingKey());
+		Map<String, Object> context = nodeNameTemplate.isConstant() && routingKeyTemplate.isConstant() ? null
+				: buildContext(pjp);
+		String nodeName = nodeNameTemplate.evalString(context);
+		Object routingKey = routingKeyTemplate.eval(context);
 		String routerName = dataRoute.routerName();
 		boolean routingKeyPresent = !(routingKey == null
 				|| routingKey instanceof String && StringUtils.isBlank((String) routingKey));
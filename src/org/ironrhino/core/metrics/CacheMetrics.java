@@ -0,0 +1,108 @@
+package org.ironrhino.core.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class CacheMetrics {
+
+	private static final String DEFAULT_NAMESPACE = "_default";
+
+	private static final Map<String, KeySampler> keySamplers = new ConcurrentHashMap<>();
+
+	// meters are looked up once per namespace instead of registering on every call
+	private static final Map<String, Timer> callTimers = new ConcurrentHashMap<>();
+
+	private static final Map<String, DistributionSummary> sizeSummaries = new ConcurrentHashMap<>();
+
+	private static final Map<String, Timer> stampedeWaitTimers = new ConcurrentHashMap<>();
+
+	public static void recordCall(String namespace, String operation, long time, TimeUnit unit) {
+		if (!Metrics.isEnabled())
+			return;
+		String ns = normalize(namespace);
+		callTimers.computeIfAbsent(ns + ':' + operation, k -> io.micrometer.core.instrument.Metrics
+				.timer("cache.calls", "namespace", ns, "operation", operation)).record(time, unit);
+	}
+
+	public static void recordSize(String namespace, String type, long bytes) {
+		if (!Metrics.isEnabled())
+			return;
+		String ns = normalize(namespace);
+		sizeSummaries.computeIfAbsent(ns + ':' + type, k -> io.micrometer.core.instrument.Metrics
+				.summary("cache.size", "namespace", ns, "type", type)).record(bytes);
+	}
+
+	// each record is a request denied by throughPermits, time is how long it actually waited
+	public static void recordStampedeWait(String namespace, long time, TimeUnit unit) {
+		if (!Metrics.isEnabled())
+			return;
+		String ns = normalize(namespace);
+		stampedeWaitTimers.computeIfAbsent(ns,
+				k -> Timer.builder("cache.stampede.wait").tags("namespace", ns).publishPercentileHistogram()
+						.register(io.micrometer.core.instrument.Metrics.globalRegistry))
+				.record(time, unit);
+	}
+
+	public static void sampleKey(String namespace, String key) {
+		if (!Metrics.isEnabled() || key == null)
+			return;
+		String ns = normalize(namespace);
+		KeySampler sampler = keySamplers.get(ns);
+		if (sampler == null)
+			sampler = keySamplers.computeIfAbsent(ns, k -> Metrics.gauge("cache.keys", new KeySampler(),
+					KeySampler::estimate, "namespace", k));
+		sampler.offer(key);
+	}
+
+	private static String normalize(String namespace) {
+		return StringUtils.isBlank(namespace) ? DEFAULT_NAMESPACE : namespace;
+	}
+
+	// adaptive distinct sampling, memory is bounded by MAX_SAMPLES
+	static class KeySampler {
+
+		static final int MAX_SAMPLES = 1024;
+
+		private final Set<Integer> samples = ConcurrentHashMap.newKeySet();
+
+		private volatile int level;
+
+		void offer(String key) {
+			int hash = mix(key.hashCode());
+			if ((hash & ((1 << level) - 1)) != 0)
+				return;
+			if (samples.add(hash) && samples.size() > MAX_SAMPLES) {
+				synchronized (this) {
+					while (samples.size() > MAX_SAMPLES && level < 30) {
+						int mask = (1 << ++level) - 1;
+						samples.removeIf(h -> (h & mask) != 0);
+					}
+				}
+			}
+		}
+
+		double estimate() {
+			return (double) samples.size() * (1L << level);
+		}
+
+		private static int mix(int h) {
+			h ^= h >>> 16;
+			h *= 0x85ebca6b;
+			h ^= h >>> 13;
+			h *= 0xc2b2ae35;
+			h ^= h >>> 16;
+			return h;
+		}
+
+	}
+
+}
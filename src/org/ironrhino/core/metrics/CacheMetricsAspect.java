@@ -0,0 +1,81 @@
+package org.ironrhino.core.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.ironrhino.core.aop.BaseAspect;
+import org.ironrhino.core.spring.configuration.ClassPresentConditional;
+import org.springframework.core.Ordered;
+
+@Aspect
+@ClassPresentConditional("io.micrometer.core.instrument.Metrics")
+public class CacheMetricsAspect extends BaseAspect {
+
+	private final Map<Method, int[]> parameterIndexes = new ConcurrentHashMap<>();
+
+	public CacheMetricsAspect() {
+		order = Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Around("execution(public * org.ironrhino.core.cache.CacheManager+.*(..))")
+	public Object timing(ProceedingJoinPoint pjp) throws Throwable {
+		if (!Metrics.isEnabled())
+			return pjp.proceed();
+		MethodSignature signature = (MethodSignature) pjp.getSignature();
+		int[] indexes = parameterIndexes.computeIfAbsent(signature.getMethod(),
+				m -> findParameterIndexes(signature.getParameterNames()));
+		if (indexes[0] < 0)
+			return pjp.proceed();
+		Object[] args = pjp.getArgs();
+		String namespace = (String) args[indexes[0]];
+		if (indexes[1] >= 0) {
+			Object key = args[indexes[1]];
+			if (key instanceof String) {
+				CacheMetrics.sampleKey(namespace, (String) key);
+			} else if (key instanceof Collection) {
+				for (Object k : (Collection<?>) key)
+					CacheMetrics.sampleKey(namespace, (String) k);
+			} else if (key instanceof Map) {
+				for (Object k : ((Map<?, ?>) key).keySet())
+					CacheMetrics.sampleKey(namespace, (String) k);
+			}
+		}
+		String operation = signature.getName();
+		long start = System.nanoTime();
+		Object result = null;
+		try {
+			result = pjp.proceed();
+			return result;
+		} finally {
+			if (result instanceof CompletableFuture) {
+				((CompletableFuture<?>) result).whenComplete((r, e) -> CacheMetrics.recordCall(namespace, operation,
+						System.nanoTime() - start, TimeUnit.NANOSECONDS));
+			} else {
+				CacheMetrics.recordCall(namespace, operation, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+	private static int[] findParameterIndexes(String[] parameterNames) {
+		int[] indexes = { -1, -1 };
+		if (parameterNames == null)
+			return indexes;
+		for (int i = 0; i < parameterNames.length; i++) {
+			String name = parameterNames[i];
+			if (name.equals("namespace"))
+				indexes[0] = i;
+			else if (name.equals("key") || name.equals("keys") || name.equals("map"))
+				indexes[1] = i;
+		}
+		return indexes;
+	}
+
+}
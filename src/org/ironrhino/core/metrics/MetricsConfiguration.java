@@ -67,6 +67,11 @@ public class MetricsConfiguration {
 		return new TimedAspect();
 	}
 
+	@Bean
+	public CacheMetricsAspect cacheMetricsAspect() {
+		return new CacheMetricsAspect();
+	}
+
 	@Bean
 	protected static BeanPostProcessor metricsBeanPostProcessor(Environment env) {
 		return new BeanPostProcessor() {
@@ -13,7 +13,7 @@ import org.ironrhino.core.aop.BaseAspect;
 import org.ironrhino.core.spring.NameGenerator;
 import org.ironrhino.core.spring.configuration.ClassPresentConditional;
 import org.ironrhino.core.util.CheckedCallable;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -52,9 +52,13 @@ public class TimedAspect extends BaseAspect {
 		}
 		String[] tags = timed.extraTags();
 		if (tags.length > 0) {
-			Map<String, Object> context = buildContext(pjp);
-			for (int i = 0; i < tags.length; i += 2)
-				tags[i + 1] = ExpressionUtils.evalString(tags[i + 1], context);
+			Map<String, Object> context = null;
+			for (int i = 0; i < tags.length; i += 2) {
+				ExpressionTemplate template = ExpressionTemplate.of(tags[i + 1]);
+				if (context == null && !template.isConstant())
+					context = buildContext(pjp);
+				tags[i + 1] = template.evalString(context);
+			}
 		}
 		if (timed.longTask()) {
 			LongTaskTimer longTaskTimer = LongTaskTimer.builder(name).tags(tags).register(registry);
@@ -0,0 +1,17 @@
+package org.ironrhino.core.remoting;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Streaming result of remote method, it holds connection until consumed
+ * entirely or closed, so close it if not consumed entirely. Service method may
+ * declare it as return type, iterator returned by method declaring
+ * {@code Iterator} is instance of it too.
+ */
+public interface CloseableIterator<E> extends Iterator<E>, Closeable {
+
+	@Override
+	void close();
+
+}
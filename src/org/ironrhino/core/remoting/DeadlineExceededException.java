@@ -0,0 +1,12 @@
+package org.ironrhino.core.remoting;
+
+import org.ironrhino.core.util.LocalizedException;
+
+public class DeadlineExceededException extends LocalizedException {
+
+	private static final long serialVersionUID = 5170284461361218512L;
+
+	public DeadlineExceededException(String service) {
+		super(service);
+	}
+}
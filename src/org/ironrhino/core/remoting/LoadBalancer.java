@@ -0,0 +1,21 @@
+package org.ironrhino.core.remoting;
+
+import java.util.List;
+
+public interface LoadBalancer {
+
+	// candidates are registered hosts, host in callbacks is normalized host returned by discover
+	String choose(String serviceName, List<String> candidates);
+
+	default void onRequestStart(String host) {
+	}
+
+	default void onRequestComplete(String host, long elapsedNanos, boolean failed) {
+	}
+
+	// request is shed by overloaded host, neither success nor failure
+	default void onRequestRejected(String host, long elapsedNanos) {
+		onRequestComplete(host, elapsedNanos, false);
+	}
+
+}
@@ -0,0 +1,7 @@
+package org.ironrhino.core.remoting;
+
+public enum LoadBalancingStrategy {
+
+	ROUND_ROBIN, LEAST_OUTSTANDING_REQUESTS, PEAK_EWMA, POWER_OF_TWO_CHOICES;
+
+}
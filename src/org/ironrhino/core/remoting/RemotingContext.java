@@ -1,5 +1,8 @@
 package org.ironrhino.core.remoting;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
@@ -7,6 +10,11 @@ public class RemotingContext {
 
 	public static final int SC_SERIALIZATION_FAILED = 499;
 
+	public static final int SC_DEADLINE_EXCEEDED = 498;
+
+	// load shed before invocation, safe to retry on another host
+	public static final int SC_OVERLOADED = 497;
+
 	public static final String CONTENT_TYPE_JAVA_SERIALIZED_OBJECT = "application/x-java-serialized-object";
 
 	public static final String CONTENT_TYPE_FST_SERIALIZED_OBJECT = "application/x-fst-serialized-object";
@@ -17,6 +25,70 @@ public class RemotingContext {
 
 	public static final String CONTENT_TYPE_CBOR = "application/cbor";
 
+	public static final String CONTENT_TYPE_BINARY = "application/x-remoting-binary";
+
 	public static final String HTTP_HEADER_EXCEPTION_MESSAGE = "X-Exception-Message";
 
-}
\ No newline at end of file
+	// remaining milliseconds, relative to avoid clock skew between hosts
+	public static final String HTTP_HEADER_DEADLINE = "X-Deadline";
+
+	public static final String ATTRIBUTE_DEADLINE = "deadline";
+
+	private static final ThreadLocal<Map<String, Object>> attributes = new ThreadLocal<>();
+
+	public static Object getAttribute(String name) {
+		Map<String, Object> map = attributes.get();
+		return map != null ? map.get(name) : null;
+	}
+
+	public static void setAttribute(String name, Object value) {
+		if (value == null) {
+			removeAttribute(name);
+			return;
+		}
+		Map<String, Object> map = attributes.get();
+		if (map == null)
+			attributes.set(map = new HashMap<>());
+		map.put(name, value);
+	}
+
+	public static void removeAttribute(String name) {
+		Map<String, Object> map = attributes.get();
+		if (map != null) {
+			map.remove(name);
+			if (map.isEmpty())
+				attributes.remove();
+		}
+	}
+
+	public static Map<String, Object> getAttributes() {
+		Map<String, Object> map = attributes.get();
+		return map != null ? new HashMap<>(map) : null;
+	}
+
+	public static void setAttributes(Map<String, Object> map) {
+		if (map == null || map.isEmpty())
+			attributes.remove();
+		else
+			attributes.set(new HashMap<>(map));
+	}
+
+	// absolute deadline in epoch milliseconds
+	public static Long getDeadline() {
+		return (Long) getAttribute(ATTRIBUTE_DEADLINE);
+	}
+
+	public static void setDeadline(Long deadline) {
+		setAttribute(ATTRIBUTE_DEADLINE, deadline);
+	}
+
+	public static long getRemainingTime() {
+		Long deadline = getDeadline();
+		return deadline != null ? deadline - System.currentTimeMillis() : Long.MAX_VALUE;
+	}
+
+	public static boolean isDeadlineExceeded() {
+		return getRemainingTime() <= 0;
+	}
+
+}
@@ -0,0 +1,31 @@
+package org.ironrhino.core.remoting;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+// on method overrides on interface
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+public @interface RemotingPolicy {
+
+	// milliseconds, propagated to server and nested calls, 0 means no deadline
+	int timeout() default 0;
+
+	// fire second attempt at another host if first is slow, only for idempotent methods
+	boolean hedged() default false;
+
+	// milliseconds, 0 means use percentile of observed latency
+	int hedgingDelay() default 0;
+
+	double hedgingPercentile() default 95;
+
+	// milliseconds to wait for concurrent calls to same host, they are sent as one request, 0 means no batching
+	int batchingWindow() default 0;
+
+	int maxBatchSize() default 100;
+
+}
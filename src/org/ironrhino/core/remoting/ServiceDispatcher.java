@@ -0,0 +1,120 @@
+package org.ironrhino.core.remoting;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.ClassUtils;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+// dispatch table of exported service, built once at export time
+@Slf4j
+public class ServiceDispatcher {
+
+	private static final DispatchedMethod[] EMPTY = new DispatchedMethod[0];
+
+	@Getter
+	private final Class<?> serviceInterface;
+
+	@Getter
+	private final Object target;
+
+	private final Map<String, DispatchedMethod[]> methods;
+
+	public ServiceDispatcher(Class<?> serviceInterface, Object target) {
+		this.serviceInterface = serviceInterface;
+		this.target = target;
+		Map<String, List<DispatchedMethod>> map = new HashMap<>();
+		for (Method method : serviceInterface.getMethods()) {
+			if (Modifier.isStatic(method.getModifiers()))
+				continue;
+			try {
+				map.computeIfAbsent(method.getName(), k -> new ArrayList<>())
+						.add(new DispatchedMethod(serviceInterface, method, target));
+			} catch (IllegalAccessException | ClassCastException e) {
+				log.warn("Fallback to reflection for {}: {}", method, e.getMessage());
+			}
+		}
+		Map<String, DispatchedMethod[]> methods = new HashMap<>((int) (map.size() / 0.75f) + 1);
+		map.forEach((k, v) -> methods.put(k, v.toArray(EMPTY)));
+		this.methods = methods;
+	}
+
+	// null if not found
+	public DispatchedMethod getMethod(String methodName, Class<?>[] parameterTypes) {
+		DispatchedMethod[] candidates = methods.get(methodName);
+		if (candidates != null)
+			for (DispatchedMethod candidate : candidates)
+				if (Arrays.equals(candidate.parameterTypes, parameterTypes))
+					return candidate;
+		return null;
+	}
+
+	@Getter
+	public static class DispatchedMethod {
+
+		private final Method method;
+
+		private final Class<?>[] parameterTypes;
+
+		private final String serviceName;
+
+		// for example: echo(String)
+		private final String signature;
+
+		// for example: org.ironrhino.sample.remoting.TestService.echo(String)
+		private final String qualifiedSignature;
+
+		private final MethodHandle methodHandle;
+
+		DispatchedMethod(Class<?> serviceInterface, Method method, Object target) throws IllegalAccessException {
+			this.method = method;
+			this.parameterTypes = method.getParameterTypes();
+			this.serviceName = serviceInterface.getName();
+			StringBuilder sb = new StringBuilder(method.getName()).append('(');
+			for (int i = 0; i < parameterTypes.length; i++) {
+				if (i > 0)
+					sb.append(',');
+				sb.append(parameterTypes[i].getSimpleName());
+			}
+			this.signature = sb.append(')').toString();
+			this.qualifiedSignature = serviceName + '.' + signature;
+			this.methodHandle = MethodHandles.publicLookup().unreflect(method).bindTo(target)
+					.asSpreader(Object[].class, parameterTypes.length)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+		}
+
+		// same contract as Method.invoke()
+		public Object invoke(Object[] arguments) throws InvocationTargetException {
+			if ((arguments == null ? 0 : arguments.length) != parameterTypes.length)
+				throw new IllegalArgumentException("Wrong number of arguments");
+			// checked upfront since ClassCastException thrown by handle is indistinguishable from target's
+			for (int i = 0; i < parameterTypes.length; i++) {
+				Object argument = arguments[i];
+				if (argument == null ? parameterTypes[i].isPrimitive()
+						: !ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i]).isInstance(argument))
+					throw new IllegalArgumentException("Argument type mismatch");
+			}
+			try {
+				return (Object) methodHandle.invokeExact(arguments);
+			} catch (WrongMethodTypeException e) {
+				throw new IllegalArgumentException(e.getMessage(), e);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+
+	}
+
+}
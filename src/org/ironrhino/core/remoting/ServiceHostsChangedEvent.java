@@ -0,0 +1,38 @@
+package org.ironrhino.core.remoting;
+
+import org.ironrhino.core.event.BaseEvent;
+
+import lombok.Getter;
+
+public class ServiceHostsChangedEvent extends BaseEvent<String> {
+
+	private static final long serialVersionUID = 6139562411286386374L;
+
+	@Getter
+	private String host;
+
+	// false means host added
+	@Getter
+	private boolean removed;
+
+	@Getter
+	private long version;
+
+	public ServiceHostsChangedEvent(String serviceName, String host, boolean removed, long version) {
+		super(serviceName);
+		this.host = host;
+		this.removed = removed;
+		this.version = version;
+	}
+
+	public String getServiceName() {
+		return getSource();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + "[serviceName=" + getSource() + ",host=" + host + ",removed=" + removed
+				+ ",version=" + version + "]";
+	}
+
+}
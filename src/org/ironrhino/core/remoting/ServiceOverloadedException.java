@@ -0,0 +1,12 @@
+package org.ironrhino.core.remoting;
+
+import org.ironrhino.core.util.LocalizedException;
+
+public class ServiceOverloadedException extends LocalizedException {
+
+	private static final long serialVersionUID = -2260463405329562787L;
+
+	public ServiceOverloadedException(String service) {
+		super(service);
+	}
+}
@@ -12,6 +12,10 @@ public interface ServiceRegistry {
 	// key: service name, value: service object
 	Map<String, Object> getExportedServices();
 
+	default ServiceDispatcher getServiceDispatcher(String serviceName) {
+		return null;
+	}
+
 	default void register(String serviceName, Object serviceObject) {
 		register(serviceName, null, serviceObject);
 	}
@@ -28,6 +32,10 @@ public interface ServiceRegistry {
 
 	void evict(String host);
 
+	default LoadBalancer getLoadBalancer() {
+		return null;
+	}
+
 	Collection<String> getAllAppNames();
 
 	// key: service name, value: service description
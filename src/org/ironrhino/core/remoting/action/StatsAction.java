@@ -13,6 +13,7 @@ import org.ironrhino.core.metadata.AutoConfig;
 import org.ironrhino.core.model.Tuple;
 import org.ironrhino.core.remoting.stats.InvocationSample;
 import org.ironrhino.core.remoting.stats.InvocationWarning;
+import org.ironrhino.core.remoting.stats.LatencyPercentiles;
 import org.ironrhino.core.remoting.stats.ServiceStats;
 import org.ironrhino.core.remoting.stats.StatsType;
 import org.ironrhino.core.security.role.UserRole;
@@ -74,6 +75,9 @@ public class StatsAction extends BaseAction {
 	@Getter
 	private List<InvocationSample> samples;
 
+	@Getter
+	private LatencyPercentiles percentiles;
+
 	@Autowired(required = false)
 	private ServiceStats serviceStats;
 
@@ -103,6 +107,26 @@ public class StatsAction extends BaseAction {
 		return "samples";
 	}
 
+	public String percentiles() {
+		if (serviceStats == null) {
+			addActionError("Require bean serviceStats");
+			return ERROR;
+		}
+		if (StringUtils.isNotBlank(service)) {
+			Date start, end;
+			if (from != null && to != null && from.before(to)) {
+				start = DateUtils.beginOfDay(from);
+				end = DateUtils.endOfDay(to);
+			} else {
+				Date d = date != null ? date : new Date();
+				start = DateUtils.beginOfDay(d);
+				end = DateUtils.endOfDay(d);
+			}
+			percentiles = serviceStats.getPercentiles(service, type, start, end);
+		}
+		return "percentiles";
+	}
+
 	public String count() {
 		if (from != null && to != null && from.before(to)) {
 			dataList = new ArrayList<>();
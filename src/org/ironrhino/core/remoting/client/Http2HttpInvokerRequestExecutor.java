@@ -0,0 +1,418 @@
+package org.ironrhino.core.remoting.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.lang3.StringUtils;
+import org.ironrhino.core.metrics.Metrics;
+import org.ironrhino.core.remoting.DeadlineExceededException;
+import org.ironrhino.core.remoting.RemotingContext;
+import org.ironrhino.core.remoting.ServiceOverloadedException;
+import org.ironrhino.core.servlet.AccessFilter;
+import org.ironrhino.core.tracing.Tracing;
+import org.ironrhino.core.util.AppInfo;
+import org.ironrhino.core.util.CounterUtils;
+import org.ironrhino.core.util.NameableThreadFactory;
+import org.slf4j.MDC;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import lombok.Getter;
+import lombok.Setter;
+
+// multiplex invocations over a few HTTP/2 connections per host, server should accept h2c with prior knowledge
+// response is aggregated before decoding, streaming result is not consumed incrementally
+public class Http2HttpInvokerRequestExecutor extends HttpInvokerRequestExecutor {
+
+	@Getter
+	@Setter
+	private int maxConnectionsPerHost = 2;
+
+	@Getter
+	@Setter
+	private int maxContentLength = 64 * 1024 * 1024;
+
+	@Getter
+	@Setter
+	private int ioThreads;
+
+	// connections to host without invocation in this period are closed, 0 means never
+	@Getter
+	@Setter
+	private int idleTimeout = 300000;
+
+	private EventLoopGroup eventLoopGroup;
+
+	private Bootstrap bootstrap;
+
+	private final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		eventLoopGroup = new NioEventLoopGroup(ioThreads, new NameableThreadFactory("http2Invoker"));
+		bootstrap = new Bootstrap().group(eventLoopGroup).channel(NioSocketChannel.class)
+				.option(ChannelOption.TCP_NODELAY, true).handler(new ChannelInitializer<SocketChannel>() {
+					@Override
+					protected void initChannel(SocketChannel ch) {
+						// server push is not used
+						ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build(),
+								new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+					}
+				});
+		Metrics.gauge("remoting.client.http2.connections", pools,
+				map -> map.values().stream().mapToInt(ConnectionPool::getActiveConnections).sum());
+		Metrics.gauge("remoting.client.http2.streams", pools,
+				map -> map.values().stream().mapToInt(ConnectionPool::getActiveStreams).sum());
+		if (idleTimeout > 0) {
+			long period = Math.max(idleTimeout / 2, 1);
+			eventLoopGroup.scheduleAtFixedRate(this::closeIdlePools, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		pools.values().forEach(ConnectionPool::close);
+		pools.clear();
+		if (eventLoopGroup != null)
+			eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+	}
+
+	// evicted host is no longer invoked then closed as idle
+	private void closeIdlePools() {
+		long now = System.nanoTime();
+		pools.forEach((authority, pool) -> {
+			if (pool.isIdle(now) && pools.remove(authority, pool))
+				pool.close();
+		});
+	}
+
+	@Override
+	protected RemoteInvocationResult doExecuteRequest(String serviceUrl, MethodInvocation methodInvocation,
+			ByteArrayOutputStream baos) throws IOException {
+		Response response = execute(serviceUrl, baos);
+		return readRemoteInvocationResult(response.contentType, methodInvocation,
+				new ByteArrayInputStream(response.body));
+	}
+
+	@Override
+	protected List<RemoteInvocationResult> doExecuteBatchRequest(String serviceUrl,
+			List<MethodInvocation> methodInvocations, ByteArrayOutputStream baos) throws IOException {
+		Response response = execute(serviceUrl, baos);
+		return readRemoteInvocationResults(response.contentType, methodInvocations,
+				new ByteArrayInputStream(response.body));
+	}
+
+	private Response execute(String serviceUrl, ByteArrayOutputStream baos) throws IOException {
+		URI uri = URI.create(serviceUrl);
+		int port = uri.getPort() > 0 ? uri.getPort() : 80;
+		String authority = uri.getHost() + ':' + port;
+		String path = uri.getRawQuery() != null ? uri.getRawPath() + '?' + uri.getRawQuery() : uri.getRawPath();
+		FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, path,
+				Unpooled.wrappedBuffer(baos.toByteArray()));
+		prepareRequest(request, authority, uri.getScheme());
+
+		Channel channel;
+		do {
+			ConnectionPool pool = pools.computeIfAbsent(authority, key -> new ConnectionPool(uri.getHost(), port));
+			try {
+				channel = pool.acquire();
+			} catch (IOException e) {
+				// host is down, don't keep pool of it
+				if (pool.getActiveConnections() == 0 && pools.remove(authority, pool))
+					pool.close();
+				throw e;
+			}
+		} while (channel == null); // pool closed as idle concurrently
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		Http2StreamChannel stream;
+		try {
+			stream = new Http2StreamChannelBootstrap(channel).handler(new ChannelInitializer<Http2StreamChannel>() {
+				@Override
+				protected void initChannel(Http2StreamChannel ch) {
+					ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false), new HttpContentDecompressor(),
+							new HttpObjectAggregator(maxContentLength), new ResponseHandler(future));
+				}
+			}).open().sync().getNow();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (Exception e) {
+			throw e instanceof IOException ? (IOException) e : new IOException(e);
+		}
+		stream.writeAndFlush(request).addListener(f -> {
+			if (!f.isSuccess())
+				future.completeExceptionally(f.cause());
+		});
+
+		Response response;
+		int readTimeout = getEffectiveReadTimeout();
+		try {
+			response = readTimeout > 0 ? future.get(readTimeout, TimeUnit.MILLISECONDS) : future.get();
+		} catch (TimeoutException e) {
+			stream.close(); // reset stream, connection is kept
+			throw new SocketTimeoutException("Read timed out");
+		} catch (InterruptedException e) {
+			stream.close();
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		}
+
+		if (response.status == RemotingContext.SC_SERIALIZATION_FAILED) {
+			throw new SerializationFailedException(StringUtils.defaultString(response.exceptionMessage));
+		} else if (response.status == RemotingContext.SC_OVERLOADED) {
+			throw new ServiceOverloadedException(serviceUrl);
+		} else if (response.status == RemotingContext.SC_DEADLINE_EXCEEDED) {
+			throw new DeadlineExceededException(serviceUrl);
+		} else if (response.status >= 300) {
+			throw new IOException("Did not receive successful HTTP response: status code = " + response.status
+					+ ", status message = [" + response.reasonPhrase + "]");
+		}
+		return response;
+	}
+
+	protected void prepareRequest(FullHttpRequest request, String authority, String scheme) {
+		HttpHeaders headers = request.headers();
+		headers.set(HttpHeaderNames.HOST, authority);
+		headers.set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), scheme);
+		String requestId = MDC.get(AccessFilter.MDC_KEY_REQUEST_ID);
+		if (requestId != null)
+			headers.add(AccessFilter.HTTP_HEADER_REQUEST_ID, requestId);
+		String requestChain = MDC.get(AccessFilter.MDC_KEY_REQUEST_CHAIN);
+		if (requestChain != null)
+			headers.add(AccessFilter.HTTP_HEADER_REQUEST_CHAIN, requestChain);
+		headers.add(AccessFilter.HTTP_HEADER_REQUEST_FROM, AppInfo.getInstanceId(true));
+		long remaining = RemotingContext.getRemainingTime();
+		if (remaining != Long.MAX_VALUE)
+			headers.add(RemotingContext.HTTP_HEADER_DEADLINE, String.valueOf(remaining));
+
+		Tracing.inject(request);
+
+		headers.set(HTTP_HEADER_CONTENT_TYPE, getSerializer().getContentType());
+		headers.set(HTTP_HEADER_CONTENT_LENGTH, request.content().readableBytes());
+		if (isAcceptGzipEncoding())
+			headers.set(HTTP_HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
+	}
+
+	private static class Response {
+
+		int status;
+
+		String reasonPhrase;
+
+		String contentType;
+
+		String exceptionMessage;
+
+		byte[] body;
+
+	}
+
+	private static class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+		private final CompletableFuture<Response> future;
+
+		ResponseHandler(CompletableFuture<Response> future) {
+			this.future = future;
+		}
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+			Response response = new Response();
+			response.status = msg.status().code();
+			response.reasonPhrase = msg.status().reasonPhrase();
+			response.contentType = msg.headers().get(HttpHeaderNames.CONTENT_TYPE);
+			response.exceptionMessage = msg.headers().get(RemotingContext.HTTP_HEADER_EXCEPTION_MESSAGE);
+			response.body = ByteBufUtil.getBytes(msg.content());
+			future.complete(response);
+			ctx.close();
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			future.completeExceptionally(cause);
+			ctx.close();
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+			future.completeExceptionally(new ClosedChannelException());
+			super.channelInactive(ctx);
+		}
+
+	}
+
+	private class ConnectionPool {
+
+		private final String host;
+
+		private final int port;
+
+		private final AtomicReferenceArray<Channel> channels = new AtomicReferenceArray<>(maxConnectionsPerHost);
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private volatile long lastAccessTime = System.nanoTime();
+
+		private boolean closed;
+
+		ConnectionPool(String host, int port) {
+			this.host = host;
+			this.port = port;
+		}
+
+		// null if closed
+		Channel acquire() throws IOException {
+			lastAccessTime = System.nanoTime();
+			int size = channels.length();
+			int start = CounterUtils.getAndIncrement(counter, size);
+			for (int i = 0; i < size; i++) {
+				Channel channel = channels.get((start + i) % size);
+				if (channel != null && channel.isActive() && canOpenStream(channel)) {
+					Metrics.increment("remoting.client.http2.acquisitions", "reused", "true");
+					return channel;
+				}
+			}
+			synchronized (this) {
+				if (closed)
+					return null;
+				for (int i = 0; i < size; i++) {
+					int index = (start + i) % size;
+					Channel channel = channels.get(index);
+					if (channel != null && channel.isActive() && canOpenStream(channel)) {
+						// connected by another thread
+						Metrics.increment("remoting.client.http2.acquisitions", "reused", "true");
+						return channel;
+					}
+					if (channel == null || !channel.isActive() || goAwayReceived(channel)) {
+						// graceful close, in-flight streams of retired connection are still completed
+						if (channel != null && channel.isActive())
+							channel.close();
+						channel = connect();
+						channels.set(index, channel);
+						Metrics.increment("remoting.client.http2.acquisitions", "reused", "false");
+						return channel;
+					}
+				}
+			}
+			// all connections reach max concurrent streams, opening stream will fail
+			Channel channel = channels.get(start);
+			if (channel == null)
+				throw new IOException("No available connection to " + host + ':' + port);
+			return channel;
+		}
+
+		int getActiveConnections() {
+			int count = 0;
+			for (int i = 0; i < channels.length(); i++) {
+				Channel channel = channels.get(i);
+				if (channel != null && channel.isActive())
+					count++;
+			}
+			return count;
+		}
+
+		int getActiveStreams() {
+			int count = 0;
+			for (int i = 0; i < channels.length(); i++) {
+				Channel channel = channels.get(i);
+				Http2Connection connection = channel != null ? connection(channel) : null;
+				if (connection != null)
+					count += connection.numActiveStreams();
+			}
+			return count;
+		}
+
+		boolean isIdle(long now) {
+			return now - lastAccessTime >= TimeUnit.MILLISECONDS.toNanos(idleTimeout) && getActiveStreams() == 0;
+		}
+
+		synchronized void close() {
+			closed = true;
+			for (int i = 0; i < channels.length(); i++) {
+				Channel channel = channels.getAndSet(i, null);
+				if (channel != null)
+					channel.close();
+			}
+		}
+
+		private Channel connect() throws IOException {
+			Bootstrap b = bootstrap.clone();
+			if (getConnectTimeout() > 0)
+				b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, getConnectTimeout());
+			ChannelFuture cf = b.connect(host, port).awaitUninterruptibly();
+			if (!cf.isSuccess()) {
+				Throwable cause = cf.cause();
+				throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+			}
+			return cf.channel();
+		}
+
+		private boolean canOpenStream(Channel channel) {
+			Http2Connection connection = connection(channel);
+			return connection != null && !connection.goAwayReceived() && connection.local().canOpenStream();
+		}
+
+		private boolean goAwayReceived(Channel channel) {
+			Http2Connection connection = connection(channel);
+			return connection == null || connection.goAwayReceived();
+		}
+
+		private Http2Connection connection(Channel channel) {
+			Http2FrameCodec codec = channel.pipeline().get(Http2FrameCodec.class);
+			return codec != null ? codec.connection() : null;
+		}
+
+	}
+
+}
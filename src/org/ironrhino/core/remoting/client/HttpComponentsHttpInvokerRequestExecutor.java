@@ -1,17 +1,17 @@
 package org.ironrhino.core.remoting.client;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import org.aopalliance.intercept.MethodInvocation;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
-import org.apache.http.HttpEntity;
 import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -19,9 +19,10 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.ironrhino.core.remoting.DeadlineExceededException;
 import org.ironrhino.core.remoting.RemotingContext;
-import org.ironrhino.core.remoting.serializer.HttpInvokerSerializer;
-import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.ironrhino.core.remoting.ServiceOverloadedException;
+import org.ironrhino.core.remoting.serializer.HttpInvokerStreams;
 import org.ironrhino.core.servlet.AccessFilter;
 import org.ironrhino.core.tracing.Tracing;
 import org.ironrhino.core.util.AppInfo;
@@ -61,6 +62,40 @@ public class HttpComponentsHttpInvokerRequestExecutor extends HttpInvokerRequest
 	@Override
 	protected RemoteInvocationResult doExecuteRequest(String serviceUrl, MethodInvocation methodInvocation,
 			ByteArrayOutputStream baos) throws IOException {
+		CloseableHttpResponse rsp = execute(serviceUrl, baos);
+		boolean closeResponse = true;
+		try {
+			InputStream responseBody = rsp.getEntity().getContent();
+			String contentType = getContentType(rsp);
+			if (HttpInvokerStreams.isStreaming(methodInvocation.getMethod())) {
+				// keep response open until streaming result is consumed or closed
+				responseBody = new FilterInputStream(responseBody) {
+					@Override
+					public void close() throws IOException {
+						rsp.close();
+					}
+				};
+				RemoteInvocationResult result = readRemoteInvocationResult(contentType, methodInvocation,
+						responseBody);
+				closeResponse = result.hasException();
+				return result;
+			}
+			return readRemoteInvocationResult(contentType, methodInvocation, responseBody);
+		} finally {
+			if (closeResponse)
+				rsp.close();
+		}
+	}
+
+	@Override
+	protected List<RemoteInvocationResult> doExecuteBatchRequest(String serviceUrl,
+			List<MethodInvocation> methodInvocations, ByteArrayOutputStream baos) throws IOException {
+		try (CloseableHttpResponse rsp = execute(serviceUrl, baos)) {
+			return readRemoteInvocationResults(getContentType(rsp), methodInvocations, rsp.getEntity().getContent());
+		}
+	}
+
+	protected CloseableHttpResponse execute(String serviceUrl, ByteArrayOutputStream baos) throws IOException {
 		HttpPost postMethod = new HttpPost(serviceUrl);
 
 		String requestId = MDC.get(AccessFilter.MDC_KEY_REQUEST_ID);
@@ -70,6 +105,9 @@ public class HttpComponentsHttpInvokerRequestExecutor extends HttpInvokerRequest
 		if (requestChain != null)
 			postMethod.addHeader(AccessFilter.HTTP_HEADER_REQUEST_CHAIN, requestChain);
 		postMethod.addHeader(AccessFilter.HTTP_HEADER_REQUEST_FROM, AppInfo.getInstanceId(true));
+		long remaining = RemotingContext.getRemainingTime();
+		if (remaining != Long.MAX_VALUE)
+			postMethod.addHeader(RemotingContext.HTTP_HEADER_DEADLINE, String.valueOf(remaining));
 
 		Tracing.inject(postMethod);
 
@@ -78,9 +116,10 @@ public class HttpComponentsHttpInvokerRequestExecutor extends HttpInvokerRequest
 		if (isAcceptGzipEncoding())
 			postMethod.setHeader(HTTP_HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
 		postMethod.setEntity(new ByteArrayEntity(baos.toByteArray()));
-		if (getConnectTimeout() >= 0 || getReadTimeout() >= 0) {
+		int readTimeout = getEffectiveReadTimeout();
+		if (getConnectTimeout() >= 0 || readTimeout >= 0) {
 			RequestConfig config = RequestConfig.custom().setConnectTimeout(getConnectTimeout())
-					.setSocketTimeout(getReadTimeout()).build();
+					.setSocketTimeout(readTimeout).build();
 			postMethod.setConfig(config);
 		}
 		CloseableHttpResponse rsp = httpClient.execute(postMethod);
@@ -89,22 +128,24 @@ public class HttpComponentsHttpInvokerRequestExecutor extends HttpInvokerRequest
 			if (sl.getStatusCode() == RemotingContext.SC_SERIALIZATION_FAILED) {
 				Header h = rsp.getFirstHeader(RemotingContext.HTTP_HEADER_EXCEPTION_MESSAGE);
 				throw new SerializationFailedException(h != null ? h.getValue() : "");
+			} else if (sl.getStatusCode() == RemotingContext.SC_OVERLOADED) {
+				throw new ServiceOverloadedException(serviceUrl);
+			} else if (sl.getStatusCode() == RemotingContext.SC_DEADLINE_EXCEEDED) {
+				throw new DeadlineExceededException(serviceUrl);
 			} else if (sl.getStatusCode() >= 300) {
 				throw new IOException("Did not receive successful HTTP response: status code = " + sl.getStatusCode()
 						+ ", status message = [" + sl.getReasonPhrase() + "]");
 			}
-			HttpEntity entity = rsp.getEntity();
-			InputStream responseBody = entity.getContent();
-			Header h = rsp.getFirstHeader(HttpHeaders.CONTENT_TYPE);
-			String contentType = h != null ? h.getValue() : null;
-			HttpInvokerSerializer serializer = StringUtils.isNotBlank(contentType)
-					? HttpInvokerSerializers.ofContentType(contentType)
-					: getSerializer();
-			return serializer.readRemoteInvocationResult(methodInvocation, responseBody);
-		} finally {
+			return rsp;
+		} catch (IOException | RuntimeException e) {
 			rsp.close();
+			throw e;
 		}
+	}
 
+	private static String getContentType(CloseableHttpResponse rsp) {
+		Header h = rsp.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+		return h != null ? h.getValue() : null;
 	}
 
 }
@@ -5,19 +5,47 @@ import java.io.InvalidClassException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.lang3.StringUtils;
+import org.ironrhino.core.remoting.DeadlineExceededException;
+import org.ironrhino.core.remoting.LoadBalancer;
 import org.ironrhino.core.remoting.Remoting;
+import org.ironrhino.core.remoting.RemotingContext;
+import org.ironrhino.core.remoting.RemotingPolicy;
 import org.ironrhino.core.remoting.ServiceNotFoundException;
+import org.ironrhino.core.remoting.ServiceOverloadedException;
 import org.ironrhino.core.remoting.ServiceRegistry;
+import org.ironrhino.core.remoting.serializer.HttpInvokerBatches;
 import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.ironrhino.core.remoting.serializer.HttpInvokerStreams;
 import org.ironrhino.core.remoting.stats.ServiceStats;
 import org.ironrhino.core.spring.FallbackSupportMethodInterceptorFactoryBean;
 import org.ironrhino.core.spring.RemotingClientProxy;
@@ -27,6 +55,7 @@ import org.ironrhino.core.util.CodecUtils;
 import org.ironrhino.core.util.ExceptionUtils;
 import org.ironrhino.core.util.JsonDesensitizer;
 import org.ironrhino.core.util.MaxAttemptsExceededException;
+import org.ironrhino.core.util.NameableThreadFactory;
 import org.ironrhino.core.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +63,7 @@ import org.slf4j.MDC;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.serializer.support.SerializationFailedException;
 import org.springframework.remoting.RemoteAccessException;
@@ -88,6 +118,16 @@ public class HttpInvokerClient extends FallbackSupportMethodInterceptorFactoryBe
 	@Value("${httpInvoker.loggingPayload:true}")
 	private boolean loggingPayload;
 
+	@Getter
+	@Setter
+	@Value("${httpInvoker.overloadBackoff:50}")
+	private long overloadBackoff = 50;
+
+	@Getter
+	@Setter
+	@Value("${httpInvoker.hedgingThreads:50}")
+	private int hedgingThreads = 50;
+
 	@Autowired(required = false)
 	private CircuitBreakerRegistry circuitBreakerRegistry;
 
@@ -107,10 +147,14 @@ public class HttpInvokerClient extends FallbackSupportMethodInterceptorFactoryBe
 
 	private boolean urlFromDiscovery;
 
-	private volatile String discoveredHost;
-
 	private Object serviceProxy;
 
+	private final Map<Method, Policy> policies = new ConcurrentHashMap<>();
+
+	private volatile ExecutorService hedgingExecutorService;
+
+	private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
 	@Override
 	public Object getObject() {
 		return this.serviceProxy;
@@ -225,7 +269,11 @@ public class HttpInvokerClient extends FallbackSupportMethodInterceptorFactoryBe
 			result = transformResult(invocation, methodInvocation, result);
 			if (loggingPayload) {
 				if (!result.hasInvocationTargetException()) {
-					remotingLogger.info("Response: {}", JsonDesensitizer.DEFAULT_INSTANCE.toJson(result.getValue()));
+					Object value = result.getValue();
+					if (value instanceof Stream || value instanceof Iterator)
+						remotingLogger.info("Response: streaming");
+					else
+						remotingLogger.info("Response: {}", JsonDesensitizer.DEFAULT_INSTANCE.toJson(value));
 				} else {
 					InvocationTargetException ite = (InvocationTargetException) result.getException();
 					if (ite != null)
@@ -243,62 +291,395 @@ public class HttpInvokerClient extends FallbackSupportMethodInterceptorFactoryBe
 
 	protected RemoteInvocationResult doExecuteRequest(RemoteInvocation invocation, MethodInvocation methodInvocation,
 			int maxAttempts) throws Exception {
-		String method = null;
-		if (serviceStats != null)
-			method = ReflectionUtils.stringify(methodInvocation.getMethod(), false, true);
-		int remainingAttempts = maxAttempts;
-		do {
-			String targetServiceUrl = discoverServiceUrl();
-			String targetDiscoveredHost = discoveredHost;
-			long time = System.nanoTime();
-			try {
-				RemoteInvocation actualInvocation = invocation;
-				RemoteInvocationResult result = Tracing.executeCheckedCallable(
-						ReflectionUtils.stringify(methodInvocation.getMethod()),
-						() -> httpInvokerRequestExecutor.executeRequest(targetServiceUrl, actualInvocation,
-								methodInvocation),
-						"span.kind", "client", "component", "remoting", "peer.address", targetServiceUrl);
-				if (urlFromDiscovery) {
-					time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time);
-					remotingLogger.info("Invoked to {} success in {}ms", targetDiscoveredHost, time);
-					if (serviceStats != null) {
-						serviceStats.clientSideEmit(targetDiscoveredHost, getServiceInterface().getName(), method, time,
-								false);
-					}
+		Policy policy = policies.computeIfAbsent(methodInvocation.getMethod(), m -> new Policy(m, serviceInterface));
+		Long inheritedDeadline = RemotingContext.getDeadline();
+		if (policy.timeout > 0) {
+			long deadline = System.currentTimeMillis() + policy.timeout;
+			if (inheritedDeadline == null || deadline < inheritedDeadline)
+				RemotingContext.setDeadline(deadline);
+		}
+		try {
+			String method = null;
+			if (serviceStats != null)
+				method = ReflectionUtils.stringify(methodInvocation.getMethod(), false, true);
+			if (urlFromDiscovery && policy.hedged) {
+				long hedgingDelay = policy.getHedgingDelay();
+				if (hedgingDelay >= 0)
+					return doExecuteHedgedRequest(invocation, methodInvocation, method, policy, hedgingDelay,
+							maxAttempts);
+			}
+			int remainingAttempts = maxAttempts;
+			if (policy.batchingWindow > 0) {
+				String targetDiscoveredHost = discoverHost();
+				String targetServiceUrl = buildServiceUrl(targetDiscoveredHost);
+				try {
+					return executeBatchedAttempt(targetServiceUrl, targetDiscoveredHost, invocation, methodInvocation,
+							method, policy);
+				} catch (Exception e) {
+					if (remainingAttempts <= 1 || RemotingContext.isDeadlineExceeded())
+						throw e;
+					// fall back to individual request, maybe server doesn't support batch
+					remainingAttempts--;
+					if (urlFromDiscovery && targetDiscoveredHost != null && !(e instanceof SerializationFailedException)
+							&& !(e instanceof ServiceOverloadedException))
+						serviceRegistry.evict(targetDiscoveredHost);
 				}
-				return result;
-			} catch (Exception e) {
-				remotingLogger.error("Exception:", e.getCause() != null ? e.getCause() : e);
-				if (urlFromDiscovery) {
-					time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time);
-					remotingLogger.info("Invoked to {} fail in {}ms", targetDiscoveredHost, time);
-					if (serviceStats != null) {
-						serviceStats.clientSideEmit(targetDiscoveredHost, getServiceInterface().getName(), method, time,
-								true);
-					}
+			}
+			do {
+				String targetDiscoveredHost = discoverHost();
+				String targetServiceUrl = buildServiceUrl(targetDiscoveredHost);
+				try {
+					return executeAttempt(targetServiceUrl, targetDiscoveredHost, invocation, methodInvocation,
+							method, policy);
+				} catch (Exception e) {
+					// server gave up due to propagated deadline, retry is pointless
+					if (remainingAttempts <= 1 || RemotingContext.isDeadlineExceeded()
+							|| e instanceof DeadlineExceededException)
+						throw e;
+					invocation = handleAttemptFailure(e, targetDiscoveredHost, invocation, methodInvocation,
+							maxAttempts - remainingAttempts + 1);
 				}
-				if (remainingAttempts <= 1)
-					throw e;
-				if ((e instanceof SerializationFailedException) && !httpInvokerRequestExecutor.getSerializer()
-						.equals(HttpInvokerSerializers.DEFAULT_SERIALIZER)) {
-					log.error("Downgrade service[{}] serialization from {} to {}: {}", getServiceInterface().getName(),
-							httpInvokerRequestExecutor.getSerializer().getSerializationType(),
-							HttpInvokerSerializers.DEFAULT_SERIALIZER.getSerializationType(), e.getMessage());
-					httpInvokerRequestExecutor.setSerializer(HttpInvokerSerializers.DEFAULT_SERIALIZER);
-					RemoteInvocation newInvocation = HttpInvokerSerializers.DEFAULT_SERIALIZER
-							.createRemoteInvocation(methodInvocation);
-					newInvocation.setAttributes(invocation.getAttributes());
-					invocation = newInvocation;
+			} while (--remainingAttempts > 0);
+			throw new MaxAttemptsExceededException(maxAttempts);
+		} finally {
+			RemotingContext.setDeadline(inheritedDeadline);
+		}
+	}
+
+	// full jitter exponential backoff, bounded by deadline
+	private void backoff(int attempt) throws InterruptedException {
+		if (overloadBackoff <= 0)
+			return;
+		long delay = ThreadLocalRandom.current().nextLong(overloadBackoff << Math.min(attempt - 1, 10)) + 1;
+		Long deadline = RemotingContext.getDeadline();
+		if (deadline != null)
+			delay = Math.min(delay, deadline - System.currentTimeMillis());
+		if (delay > 0)
+			Thread.sleep(delay);
+	}
+
+	// returns invocation for next attempt
+	private RemoteInvocation handleAttemptFailure(Exception e, String targetDiscoveredHost,
+			RemoteInvocation invocation, MethodInvocation methodInvocation, int attempt) throws InterruptedException {
+		if (e instanceof ServiceOverloadedException) {
+			// host is alive, back off and let load balancer choose another one
+			backoff(attempt);
+		} else if ((e instanceof SerializationFailedException)
+				&& !httpInvokerRequestExecutor.getSerializer().equals(HttpInvokerSerializers.DEFAULT_SERIALIZER)) {
+			log.error("Downgrade service[{}] serialization from {} to {}: {}", getServiceInterface().getName(),
+					httpInvokerRequestExecutor.getSerializer().getSerializationType(),
+					HttpInvokerSerializers.DEFAULT_SERIALIZER.getSerializationType(), e.getMessage());
+			httpInvokerRequestExecutor.setSerializer(HttpInvokerSerializers.DEFAULT_SERIALIZER);
+			RemoteInvocation newInvocation = HttpInvokerSerializers.DEFAULT_SERIALIZER
+					.createRemoteInvocation(methodInvocation);
+			newInvocation.setAttributes(invocation.getAttributes());
+			return newInvocation;
+		} else {
+			if (urlFromDiscovery) {
+				if (targetDiscoveredHost != null) {
+					serviceRegistry.evict(targetDiscoveredHost);
+				}
+			}
+		}
+		return invocation;
+	}
+
+	// first response wins, another attempt is fired at another host if pending
+	// attempt is slower than hedgingDelay, or immediately if it failed
+	protected RemoteInvocationResult doExecuteHedgedRequest(RemoteInvocation invocation,
+			MethodInvocation methodInvocation, String method, Policy policy, long hedgingDelay, int maxAttempts)
+			throws Exception {
+		CompletionService<RemoteInvocationResult> cs = new ExecutorCompletionService<>(getHedgingExecutorService());
+		Map<Future<RemoteInvocationResult>, String> pending = new HashMap<>();
+		List<Future<RemoteInvocationResult>> futures = new ArrayList<>(maxAttempts);
+		String firstHost = discoverHost();
+		try {
+			futures.add(cs.submit(
+					wrapAttempt(buildServiceUrl(firstHost), firstHost, invocation, methodInvocation, method, policy)));
+		} catch (RejectedExecutionException e) {
+			// hedging pool is saturated, fall back to plain attempt in caller thread
+			return executeAttempt(buildServiceUrl(firstHost), firstHost, invocation, methodInvocation, method,
+					policy);
+		}
+		pending.put(futures.get(0), firstHost);
+		int attempts = 1;
+		boolean hedged = false;
+		try {
+			Exception failure = null;
+			while (!pending.isEmpty()) {
+				Future<RemoteInvocationResult> completed;
+				if (!hedged && attempts < maxAttempts) {
+					completed = cs.poll(hedgingDelay, TimeUnit.MILLISECONDS);
+					if (completed == null) {
+						hedged = true;
+						String host = discoverAnotherHost(pending.values());
+						if (host == null)
+							continue;
+						Future<RemoteInvocationResult> future = submitAttempt(cs, host, invocation, methodInvocation,
+								method, policy);
+						if (future != null) {
+							futures.add(future);
+							pending.put(future, host);
+							attempts++;
+							remotingLogger.info("Hedge to {} after {}ms", host, hedgingDelay);
+						}
+						continue;
+					}
 				} else {
-					if (urlFromDiscovery) {
-						if (targetDiscoveredHost != null) {
-							serviceRegistry.evict(targetDiscoveredHost);
+					completed = cs.take();
+				}
+				String host = pending.remove(completed);
+				try {
+					return completed.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (!(cause instanceof Exception))
+						throw e;
+					failure = (Exception) cause;
+					if (RemotingContext.isDeadlineExceeded() || cause instanceof DeadlineExceededException)
+						continue;
+					invocation = handleAttemptFailure(failure, host, invocation, methodInvocation, attempts);
+					if (pending.isEmpty() && attempts < maxAttempts) {
+						// don't wait for hedging delay since nothing is pending
+						String nextHost = discoverHost();
+						Future<RemoteInvocationResult> future = submitAttempt(cs, nextHost, invocation,
+								methodInvocation, method, policy);
+						if (future != null) {
+							futures.add(future);
+							pending.put(future, nextHost);
+							attempts++;
+							remotingLogger.info("Retry to {} after {} failed", nextHost, host);
 						}
 					}
 				}
 			}
-		} while (--remainingAttempts > 0);
-		throw new MaxAttemptsExceededException(maxAttempts);
+			throw failure;
+		} finally {
+			// interrupt losing attempt to release its connection
+			for (Future<RemoteInvocationResult> future : futures)
+				future.cancel(true);
+		}
+	}
+
+	private Future<RemoteInvocationResult> submitAttempt(CompletionService<RemoteInvocationResult> cs, String host,
+			RemoteInvocation invocation, MethodInvocation methodInvocation, String method, Policy policy) {
+		try {
+			return cs.submit(wrapAttempt(buildServiceUrl(host), host, invocation, methodInvocation, method, policy));
+		} catch (RejectedExecutionException e) {
+			remotingLogger.warn("Skip attempt to {} since hedging pool is saturated", host);
+			return null;
+		}
+	}
+
+	private String discoverAnotherHost(Collection<String> excludes) {
+		String serviceName = getServiceInterface().getName();
+		for (int i = 0; i < 3; i++) {
+			String host = serviceRegistry.discover(serviceName);
+			if (host == null)
+				return null;
+			if (!excludes.contains(host))
+				return host;
+		}
+		return null;
+	}
+
+	private Callable<RemoteInvocationResult> wrapAttempt(String targetServiceUrl, String targetDiscoveredHost,
+			RemoteInvocation invocation, MethodInvocation methodInvocation, String method, Policy policy) {
+		Map<String, String> contextMap = MDC.getCopyOfContextMap();
+		Map<String, Object> attributes = RemotingContext.getAttributes();
+		return Tracing.wrapAsync("hedging", () -> {
+			if (contextMap != null)
+				MDC.setContextMap(contextMap);
+			RemotingContext.setAttributes(attributes);
+			try {
+				return executeAttempt(targetServiceUrl, targetDiscoveredHost, invocation, methodInvocation, method,
+						policy);
+			} finally {
+				RemotingContext.setAttributes(null);
+				MDC.clear();
+			}
+		});
+	}
+
+	private RemoteInvocationResult executeAttempt(String targetServiceUrl, String targetDiscoveredHost,
+			RemoteInvocation invocation, MethodInvocation methodInvocation, String method, Policy policy)
+			throws Exception {
+		LoadBalancer loadBalancer = urlFromDiscovery ? serviceRegistry.getLoadBalancer() : null;
+		if (loadBalancer != null)
+			loadBalancer.onRequestStart(targetDiscoveredHost);
+		long time = System.nanoTime();
+		try {
+			RemoteInvocationResult result = Tracing.executeCheckedCallable(
+					ReflectionUtils.stringify(methodInvocation.getMethod()),
+					() -> httpInvokerRequestExecutor.executeRequest(targetServiceUrl, invocation, methodInvocation),
+					"span.kind", "client", "component", "remoting", "peer.address", targetServiceUrl);
+			if (urlFromDiscovery) {
+				time = System.nanoTime() - time;
+				if (loadBalancer != null)
+					loadBalancer.onRequestComplete(targetDiscoveredHost, time, false);
+				time = TimeUnit.NANOSECONDS.toMillis(time);
+				remotingLogger.info("Invoked to {} success in {}ms", targetDiscoveredHost, time);
+				if (serviceStats != null) {
+					serviceStats.clientSideEmit(targetDiscoveredHost, getServiceInterface().getName(), method, time,
+							false);
+				}
+				if (policy.hedged)
+					policy.record(time);
+			}
+			return result;
+		} catch (ServiceOverloadedException e) {
+			remotingLogger.warn("Rejected by {} due to overload", targetDiscoveredHost);
+			if (urlFromDiscovery && loadBalancer != null)
+				loadBalancer.onRequestRejected(targetDiscoveredHost, System.nanoTime() - time);
+			throw e;
+		} catch (Exception e) {
+			remotingLogger.error("Exception:", e.getCause() != null ? e.getCause() : e);
+			if (urlFromDiscovery) {
+				time = System.nanoTime() - time;
+				if (loadBalancer != null)
+					loadBalancer.onRequestComplete(targetDiscoveredHost, time, true);
+				time = TimeUnit.NANOSECONDS.toMillis(time);
+				remotingLogger.info("Invoked to {} fail in {}ms", targetDiscoveredHost, time);
+				if (serviceStats != null) {
+					serviceStats.clientSideEmit(targetDiscoveredHost, getServiceInterface().getName(), method, time,
+							true);
+				}
+			}
+			throw e;
+		}
+	}
+
+	// first caller waits for batching window then executes batch for all callers joined
+	private RemoteInvocationResult executeBatchedAttempt(String targetServiceUrl, String targetDiscoveredHost,
+			RemoteInvocation invocation, MethodInvocation methodInvocation, String method, Policy policy)
+			throws Exception {
+		Call call = new Call(invocation, methodInvocation, method, RemotingContext.getDeadline());
+		Batch batch;
+		boolean leader;
+		while (true) {
+			Batch newBatch = new Batch(policy.maxBatchSize);
+			batch = batches.putIfAbsent(targetServiceUrl, newBatch);
+			leader = batch == null;
+			if (leader)
+				batch = newBatch;
+			synchronized (batch) {
+				if (batch.flushed || batch.calls.size() >= batch.maxSize) {
+					batches.remove(targetServiceUrl, batch);
+					continue;
+				}
+				batch.calls.add(call);
+				if (batch.calls.size() >= batch.maxSize)
+					batch.notifyAll();
+				break;
+			}
+		}
+		if (leader) {
+			synchronized (batch) {
+				long window = Math.min(TimeUnit.MILLISECONDS.toNanos(policy.batchingWindow),
+						TimeUnit.MILLISECONDS.toNanos(RemotingContext.getRemainingTime()));
+				long until = System.nanoTime() + window;
+				long remaining;
+				try {
+					while (batch.calls.size() < batch.maxSize && (remaining = until - System.nanoTime()) > 0)
+						TimeUnit.NANOSECONDS.timedWait(batch, remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				batch.flushed = true;
+				batches.remove(targetServiceUrl, batch);
+			}
+			executeBatch(targetServiceUrl, targetDiscoveredHost, batch.calls, policy);
+		}
+		try {
+			return call.future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception) cause;
+			throw e;
+		}
+	}
+
+	private void executeBatch(String targetServiceUrl, String targetDiscoveredHost, List<Call> calls, Policy policy) {
+		if (calls.size() == 1) {
+			Call call = calls.get(0);
+			try {
+				call.future.complete(executeAttempt(targetServiceUrl, targetDiscoveredHost, call.invocation,
+						call.methodInvocation, call.method, policy));
+			} catch (Throwable e) {
+				call.future.completeExceptionally(e);
+			}
+			return;
+		}
+		List<RemoteInvocation> invocations = new ArrayList<>(calls.size());
+		List<MethodInvocation> methodInvocations = new ArrayList<>(calls.size());
+		Long inheritedDeadline = RemotingContext.getDeadline();
+		Long deadline = null;
+		for (Call call : calls) {
+			invocations.add(call.invocation);
+			methodInvocations.add(call.methodInvocation);
+			if (call.deadline != null && (deadline == null || call.deadline < deadline))
+				deadline = call.deadline;
+		}
+		RemotingContext.setDeadline(deadline);
+		LoadBalancer loadBalancer = urlFromDiscovery ? serviceRegistry.getLoadBalancer() : null;
+		if (loadBalancer != null)
+			loadBalancer.onRequestStart(targetDiscoveredHost);
+		long time = System.nanoTime();
+		boolean failed = true;
+		try {
+			List<RemoteInvocationResult> results = Tracing.executeCheckedCallable(
+					getServiceInterface().getName() + ".batch",
+					() -> httpInvokerRequestExecutor.executeBatchRequest(targetServiceUrl, invocations,
+							methodInvocations),
+					"span.kind", "client", "component", "remoting", "peer.address", targetServiceUrl, "batch.size",
+					calls.size());
+			failed = false;
+			for (int i = 0; i < calls.size(); i++)
+				calls.get(i).future.complete(results.get(i));
+		} catch (Throwable e) {
+			remotingLogger.error("Exception:", e.getCause() != null ? e.getCause() : e);
+			for (Call call : calls)
+				call.future.completeExceptionally(e);
+		} finally {
+			RemotingContext.setDeadline(inheritedDeadline);
+			if (urlFromDiscovery) {
+				time = System.nanoTime() - time;
+				if (loadBalancer != null)
+					loadBalancer.onRequestComplete(targetDiscoveredHost, time, failed);
+				time = TimeUnit.NANOSECONDS.toMillis(time);
+				remotingLogger.info("Invoked batch of {} to {} {} in {}ms", calls.size(), targetDiscoveredHost,
+						failed ? "fail" : "success", time);
+				if (serviceStats != null) {
+					for (Call call : calls)
+						serviceStats.clientSideEmit(targetDiscoveredHost, getServiceInterface().getName(), call.method,
+								time, failed);
+				}
+			}
+		}
+	}
+
+	private ExecutorService getHedgingExecutorService() {
+		ExecutorService es = hedgingExecutorService;
+		if (es == null) {
+			synchronized (this) {
+				if ((es = hedgingExecutorService) == null) {
+					// bounded without queue, submission is rejected when saturated
+					ThreadPoolExecutor tpe = new ThreadPoolExecutor(hedgingThreads, hedgingThreads, 60, TimeUnit.SECONDS,
+							new SynchronousQueue<>(),
+							new NameableThreadFactory(serviceInterface.getSimpleName() + "Hedging"));
+					tpe.allowCoreThreadTimeOut(true);
+					hedgingExecutorService = es = tpe;
+				}
+			}
+		}
+		return es;
+	}
+
+	@PreDestroy
+	public void destroyHedgingExecutorService() {
+		if (hedgingExecutorService != null)
+			hedgingExecutorService.shutdownNow();
 	}
 
 	protected RemoteAccessException convertHttpInvokerAccessException(Throwable ex) {
@@ -347,21 +728,122 @@ public class HttpInvokerClient extends FallbackSupportMethodInterceptorFactoryBe
 		return result.getValue();
 	}
 
-	private String discoverServiceUrl() {
-		String serviceName = getServiceInterface().getName();
+	// null if baseUrl is specified, chosen host is returned instead of shared with concurrent calls
+	private String discoverHost() {
+		if (StringUtils.isNotBlank(baseUrl))
+			return null;
+		return serviceRegistry.discover(getServiceInterface().getName());
+	}
+
+	private String buildServiceUrl(String host) {
 		StringBuilder sb = new StringBuilder();
-		if (StringUtils.isBlank(baseUrl)) {
-			String ho = serviceRegistry.discover(serviceName);
-			if (ho.indexOf("://") < 0)
+		if (host != null) {
+			if (host.indexOf("://") < 0)
 				sb.append("http://");
-			sb.append(ho);
-			discoveredHost = ho;
+			sb.append(host);
 		} else {
 			sb.append(baseUrl);
 		}
 		sb.append(SERVLET_PATH_PREFIX);
-		sb.append(serviceName);
+		sb.append(getServiceInterface().getName());
+		// only for error message
 		return serviceUrl = sb.toString();
 	}
 
+	private static class Batch {
+
+		final int maxSize;
+
+		final List<Call> calls = new ArrayList<>();
+
+		boolean flushed;
+
+		Batch(int maxSize) {
+			this.maxSize = Math.max(1, maxSize);
+		}
+
+	}
+
+	private static class Call {
+
+		final RemoteInvocation invocation;
+
+		final MethodInvocation methodInvocation;
+
+		final String method;
+
+		final Long deadline;
+
+		final CompletableFuture<RemoteInvocationResult> future = new CompletableFuture<>();
+
+		Call(RemoteInvocation invocation, MethodInvocation methodInvocation, String method, Long deadline) {
+			this.invocation = invocation;
+			this.methodInvocation = methodInvocation;
+			this.method = method;
+			this.deadline = deadline;
+		}
+
+	}
+
+	static class Policy {
+
+		private static final int SAMPLES = 128;
+
+		private static final int MIN_SAMPLES = 20;
+
+		final int timeout;
+
+		final boolean hedged;
+
+		final int hedgingDelay;
+
+		final double hedgingPercentile;
+
+		final int batchingWindow;
+
+		final int maxBatchSize;
+
+		private final long[] latencies = new long[SAMPLES];
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		private volatile long percentileLatency = -1;
+
+		Policy(Method method, Class<?> serviceInterface) {
+			RemotingPolicy policy = AnnotatedElementUtils.findMergedAnnotation(method, RemotingPolicy.class);
+			if (policy == null)
+				policy = AnnotatedElementUtils.findMergedAnnotation(serviceInterface, RemotingPolicy.class);
+			// streaming result holds connection until consumed, it can't be hedged or batched
+			boolean streaming = HttpInvokerStreams.isStreaming(method);
+			timeout = policy != null ? policy.timeout() : 0;
+			hedged = policy != null && policy.hedged() && !streaming;
+			hedgingDelay = policy != null ? policy.hedgingDelay() : 0;
+			hedgingPercentile = policy != null ? policy.hedgingPercentile() : 0;
+			batchingWindow = policy != null && !streaming ? policy.batchingWindow() : 0;
+			maxBatchSize = policy != null ? Math.min(policy.maxBatchSize(), HttpInvokerBatches.MAX_BATCH_SIZE) : 0;
+		}
+
+		// negative means not enough samples
+		long getHedgingDelay() {
+			if (hedgingDelay > 0)
+				return hedgingDelay;
+			long latency = percentileLatency;
+			return latency < 0 ? latency : Math.max(latency, 1);
+		}
+
+		void record(long latency) {
+			if (hedgingDelay > 0)
+				return;
+			int n = count.getAndIncrement();
+			latencies[n & (SAMPLES - 1)] = latency;
+			if (n >= 0 && n + 1 < MIN_SAMPLES || (n & 15) != 15)
+				return;
+			long[] sorted = Arrays.copyOf(latencies, n >= 0 && n < SAMPLES ? n + 1 : SAMPLES);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(sorted.length * hedgingPercentile / 100) - 1;
+			percentileLatency = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+		}
+
+	}
+
 }
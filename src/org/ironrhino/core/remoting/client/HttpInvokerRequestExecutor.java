@@ -1,10 +1,18 @@
 package org.ironrhino.core.remoting.client;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.lang3.StringUtils;
+import org.ironrhino.core.remoting.DeadlineExceededException;
+import org.ironrhino.core.remoting.RemotingContext;
+import org.ironrhino.core.remoting.serializer.HttpInvokerBatches;
 import org.ironrhino.core.remoting.serializer.HttpInvokerSerializer;
 import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.ironrhino.core.remoting.serializer.HttpInvokerStreams;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
 
@@ -39,12 +47,58 @@ public abstract class HttpInvokerRequestExecutor {
 
 	public RemoteInvocationResult executeRequest(String serviceUrl, RemoteInvocation invocation,
 			MethodInvocation methodInvocation) throws Exception {
+		if (RemotingContext.isDeadlineExceeded())
+			throw new DeadlineExceededException(serviceUrl);
 		ByteArrayOutputStream baos = new ByteArrayOutputStream(SERIALIZED_INVOCATION_BYTE_ARRAY_INITIAL_SIZE);
 		serializer.writeRemoteInvocation(invocation, baos);
 		return doExecuteRequest(serviceUrl, methodInvocation, baos);
 	}
 
+	public List<RemoteInvocationResult> executeBatchRequest(String serviceUrl, List<RemoteInvocation> invocations,
+			List<MethodInvocation> methodInvocations) throws Exception {
+		if (RemotingContext.isDeadlineExceeded())
+			throw new DeadlineExceededException(serviceUrl);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(
+				SERIALIZED_INVOCATION_BYTE_ARRAY_INITIAL_SIZE * invocations.size());
+		HttpInvokerBatches.writeInvocations(serializer, invocations, baos);
+		return doExecuteBatchRequest(serviceUrl + '?' + HttpInvokerBatches.REQUEST_PARAMETER, methodInvocations,
+				baos);
+	}
+
+	protected RemoteInvocationResult readRemoteInvocationResult(String contentType, MethodInvocation methodInvocation,
+			InputStream is) throws IOException {
+		HttpInvokerSerializer serializer = getSerializer(contentType);
+		if (HttpInvokerStreams.isStreaming(methodInvocation.getMethod()))
+			return HttpInvokerStreams.readResult(serializer, methodInvocation, is);
+		return serializer.readRemoteInvocationResult(methodInvocation, is);
+	}
+
+	protected List<RemoteInvocationResult> readRemoteInvocationResults(String contentType,
+			List<MethodInvocation> methodInvocations, InputStream is) throws IOException {
+		return HttpInvokerBatches.readResults(getSerializer(contentType), methodInvocations, is);
+	}
+
+	private HttpInvokerSerializer getSerializer(String contentType) {
+		return StringUtils.isNotBlank(contentType) ? HttpInvokerSerializers.ofContentType(contentType)
+				: getSerializer();
+	}
+
+	// capped by remaining time of deadline
+	protected int getEffectiveReadTimeout() {
+		long remaining = RemotingContext.getRemainingTime();
+		if (remaining == Long.MAX_VALUE)
+			return readTimeout;
+		remaining = Math.max(remaining, 1);
+		return readTimeout >= 0 ? (int) Math.min(readTimeout, remaining) : (int) Math.min(Integer.MAX_VALUE, remaining);
+	}
+
 	protected abstract RemoteInvocationResult doExecuteRequest(String serviceUrl, MethodInvocation methodInvocation,
 			ByteArrayOutputStream baos) throws Exception;
 
+	// executors without batch support make client fall back to individual requests
+	protected List<RemoteInvocationResult> doExecuteBatchRequest(String serviceUrl,
+			List<MethodInvocation> methodInvocations, ByteArrayOutputStream baos) throws Exception {
+		throw new UnsupportedOperationException(getClass().getName() + " doesn't support batch");
+	}
+
 }
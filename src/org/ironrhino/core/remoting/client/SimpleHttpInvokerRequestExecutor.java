@@ -5,14 +5,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.List;
 import java.util.Locale;
 import java.util.zip.GZIPInputStream;
 
 import org.aopalliance.intercept.MethodInvocation;
-import org.apache.commons.lang3.StringUtils;
+import org.ironrhino.core.remoting.DeadlineExceededException;
 import org.ironrhino.core.remoting.RemotingContext;
-import org.ironrhino.core.remoting.serializer.HttpInvokerSerializer;
-import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.ironrhino.core.remoting.ServiceOverloadedException;
 import org.ironrhino.core.servlet.AccessFilter;
 import org.ironrhino.core.tracing.Tracing;
 import org.ironrhino.core.util.AppInfo;
@@ -26,16 +26,27 @@ public class SimpleHttpInvokerRequestExecutor extends HttpInvokerRequestExecutor
 	@Override
 	protected RemoteInvocationResult doExecuteRequest(String serviceUrl, MethodInvocation methodInvocation,
 			ByteArrayOutputStream baos) throws IOException {
+		HttpURLConnection con = execute(serviceUrl, baos);
+		return readRemoteInvocationResult(con.getHeaderField(HttpHeaders.CONTENT_TYPE), methodInvocation,
+				readResponseBody(con));
+	}
+
+	@Override
+	protected List<RemoteInvocationResult> doExecuteBatchRequest(String serviceUrl,
+			List<MethodInvocation> methodInvocations, ByteArrayOutputStream baos) throws IOException {
+		HttpURLConnection con = execute(serviceUrl, baos);
+		try (InputStream responseBody = readResponseBody(con)) {
+			return readRemoteInvocationResults(con.getHeaderField(HttpHeaders.CONTENT_TYPE), methodInvocations,
+					responseBody);
+		}
+	}
+
+	protected HttpURLConnection execute(String serviceUrl, ByteArrayOutputStream baos) throws IOException {
 		HttpURLConnection con = (HttpURLConnection) new URL(serviceUrl).openConnection();
 		prepareConnection(con, baos.size());
 		baos.writeTo(con.getOutputStream());
 		validateResponse(con);
-		InputStream responseBody = readResponseBody(con);
-		String contentType = con.getHeaderField(HttpHeaders.CONTENT_TYPE);
-		HttpInvokerSerializer serializer = StringUtils.isNotBlank(contentType)
-				? HttpInvokerSerializers.ofContentType(contentType)
-				: getSerializer();
-		return serializer.readRemoteInvocationResult(methodInvocation, responseBody);
+		return con;
 	}
 
 	protected void prepareConnection(HttpURLConnection connection, int contentLength) throws IOException {
@@ -46,14 +57,18 @@ public class SimpleHttpInvokerRequestExecutor extends HttpInvokerRequestExecutor
 		if (requestChain != null)
 			connection.addRequestProperty(AccessFilter.HTTP_HEADER_REQUEST_CHAIN, requestChain);
 		connection.addRequestProperty(AccessFilter.HTTP_HEADER_REQUEST_FROM, AppInfo.getInstanceId(true));
+		long remaining = RemotingContext.getRemainingTime();
+		if (remaining != Long.MAX_VALUE)
+			connection.addRequestProperty(RemotingContext.HTTP_HEADER_DEADLINE, String.valueOf(remaining));
 
 		Tracing.inject(connection);
 
 		if (getConnectTimeout() >= 0)
 			connection.setConnectTimeout(getConnectTimeout());
 
-		if (getReadTimeout() >= 0)
-			connection.setReadTimeout(getReadTimeout());
+		int readTimeout = getEffectiveReadTimeout();
+		if (readTimeout >= 0)
+			connection.setReadTimeout(readTimeout);
 
 		connection.setDoOutput(true);
 		connection.setRequestMethod(HTTP_METHOD_POST);
@@ -68,6 +83,10 @@ public class SimpleHttpInvokerRequestExecutor extends HttpInvokerRequestExecutor
 	protected void validateResponse(HttpURLConnection con) throws IOException {
 		if (con.getResponseCode() == RemotingContext.SC_SERIALIZATION_FAILED)
 			throw new SerializationFailedException(con.getHeaderField(RemotingContext.HTTP_HEADER_EXCEPTION_MESSAGE));
+		if (con.getResponseCode() == RemotingContext.SC_OVERLOADED)
+			throw new ServiceOverloadedException(con.getURL().toString());
+		if (con.getResponseCode() == RemotingContext.SC_DEADLINE_EXCEEDED)
+			throw new DeadlineExceededException(con.getURL().toString());
 		if (con.getResponseCode() >= 300) {
 			throw new IOException("Did not receive successful HTTP response: status code = " + con.getResponseCode()
 					+ ", status message = [" + con.getResponseMessage() + "]");
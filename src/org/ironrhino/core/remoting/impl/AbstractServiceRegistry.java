@@ -1,15 +1,14 @@
 package org.ironrhino.core.remoting.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -18,12 +17,14 @@ import javax.servlet.ServletContext;
 
 import org.apache.commons.lang3.StringUtils;
 import org.ironrhino.core.remoting.DistanceMeasurer;
+import org.ironrhino.core.remoting.LoadBalancer;
+import org.ironrhino.core.remoting.LoadBalancingStrategy;
 import org.ironrhino.core.remoting.Remoting;
+import org.ironrhino.core.remoting.ServiceDispatcher;
 import org.ironrhino.core.remoting.ServiceNotFoundException;
 import org.ironrhino.core.remoting.ServiceRegistry;
 import org.ironrhino.core.util.AppInfo;
 import org.ironrhino.core.util.ReflectionUtils;
-import org.ironrhino.core.util.CounterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.PropertyValue;
@@ -59,23 +60,33 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 	@Autowired(required = false)
 	private DistanceMeasurer distanceMeasurer = DistanceMeasurer.DEFAULT;
 
+	@Value("${serviceRegistry.loadBalancingStrategy:ROUND_ROBIN}")
+	private LoadBalancingStrategy loadBalancingStrategy = LoadBalancingStrategy.ROUND_ROBIN;
+
+	@Getter
+	@Autowired(required = false)
+	private LoadBalancer loadBalancer;
+
 	@Autowired
 	private ConfigurableApplicationContext ctx;
 
+	// value is immutable snapshot, replaced as a whole on change
 	@Getter
 	private Map<String, List<String>> importedServiceCandidates = new ConcurrentHashMap<>();
 
+	private Map<String, Long> importedServiceVersions = new ConcurrentHashMap<>();
+
 	@Getter
 	private Map<String, Object> exportedServices = new ConcurrentHashMap<>();
 
+	private Map<String, ServiceDispatcher> serviceDispatchers = new ConcurrentHashMap<>();
+
 	@Getter(AccessLevel.PROTECTED)
 	private Map<String, String> exportedServiceDescriptions = new ConcurrentHashMap<>();
 
 	@Getter
 	private String localHost;
 
-	private Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
-
 	@PostConstruct
 	private void afterPropertiesSet() {
 		String address = AppInfo.getHostAddress();
@@ -89,6 +100,8 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 			if (!ctxPath.isEmpty())
 				localHost += ctxPath;
 		}
+		if (loadBalancer == null)
+			loadBalancer = new DefaultLoadBalancer(loadBalancingStrategy);
 	}
 
 	protected void init() {
@@ -104,7 +117,7 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 				if (pv == null)
 					continue;
 				String serviceName = (String) pv.getValue();
-				importedServiceCandidates.put(serviceName, new CopyOnWriteArrayList<String>());
+				importedServiceCandidates.put(serviceName, Collections.emptyList());
 			} else {
 				if (IS_SERVER_PRESENT && !skipExport) {
 					Class<?> clazz = ctx.getBean(beanName).getClass();
@@ -159,6 +172,12 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 	@Override
 	public void register(String serviceName, String path, Object serviceObject) {
 		exportedServices.put(serviceName, serviceObject);
+		try {
+			serviceDispatchers.put(serviceName,
+					new ServiceDispatcher(ClassUtils.forName(serviceName, ctx.getClassLoader()), serviceObject));
+		} catch (ClassNotFoundException | LinkageError e) {
+			logger.warn("Fallback to reflection for service [{}]: {}", serviceName, e.getMessage());
+		}
 		String description = exportedServiceDescriptions.get(serviceName);
 		if (StringUtils.isBlank(description))
 			exportedServiceDescriptions.put(serviceName,
@@ -168,9 +187,15 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 
 	protected abstract void doRegister(String serviceName, String host);
 
+	@Override
+	public ServiceDispatcher getServiceDispatcher(String serviceName) {
+		return serviceDispatchers.get(serviceName);
+	}
+
 	@Override
 	public void unregister(String serviceName, String path) {
 		exportedServices.remove(serviceName);
+		serviceDispatchers.remove(serviceName);
 		exportedServiceDescriptions.remove(serviceName);
 		doUnregister(serviceName, concatPath(getLocalHost(), path));
 	}
@@ -179,13 +204,64 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 
 	@Override
 	public void evict(String host) {
-		importedServiceCandidates.forEach((serviceName, hosts) -> {
-			List<String> tobeRemoved = hosts.stream().filter(s -> isSame(s, host)).collect(Collectors.toList());
-			if (!tobeRemoved.isEmpty()) {
-				hosts.removeAll(tobeRemoved);
+		for (String serviceName : importedServiceCandidates.keySet()) {
+			importedServiceCandidates.computeIfPresent(serviceName, (key, hosts) -> {
+				List<String> tobeRemoved = hosts.stream().filter(s -> isSame(s, host)).collect(Collectors.toList());
+				if (tobeRemoved.isEmpty())
+					return hosts;
 				logger.info("Evict {} for service {}", tobeRemoved, serviceName);
+				List<String> list = new ArrayList<>(hosts);
+				list.removeAll(tobeRemoved);
+				return Collections.unmodifiableList(list);
+			});
+		}
+	}
+
+	protected void addImportedServiceCandidate(String serviceName, String host) {
+		importedServiceCandidates.computeIfPresent(serviceName, (key, hosts) -> {
+			if (hosts.contains(host))
+				return hosts;
+			List<String> list = new ArrayList<>(hosts);
+			list.add(host);
+			return Collections.unmodifiableList(list);
+		});
+	}
+
+	// snapshot is ignored if newer version is held
+	protected void updateImportedServiceCandidates(String serviceName, List<String> hosts, long version) {
+		importedServiceCandidates.compute(serviceName, (key, current) -> {
+			Long currentVersion = importedServiceVersions.get(key);
+			if (current != null && currentVersion != null && currentVersion > version)
+				return current;
+			importedServiceVersions.put(key, version);
+			return Collections.unmodifiableList(new ArrayList<>(hosts));
+		});
+	}
+
+	// false means version gap, snapshot should be reloaded
+	protected boolean applyImportedServiceDelta(String serviceName, String host, boolean removed, long version) {
+		boolean[] applied = { true };
+		importedServiceCandidates.computeIfPresent(serviceName, (key, hosts) -> {
+			Long currentVersion = importedServiceVersions.get(key);
+			if (currentVersion != null && version <= currentVersion)
+				return hosts;
+			if (currentVersion == null || version != currentVersion + 1) {
+				applied[0] = false;
+				return hosts;
 			}
+			importedServiceVersions.put(key, version);
+			List<String> list = new ArrayList<>(hosts);
+			if (removed)
+				list.remove(host);
+			else if (!list.contains(host))
+				list.add(host);
+			return Collections.unmodifiableList(list);
 		});
+		return applied[0];
+	}
+
+	protected Long getImportedServiceVersion(String serviceName) {
+		return importedServiceVersions.get(serviceName);
 	}
 
 	@Override
@@ -198,11 +274,7 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 		if (CollectionUtils.isEmpty(candidates))
 			throw new ServiceNotFoundException(serviceName);
 		List<String> list = distanceMeasurer.findNearest(getLocalHost(), candidates);
-		int size = list.size();
-		AtomicInteger counter = counters.computeIfAbsent(serviceName,
-				s -> new AtomicInteger(ThreadLocalRandom.current().nextInt(size)));
-		String host = list.get(CounterUtils.getAndIncrement(counter, size)); // list.get(next);
-		return normalizeHost(host);
+		return normalizeHost(loadBalancer.choose(serviceName, list));
 	}
 
 	protected void onReady() {
@@ -242,7 +314,7 @@ public abstract class AbstractServiceRegistry implements ServiceRegistry {
 		}
 	}
 
-	private static String normalizeHost(String host) {
+	static String normalizeHost(String host) {
 		host = StringUtils.replace(host, PATH_DELIMITER, "");
 		int i = host.indexOf('@');
 		return i < 0 ? host : host.substring(i + 1);
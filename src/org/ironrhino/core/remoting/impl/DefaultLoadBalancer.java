@@ -0,0 +1,254 @@
+package org.ironrhino.core.remoting.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ironrhino.core.remoting.LoadBalancer;
+import org.ironrhino.core.remoting.LoadBalancingStrategy;
+import org.ironrhino.core.util.CounterUtils;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DefaultLoadBalancer implements LoadBalancer {
+
+	// cost of host which has outstanding requests but no latency observed yet
+	private static final long PENALTY = TimeUnit.SECONDS.toNanos(10);
+
+	@Getter
+	private final LoadBalancingStrategy strategy;
+
+	@Getter
+	@Setter
+	private long decayTime = TimeUnit.SECONDS.toNanos(10);
+
+	@Getter
+	@Setter
+	private int ejectionThreshold = 5;
+
+	@Getter
+	@Setter
+	private long baseEjectionTime = TimeUnit.SECONDS.toMillis(30);
+
+	@Getter
+	@Setter
+	private long maxEjectionTime = TimeUnit.MINUTES.toMillis(5);
+
+	@Getter
+	@Setter
+	private double outlierLatencyFactor = 5;
+
+	@Getter
+	@Setter
+	private long outlierDetectionInterval = TimeUnit.SECONDS.toMillis(1);
+
+	@Getter
+	@Setter
+	private long rejectionBackoffTime = TimeUnit.SECONDS.toMillis(1);
+
+	private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicLong> outlierDetections = new ConcurrentHashMap<>();
+
+	// key: normalized host
+	private final Map<String, HostStats> hostStats = new ConcurrentHashMap<>();
+
+	// key: registered host
+	private final Map<String, HostStats> candidateStats = new ConcurrentHashMap<>();
+
+	public DefaultLoadBalancer() {
+		this(LoadBalancingStrategy.ROUND_ROBIN);
+	}
+
+	public DefaultLoadBalancer(LoadBalancingStrategy strategy) {
+		this.strategy = strategy;
+	}
+
+	@Override
+	public String choose(String serviceName, List<String> candidates) {
+		if (candidates.size() < 2)
+			return candidates.get(0);
+		long now = System.currentTimeMillis();
+		detectOutliers(serviceName, candidates, now);
+		List<String> list = candidates;
+		for (int i = 0; i < candidates.size(); i++) {
+			if (stats(candidates.get(i)).isEjected(now)) {
+				list = new ArrayList<>(candidates.size());
+				for (String candidate : candidates)
+					if (!stats(candidate).isEjected(now))
+						list.add(candidate);
+				if (list.isEmpty()) // never eject all
+					list = candidates;
+				break;
+			}
+		}
+		int size = list.size();
+		if (size == 1)
+			return list.get(0);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		switch (strategy) {
+		case LEAST_OUTSTANDING_REQUESTS:
+		case PEAK_EWMA:
+			int offset = random.nextInt(size);
+			String chosen = null;
+			double min = Double.MAX_VALUE;
+			long nanoTime = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+				String candidate = list.get((offset + i) % size);
+				HostStats stats = stats(candidate);
+				double load = strategy == LoadBalancingStrategy.PEAK_EWMA ? stats.getLoad(nanoTime, decayTime)
+						: stats.outstanding.get();
+				if (load < min) {
+					min = load;
+					chosen = candidate;
+				}
+			}
+			return chosen;
+		case POWER_OF_TWO_CHOICES:
+			int i = random.nextInt(size);
+			int j = random.nextInt(size - 1);
+			if (j >= i)
+				j++;
+			nanoTime = System.nanoTime();
+			String first = list.get(i);
+			String second = list.get(j);
+			return stats(first).getLoad(nanoTime, decayTime) <= stats(second).getLoad(nanoTime, decayTime) ? first
+					: second;
+		default:
+			AtomicInteger counter = counters.computeIfAbsent(serviceName,
+					s -> new AtomicInteger(random.nextInt(size)));
+			return list.get(CounterUtils.getAndIncrement(counter, size));
+		}
+	}
+
+	@Override
+	public void onRequestStart(String host) {
+		hostStats.computeIfAbsent(host, h -> new HostStats()).outstanding.incrementAndGet();
+	}
+
+	@Override
+	public void onRequestComplete(String host, long elapsedNanos, boolean failed) {
+		HostStats stats = hostStats.computeIfAbsent(host, h -> new HostStats());
+		stats.outstanding.decrementAndGet();
+		stats.observe(elapsedNanos, System.nanoTime(), decayTime);
+		long now = System.currentTimeMillis();
+		if (!failed) {
+			stats.consecutiveFailures.set(0);
+			if (!stats.isEjected(now))
+				stats.ejections = 0;
+		} else if (stats.consecutiveFailures.incrementAndGet() >= ejectionThreshold) {
+			eject(host, stats, now);
+		}
+	}
+
+	// steer away from overloaded host for a while without counting as ejection
+	@Override
+	public void onRequestRejected(String host, long elapsedNanos) {
+		HostStats stats = hostStats.computeIfAbsent(host, h -> new HostStats());
+		stats.outstanding.decrementAndGet();
+		long until = System.currentTimeMillis() + rejectionBackoffTime;
+		synchronized (stats) {
+			if (stats.ejectedUntil < until)
+				stats.ejectedUntil = until;
+		}
+	}
+
+	private void detectOutliers(String serviceName, List<String> candidates, long now) {
+		if (candidates.size() < 3 || outlierLatencyFactor <= 0)
+			return;
+		AtomicLong lastDetection = outlierDetections.computeIfAbsent(serviceName, s -> new AtomicLong());
+		long last = lastDetection.get();
+		if (now - last < outlierDetectionInterval || !lastDetection.compareAndSet(last, now))
+			return;
+		long nanoTime = System.nanoTime();
+		double[] costs = new double[candidates.size()];
+		for (int i = 0; i < costs.length; i++)
+			costs[i] = stats(candidates.get(i)).getCost(nanoTime, decayTime);
+		double[] sorted = costs.clone();
+		Arrays.sort(sorted);
+		double median = sorted[sorted.length / 2];
+		if (median <= 0)
+			return;
+		for (int i = 0; i < costs.length; i++) {
+			if (costs[i] > median * outlierLatencyFactor) {
+				HostStats stats = stats(candidates.get(i));
+				if (!stats.isEjected(now))
+					eject(AbstractServiceRegistry.normalizeHost(candidates.get(i)), stats, now);
+			}
+		}
+	}
+
+	private void eject(String host, HostStats stats, long now) {
+		long ejectionTime;
+		synchronized (stats) {
+			if (stats.isEjected(now))
+				return;
+			stats.ejections++;
+			ejectionTime = Math.min(baseEjectionTime * stats.ejections, maxEjectionTime);
+			stats.ejectedUntil = now + ejectionTime;
+			stats.consecutiveFailures.set(0);
+		}
+		log.warn("Eject {} for {}ms", host, ejectionTime);
+	}
+
+	private HostStats stats(String candidate) {
+		HostStats stats = candidateStats.get(candidate);
+		if (stats == null)
+			stats = candidateStats.computeIfAbsent(candidate, c -> hostStats
+					.computeIfAbsent(AbstractServiceRegistry.normalizeHost(c), h -> new HostStats()));
+		return stats;
+	}
+
+	static class HostStats {
+
+		final AtomicInteger outstanding = new AtomicInteger();
+
+		final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+		volatile long ejectedUntil;
+
+		volatile int ejections;
+
+		// peak EWMA of latency in nanoseconds
+		private double cost;
+
+		private long stamp;
+
+		boolean isEjected(long now) {
+			return ejectedUntil > now;
+		}
+
+		synchronized void observe(long latency, long nanoTime, long decayTime) {
+			if (latency > cost) {
+				cost = latency;
+			} else {
+				double w = Math.exp(-(nanoTime - stamp) / (double) decayTime);
+				cost = cost * w + latency * (1 - w);
+			}
+			stamp = nanoTime;
+		}
+
+		synchronized double getCost(long nanoTime, long decayTime) {
+			return cost * Math.exp(-(nanoTime - stamp) / (double) decayTime);
+		}
+
+		double getLoad(long nanoTime, long decayTime) {
+			int active = outstanding.get();
+			double cost = getCost(nanoTime, decayTime);
+			if (cost == 0 && active > 0)
+				return PENALTY + active;
+			return cost * (active + 1);
+		}
+
+	}
+
+}
@@ -12,7 +12,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang3.StringUtils;
@@ -21,16 +20,20 @@ import org.ironrhino.core.event.InstanceLifecycleEvent;
 import org.ironrhino.core.event.InstanceShutdownEvent;
 import org.ironrhino.core.metadata.Scope;
 import org.ironrhino.core.remoting.ExportServicesEvent;
+import org.ironrhino.core.remoting.ServiceHostsChangedEvent;
 import org.ironrhino.core.spring.configuration.PriorityQualifier;
 import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
 import org.ironrhino.core.util.AppInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Component("serviceRegistry")
@@ -43,6 +46,10 @@ public class RedisServiceRegistry extends AbstractServiceRegistry {
 
 	protected static final String NAMESPACE_APPS = NAMESPACE + "apps:";
 
+	protected static final String NAMESPACE_HEARTBEATS = NAMESPACE + "heartbeats:";
+
+	protected static final String KEY_VERSIONS = NAMESPACE + "versions";
+
 	@Autowired
 	@Qualifier("stringRedisTemplate")
 	@PriorityQualifier({ "remotingStringRedisTemplate", "globalStringRedisTemplate" })
@@ -54,8 +61,14 @@ public class RedisServiceRegistry extends AbstractServiceRegistry {
 	@Autowired(required = false)
 	private ExecutorService executorService;
 
+	@Value("${serviceRegistry.heartbeatTtl:30000}")
+	private long heartbeatTtl = 30000;
+
 	private Map<String, String> servicePaths = new ConcurrentHashMap<>();
 
+	// key: service name, value: registered host with path
+	private Map<String, String> registeredHosts = new ConcurrentHashMap<>();
+
 	@Override
 	protected void onReady() {
 		Set<String> services = getExportedServices().keySet();
@@ -80,11 +93,17 @@ public class RedisServiceRegistry extends AbstractServiceRegistry {
 			servicePaths.remove(serviceName);
 	}
 
+	// version is read before hosts, delta of next version is idempotent for the hosts
 	@Override
 	protected void lookup(String serviceName) {
+		Object version = remotingStringRedisTemplate.opsForHash().get(KEY_VERSIONS, serviceName);
 		List<String> list = remotingStringRedisTemplate.opsForList().range(NAMESPACE_SERVICES + serviceName, 0, -1);
-		if (list != null && list.size() > 0)
-			getImportedServiceCandidates().put(serviceName, new CopyOnWriteArrayList<>(list));
+		if (list == null)
+			return;
+		// empty snapshot of versioned service means all hosts are gone
+		if (list.size() > 0 || version != null)
+			updateImportedServiceCandidates(serviceName, list,
+					version != null ? Long.parseLong(version.toString()) : 0);
 	}
 
 	@Override
@@ -92,11 +111,101 @@ public class RedisServiceRegistry extends AbstractServiceRegistry {
 		String key = NAMESPACE_SERVICES + serviceName;
 		remotingStringRedisTemplate.opsForList().remove(key, 0, host);
 		remotingStringRedisTemplate.opsForList().rightPush(key, host);
+		registeredHosts.put(serviceName, host);
+		remotingStringRedisTemplate.opsForZSet().add(NAMESPACE_HEARTBEATS + serviceName, host, serverTime());
+		publishChange(serviceName, host, false);
 	}
 
 	@Override
 	protected void doUnregister(String serviceName, String host) {
 		remotingStringRedisTemplate.opsForList().remove(NAMESPACE_SERVICES + serviceName, 0, host);
+		registeredHosts.remove(serviceName);
+		remotingStringRedisTemplate.opsForZSet().remove(NAMESPACE_HEARTBEATS + serviceName, host);
+		publishChange(serviceName, host, true);
+	}
+
+	private void publishChange(String serviceName, String host, boolean removed) {
+		try {
+			Long version = remotingStringRedisTemplate.opsForHash().increment(KEY_VERSIONS, serviceName, 1);
+			if (version != null)
+				eventPublisher.publish(new ServiceHostsChangedEvent(serviceName, host, removed, version),
+						Scope.GLOBAL);
+		} catch (Exception e) {
+			logger.warn("Failed to publish change of service {}: {}", serviceName, e.getMessage());
+		}
+	}
+
+	// providers renew heartbeats, expired hosts are removed by whichever node wins the ZREM
+	@Scheduled(initialDelayString = "${serviceRegistry.heartbeatInterval:10000}", fixedDelayString = "${serviceRegistry.heartbeatInterval:10000}")
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void heartbeat() {
+		long now = serverTime();
+		List<Map.Entry<String, String>> registered = new ArrayList<>(registeredHosts.entrySet());
+		if (!registered.isEmpty()) {
+			List<Object> results = remotingStringRedisTemplate.executePipelined((SessionCallback) operations -> {
+				for (Map.Entry<String, String> entry : registered)
+					operations.opsForZSet().add(NAMESPACE_HEARTBEATS + entry.getKey(), entry.getValue(), now);
+				return null;
+			});
+			for (int i = 0; i < registered.size() && i < results.size(); i++) {
+				if (Boolean.TRUE.equals(results.get(i))) {
+					// expired by others while alive, register again
+					Map.Entry<String, String> entry = registered.get(i);
+					logger.warn("Register {} again for service {} since heartbeat expired", entry.getValue(),
+							entry.getKey());
+					doRegister(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		List<String> imported = new ArrayList<>(getImportedServiceCandidates().keySet());
+		if (imported.isEmpty())
+			return;
+		List<Object> expired = remotingStringRedisTemplate.executePipelined((SessionCallback) operations -> {
+			for (String serviceName : imported)
+				operations.opsForZSet().rangeByScore(NAMESPACE_HEARTBEATS + serviceName, 0, now - heartbeatTtl);
+			return null;
+		});
+		for (int i = 0; i < imported.size() && i < expired.size(); i++) {
+			String serviceName = imported.get(i);
+			Collection<String> hosts = (Collection<String>) expired.get(i);
+			if (hosts == null)
+				continue;
+			for (String host : hosts) {
+				Long removed = remotingStringRedisTemplate.opsForZSet().remove(NAMESPACE_HEARTBEATS + serviceName,
+						host);
+				if (removed != null && removed > 0) {
+					logger.warn("Remove {} for service {} since heartbeat expired", host, serviceName);
+					remotingStringRedisTemplate.opsForList().remove(NAMESPACE_SERVICES + serviceName, 0, host);
+					publishChange(serviceName, host, true);
+				}
+			}
+		}
+		resync(imported);
+	}
+
+	// scores are redis server time, nodes with skewed clocks agree on expiration
+	private long serverTime() {
+		Long time = remotingStringRedisTemplate.execute((RedisConnection connection) -> connection.time());
+		return time != null ? time : System.currentTimeMillis();
+	}
+
+	// reload snapshots if versions diverged, for example messages lost during reconnecting
+	private void resync(List<String> imported) {
+		List<Object> versions = remotingStringRedisTemplate.opsForHash().multiGet(KEY_VERSIONS,
+				new ArrayList<>(imported));
+		if (versions == null)
+			return;
+		for (int i = 0; i < imported.size() && i < versions.size(); i++) {
+			Object version = versions.get(i);
+			if (version == null)
+				continue;
+			String serviceName = imported.get(i);
+			Long current = getImportedServiceVersion(serviceName);
+			if (current == null || current != Long.parseLong(version.toString())) {
+				logger.info("Resync service {} from version {} to {}", serviceName, current, version);
+				lookup(serviceName);
+			}
+		}
 	}
 
 	@Override
@@ -160,12 +269,18 @@ public class RedisServiceRegistry extends AbstractServiceRegistry {
 			for (String serviceName : ev.getExportServices()) {
 				String path = ev.getServicePaths().get(serviceName);
 				String ho = path != null ? host + path : host;
-				List<String> hosts = getImportedServiceCandidates().get(serviceName);
-				if (hosts != null && !hosts.contains(ho)) {
-					hosts.add(ho);
-				}
+				addImportedServiceCandidate(serviceName, ho);
 			}
 		}
 	}
 
+	@EventListener
+	public void onApplicationEvent(ServiceHostsChangedEvent event) {
+		String serviceName = event.getServiceName();
+		if (!applyImportedServiceDelta(serviceName, event.getHost(), event.isRemoved(), event.getVersion())) {
+			logger.info("Resync service {} since version {} is not continuous", serviceName, event.getVersion());
+			lookup(serviceName);
+		}
+	}
+
 }
@@ -40,7 +40,7 @@ public class StandaloneServiceRegistry extends AbstractServiceRegistry {
 	protected void lookup(String serviceName) {
 		List<String> list = services.get(serviceName);
 		if (list != null)
-			getImportedServiceCandidates().put(serviceName, new ArrayList<>(list));
+			getImportedServiceCandidates().put(serviceName, Collections.unmodifiableList(new ArrayList<>(list)));
 	}
 
 	@Override
@@ -17,12 +17,14 @@ import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.ironrhino.core.model.NullObject;
+import org.ironrhino.core.remoting.CloseableIterator;
 import org.ironrhino.core.remoting.Remoting;
 import org.ironrhino.core.remoting.RemotingContext;
 import org.ironrhino.core.servlet.AccessFilter;
@@ -102,6 +104,12 @@ public abstract class AbstractJsonRpcHttpInvokerSerializer implements HttpInvoke
 		return new JsonrpcRemoteInvocation(methodInvocation, CodecUtils.nextId());
 	}
 
+	@Override
+	public boolean isDispatchable(RemoteInvocation invocation) {
+		// notification is invoked asynchronously
+		return invocation instanceof JsonrpcRemoteInvocation && ((JsonrpcRemoteInvocation) invocation).getId() != null;
+	}
+
 	@Override
 	public void writeRemoteInvocation(RemoteInvocation remoteInvocation, OutputStream os) throws IOException {
 		JsonrpcRemoteInvocation invocation = (JsonrpcRemoteInvocation) remoteInvocation;
@@ -253,7 +261,8 @@ public abstract class AbstractJsonRpcHttpInvokerSerializer implements HttpInvoke
 						if (rawType instanceof Class) {
 							Class<?> clz = (Class<?>) rawType;
 							if (clz.equals(Optional.class) || Callable.class.isAssignableFrom(clz)
-									|| Future.class.isAssignableFrom(clz)) {
+									|| Future.class.isAssignableFrom(clz) || clz.equals(Stream.class)
+									|| clz.equals(Iterator.class) || clz.equals(CloseableIterator.class)) {
 								type = pt.getActualTypeArguments()[0];
 							}
 						}
@@ -0,0 +1,360 @@
+package org.ironrhino.core.remoting.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.ironrhino.core.remoting.CloseableIterator;
+import org.ironrhino.core.remoting.Remoting;
+import org.ironrhino.core.remoting.RemotingContext;
+import org.ironrhino.core.util.GenericTypeResolver;
+import org.ironrhino.core.util.JsonSerializationUtils;
+import org.springframework.aop.framework.ReflectiveMethodInvocation;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.remoting.RemoteInvocationFailureException;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.util.ClassUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * Values are encoded by codecs derived from service interface signature, type
+ * information is never written except for exceptions which are also java
+ * serialized to keep their causes, method is identified by hash of its
+ * signature. Buffers are recycled by Jackson per thread.
+ */
+public class BinaryHttpInvokerSerializer implements HttpInvokerSerializer {
+
+	public static BinaryHttpInvokerSerializer INSTANCE = new BinaryHttpInvokerSerializer();
+
+	private static final int STATUS_VALUE = 0;
+
+	private static final int STATUS_TARGET_EXCEPTION = 1;
+
+	private static final int STATUS_EXCEPTION = 2;
+
+	private final ObjectMapper objectMapper = JsonSerializationUtils.createNewObjectMapper(new SmileFactory())
+			.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+	private final ObjectReader attributesReader = objectMapper.readerFor(Map.class);
+
+	private final Map<Class<?>, ServiceCodec> serviceCodecs = new ConcurrentHashMap<>();
+
+	private BinaryHttpInvokerSerializer() {
+
+	}
+
+	@Override
+	public String getContentType() {
+		return RemotingContext.CONTENT_TYPE_BINARY;
+	}
+
+	@Override
+	public RemoteInvocation createRemoteInvocation(MethodInvocation methodInvocation) {
+		return new BinaryRemoteInvocation(methodInvocation, getMethodCodec(methodInvocation));
+	}
+
+	@Override
+	public boolean isDispatchable(RemoteInvocation invocation) {
+		return invocation instanceof BinaryRemoteInvocation;
+	}
+
+	@Override
+	public void writeRemoteInvocation(RemoteInvocation invocation, OutputStream os) throws IOException {
+		if (!(invocation instanceof BinaryRemoteInvocation))
+			throw new SerializationFailedException("Invocation should be created by " + getClass().getSimpleName());
+		MethodCodec codec = ((BinaryRemoteInvocation) invocation).codec;
+		Object[] arguments = invocation.getArguments();
+		try (JsonGenerator gen = objectMapper.getFactory().createGenerator(os)) {
+			gen.writeStartArray();
+			gen.writeNumber(codec.id);
+			for (int i = 0; i < codec.parameterWriters.length; i++)
+				codec.parameterWriters[i].writeValue(gen, arguments[i]);
+			if (invocation.getAttributes() != null)
+				objectMapper.writeValue(gen, invocation.getAttributes());
+			gen.writeEndArray();
+		} catch (JsonProcessingException e) {
+			throw new SerializationFailedException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public RemoteInvocation readRemoteInvocation(Class<?> serviceInterface, InputStream is) throws IOException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(is)) {
+			expect(parser, JsonToken.START_ARRAY);
+			expect(parser, JsonToken.VALUE_NUMBER_INT);
+			int id = parser.getIntValue();
+			MethodCodec codec = getServiceCodec(serviceInterface).byId.get(id);
+			if (codec == null)
+				throw new SerializationFailedException(
+						"Unknown method id " + id + " for service " + serviceInterface.getName());
+			Object[] arguments = new Object[codec.parameterReaders.length];
+			for (int i = 0; i < arguments.length; i++) {
+				parser.nextToken();
+				arguments[i] = codec.parameterReaders[i].readValue(parser);
+			}
+			BinaryRemoteInvocation invocation = new BinaryRemoteInvocation();
+			invocation.setMethodName(codec.method.getName());
+			invocation.setParameterTypes(codec.method.getParameterTypes());
+			invocation.setArguments(arguments);
+			invocation.codec = codec;
+			if (parser.nextToken() == JsonToken.START_OBJECT)
+				invocation.setAttributes((Map<String, Serializable>) attributesReader.readValue(parser));
+			return invocation;
+		} catch (JsonProcessingException e) {
+			throw new SerializationFailedException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void writeRemoteInvocationResult(RemoteInvocation invocation, RemoteInvocationResult result, OutputStream os)
+			throws IOException {
+		try (JsonGenerator gen = objectMapper.getFactory().createGenerator(os)) {
+			gen.writeStartArray();
+			Throwable exception = result.getException();
+			if (exception == null) {
+				gen.writeNumber(STATUS_VALUE);
+				Object value = result.getValue();
+				if (value == null || !(invocation instanceof BinaryRemoteInvocation))
+					objectMapper.writeValue(gen, value);
+				else
+					((BinaryRemoteInvocation) invocation).codec.returnWriter.writeValue(gen, value);
+			} else {
+				if (exception instanceof InvocationTargetException) {
+					gen.writeNumber(STATUS_TARGET_EXCEPTION);
+					exception = ((InvocationTargetException) exception).getTargetException();
+				} else {
+					gen.writeNumber(STATUS_EXCEPTION);
+				}
+				gen.writeString(exception.getClass().getName());
+				gen.writeString(exception.getMessage());
+				byte[] serialized = serialize(exception);
+				if (serialized != null)
+					gen.writeBinary(serialized);
+			}
+			gen.writeEndArray();
+		} catch (JsonProcessingException e) {
+			throw new SerializationFailedException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public RemoteInvocationResult readRemoteInvocationResult(MethodInvocation methodInvocation, InputStream is)
+			throws IOException {
+		MethodCodec codec = getMethodCodec(methodInvocation);
+		try (JsonParser parser = objectMapper.getFactory().createParser(is)) {
+			expect(parser, JsonToken.START_ARRAY);
+			expect(parser, JsonToken.VALUE_NUMBER_INT);
+			int status = parser.getIntValue();
+			RemoteInvocationResult result = new RemoteInvocationResult();
+			if (status == STATUS_VALUE) {
+				parser.nextToken();
+				result.setValue(codec.returnReader.readValue(parser));
+			} else {
+				expect(parser, JsonToken.VALUE_STRING);
+				String className = parser.getText();
+				parser.nextToken();
+				String message = parser.getValueAsString();
+				Throwable exception = null;
+				if (parser.nextToken() == JsonToken.VALUE_EMBEDDED_OBJECT)
+					exception = deserialize(parser.getBinaryValue());
+				if (exception == null)
+					exception = instantiate(className, message);
+				result.setException(
+						status == STATUS_TARGET_EXCEPTION ? new InvocationTargetException(exception) : exception);
+			}
+			return result;
+		} catch (JsonProcessingException e) {
+			throw new SerializationFailedException(e.getMessage(), e);
+		}
+	}
+
+	private MethodCodec getMethodCodec(MethodInvocation methodInvocation) {
+		Method method = methodInvocation.getMethod();
+		Class<?> serviceInterface = method.getDeclaringClass();
+		if (methodInvocation instanceof ReflectiveMethodInvocation) {
+			for (Class<?> intf : ((ReflectiveMethodInvocation) methodInvocation).getProxy().getClass()
+					.getInterfaces()) {
+				if (intf.isAnnotationPresent(Remoting.class)) {
+					serviceInterface = intf;
+					break;
+				}
+			}
+		}
+		MethodCodec codec = getServiceCodec(serviceInterface).byMethod.get(method);
+		if (codec == null)
+			throw new SerializationFailedException("No codec for method " + method);
+		return codec;
+	}
+
+	private ServiceCodec getServiceCodec(Class<?> serviceInterface) {
+		return serviceCodecs.computeIfAbsent(serviceInterface, ServiceCodec::new);
+	}
+
+	private static void expect(JsonParser parser, JsonToken token) throws IOException {
+		if (parser.nextToken() != token)
+			throw new SerializationFailedException("Expected " + token + " but was " + parser.currentToken());
+	}
+
+	// cause chain and exceptions without (String) constructor are kept by java
+	// serialization, class name and message are fallback for peers can't read it
+	private static byte[] serialize(Throwable exception) {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(exception);
+		} catch (IOException e) {
+			return null;
+		}
+		return bos.toByteArray();
+	}
+
+	private static Throwable deserialize(byte[] bytes) {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (Throwable) ois.readObject();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static Throwable instantiate(String className, String message) {
+		try {
+			return (Throwable) ClassUtils.forName(className, null).getConstructor(String.class).newInstance(message);
+		} catch (Exception e) {
+			return new RemoteInvocationFailureException(className + ": " + message, null);
+		}
+	}
+
+	static int methodId(Method method) {
+		StringBuilder sb = new StringBuilder(method.getName()).append('(');
+		for (Class<?> type : method.getParameterTypes())
+			sb.append(type.getName()).append(',');
+		return sb.append(')').toString().hashCode();
+	}
+
+	private class ServiceCodec {
+
+		final Map<Integer, MethodCodec> byId = new HashMap<>();
+
+		final Map<Method, MethodCodec> byMethod = new HashMap<>();
+
+		ServiceCodec(Class<?> serviceInterface) {
+			for (Method method : serviceInterface.getMethods()) {
+				if (Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class)
+					continue;
+				MethodCodec codec = new MethodCodec(method, serviceInterface);
+				MethodCodec existed = byId.put(codec.id, codec);
+				if (existed != null && !existed.method.equals(method))
+					throw new IllegalStateException(
+							"Hash collision of method " + existed.method + " and " + method + ", please rename");
+				byMethod.put(method, codec);
+			}
+		}
+
+	}
+
+	private class MethodCodec {
+
+		final Method method;
+
+		final int id;
+
+		final ObjectWriter[] parameterWriters;
+
+		final ObjectReader[] parameterReaders;
+
+		final ObjectWriter returnWriter;
+
+		final ObjectReader returnReader;
+
+		MethodCodec(Method method, Class<?> serviceInterface) {
+			this.method = method;
+			this.id = methodId(method);
+			Type[] types = method.getGenericParameterTypes();
+			parameterWriters = new ObjectWriter[types.length];
+			parameterReaders = new ObjectReader[types.length];
+			for (int i = 0; i < types.length; i++) {
+				JavaType type = objectMapper.constructType(resolve(types[i], serviceInterface));
+				parameterWriters[i] = writerFor(type);
+				parameterReaders[i] = objectMapper.readerFor(type);
+			}
+			Type returnType = resolve(method.getGenericReturnType(), serviceInterface);
+			if (returnType instanceof ParameterizedType) {
+				Type rawType = ((ParameterizedType) returnType).getRawType();
+				if (rawType instanceof Class) {
+					Class<?> clz = (Class<?>) rawType;
+					if (clz == Optional.class || Callable.class.isAssignableFrom(clz)
+							|| Future.class.isAssignableFrom(clz) || CompletionStage.class.isAssignableFrom(clz)
+							|| clz == Stream.class || clz == Iterator.class || clz == CloseableIterator.class)
+						returnType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+				}
+			}
+			if (returnType == void.class)
+				returnType = Void.class;
+			JavaType type = objectMapper.constructType(returnType);
+			returnWriter = writerFor(type);
+			returnReader = objectMapper.readerFor(type);
+		}
+
+		private Type resolve(Type type, Class<?> serviceInterface) {
+			if (type instanceof TypeVariable || type instanceof ParameterizedType)
+				return GenericTypeResolver.resolveType(type, serviceInterface);
+			return type;
+		}
+
+		// static type only if it can't be subclassed, otherwise properties of subclass are lost
+		private ObjectWriter writerFor(JavaType type) {
+			return type.isFinal() || type.isPrimitive() || type.isContainerType() ? objectMapper.writerFor(type)
+					: objectMapper.writer();
+		}
+
+	}
+
+	@NoArgsConstructor
+	private static class BinaryRemoteInvocation extends RemoteInvocation {
+
+		private static final long serialVersionUID = 4316547046473626585L;
+
+		private transient MethodCodec codec;
+
+		BinaryRemoteInvocation(MethodInvocation methodInvocation, MethodCodec codec) {
+			super(methodInvocation);
+			this.codec = codec;
+		}
+
+	}
+
+}
@@ -0,0 +1,121 @@
+package org.ironrhino.core.remoting.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import lombok.experimental.UtilityClass;
+
+// batch body is entry count followed by length prefixed entries written by underlying serializer
+@UtilityClass
+public final class HttpInvokerBatches {
+
+	public static final String REQUEST_PARAMETER = "batch";
+
+	public static final int MAX_BATCH_SIZE = 10000;
+
+	public static final int MAX_ENTRY_LENGTH = 16 * 1024 * 1024;
+
+	public static void writeInvocations(HttpInvokerSerializer serializer, List<RemoteInvocation> invocations,
+			OutputStream os) throws IOException {
+		DataOutputStream dos = new DataOutputStream(os);
+		dos.writeInt(invocations.size());
+		ByteArrayOutputStream entry = new ByteArrayOutputStream(512);
+		for (RemoteInvocation invocation : invocations) {
+			entry.reset();
+			serializer.writeRemoteInvocation(invocation, entry);
+			writeEntry(dos, entry);
+		}
+		dos.flush();
+	}
+
+	public static List<RemoteInvocation> readInvocations(HttpInvokerSerializer serializer, Class<?> serviceInterface,
+			InputStream is) throws IOException {
+		DataInputStream dis = new DataInputStream(is);
+		int size = readSize(dis);
+		List<RemoteInvocation> invocations = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+			invocations.add(serializer.readRemoteInvocation(serviceInterface, readEntry(dis)));
+		return invocations;
+	}
+
+	public static void writeResults(HttpInvokerSerializer serializer, List<RemoteInvocation> invocations,
+			List<RemoteInvocationResult> results, OutputStream os) throws IOException {
+		DataOutputStream dos = new DataOutputStream(os);
+		dos.writeInt(results.size());
+		ByteArrayOutputStream entry = new ByteArrayOutputStream(512);
+		for (int i = 0; i < results.size(); i++) {
+			entry.reset();
+			try {
+				serializer.writeRemoteInvocationResult(invocations.get(i), results.get(i), entry);
+			} catch (SerializationFailedException e) {
+				// fail this entry only
+				entry.reset();
+				serializer.writeRemoteInvocationResult(invocations.get(i),
+						new RemoteInvocationResult(new SerializationFailedException(e.getMessage())), entry);
+			}
+			writeEntry(dos, entry);
+		}
+		dos.flush();
+	}
+
+	public static List<RemoteInvocationResult> readResults(HttpInvokerSerializer serializer,
+			List<MethodInvocation> methodInvocations, InputStream is) throws IOException {
+		DataInputStream dis = new DataInputStream(is);
+		int size = readSize(dis);
+		if (size != methodInvocations.size())
+			throw new SerializationFailedException(
+					"Expected " + methodInvocations.size() + " results but received " + size);
+		List<RemoteInvocationResult> results = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+			results.add(serializer.readRemoteInvocationResult(methodInvocations.get(i), readEntry(dis)));
+		return results;
+	}
+
+	private static void writeEntry(DataOutputStream dos, ByteArrayOutputStream entry) throws IOException {
+		dos.writeInt(entry.size());
+		entry.writeTo(dos);
+	}
+
+	private static int readSize(DataInputStream dis) throws IOException {
+		int size = dis.readInt();
+		if (size < 0 || size > MAX_BATCH_SIZE)
+			throw new SerializationFailedException("Invalid batch size: " + size);
+		return size;
+	}
+
+	private static InputStream readEntry(DataInputStream dis) throws IOException {
+		int length = dis.readInt();
+		if (length < 0 || length > MAX_ENTRY_LENGTH)
+			throw new SerializationFailedException("Invalid entry length: " + length);
+		return readBytes(dis, length);
+	}
+
+	static InputStream readBytes(DataInputStream dis, int length) throws IOException {
+		// grow with bytes actually received instead of trusting length prefix
+		ByteArrayOutputStream entry = new ByteArrayOutputStream(Math.min(length, 8192));
+		byte[] buffer = new byte[Math.min(length, 8192)];
+		int remaining = length;
+		while (remaining > 0) {
+			int n = dis.read(buffer, 0, Math.min(remaining, buffer.length));
+			if (n < 0)
+				throw new EOFException("Expected " + length + " bytes but received " + (length - remaining));
+			entry.write(buffer, 0, n);
+			remaining -= n;
+		}
+		return new ByteArrayInputStream(entry.toByteArray());
+	}
+
+}
@@ -32,6 +32,11 @@ public interface HttpInvokerSerializer {
 
 	RemoteInvocation readRemoteInvocation(Class<?> serviceInterface, InputStream is) throws IOException;
 
+	// whether invocation could be dispatched by ServiceDispatcher instead of RemoteInvocation.invoke()
+	default boolean isDispatchable(RemoteInvocation invocation) {
+		return invocation.getClass() == RemoteInvocation.class;
+	}
+
 	void writeRemoteInvocationResult(RemoteInvocation invocation, RemoteInvocationResult result, OutputStream os)
 			throws IOException;
 
@@ -24,8 +24,10 @@ public final class HttpInvokerSerializers {
 		SERIALIZERS.add(DEFAULT_SERIALIZER);
 		SERIALIZERS.add(JsonHttpInvokerSerializer.INSTANCE);
 		if (ClassUtils.isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory",
-				HttpInvokerSerializers.class.getClassLoader()))
+				HttpInvokerSerializers.class.getClassLoader())) {
 			SERIALIZERS.add(SmileHttpInvokerSerializer.INSTANCE);
+			SERIALIZERS.add(BinaryHttpInvokerSerializer.INSTANCE);
+		}
 		if (ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.CBORFactory",
 				HttpInvokerSerializers.class.getClassLoader()))
 			SERIALIZERS.add(CborHttpInvokerSerializer.INSTANCE);
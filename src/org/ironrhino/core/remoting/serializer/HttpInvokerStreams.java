@@ -0,0 +1,190 @@
+package org.ironrhino.core.remoting.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.ironrhino.core.remoting.CloseableIterator;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.remoting.RemoteAccessException;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Result of method returning {@code Stream} or {@code Iterator} is written as
+ * frames, each element is written by underlying serializer as soon as it is
+ * produced, the last frame carries completion or failure. Client should close
+ * {@code Stream} or {@link CloseableIterator} if not consumed entirely to
+ * release connection.
+ */
+@UtilityClass
+public final class HttpInvokerStreams {
+
+	private static final int FRAME_END = 0;
+
+	private static final int FRAME_ELEMENT = 1;
+
+	public static final int MAX_FRAME_LENGTH = HttpInvokerBatches.MAX_ENTRY_LENGTH;
+
+	public static boolean isStreaming(Method method) {
+		Class<?> returnType = method.getReturnType();
+		return returnType == Stream.class || returnType == Iterator.class || returnType == CloseableIterator.class;
+	}
+
+	public static void writeResult(HttpInvokerSerializer serializer, RemoteInvocation invocation,
+			RemoteInvocationResult result, OutputStream os, Function<Throwable, Throwable> exceptionTransformer)
+			throws IOException {
+		DataOutputStream dos = new DataOutputStream(os);
+		ByteArrayOutputStream frame = new ByteArrayOutputStream(512);
+		RemoteInvocationResult end = result;
+		Object value = result.getValue();
+		if (!result.hasException() && value != null) {
+			end = new RemoteInvocationResult();
+			Iterator<?> it = value instanceof Stream ? ((Stream<?>) value).iterator() : (Iterator<?>) value;
+			try {
+				while (it.hasNext()) {
+					frame.reset();
+					serializer.writeRemoteInvocationResult(invocation, new RemoteInvocationResult(it.next()), frame);
+					writeFrame(dos, FRAME_ELEMENT, frame);
+				}
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				end = new RemoteInvocationResult(new InvocationTargetException(exceptionTransformer.apply(e)));
+			} finally {
+				if (value instanceof Stream)
+					((Stream<?>) value).close();
+			}
+		}
+		frame.reset();
+		serializer.writeRemoteInvocationResult(invocation, end, frame);
+		writeFrame(dos, FRAME_END, frame);
+		dos.flush();
+	}
+
+	// first frame is read eagerly, so failure before streaming is returned as normal result
+	public static RemoteInvocationResult readResult(HttpInvokerSerializer serializer,
+			MethodInvocation methodInvocation, InputStream is) throws IOException {
+		ResultIterator it = new ResultIterator(serializer, methodInvocation, is);
+		try {
+			it.fetch();
+		} catch (IOException | RuntimeException e) {
+			it.close();
+			throw e;
+		}
+		if (it.end != null && it.end.hasException())
+			return it.end;
+		if (methodInvocation.getMethod().getReturnType() != Stream.class)
+			return new RemoteInvocationResult(it);
+		return new RemoteInvocationResult(
+				StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+						.onClose(it::close));
+	}
+
+	private static void writeFrame(DataOutputStream dos, int type, ByteArrayOutputStream frame) throws IOException {
+		dos.writeByte(type);
+		dos.writeInt(frame.size());
+		frame.writeTo(dos);
+	}
+
+	private static class ResultIterator implements CloseableIterator<Object> {
+
+		private final HttpInvokerSerializer serializer;
+
+		private final MethodInvocation methodInvocation;
+
+		private final DataInputStream dis;
+
+		private boolean fetched;
+
+		private Object next;
+
+		private RemoteInvocationResult end;
+
+		ResultIterator(HttpInvokerSerializer serializer, MethodInvocation methodInvocation, InputStream is) {
+			this.serializer = serializer;
+			this.methodInvocation = methodInvocation;
+			this.dis = new DataInputStream(is);
+		}
+
+		void fetch() throws IOException {
+			if (fetched || end != null)
+				return;
+			int type = dis.read();
+			if (type < 0)
+				throw new EOFException("Unexpected end of streaming result");
+			int length = dis.readInt();
+			if (length < 0 || length > MAX_FRAME_LENGTH)
+				throw new SerializationFailedException("Invalid frame length: " + length);
+			RemoteInvocationResult result = serializer.readRemoteInvocationResult(methodInvocation,
+					HttpInvokerBatches.readBytes(dis, length));
+			if (type == FRAME_ELEMENT) {
+				next = result.getValue();
+				fetched = true;
+			} else {
+				end = result;
+				close();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			try {
+				fetch();
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+			if (fetched)
+				return true;
+			Throwable ex = end.getException();
+			if (ex == null)
+				return false;
+			if (ex instanceof InvocationTargetException)
+				ex = ((InvocationTargetException) ex).getTargetException();
+			if (ex instanceof RuntimeException)
+				throw (RuntimeException) ex;
+			if (ex instanceof Error)
+				throw (Error) ex;
+			throw new RemoteAccessException("Streaming result failed", ex);
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Object value = next;
+			next = null;
+			fetched = false;
+			return value;
+		}
+
+		@Override
+		public void close() {
+			try {
+				dis.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+	}
+
+}
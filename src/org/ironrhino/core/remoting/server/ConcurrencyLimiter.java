@@ -0,0 +1,80 @@
+package org.ironrhino.core.remoting.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient based adaptive concurrency limit, limit shrinks when short term
+ * latency grows beyond long term latency and grows by a queue allowance
+ * otherwise.
+ */
+public class ConcurrencyLimiter {
+
+	private static final double TOLERANCE = 1.5;
+
+	private static final double SMOOTHING = 0.2;
+
+	private static final int LONG_WINDOW = 600;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final AtomicInteger inflight = new AtomicInteger();
+
+	private volatile double limit;
+
+	private double shortRtt;
+
+	private double longRtt;
+
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1 || maxLimit < minLimit)
+			throw new IllegalArgumentException("Invalid limits: " + minLimit + ", " + maxLimit);
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInflight() {
+		return inflight.get();
+	}
+
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inflight.get();
+			if (current >= (int) limit)
+				return false;
+			if (inflight.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	public void release(long rttNanos) {
+		int current = inflight.getAndDecrement();
+		if (rttNanos <= 0)
+			return;
+		synchronized (this) {
+			if (longRtt == 0) {
+				shortRtt = longRtt = rttNanos;
+				return;
+			}
+			shortRtt = shortRtt * (1 - SMOOTHING) + rttNanos * SMOOTHING;
+			longRtt = longRtt + (rttNanos - longRtt) / LONG_WINDOW;
+			// let long term latency recover after sustained regression
+			if (longRtt / shortRtt > 2)
+				longRtt *= 0.95;
+			double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+			double newLimit = limit * gradient + Math.sqrt(limit);
+			// don't grow if not limited by concurrency
+			if (newLimit > limit && current < limit / 2)
+				return;
+			newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+			limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+		}
+	}
+
+}
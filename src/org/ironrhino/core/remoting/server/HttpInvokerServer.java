@@ -2,28 +2,46 @@ package org.ironrhino.core.remoting.server;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.ironrhino.core.metrics.Metrics;
 import org.ironrhino.core.model.NullObject;
+import org.ironrhino.core.remoting.DeadlineExceededException;
 import org.ironrhino.core.remoting.RemotingContext;
+import org.ironrhino.core.remoting.ServiceDispatcher;
+import org.ironrhino.core.remoting.ServiceDispatcher.DispatchedMethod;
+import org.ironrhino.core.remoting.ServiceOverloadedException;
 import org.ironrhino.core.remoting.ServiceRegistry;
+import org.ironrhino.core.remoting.serializer.HttpInvokerBatches;
 import org.ironrhino.core.remoting.serializer.HttpInvokerSerializer;
 import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.ironrhino.core.remoting.serializer.HttpInvokerStreams;
 import org.ironrhino.core.remoting.stats.ServiceStats;
 import org.ironrhino.core.servlet.AccessFilter;
 import org.ironrhino.core.servlet.ProxySupportHttpServletRequest;
@@ -31,6 +49,7 @@ import org.ironrhino.core.tracing.Tracing;
 import org.ironrhino.core.util.CheckedFunction;
 import org.ironrhino.core.util.ExceptionUtils;
 import org.ironrhino.core.util.JsonDesensitizer;
+import org.ironrhino.core.util.NameableThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -57,6 +76,11 @@ public class HttpInvokerServer implements HttpRequestHandler {
 	private static final String MDC_KEY_INTERFACE_NAME = "interfaceName";
 	private static final String MDC_KEY_ROLE = "role";
 	private static final String MDC_KEY_SERVICE = "service";
+	private static final String ATTRIBUTE_DISPATCHED_METHOD = DispatchedMethod.class.getName();
+
+	private static final String ATTRIBUTE_STREAMING = HttpInvokerStreams.class.getName();
+
+	private static final String ATTRIBUTE_PERMIT = ConcurrencyLimiter.class.getName();
 
 	private Logger remotingLogger = LoggerFactory.getLogger("remoting");
 
@@ -66,9 +90,33 @@ public class HttpInvokerServer implements HttpRequestHandler {
 	@Autowired
 	private ServiceRegistry serviceRegistry;
 
+	@Value("${httpInvoker.batchConcurrency:16}")
+	private int batchConcurrency = 16;
+
+	@Value("${httpInvoker.batchQueueCapacity:1000}")
+	private int batchQueueCapacity = 1000;
+
+	// opt-in, clients prior to status SC_OVERLOADED treat rejection as failure and
+	// evict healthy host, enable it after all clients upgraded
+	@Value("${httpInvoker.concurrencyLimit.enabled:false}")
+	private boolean concurrencyLimitEnabled;
+
+	@Value("${httpInvoker.concurrencyLimit.initial:100}")
+	private int initialConcurrencyLimit = 100;
+
+	@Value("${httpInvoker.concurrencyLimit.min:20}")
+	private int minConcurrencyLimit = 20;
+
+	@Value("${httpInvoker.concurrencyLimit.max:1000}")
+	private int maxConcurrencyLimit = 1000;
+
 	@Autowired(required = false)
 	private ServiceStats serviceStats;
 
+	private final Map<String, ConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+
+	private volatile ExecutorService batchExecutorService;
+
 	@Override
 	public void handleRequest(HttpServletRequest request, HttpServletResponse response)
 			throws ServletException, IOException {
@@ -80,14 +128,50 @@ public class HttpInvokerServer implements HttpRequestHandler {
 		String uri = request.getRequestURI();
 		String interfaceName = uri.substring(uri.lastIndexOf('/') + 1);
 		MDC.put(MDC_KEY_INTERFACE_NAME, interfaceName);
-		Object target = serviceRegistry.getExportedServices().get(interfaceName);
+		ServiceDispatcher dispatcher = serviceRegistry.getServiceDispatcher(interfaceName);
+		Object target = dispatcher != null ? dispatcher.getTarget()
+				: serviceRegistry.getExportedServices().get(interfaceName);
 		if (target == null) {
 			log.error("Service Not Found: " + interfaceName);
 			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
 			return;
 		}
+		ConcurrencyLimiter limiter = getConcurrencyLimiter(interfaceName);
+		if (limiter != null && !limiter.tryAcquire()) {
+			// shed before reading request body
+			remotingLogger.warn("Rejected since concurrency limit {} reached", limiter.getLimit());
+			Metrics.increment("remoting.server.rejections", "service", interfaceName);
+			MDC.remove(MDC_KEY_INTERFACE_NAME);
+			response.setStatus(RemotingContext.SC_OVERLOADED);
+			return;
+		}
+		Permit permit = null;
+		if (limiter != null) {
+			permit = new Permit(limiter);
+			request.setAttribute(ATTRIBUTE_PERMIT, permit);
+		}
+		try {
+			handleRequest(request, response, interfaceName, target, dispatcher);
+		} finally {
+			// released on completion if async
+			if (permit != null && !request.isAsyncStarted())
+				permit.release();
+		}
+	}
+
+	private void handleRequest(HttpServletRequest request, HttpServletResponse response, String interfaceName,
+			Object target, ServiceDispatcher dispatcher) {
+		Long deadline = parseDeadline(request);
+		if (deadline != null) {
+			request.setAttribute(RemotingContext.ATTRIBUTE_DEADLINE, deadline);
+			RemotingContext.setDeadline(deadline);
+		}
+		if (request.getParameter(HttpInvokerBatches.REQUEST_PARAMETER) != null) {
+			handleBatchRequest(request, response, interfaceName, target, dispatcher, deadline);
+			return;
+		}
 		Holder holder = Tracing.isEnabled() ? new Holder() : null;
-		invoke(request, response, req -> {
+		invoke(request, response, deadline, req -> {
 			if (holder != null) {
 				Tracer tracer = GlobalTracer.get();
 				Span span = tracer.buildSpan(interfaceName).start();
@@ -96,15 +180,22 @@ public class HttpInvokerServer implements HttpRequestHandler {
 				holder.span = span;
 				holder.scope = tracer.activateSpan(span);
 			}
+			HttpInvokerSerializer serializer = HttpInvokerSerializers.forRequest(req);
+			Class<?> serviceInterface = dispatcher != null ? dispatcher.getServiceInterface()
+					: ClassUtils.forName(interfaceName, null);
 			RemoteInvocation invocation = Tracing.execute("readRemoteInvocation",
-					() -> HttpInvokerSerializers.forRequest(req)
-							.readRemoteInvocation(ClassUtils.forName(interfaceName, null), req.getInputStream()));
-			List<String> parameterTypeList = new ArrayList<>(invocation.getParameterTypes().length);
-			for (Class<?> cl : invocation.getParameterTypes())
-				parameterTypeList.add(cl.getSimpleName());
-			String method = invocation.getMethodName() + "(" + String.join(",", parameterTypeList) + ")";
+					() -> serializer.readRemoteInvocation(serviceInterface, req.getInputStream()));
+			DispatchedMethod dispatchedMethod = dispatch(dispatcher, serializer, invocation);
+			if (dispatchedMethod != null)
+				req.setAttribute(ATTRIBUTE_DISPATCHED_METHOD, dispatchedMethod);
+			Method method = dispatchedMethod != null ? dispatchedMethod.getMethod()
+					: ClassUtils.getMethodIfAvailable(serviceInterface, invocation.getMethodName(),
+							invocation.getParameterTypes());
+			if (method != null && HttpInvokerStreams.isStreaming(method))
+				req.setAttribute(ATTRIBUTE_STREAMING, true);
 			MDC.put(MDC_KEY_ROLE, "SERVER");
-			MDC.put(MDC_KEY_SERVICE, MDC.get(MDC_KEY_INTERFACE_NAME) + '.' + method);
+			MDC.put(MDC_KEY_SERVICE, dispatchedMethod != null ? dispatchedMethod.getQualifiedSignature()
+					: interfaceName + '.' + signature(invocation));
 			if (holder != null) {
 				holder.span.setOperationName(MDC.get(MDC_KEY_SERVICE));
 			}
@@ -116,8 +207,10 @@ public class HttpInvokerServer implements HttpRequestHandler {
 			return invocation;
 		}, invocation -> {
 			try {
-				return Tracing.execute("invokeAndCreateResult",
-						() -> createRemoteInvocationResult(request, invocation, invocation.invoke(target)));
+				DispatchedMethod dispatchedMethod = (DispatchedMethod) request.getAttribute(ATTRIBUTE_DISPATCHED_METHOD);
+				return Tracing.execute("invokeAndCreateResult", () -> createRemoteInvocationResult(request, invocation,
+						dispatchedMethod != null ? dispatchedMethod.invoke(invocation.getArguments())
+								: invocation.invoke(target)));
 			} catch (Throwable ex) {
 				if (ex instanceof InvocationTargetException) {
 					ex = new InvocationTargetException(
@@ -136,9 +229,236 @@ public class HttpInvokerServer implements HttpRequestHandler {
 			MDC.remove(MDC_KEY_INTERFACE_NAME);
 			MDC.remove(MDC_KEY_ROLE);
 			MDC.remove(MDC_KEY_SERVICE);
+			RemotingContext.setAttributes(null);
 		});
 	}
 
+	// invocations of batch are executed in parallel, each one succeeds or fails independently
+	private void handleBatchRequest(HttpServletRequest request, HttpServletResponse response, String interfaceName,
+			Object target, ServiceDispatcher dispatcher, Long deadline) {
+		HttpInvokerSerializer serializer = HttpInvokerSerializers.forRequest(request);
+		MDC.put(MDC_KEY_ROLE, "SERVER");
+		try {
+			List<RemoteInvocation> invocations = Tracing.execute("readRemoteInvocations",
+					() -> HttpInvokerBatches.readInvocations(serializer, dispatcher != null
+							? dispatcher.getServiceInterface()
+							: ClassUtils.forName(interfaceName, null), request.getInputStream()));
+			long time = System.nanoTime();
+			List<RemoteInvocationResult> results = invokeBatch(target, interfaceName, dispatcher, serializer,
+					invocations, deadline);
+			time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time);
+			if (results == null) {
+				remotingLogger.warn("Deadline exceeded before invoking batch");
+				response.setStatus(RemotingContext.SC_DEADLINE_EXCEEDED);
+				return;
+			}
+			remotingLogger.info("Invoked batch of {} from {} in {}ms", invocations.size(),
+					MDC.get(AccessFilter.MDC_KEY_REQUEST_FROM), time);
+			Tracing.execute("writeRemoteInvocationResults", () -> {
+				response.setContentType(serializer.getContentType());
+				HttpInvokerBatches.writeResults(serializer, invocations, results, response.getOutputStream());
+				return null;
+			});
+		} catch (SerializationFailedException sfe) {
+			log.error(sfe.getMessage(), sfe);
+			response.setHeader(RemotingContext.HTTP_HEADER_EXCEPTION_MESSAGE, sfe.getMessage());
+			response.setStatus(RemotingContext.SC_SERIALIZATION_FAILED);
+		} catch (Exception ex) {
+			log.error(ex.getMessage(), ex);
+			Tracing.logError(ex);
+			response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		} finally {
+			MDC.remove(MDC_KEY_INTERFACE_NAME);
+			MDC.remove(MDC_KEY_ROLE);
+			RemotingContext.setAttributes(null);
+		}
+	}
+
+	// null means deadline exceeded before start, entries not completed in time fail individually
+	private List<RemoteInvocationResult> invokeBatch(Object target, String interfaceName, ServiceDispatcher dispatcher,
+			HttpInvokerSerializer serializer, List<RemoteInvocation> invocations, Long deadline)
+			throws InterruptedException {
+		if (deadline != null && deadline <= System.currentTimeMillis())
+			return null;
+		Map<String, String> contextMap = MDC.getCopyOfContextMap();
+		Map<String, Object> attributes = RemotingContext.getAttributes();
+		ConcurrencyLimiter limiter = getConcurrencyLimiter(interfaceName);
+		List<Future<RemoteInvocationResult>> futures = new ArrayList<>(invocations.size());
+		for (int i = 0; i < invocations.size(); i++) {
+			RemoteInvocation invocation = invocations.get(i);
+			// permit of request covers first entry, others acquire their own
+			Permit permit = null;
+			if (limiter != null && i > 0) {
+				if (!limiter.tryAcquire()) {
+					Metrics.increment("remoting.server.rejections", "service", interfaceName);
+					futures.add(CompletableFuture
+							.completedFuture(failedResult(new ServiceOverloadedException(interfaceName))));
+					continue;
+				}
+				permit = new Permit(limiter);
+			}
+			Permit entryPermit = permit;
+			// permit is released by task body once started, otherwise by done() if cancelled
+			AtomicBoolean started = new AtomicBoolean();
+			FutureTask<RemoteInvocationResult> task = new FutureTask<RemoteInvocationResult>(
+					Tracing.wrapAsync("invokeAndCreateResult", () -> {
+						if (!started.compareAndSet(false, true))
+							return failedResult(new DeadlineExceededException(interfaceName));
+						if (contextMap != null)
+							MDC.setContextMap(contextMap);
+						RemotingContext.setAttributes(attributes);
+						try {
+							return invokeInBatch(target, interfaceName, dispatch(dispatcher, serializer, invocation),
+									invocation);
+						} finally {
+							RemotingContext.setAttributes(null);
+							MDC.clear();
+							if (entryPermit != null)
+								entryPermit.release();
+						}
+					})) {
+				@Override
+				protected void done() {
+					// cancelled before started, interrupted body may still be running otherwise
+					if (entryPermit != null && isCancelled() && started.compareAndSet(false, true))
+						entryPermit.release();
+				}
+			};
+			try {
+				getBatchExecutorService().execute(task);
+				futures.add(task);
+			} catch (RejectedExecutionException e) {
+				task.cancel(false);
+				Metrics.increment("remoting.server.rejections", "service", interfaceName);
+				futures.add(CompletableFuture
+						.completedFuture(failedResult(new ServiceOverloadedException(interfaceName))));
+			}
+		}
+		List<RemoteInvocationResult> results = new ArrayList<>(invocations.size());
+		int expired = 0;
+		try {
+			for (Future<RemoteInvocationResult> future : futures) {
+				try {
+					if (deadline != null)
+						results.add(future.get(Math.max(deadline - System.currentTimeMillis(), 0),
+								TimeUnit.MILLISECONDS));
+					else
+						results.add(future.get());
+				} catch (ExecutionException e) {
+					results.add(failedResult(transform(e.getCause())));
+				} catch (TimeoutException e) {
+					// keep results completed in time
+					results.add(failedResult(new DeadlineExceededException(interfaceName)));
+					expired++;
+				}
+			}
+		} finally {
+			for (Future<RemoteInvocationResult> future : futures)
+				future.cancel(true);
+		}
+		if (expired > 0)
+			remotingLogger.warn("Deadline exceeded, {} of {} entries discarded", expired, invocations.size());
+		return results;
+	}
+
+	private static RemoteInvocationResult failedResult(Throwable ex) {
+		return new RemoteInvocationResult(new InvocationTargetException(ex));
+	}
+
+	private RemoteInvocationResult invokeInBatch(Object target, String interfaceName,
+			DispatchedMethod dispatchedMethod, RemoteInvocation invocation) {
+		String method = dispatchedMethod != null ? dispatchedMethod.getSignature() : signature(invocation);
+		MDC.put(MDC_KEY_SERVICE, dispatchedMethod != null ? dispatchedMethod.getQualifiedSignature()
+				: interfaceName + '.' + method);
+		long time = System.nanoTime();
+		RemoteInvocationResult result;
+		try {
+			result = new RemoteInvocationResult(await(dispatchedMethod != null
+					? dispatchedMethod.invoke(invocation.getArguments())
+					: invocation.invoke(target)));
+		} catch (Throwable ex) {
+			if (ex instanceof InvocationTargetException) {
+				ex = new InvocationTargetException(transform(((InvocationTargetException) ex).getTargetException()));
+			}
+			Tracing.logError(ex);
+			log.error("Processing of " + MDC.get(MDC_KEY_SERVICE) + " remote call resulted in exception",
+					ex instanceof InvocationTargetException ? ex.getCause() : ex);
+			result = new RemoteInvocationResult(ex);
+		}
+		if (serviceStats != null)
+			serviceStats.serverSideEmit(interfaceName, method,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time));
+		return result;
+	}
+
+	// asynchronous results are awaited since batch is responded at once
+	private static Object await(Object value) throws InvocationTargetException {
+		try {
+			if (value instanceof Optional)
+				return ((Optional<?>) value).orElse(null);
+			if (value instanceof CompletionStage)
+				return ((CompletionStage<?>) value).toCompletableFuture().get();
+			if (value instanceof Future)
+				return ((Future<?>) value).get();
+			if (value instanceof Callable)
+				return ((Callable<?>) value).call();
+			return value;
+		} catch (ExecutionException e) {
+			throw new InvocationTargetException(e.getCause());
+		} catch (Exception e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	private ExecutorService getBatchExecutorService() {
+		ExecutorService es = batchExecutorService;
+		if (es == null) {
+			synchronized (this) {
+				if ((es = batchExecutorService) == null) {
+					// bounded, entries rejected when saturated fail with ServiceOverloadedException
+					ThreadPoolExecutor tpe = new ThreadPoolExecutor(batchConcurrency, batchConcurrency, 60,
+							TimeUnit.SECONDS, new LinkedBlockingQueue<>(batchQueueCapacity),
+							new NameableThreadFactory("httpInvokerBatch"));
+					tpe.allowCoreThreadTimeOut(true);
+					batchExecutorService = es = tpe;
+				}
+			}
+		}
+		return es;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (batchExecutorService != null)
+			batchExecutorService.shutdownNow();
+	}
+
+	private static DispatchedMethod dispatch(ServiceDispatcher dispatcher, HttpInvokerSerializer serializer,
+			RemoteInvocation invocation) {
+		if (dispatcher == null || !serializer.isDispatchable(invocation))
+			return null;
+		return dispatcher.getMethod(invocation.getMethodName(), invocation.getParameterTypes());
+	}
+
+	private static String signature(RemoteInvocation invocation) {
+		List<String> parameterTypeList = new ArrayList<>(invocation.getParameterTypes().length);
+		for (Class<?> cl : invocation.getParameterTypes())
+			parameterTypeList.add(cl.getSimpleName());
+		return invocation.getMethodName() + "(" + String.join(",", parameterTypeList) + ")";
+	}
+
+	private static Long parseDeadline(HttpServletRequest request) {
+		String value = request.getHeader(RemotingContext.HTTP_HEADER_DEADLINE);
+		if (value == null)
+			return null;
+		try {
+			return System.currentTimeMillis() + Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			log.warn("Invalid {}: {}", RemotingContext.HTTP_HEADER_DEADLINE, value);
+			return null;
+		}
+	}
+
 	protected RemoteInvocationResult createRemoteInvocationResult(HttpServletRequest request,
 			RemoteInvocation invocation, Object value) {
 		if (value instanceof Optional) {
@@ -229,12 +549,18 @@ public class HttpInvokerServer implements HttpRequestHandler {
 		return throwable;
 	}
 
-	private void invoke(HttpServletRequest request, HttpServletResponse response,
+	private void invoke(HttpServletRequest request, HttpServletResponse response, Long deadline,
 			CheckedFunction<HttpServletRequest, RemoteInvocation, Exception> invocationFunction,
 			Function<RemoteInvocation, RemoteInvocationResult> invocationResultFunction, Runnable completion) {
 		HttpInvokerSerializer serializer = HttpInvokerSerializers.forRequest(request);
 		try {
 			RemoteInvocation invocation = invocationFunction.apply(request);
+			if (deadline != null && deadline <= System.currentTimeMillis()) {
+				// caller has given up
+				remotingLogger.warn("Deadline exceeded before invocation");
+				response.setStatus(RemotingContext.SC_DEADLINE_EXCEEDED);
+				return;
+			}
 			long time = System.nanoTime();
 			RemoteInvocationResult result = invocationResultFunction.apply(invocation);
 			if (result == null) {
@@ -246,13 +572,19 @@ public class HttpInvokerServer implements HttpRequestHandler {
 				return;
 			}
 			time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time);
-			if (serviceStats != null) {
+			DispatchedMethod dispatchedMethod = (DispatchedMethod) request.getAttribute(ATTRIBUTE_DISPATCHED_METHOD);
+			if (serviceStats != null && dispatchedMethod != null) {
+				serviceStats.serverSideEmit(dispatchedMethod.getServiceName(), dispatchedMethod.getSignature(), time);
+			} else if (serviceStats != null) {
 				String service = MDC.get(MDC_KEY_SERVICE);
 				int index = service.substring(0, service.indexOf('(')).lastIndexOf('.');
 				serviceStats.serverSideEmit(service.substring(0, index), service.substring(index + 1), time);
 			}
+			boolean streaming = request.getAttribute(ATTRIBUTE_STREAMING) != null;
 			if (loggingPayload) {
-				if (!result.hasException()) {
+				if (streaming && !result.hasException()) {
+					remotingLogger.info("Response: streaming");
+				} else if (!result.hasException()) {
 					Object value = result.getValue();
 					remotingLogger.info("Response: {}", JsonDesensitizer.DEFAULT_INSTANCE.toJson(value));
 				} else {
@@ -263,10 +595,19 @@ public class HttpInvokerServer implements HttpRequestHandler {
 				}
 			}
 			remotingLogger.info("Invoked from {} in {}ms", MDC.get(AccessFilter.MDC_KEY_REQUEST_FROM), time);
+			if (deadline != null && deadline <= System.currentTimeMillis()) {
+				remotingLogger.warn("Deadline exceeded, discard response");
+				response.setStatus(RemotingContext.SC_DEADLINE_EXCEEDED);
+				return;
+			}
 
 			Tracing.execute("writeRemoteInvocationResult", () -> {
 				response.setContentType(serializer.getContentType());
-				serializer.writeRemoteInvocationResult(invocation, result, response.getOutputStream());
+				if (streaming)
+					HttpInvokerStreams.writeResult(serializer, invocation, result, response.getOutputStream(),
+							this::transform);
+				else
+					serializer.writeRemoteInvocationResult(invocation, result, response.getOutputStream());
 				return null;
 			});
 		} catch (SerializationFailedException sfe) {
@@ -291,13 +632,51 @@ public class HttpInvokerServer implements HttpRequestHandler {
 	private void invokeWithAsyncResult(AsyncContext context, Map<String, String> contextMap,
 			RemoteInvocation invocation, RemoteInvocationResult result) {
 		MDC.setContextMap(contextMap);
-		invoke((HttpServletRequest) context.getRequest(), (HttpServletResponse) context.getResponse(),
-				req -> invocation, inv -> result, () -> {
+		HttpServletRequest request = (HttpServletRequest) context.getRequest();
+		invoke(request, (HttpServletResponse) context.getResponse(),
+				(Long) request.getAttribute(RemotingContext.ATTRIBUTE_DEADLINE), req -> invocation, inv -> result,
+				() -> {
+					Permit permit = (Permit) request.getAttribute(ATTRIBUTE_PERMIT);
+					if (permit != null)
+						permit.release();
 					context.complete();
 					MDC.clear();
 				});
 	}
 
+	private ConcurrencyLimiter getConcurrencyLimiter(String interfaceName) {
+		if (!concurrencyLimitEnabled)
+			return null;
+		ConcurrencyLimiter limiter = concurrencyLimiters.get(interfaceName);
+		if (limiter == null)
+			limiter = concurrencyLimiters.computeIfAbsent(interfaceName, key -> {
+				ConcurrencyLimiter cl = new ConcurrencyLimiter(initialConcurrencyLimit, minConcurrencyLimit,
+						maxConcurrencyLimit);
+				Metrics.gauge("remoting.server.concurrency.limit", cl, ConcurrencyLimiter::getLimit, "service", key);
+				return cl;
+			});
+		return limiter;
+	}
+
+	private static class Permit {
+
+		private final ConcurrencyLimiter limiter;
+
+		private final long start = System.nanoTime();
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		Permit(ConcurrencyLimiter limiter) {
+			this.limiter = limiter;
+		}
+
+		void release() {
+			if (released.compareAndSet(false, true))
+				limiter.release(System.nanoTime() - start);
+		}
+
+	}
+
 	private static class Holder {
 		Span span;
 		Scope scope;
@@ -1,46 +1,59 @@
 package org.ironrhino.core.remoting.stats;
 
 import java.util.Date;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.ClassUtils;
 
 public class InvocationSampler {
 
-	private Lock lock = new ReentrantLock();
+	private static final boolean HISTOGRAM_PRESENT = ClassUtils.isPresent("org.HdrHistogram.Recorder",
+			InvocationSampler.class.getClassLoader());
+
+	private final String host;
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder totalTime = new LongAdder();
+
+	private final AtomicLong start = new AtomicLong();
 
-	private InvocationSample sample = new InvocationSample();
+	private volatile long end;
+
+	private final LatencyRecorder latencyRecorder = HISTOGRAM_PRESENT ? new LatencyRecorder() : null;
 
 	public InvocationSampler(String host) {
-		sample.setHost(host);
+		this.host = host;
 	}
 
 	public void add(long time) {
-		lock.lock();
-		try {
-			sample.setCount(sample.getCount() + 1);
-			sample.setTotalTime(sample.getTotalTime() + time);
-			Date date = new Date();
-			if (sample.getStart() == null)
-				sample.setStart(date);
-			sample.setEnd(date);
-		} finally {
-			lock.unlock();
-		}
+		long now = System.currentTimeMillis();
+		if (start.get() == 0)
+			start.compareAndSet(0, now);
+		end = now;
+		totalTime.add(time);
+		count.increment();
+		if (latencyRecorder != null)
+			latencyRecorder.record(time);
 	}
 
+	// subtract what is peeked instead of reset, concurrent additions are carried over to next sample
 	public InvocationSample peekAndReset() {
-		lock.lock();
-		try {
-			InvocationSample temp = new InvocationSample(sample.getCount(), sample.getTotalTime(), sample.getHost(),
-					sample.getStart(), sample.getEnd());
-			sample.setCount(0);
-			sample.setTotalTime(0);
-			sample.setStart(null);
-			sample.setEnd(null);
-			return temp;
-		} finally {
-			lock.unlock();
+		long c = count.sum();
+		long t = totalTime.sum();
+		if (c > 0) {
+			count.add(-c);
+			totalTime.add(-t);
 		}
+		long s = start.getAndSet(0);
+		long e = end;
+		return new InvocationSample((int) c, t, host, s > 0 ? new Date(s) : null, e > 0 ? new Date(e) : null);
+	}
+
+	// encoded histogram of latencies since last call, null if absent
+	public String peekAndResetHistogram() {
+		return latencyRecorder != null ? latencyRecorder.encodeInterval() : null;
 	}
 
 }
@@ -0,0 +1,32 @@
+package org.ironrhino.core.remoting.stats;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyPercentiles implements Serializable {
+
+	private static final long serialVersionUID = 2538316950281874528L;
+
+	private long count;
+
+	private long min;
+
+	private long max;
+
+	private double mean;
+
+	private long p50;
+
+	private long p90;
+
+	private long p99;
+
+	private long p999;
+
+}
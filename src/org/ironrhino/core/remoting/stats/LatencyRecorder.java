@@ -0,0 +1,77 @@
+package org.ironrhino.core.remoting.stats;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records latencies into HDR histogram, interval histograms are encoded
+ * compressed so that they can be merged across nodes and time windows.
+ */
+class LatencyRecorder {
+
+	private static final int SIGNIFICANT_DIGITS = 2;
+
+	private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+	private Histogram interval;
+
+	public void record(long time) {
+		recorder.recordValue(time < 0 ? 0 : time);
+	}
+
+	// null means nothing recorded since last call
+	public synchronized String encodeInterval() {
+		interval = recorder.getIntervalHistogram(interval);
+		if (interval.getTotalCount() == 0)
+			return null;
+		return encode(interval);
+	}
+
+	public static LatencyPercentiles merge(Collection<String> encodedHistograms) {
+		Histogram histogram = mergeHistograms(encodedHistograms);
+		if (histogram == null)
+			return null;
+		return new LatencyPercentiles(histogram.getTotalCount(), histogram.getMinValue(), histogram.getMaxValue(),
+				histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+				histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9));
+	}
+
+	// merge into one encoded histogram, null if nothing valid
+	public static String combine(Collection<String> encodedHistograms) {
+		Histogram histogram = mergeHistograms(encodedHistograms);
+		return histogram != null ? encode(histogram) : null;
+	}
+
+	private static String encode(Histogram histogram) {
+		ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+		int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+		return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+	}
+
+	private static Histogram mergeHistograms(Collection<String> encodedHistograms) {
+		Histogram histogram = null;
+		for (String encoded : encodedHistograms) {
+			Histogram h;
+			try {
+				h = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+			} catch (DataFormatException | IllegalArgumentException e) {
+				continue;
+			}
+			if (histogram == null) {
+				histogram = h;
+				histogram.setAutoResize(true);
+			} else
+				histogram.add(h);
+		}
+		if (histogram == null || histogram.getTotalCount() == 0)
+			return null;
+		return histogram;
+	}
+
+}
@@ -12,12 +12,12 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -41,6 +41,7 @@ import org.springframework.data.redis.core.BoundListOperations;
 import org.springframework.data.redis.core.BoundZSetOperations;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -55,10 +56,11 @@ public class RedisServiceStats implements ServiceStats {
 	private static final String NAMESPACE = "remoting:stats:";
 	private static final String NAMESPACE_SERVICES = NAMESPACE + "services:";
 	private static final String NAMESPACE_SAMPLES = NAMESPACE + "samples:";
+	private static final String NAMESPACE_HISTOGRAMS = NAMESPACE + "histograms:";
 	private static final String KEY_HOTSPOTS = NAMESPACE + "hotspots";
 	private static final String KEY_WARNINGS = NAMESPACE + "warnings";
 
-	private CopyOnWriteArrayList<String> warningBuffer = new CopyOnWriteArrayList<>();
+	private Queue<InvocationWarning> warningBuffer = new ConcurrentLinkedQueue<>();
 
 	@Autowired(required = false)
 	private ServiceRegistry serviceRegistry;
@@ -113,7 +115,7 @@ public class RedisServiceStats implements ServiceStats {
 		if (type == StatsType.CLIENT_FAILED || type == StatsType.CLIENT_SIDE && time > responseTimeThreshold) {
 			InvocationWarning warning = new InvocationWarning(source, target, service, time,
 					type == StatsType.CLIENT_FAILED);
-			warningBuffer.add(JsonUtils.toJson(warning));
+			warningBuffer.add(warning);
 		}
 	}
 
@@ -236,57 +238,183 @@ public class RedisServiceStats implements ServiceStats {
 		return results;
 	}
 
+	// merge hourly histograms of all nodes within range, past hours not rolled up
+	// yet are rolled up here so that they are read once next time
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public LatencyPercentiles getPercentiles(String service, StatsType type, Date from, Date to) {
+		Date now = new Date();
+		String currentHour = DateUtils.format(now, "yyyyMMddHH");
+		// histograms are expired
+		Date earliest = DateUtils.addDays(now, -(archiveDays + 1));
+		if (from.before(earliest))
+			from = earliest;
+		List<String> keys = new ArrayList<>();
+		List<String> hours = new ArrayList<>();
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(from);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		while (!cal.getTime().after(to) && !cal.getTime().after(now)) {
+			String hour = DateUtils.format(cal.getTime(), "yyyyMMddHH");
+			hours.add(hour);
+			keys.add(getHistogramKey(service, type, hour));
+			cal.add(Calendar.HOUR_OF_DAY, 1);
+		}
+		if (keys.isEmpty())
+			return null;
+		List<Object> results = remotingStringRedisTemplate.executePipelined((SessionCallback) operations -> {
+			for (String key : keys)
+				operations.opsForList().range(key, 0, -1);
+			return null;
+		});
+		List<String> histograms = new ArrayList<>();
+		for (int i = 0; i < keys.size() && i < results.size(); i++) {
+			List<String> entries = (List<String>) results.get(i);
+			if (entries == null || entries.isEmpty())
+				continue;
+			if (entries.size() > 1 && !hours.get(i).equals(currentHour))
+				rollup(keys.get(i), entries);
+			histograms.addAll(entries);
+		}
+		return histograms.isEmpty() ? null : LatencyRecorder.merge(histograms);
+	}
+
+	// drain buffers then write all in one pipeline
 	@Scheduled(initialDelayString = "${serviceStats.flush.fixedRate:60000}", fixedRateString = "${serviceStats.flush.fixedRate:60000}")
 	@PreDestroy
+	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public void flush() {
-		if (!warningBuffer.isEmpty()) {
-			warningsOperations.leftPushAll(warningBuffer.toArray(new String[warningBuffer.size()]));
-			warningBuffer.clear();
-			Long size = warningsOperations.size();
-			if (size != null && size > maxWarningsSize)
-				warningsOperations.trim(0, maxWarningsSize - 1);
-		}
+		List<InvocationWarning> warnings = new ArrayList<>();
+		InvocationWarning warning;
+		while ((warning = warningBuffer.poll()) != null)
+			warnings.add(warning);
+		if (warnings.size() > maxWarningsSize)
+			warnings = warnings.subList(warnings.size() - (int) maxWarningsSize, warnings.size());
+		String[] encodedWarnings = new String[warnings.size()];
+		for (int i = 0; i < encodedWarnings.length; i++)
+			encodedWarnings[i] = JsonUtils.toJson(warnings.get(i));
+		String hour = DateUtils.format(new Date(), "yyyyMMddHH");
+		Map<String, String> samples = new LinkedHashMap<>();
+		Map<String, String> histograms = new LinkedHashMap<>();
+		Map<StatsType, Map<String, Map<String, Long>>> counts = new LinkedHashMap<>();
 		for (StatsType type : StatsType.values()) {
 			type.getSampleBuffer().forEach((k, v) -> {
 				InvocationSample sample = v.peekAndReset();
-				if (sample.getCount() > 0) {
-					String key = NAMESPACE_SAMPLES + type.getNamespace() + ':' + k;
-					remotingStringRedisTemplate.opsForList().leftPush(key, JsonUtils.toJson(sample));
-					Long size = remotingStringRedisTemplate.opsForList().size(key);
-					if (size != null && size > maxSamplesSize)
-						remotingStringRedisTemplate.opsForList().trim(key, 0, maxSamplesSize - 1);
+				if (sample.getCount() > 0)
+					samples.put(NAMESPACE_SAMPLES + type.getNamespace() + ':' + k, JsonUtils.toJson(sample));
+				String histogram = v.peekAndResetHistogram();
+				if (histogram != null)
+					histograms.put(getHistogramKey(k, type, hour), histogram);
+			});
+			Map<String, Map<String, Long>> map = new LinkedHashMap<>();
+			type.getCountBuffer().forEach((k, v) -> {
+				Map<String, Long> methods = new LinkedHashMap<>();
+				v.forEach((k2, adder) -> {
+					long count = adder.sum();
+					if (count > 0) {
+						adder.add(-count);
+						methods.put(k2, count);
+					}
+				});
+				if (!methods.isEmpty())
+					map.put(k, methods);
+			});
+			if (!map.isEmpty())
+				counts.put(type, map);
+		}
+		if (encodedWarnings.length == 0 && samples.isEmpty() && histograms.isEmpty() && counts.isEmpty())
+			return;
+		try {
+			remotingStringRedisTemplate.executePipelined((SessionCallback) operations -> {
+				if (encodedWarnings.length > 0) {
+					operations.opsForList().leftPushAll(KEY_WARNINGS, (Object[]) encodedWarnings);
+					operations.opsForList().trim(KEY_WARNINGS, 0, maxWarningsSize - 1);
 				}
+				samples.forEach((key, sample) -> {
+					operations.opsForList().leftPush(key, sample);
+					operations.opsForList().trim(key, 0, maxSamplesSize - 1);
+				});
+				histograms.forEach((key, histogram) -> {
+					operations.opsForList().rightPush(key, histogram);
+					operations.expire(key, archiveDays + 1, TimeUnit.DAYS);
+				});
+				counts.forEach((type, map) -> map.forEach((serviceName, methods) -> {
+					operations.opsForSet().add(NAMESPACE_SERVICES + serviceName,
+							(Object[]) methods.keySet().toArray(new String[methods.size()]));
+					methods.forEach((method, count) -> {
+						String key = getNameSpace(type) + serviceName + '.' + method;
+						operations.opsForValue().increment(key, count);
+						operations.opsForValue().increment(key + ':' + hour, count);
+						if (type == StatsType.SERVER_SIDE)
+							operations.opsForZSet().incrementScore(KEY_HOTSPOTS, serviceName + '.' + method, count);
+					});
+				}));
+				return null;
 			});
+		} catch (RuntimeException e) {
+			// counters are drained before pipeline, give them back to next flush
+			counts.forEach((type, map) -> map.forEach((serviceName, methods) -> methods
+					.forEach((method, count) -> type.getCountBuffer().get(serviceName).get(method).add(count))));
+			throw e;
 		}
-		for (StatsType type : StatsType.values())
-			flush(type);
 	}
 
-	private void flush(StatsType type) {
-		Map<String, Map<String, AtomicInteger>> buffer = type.getCountBuffer();
-		buffer.forEach((k, v) -> {
-			remotingStringRedisTemplate.opsForSet().add(NAMESPACE_SERVICES + k,
-					v.keySet().toArray(new String[v.size()]));
-			v.forEach((k2, ai) -> {
-				int count = ai.get();
-				if (count > 0) {
-					increment(k, k2, count, type);
-					ai.addAndGet(-count);
+	// merge histograms flushed by all nodes in last hour into one
+	@Scheduled(cron = "${serviceStats.rollup.cron:0 5 * * * ?}")
+	public void rollup() {
+		String lockName = "lock:serviceStats.rollup()";
+		Boolean b = remotingStringRedisTemplate.opsForValue().setIfAbsent(lockName, "");
+		if (b != null && b)
+			try {
+				remotingStringRedisTemplate.expire(lockName, 5, TimeUnit.MINUTES);
+				Calendar cal = Calendar.getInstance();
+				cal.add(Calendar.HOUR_OF_DAY, -1);
+				String pattern = NAMESPACE_HISTOGRAMS + "*:" + DateUtils.format(cal.getTime(), "yyyyMMddHH");
+				Set<String> keys = remotingStringRedisTemplate.<Set<String>>execute((RedisConnection conn) -> {
+					Set<String> set = new HashSet<>();
+					Cursor<byte[]> cursor = conn
+							.scan(new ScanOptions.ScanOptionsBuilder().match(pattern).count(100).build());
+					while (cursor.hasNext())
+						set.add((String) remotingStringRedisTemplate.getKeySerializer().deserialize(cursor.next()));
+					return set;
+				});
+				if (keys == null)
+					return;
+				for (String key : keys) {
+					List<String> entries = remotingStringRedisTemplate.opsForList().range(key, 0, -1);
+					if (entries != null && entries.size() > 1)
+						rollup(key, entries);
 				}
-			});
-		});
+			} finally {
+				remotingStringRedisTemplate.delete(lockName);
+			}
 	}
 
-	private void increment(String serviceName, String method, int count, StatsType type) {
-		Date date = new Date();
-		StringBuilder sb = new StringBuilder(getNameSpace(type));
-		sb.append(serviceName).append(".").append(method);
-		remotingStringRedisTemplate.opsForValue().increment(sb.toString(), count);
-		sb.append(":");
-		sb.append(DateUtils.format(date, "yyyyMMddHH"));
-		remotingStringRedisTemplate.opsForValue().increment(sb.toString(), count);
-		if (type == StatsType.SERVER_SIDE)
-			hotspotsOperations.incrementScore(serviceName + '.' + method, count);
+	// replace entries with merged one, entries appended meanwhile are kept
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void rollup(String key, List<String> entries) {
+		String merged = LatencyRecorder.combine(entries);
+		if (merged == null)
+			return;
+		try {
+			remotingStringRedisTemplate.execute((SessionCallback) operations -> {
+				operations.watch(key);
+				Long size = operations.opsForList().size(key);
+				if (size == null || size != entries.size()) {
+					// rolled up by others
+					operations.unwatch();
+					return null;
+				}
+				operations.multi();
+				operations.opsForList().rightPush(key, merged);
+				operations.opsForList().trim(key, entries.size(), -1);
+				return operations.exec();
+			});
+		} catch (Exception e) {
+			logger.warn("Failed to rollup {}: {}", key, e.getMessage());
+		}
 	}
 
 	@Trigger
@@ -382,6 +510,10 @@ public class RedisServiceStats implements ServiceStats {
 		}
 	}
 
+	private static String getHistogramKey(String service, StatsType type, String hour) {
+		return NAMESPACE_HISTOGRAMS + type.getNamespace() + ':' + service + ':' + hour;
+	}
+
 	private static String getNameSpace(StatsType type) {
 		return NAMESPACE + type.getNamespace() + ":";
 	}
@@ -1,5 +1,6 @@
 package org.ironrhino.core.remoting.stats;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,4 +25,8 @@ public interface ServiceStats {
 
 	List<InvocationSample> getSamples(String service, StatsType type);
 
+	default LatencyPercentiles getPercentiles(String service, StatsType type, Date from, Date to) {
+		return null;
+	}
+
 }
\ No newline at end of file
@@ -2,7 +2,7 @@ package org.ironrhino.core.remoting.stats;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.ironrhino.core.model.Displayable;
 
@@ -10,7 +10,7 @@ public enum StatsType implements Displayable {
 
 	SERVER_SIDE("server"), CLIENT_SIDE("client"), CLIENT_FAILED("cfailed");
 
-	private Map<String, Map<String, AtomicInteger>> countBuffer = new ConcurrentHashMap<>();
+	private Map<String, Map<String, LongAdder>> countBuffer = new ConcurrentHashMap<>();
 	private Map<String, InvocationSampler> sampleBuffer = new ConcurrentHashMap<>();
 
 	private String namespace;
@@ -19,7 +19,7 @@ public enum StatsType implements Displayable {
 		this.namespace = namespace;
 	}
 
-	public Map<String, Map<String, AtomicInteger>> getCountBuffer() {
+	public Map<String, Map<String, LongAdder>> getCountBuffer() {
 		return countBuffer;
 	}
 
@@ -31,19 +31,22 @@ public enum StatsType implements Displayable {
 		return namespace;
 	}
 
+	// lookup before computeIfAbsent since it locks bin even if key present
 	public void increaseCount(String serviceName, String method) {
-		Map<String, AtomicInteger> serviceMap = countBuffer.computeIfAbsent(serviceName, key -> {
-			ConcurrentHashMap<String, AtomicInteger> methodMap = new ConcurrentHashMap<>();
-			methodMap.put(method, new AtomicInteger());
-			return methodMap;
-		});
-		AtomicInteger ai = serviceMap.computeIfAbsent(method, key -> new AtomicInteger());
-		ai.incrementAndGet();
+		Map<String, LongAdder> serviceMap = countBuffer.get(serviceName);
+		if (serviceMap == null)
+			serviceMap = countBuffer.computeIfAbsent(serviceName, key -> new ConcurrentHashMap<>());
+		LongAdder adder = serviceMap.get(method);
+		if (adder == null)
+			adder = serviceMap.computeIfAbsent(method, key -> new LongAdder());
+		adder.increment();
 	}
 
 	public void collectSample(String host, String serviceName, String method, long time) {
 		String service = serviceName + '.' + method;
-		InvocationSampler sampler = sampleBuffer.computeIfAbsent(service, key -> new InvocationSampler(host));
+		InvocationSampler sampler = sampleBuffer.get(service);
+		if (sampler == null)
+			sampler = sampleBuffer.computeIfAbsent(service, key -> new InvocationSampler(host));
 		sampler.add(time);
 	}
 
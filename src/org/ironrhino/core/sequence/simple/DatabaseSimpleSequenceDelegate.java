@@ -74,4 +74,11 @@ public class DatabaseSimpleSequenceDelegate extends AbstractDatabaseSimpleSequen
 		return seq.nextLongValue();
 	}
 
+	/**
+	 * @return the actual sequence if it's reservable otherwise null
+	 */
+	public ReservableSequence getReservableSequence() {
+		return seq instanceof ReservableSequence ? (ReservableSequence) seq : null;
+	}
+
 }
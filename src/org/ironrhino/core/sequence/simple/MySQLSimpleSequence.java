@@ -8,7 +8,7 @@ import java.sql.Statement;
 import org.ironrhino.core.sequence.MySQLSequenceHelper;
 import org.springframework.dao.DataAccessResourceFailureException;
 
-public class MySQLSimpleSequence extends AbstractDatabaseSimpleSequence {
+public class MySQLSimpleSequence extends AbstractDatabaseSimpleSequence implements ReservableSequence {
 
 	private long nextId = 0;
 
@@ -40,6 +40,11 @@ public class MySQLSimpleSequence extends AbstractDatabaseSimpleSequence {
 		return incrementAndGet(1);
 	}
 
+	@Override
+	public long reserve(int size) {
+		return incrementAndGet(size);
+	}
+
 	private long incrementAndGet(int increment) {
 		try (Connection con = getDataSource().getConnection()) {
 			con.setAutoCommit(true);
@@ -7,7 +7,7 @@ import org.springframework.data.redis.core.BoundValueOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.util.Assert;
 
-public class RedisSimpleSequence extends AbstractSimpleSequence {
+public class RedisSimpleSequence extends AbstractSimpleSequence implements ReservableSequence {
 
 	public static final String KEY_SEQUENCE = "seq:";
 
@@ -39,4 +39,12 @@ public class RedisSimpleSequence extends AbstractSimpleSequence {
 		return value;
 	}
 
+	@Override
+	public long reserve(int size) {
+		Long value = boundValueOperations.increment(size);
+		if (value == null)
+			throw new RuntimeException("Unexpected null");
+		return value;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package org.ironrhino.core.sequence.simple;
+
+import org.ironrhino.core.sequence.SimpleSequence;
+
+/**
+ * Simple sequence which is able to reserve a contiguous range of values in one
+ * round trip.
+ */
+public interface ReservableSequence extends SimpleSequence {
+
+	/**
+	 * reserve values in one round trip
+	 *
+	 * @return the last value of reserved range [last - size + 1, last]
+	 */
+	long reserve(int size);
+
+}
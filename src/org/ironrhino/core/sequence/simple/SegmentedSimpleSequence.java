@@ -0,0 +1,166 @@
+package org.ironrhino.core.sequence.simple;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ironrhino.core.sequence.SimpleSequence;
+import org.ironrhino.core.util.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Hands out values from segments reserved by delegate in one round trip, next
+ * segment is prefetched asynchronously when half of current one is used, and
+ * segment size adapts to consumption rate so that a segment lasts about
+ * {@link #segmentDuration} milliseconds. Calls are passed through if delegate
+ * isn't a {@link ReservableSequence}.
+ */
+public class SegmentedSimpleSequence implements SimpleSequence {
+
+	private Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final AbstractSimpleSequence delegate;
+
+	@Getter
+	@Setter
+	private int minSegmentSize = 10;
+
+	@Getter
+	@Setter
+	private int maxSegmentSize = 10000;
+
+	@Getter
+	@Setter
+	private long segmentDuration = 1000;
+
+	@Setter
+	private Executor executor = ForkJoinPool.commonPool();
+
+	private volatile Segment current = new Segment(0, 0, 0);
+
+	private volatile CompletableFuture<Segment> next;
+
+	private volatile int generation;
+
+	public SegmentedSimpleSequence(AbstractSimpleSequence delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public long nextLongValue() {
+		if (reservable() == null)
+			return delegate.nextLongValue();
+		while (true) {
+			Segment segment = current;
+			long value = segment.cursor.getAndIncrement();
+			if (segment.generation != generation) {
+				// value taken from segment reserved before restart, wait for restart
+				nextSegment(segment);
+				continue;
+			}
+			if (value <= segment.end) {
+				if (value == segment.prefetchAt)
+					prefetch(segment);
+				return value;
+			}
+			nextSegment(segment);
+		}
+	}
+
+	@Override
+	public String nextStringValue() {
+		return NumberUtils.format(nextIntValue(), delegate.getPaddingLength());
+	}
+
+	@Override
+	public synchronized void restart() {
+		// invalidate current segment first so that no value of it is handed out after
+		// delegate restarted
+		generation++;
+		delegate.restart();
+		next = null;
+		current = new Segment(generation, 0, 0);
+	}
+
+	private void prefetch(Segment segment) {
+		int size = nextSize(segment);
+		next = CompletableFuture.supplyAsync(() -> reserve(segment.generation, size), executor);
+	}
+
+	private synchronized void nextSegment(Segment exhausted) {
+		if (current != exhausted)
+			return;
+		Segment segment = null;
+		CompletableFuture<Segment> future = next;
+		next = null;
+		if (future != null) {
+			try {
+				segment = future.join();
+			} catch (Exception e) {
+				logger.warn("Prefetch segment failed: {}", e.getMessage());
+			}
+		}
+		// discard segment reserved before restart
+		if (segment == null || segment.generation != generation)
+			segment = reserve(generation, exhausted.size > 0 ? exhausted.size : minSegmentSize);
+		current = segment;
+	}
+
+	private Segment reserve(int generation, int size) {
+		ReservableSequence reservable = reservable();
+		if (reservable == null)
+			throw new IllegalStateException("Sequence '" + delegate.getSequenceName() + "' is not reservable");
+		long last = reservable.reserve(size);
+		return new Segment(generation, last - size + 1, size);
+	}
+
+	private ReservableSequence reservable() {
+		if (delegate instanceof ReservableSequence)
+			return (ReservableSequence) delegate;
+		if (delegate instanceof DatabaseSimpleSequenceDelegate)
+			return ((DatabaseSimpleSequenceDelegate) delegate).getReservableSequence();
+		return null;
+	}
+
+	private int nextSize(Segment segment) {
+		// half of segment consumed
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - segment.createdAt) * 2;
+		long size = segment.size;
+		if (elapsed < segmentDuration / 2)
+			size *= 2;
+		else if (elapsed > segmentDuration * 2)
+			size /= 2;
+		return (int) Math.max(minSegmentSize, Math.min(maxSegmentSize, size));
+	}
+
+	private static class Segment {
+
+		private final int generation;
+
+		private final long end;
+
+		private final int size;
+
+		private final long prefetchAt;
+
+		private final long createdAt = System.nanoTime();
+
+		private final AtomicLong cursor;
+
+		Segment(int generation, long start, int size) {
+			this.generation = generation;
+			this.end = start + size - 1;
+			this.size = size;
+			this.prefetchAt = start + size / 2;
+			this.cursor = new AtomicLong(start);
+		}
+
+	}
+
+}
@@ -42,34 +42,28 @@ public class SessionCompressorManager {
 			return "";
 		Map<String, String> compressedMap = new HashMap<>();
 		for (Map.Entry<String, Object> entry : map.entrySet()) {
-			String key = entry.getKey();
-			Object value = entry.getValue();
-			if (key == null || value == null)
-				continue;
-			SessionCompressor compressor = null;
-			if (compressors != null)
-				for (SessionCompressor var : compressors)
-					if (var.supportsKey(key)) {
-						compressor = var;
-						break;
-					}
-			if (compressor == null)
-				compressor = defaultSessionCompressor;
-			try {
-				String s = compressor.compress(value);
-				if (s != null)
-					compressedMap.put(key, s);
-			} catch (Exception e) {
-				log.error("compress error for " + key + ", it won't be saved", e);
-			}
+			String s = compress(entry.getKey(), entry.getValue());
+			if (s != null)
+				compressedMap.put(entry.getKey(), s);
 		}
 		return compressedMap.isEmpty() ? null : JsonUtils.toJson(compressedMap);
 	}
 
+	public String compress(String key, Object value) {
+		if (key == null || value == null)
+			return null;
+		try {
+			return findCompressor(key).compress(value);
+		} catch (Exception e) {
+			log.error("compress error for " + key + ", it won't be saved", e);
+			return null;
+		}
+	}
+
 	public void uncompress(WrappedHttpSession session, String str) {
 		if (str == null)
 			return;
-		Map<String, Object> map = session.getAttrMap(true);
+		session.getAttrMap(true);
 		if (str.isEmpty())
 			return;
 		Map<String, String> compressedMap = null;
@@ -80,47 +74,19 @@ public class SessionCompressorManager {
 			session.invalidate();
 			return;
 		}
+		uncompress(session, compressedMap);
+	}
+
+	public void uncompress(WrappedHttpSession session, Map<String, String> compressedMap) {
+		Map<String, Object> map = session.getAttrMap(true);
 		for (Map.Entry<String, String> entry : compressedMap.entrySet()) {
 			String key = entry.getKey();
-			SessionCompressor compressor = null;
-			if (compressors != null)
-				for (SessionCompressor var : compressors) {
-					if (var.supportsKey(key)) {
-						compressor = var;
-						break;
-					}
-				}
-			if (compressor == null)
-				compressor = defaultSessionCompressor;
 			try {
-				Object value = compressor.uncompress(entry.getValue());
+				Object value = findCompressor(key).uncompress(entry.getValue());
 				if (value == null)
 					continue;
-				if (value instanceof SecurityContext) {
-					Authentication auth = ((SecurityContext) value).getAuthentication();
-					Object principal = auth != null ? auth.getPrincipal() : null;
-					if (principal instanceof UserDetails) {
-						UserDetails ud = (UserDetails) principal;
-						String username = ud.getUsername();
-						String uri = RequestUtils.getRequestUri(session.getRequest());
-						if (!uri.endsWith("/logout")) {
-							if (!ud.isEnabled()) {
-								throw new DisabledException(username);
-							} else if (!ud.isAccountNonExpired()) {
-								throw new AccountExpiredException(username);
-							} else if (!ud.isAccountNonLocked()) {
-								throw new LockedException(username);
-							} else if (!ud.isCredentialsNonExpired()) {
-								boolean isPasswordEntryPoint = uri.equals(
-										securityConfig != null ? securityConfig.getPasswordEntryPoint() : "/password");
-								String accept = session.getRequest().getHeader("Accept");
-								if (!isPasswordEntryPoint && !uri.startsWith("/assets/")
-										&& (accept == null || !accept.contains("application/json")))
-									throw new CredentialsExpiredException(username);
-							}
-						}
-					}
-				}
+				if (value instanceof SecurityContext)
+					checkSecurityContext(session, (SecurityContext) value);
 				map.put(key, value);
 			} catch (AccountStatusException e) {
 				throw e;
@@ -130,4 +96,38 @@ public class SessionCompressorManager {
 		}
 	}
 
+	private SessionCompressor findCompressor(String key) {
+		if (compressors != null)
+			for (SessionCompressor var : compressors)
+				if (var.supportsKey(key))
+					return var;
+		return defaultSessionCompressor;
+	}
+
+	private void checkSecurityContext(WrappedHttpSession session, SecurityContext sc) {
+		Authentication auth = sc.getAuthentication();
+		Object principal = auth != null ? auth.getPrincipal() : null;
+		if (principal instanceof UserDetails) {
+			UserDetails ud = (UserDetails) principal;
+			String username = ud.getUsername();
+			String uri = RequestUtils.getRequestUri(session.getRequest());
+			if (!uri.endsWith("/logout")) {
+				if (!ud.isEnabled()) {
+					throw new DisabledException(username);
+				} else if (!ud.isAccountNonExpired()) {
+					throw new AccountExpiredException(username);
+				} else if (!ud.isAccountNonLocked()) {
+					throw new LockedException(username);
+				} else if (!ud.isCredentialsNonExpired()) {
+					boolean isPasswordEntryPoint = uri.equals(
+							securityConfig != null ? securityConfig.getPasswordEntryPoint() : "/password");
+					String accept = session.getRequest().getHeader("Accept");
+					if (!isPasswordEntryPoint && !uri.startsWith("/assets/")
+							&& (accept == null || !accept.contains("application/json")))
+						throw new CredentialsExpiredException(username);
+				}
+			}
+		}
+	}
+
 }
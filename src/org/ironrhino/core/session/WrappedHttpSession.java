@@ -5,8 +5,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
@@ -32,6 +34,12 @@ public class WrappedHttpSession implements Serializable, HttpSession {
 
 	private volatile Map<String, Object> attrMap;
 
+	private transient Set<String> dirtyAttributeNames;
+
+	private transient boolean fullyDirty;
+
+	private transient Map<String, String> storedAttributes;
+
 	private long creationTime;
 
 	private long lastAccessedTime;
@@ -98,7 +106,7 @@ public class WrappedHttpSession implements Serializable, HttpSession {
 	@Override
 	public void setAttribute(String key, Object object) {
 		getAttrMap(true).put(key, object);
-		markAsDirty();
+		markAsDirty(key);
 	}
 
 	@Override
@@ -113,7 +121,7 @@ public class WrappedHttpSession implements Serializable, HttpSession {
 		if (attrMap == null)
 			return;
 		attrMap.remove(key);
-		markAsDirty();
+		markAsDirty(key);
 	}
 
 	@Override
@@ -187,9 +195,31 @@ public class WrappedHttpSession implements Serializable, HttpSession {
 	}
 
 	public void markAsDirty() {
+		fullyDirty = true;
+		request.setAttribute(HttpSessionManager.REQUEST_ATTRIBUTE_SESSION_MARK_AS_DIRTY, true);
+	}
+
+	private void markAsDirty(String key) {
+		if (dirtyAttributeNames == null)
+			dirtyAttributeNames = new HashSet<>(4);
+		dirtyAttributeNames.add(key);
 		request.setAttribute(HttpSessionManager.REQUEST_ATTRIBUTE_SESSION_MARK_AS_DIRTY, true);
 	}
 
+	// null means whole session should be written
+	public Set<String> getDirtyAttributeNames() {
+		return fullyDirty ? null : dirtyAttributeNames;
+	}
+
+	// serialized attributes as loaded, used to detect attributes modified in place
+	public Map<String, String> getStoredAttributes() {
+		return storedAttributes;
+	}
+
+	public void setStoredAttributes(Map<String, String> storedAttributes) {
+		this.storedAttributes = storedAttributes;
+	}
+
 	public String getSessionTracker() {
 		return sessionTracker;
 	}
@@ -5,18 +5,30 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.commons.lang3.StringUtils;
 import org.ironrhino.core.cache.CacheManager;
 import org.ironrhino.core.session.HttpSessionStore;
 import org.ironrhino.core.session.SessionCompressorManager;
 import org.ironrhino.core.session.WrappedHttpSession;
+import org.ironrhino.core.spring.configuration.PriorityQualifier;
+import org.ironrhino.core.spring.data.redis.CompressingRedisSerializer;
 import org.ironrhino.core.util.DateUtils;
 import org.ironrhino.core.util.ErrorMessage;
 import org.ironrhino.core.util.JsonSerializationUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -34,22 +46,53 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 	private static final String SESSION_KEY_KICKED_OUT_FROM = "_KICKED_OUT_FROM";
 	private static final String SESSION_KEY_KICKED_OUT_DATE = "_KICKED_OUT_DATE";
 
+	private static final String HASH_KEY_PREFIX = CACHE_NAMESPACE + ":attributes:";
+
 	private CacheManager cacheManager;
 
 	@Autowired
 	private SessionCompressorManager sessionCompressorManager;
 
+	@Autowired(required = false)
+	@Qualifier("stringRedisTemplate")
+	@PriorityQualifier
+	private StringRedisTemplate sessionStringRedisTemplate;
+
 	@Value("${httpSessionManager.maximumSessions:0}")
 	private int maximumSessions;
 
+	// opt-in since nodes not upgraded yet can't read sessions stored as hash
+	@Value("${httpSessionManager.hashBased:false}")
+	private boolean hashBased;
+
+	// attributes are stored as redis hash fields, values are compressed when exceeding threshold
+	private RedisTemplate<String, String> sessionRedisTemplate;
+
 	@Autowired
 	public CacheBasedHttpSessionStore(CacheManager cacheManager) {
 		this.cacheManager = cacheManager;
 	}
 
+	@PostConstruct
+	public void init() {
+		if (sessionStringRedisTemplate == null || !hashBased)
+			return;
+		RedisTemplate<String, String> template = new RedisTemplate<>();
+		template.setConnectionFactory(sessionStringRedisTemplate.getRequiredConnectionFactory());
+		template.setKeySerializer(StringRedisSerializer.UTF_8);
+		template.setHashKeySerializer(StringRedisSerializer.UTF_8);
+		template.setHashValueSerializer(new CompressingRedisSerializer<>(StringRedisSerializer.UTF_8));
+		template.afterPropertiesSet();
+		sessionRedisTemplate = template;
+	}
+
 	@Override
 	public void initialize(WrappedHttpSession session) {
 		session.setCacheBased(true);
+		if (sessionRedisTemplate != null && initializeFromHash(session)) {
+			checkKickedOut(session);
+			return;
+		}
 		String sessionString;
 		if (cacheManager.supportsUpdateTtl())
 			sessionString = (String) cacheManager.getWithTti(session.getId(), CACHE_NAMESPACE,
@@ -57,6 +100,31 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 		else
 			sessionString = (String) cacheManager.get(session.getId(), CACHE_NAMESPACE);
 		sessionCompressorManager.uncompress(session, sessionString);
+		if (sessionRedisTemplate != null && StringUtils.isNotEmpty(sessionString)) {
+			// migrate entry written before hash based
+			cacheManager.delete(session.getId(), CACHE_NAMESPACE);
+			session.markAsDirty();
+		}
+		checkKickedOut(session);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private boolean initializeFromHash(WrappedHttpSession session) {
+		String key = HASH_KEY_PREFIX + session.getId();
+		List<Object> results = sessionRedisTemplate.executePipelined((SessionCallback) operations -> {
+			operations.opsForHash().entries(key);
+			operations.expire(key, session.getMaxInactiveInterval(), TimeUnit.SECONDS);
+			return null;
+		});
+		Map<String, String> compressedMap = (Map<String, String>) results.get(0);
+		if (compressedMap == null || compressedMap.isEmpty())
+			return false;
+		sessionCompressorManager.uncompress(session, compressedMap);
+		session.setStoredAttributes(compressedMap);
+		return true;
+	}
+
+	private void checkKickedOut(WrappedHttpSession session) {
 		if (maximumSessions > 0 && session.getAttribute(SESSION_KEY_KICKED_OUT_FROM) != null) {
 			String ip = (String) session.getAttribute(SESSION_KEY_KICKED_OUT_FROM);
 			String date = (String) session.getAttribute(SESSION_KEY_KICKED_OUT_DATE);
@@ -67,6 +135,65 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 
 	@Override
 	public void save(WrappedHttpSession session) {
+		if (sessionRedisTemplate != null) {
+			if (session.isDirty())
+				saveToHash(session);
+		} else {
+			saveToCache(session);
+		}
+		if (maximumSessions > 0 && session.isDirty()) {
+			try {
+				kickoutOtherSession(session);
+			} catch (Exception e) {
+				log.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	// attributes modified in place without setAttribute() are detected by comparing with stored values
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void saveToHash(WrappedHttpSession session) {
+		String key = HASH_KEY_PREFIX + session.getId();
+		Map<String, Object> attrMap = session.getAttrMap(false);
+		Set<String> dirtyNames = session.getDirtyAttributeNames();
+		Map<String, String> stored = session.getStoredAttributes();
+		Map<String, String> changed = new HashMap<>();
+		List<String> removed = new ArrayList<>();
+		if (attrMap != null)
+			for (Map.Entry<String, Object> entry : attrMap.entrySet()) {
+				String value = sessionCompressorManager.compress(entry.getKey(), entry.getValue());
+				if (dirtyNames != null && !dirtyNames.contains(entry.getKey()) && stored != null
+						&& (value == null || value.equals(stored.get(entry.getKey()))))
+					continue;
+				if (value != null)
+					changed.put(entry.getKey(), value);
+				else if (dirtyNames != null)
+					removed.add(entry.getKey());
+			}
+		if (dirtyNames != null)
+			for (String name : dirtyNames)
+				if (attrMap == null || !attrMap.containsKey(name))
+					removed.add(name);
+		if (dirtyNames == null && changed.isEmpty()) {
+			sessionRedisTemplate.delete(key);
+			return;
+		}
+		if (changed.isEmpty() && removed.isEmpty())
+			return;
+		sessionRedisTemplate.executePipelined((SessionCallback) operations -> {
+			HashOperations hashOperations = operations.opsForHash();
+			if (dirtyNames == null)
+				operations.delete(key);
+			else if (!removed.isEmpty())
+				hashOperations.delete(key, removed.toArray());
+			if (!changed.isEmpty())
+				hashOperations.putAll(key, changed);
+			operations.expire(key, session.getMaxInactiveInterval(), TimeUnit.SECONDS);
+			return null;
+		});
+	}
+
+	private void saveToCache(WrappedHttpSession session) {
 		String sessionString = sessionCompressorManager.compress(session);
 		if (session.isDirty() && StringUtils.isBlank(sessionString)) {
 			cacheManager.delete(session.getId(), CACHE_NAMESPACE);
@@ -82,13 +209,6 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 				cacheManager.put(session.getId(), sessionString, session.getMaxInactiveInterval(), TimeUnit.SECONDS,
 						CACHE_NAMESPACE);
 		}
-		if (maximumSessions > 0 && session.isDirty()) {
-			try {
-				kickoutOtherSession(session);
-			} catch (Exception e) {
-				log.error(e.getMessage(), e);
-			}
-		}
 	}
 
 	public void kickoutOtherSession(WrappedHttpSession session) {
@@ -112,11 +232,9 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 			} else {
 				List<String> list = new ArrayList<>();
 				String[] arr = sessions.split(",");
-				for (String id : arr) {
-					String str = (String) cacheManager.get(id, CACHE_NAMESPACE);
-					if (str != null && !str.contains(SESSION_KEY_KICKED_OUT_FROM))
+				for (String id : arr)
+					if (isActive(id))
 						list.add(id);
-				}
 				if (!list.contains(session.getId()))
 					list.add(session.getId());
 				if (list.size() > maximumSessions) {
@@ -127,8 +245,7 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 							map.put(SESSION_KEY_KICKED_OUT_FROM, JsonSerializationUtils.serialize(ip));
 							map.put(SESSION_KEY_KICKED_OUT_DATE,
 									JsonSerializationUtils.serialize(DateUtils.formatDatetime(new Date())));
-							cacheManager.put(id, JsonSerializationUtils.serialize(map),
-									session.getMaxInactiveInterval(), TimeUnit.SECONDS, CACHE_NAMESPACE);
+							markAsKickedOut(id, map, session.getMaxInactiveInterval());
 							log.info("user[{}] session[{}] is kicked out by session[{}] from {}", username, id,
 									session.getId(), ip);
 						} catch (Exception e) {
@@ -143,8 +260,38 @@ public class CacheBasedHttpSessionStore implements HttpSessionStore {
 		}
 	}
 
+	private boolean isActive(String id) {
+		if (sessionRedisTemplate != null) {
+			String key = HASH_KEY_PREFIX + id;
+			if (sessionRedisTemplate.opsForHash().hasKey(key, SESSION_KEY_KICKED_OUT_FROM))
+				return false;
+			if (Boolean.TRUE.equals(sessionRedisTemplate.hasKey(key)))
+				return true;
+		}
+		String str = (String) cacheManager.get(id, CACHE_NAMESPACE);
+		return str != null && !str.contains(SESSION_KEY_KICKED_OUT_FROM);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void markAsKickedOut(String id, Map<String, String> map, int timeToLive) throws Exception {
+		if (sessionRedisTemplate != null) {
+			String key = HASH_KEY_PREFIX + id;
+			sessionRedisTemplate.executePipelined((SessionCallback) operations -> {
+				operations.delete(key);
+				operations.opsForHash().putAll(key, map);
+				operations.expire(key, timeToLive, TimeUnit.SECONDS);
+				return null;
+			});
+		} else {
+			cacheManager.put(id, JsonSerializationUtils.serialize(map), timeToLive, TimeUnit.SECONDS,
+					CACHE_NAMESPACE);
+		}
+	}
+
 	@Override
 	public void invalidate(WrappedHttpSession session) {
+		if (sessionRedisTemplate != null)
+			sessionRedisTemplate.delete(HASH_KEY_PREFIX + session.getId());
 		cacheManager.delete(session.getId(), CACHE_NAMESPACE);
 	}
 
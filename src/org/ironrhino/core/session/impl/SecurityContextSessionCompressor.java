@@ -2,15 +2,31 @@ package org.ironrhino.core.session.impl;
 
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.ironrhino.core.cache.CacheInvalidationEvent;
+import org.ironrhino.core.event.EntityOperationEvent;
+import org.ironrhino.core.event.EventPublisher;
+import org.ironrhino.core.metadata.Scope;
+import org.ironrhino.core.metrics.Metrics;
+import org.ironrhino.core.security.event.PasswordChangedEvent;
+import org.ironrhino.core.security.event.ProfileEditedEvent;
 import org.ironrhino.core.session.SessionCompressor;
 import org.ironrhino.core.spring.security.SpringSecurityEnabled;
 import org.ironrhino.core.util.CodecUtils;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -23,6 +39,7 @@ import org.springframework.security.web.authentication.switchuser.SwitchUserGran
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.stereotype.Component;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
@@ -30,12 +47,49 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SecurityContextSessionCompressor implements SessionCompressor<SecurityContext> {
 
+	private static final String CACHE_NAMESPACE = "principal";
+
+	private static final AtomicInteger INSTANCE_NUMBER = new AtomicInteger();
+
 	@Autowired
 	private UserDetailsService userDetailsService;
 
+	@Autowired(required = false)
+	private EventPublisher eventPublisher;
+
 	@Value("${httpSessionManager.checkDirtyPassword:true}")
 	private boolean checkDirtyPassword;
 
+	// 0 means disabled
+	@Value("${httpSessionManager.principalCache.capacity:1000}")
+	private int principalCacheCapacity = 1000;
+
+	// TimeUnit.SECONDS
+	@Value("${httpSessionManager.principalCache.timeToLive:300}")
+	private int principalCacheTimeToLive = 300;
+
+	private org.cache2k.CacheManager principalCacheManager;
+
+	private Cache<String, CachedPrincipal> principalCache;
+
+	@PostConstruct
+	public void init() {
+		if (principalCacheCapacity <= 0)
+			return;
+		int number = INSTANCE_NUMBER.getAndIncrement();
+		principalCacheManager = org.cache2k.CacheManager
+				.getInstance(number > 0 ? "principalCache" + number : "principalCache");
+		principalCache = Cache2kBuilder.of(String.class, CachedPrincipal.class).manager(principalCacheManager)
+				.name(CACHE_NAMESPACE).entryCapacity(principalCacheCapacity)
+				.expireAfterWrite(principalCacheTimeToLive, TimeUnit.SECONDS).build();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (principalCacheManager != null)
+			principalCacheManager.close();
+	}
+
 	@Override
 	public boolean supportsKey(String key) {
 		return HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY.equals(key);
@@ -54,8 +108,15 @@ public class SecurityContextSessionCompressor implements SessionCompressor<Secur
 			UserDetails ud = (UserDetails) principal;
 			String username = ud.getUsername();
 			String password = ud.getPassword();
-			if (password != null)
-				sb.append(CodecUtils.md5Hex(ud.getPassword())).append(",");
+			String passwordHash = password != null ? CodecUtils.md5Hex(password) : null;
+			if (passwordHash == null && principalCache != null) {
+				// credentials of shared principal erased
+				CachedPrincipal cp = principalCache.peek(username);
+				if (cp != null && cp.getUserDetails() == ud)
+					passwordHash = cp.getPasswordHash();
+			}
+			if (passwordHash != null)
+				sb.append(passwordHash).append(",");
 			sb.append(username);
 		}
 		for (GrantedAuthority ga : auth.getAuthorities()) {
@@ -90,16 +151,18 @@ public class SecurityContextSessionCompressor implements SessionCompressor<Secur
 					extraAuthorities = username.substring(index + 1);
 					username = username.substring(0, index);
 				}
-				UserDetails ud = userDetailsService.loadUserByUsername(username);
-				if (!checkDirtyPassword || (ud.getPassword() == null && password == null
-						|| ud.getPassword() != null && CodecUtils.md5Hex(ud.getPassword()).equals(password))) {
+				CachedPrincipal cp = loadPrincipal(username);
+				UserDetails ud = cp.getUserDetails();
+				String passwordHash = cp.getPasswordHash();
+				if (!checkDirtyPassword || (passwordHash == null && password == null
+						|| passwordHash != null && passwordHash.equals(password))) {
 					List<GrantedAuthority> authorities = new ArrayList<>(ud.getAuthorities());
 					if (extraAuthorities != null) {
 						for (String s : extraAuthorities.split("@")) {
 							if (s.startsWith("suga(") && s.endsWith(")")) {
 								String[] arr2 = s.substring(5, s.length() - 1).split(",", 2);
 								try {
-									UserDetails source = userDetailsService.loadUserByUsername(arr2[1]);
+									UserDetails source = loadPrincipal(arr2[1]).getUserDetails();
 									SwitchUserGrantedAuthority ga = new SwitchUserGrantedAuthority(arr2[0],
 											new UsernamePasswordAuthenticationToken(source, source.getPassword(),
 													source.getAuthorities()));
@@ -121,4 +184,71 @@ public class SecurityContextSessionCompressor implements SessionCompressor<Secur
 			}
 		return sc;
 	}
+
+	private CachedPrincipal loadPrincipal(String username) {
+		if (principalCache == null)
+			return new CachedPrincipal(userDetailsService.loadUserByUsername(username));
+		CachedPrincipal cp = principalCache.peek(username);
+		Metrics.increment("session.principal.cache", "hit", String.valueOf(cp != null));
+		if (cp == null) {
+			cp = new CachedPrincipal(userDetailsService.loadUserByUsername(username));
+			principalCache.put(username, cp);
+		}
+		return cp;
+	}
+
+	public void evict(String username) {
+		if (principalCache != null)
+			principalCache.remove(username);
+	}
+
+	@EventListener
+	public void onApplicationEvent(PasswordChangedEvent event) {
+		evictAndPublish(event.getUsername());
+	}
+
+	@EventListener
+	public void onApplicationEvent(ProfileEditedEvent event) {
+		evictAndPublish(event.getUsername());
+	}
+
+	@EventListener
+	public void onApplicationEvent(EntityOperationEvent<?> event) {
+		if (event.getEntity() instanceof UserDetails)
+			evict(((UserDetails) event.getEntity()).getUsername());
+	}
+
+	@EventListener(condition = "!#event.local")
+	public void onApplicationEvent(CacheInvalidationEvent event) {
+		if (!CACHE_NAMESPACE.equals(event.getNamespace()) || principalCache == null)
+			return;
+		if (event.getKeys() == null)
+			principalCache.clear();
+		else
+			principalCache.removeAll(event.getKeys());
+	}
+
+	private void evictAndPublish(String username) {
+		evict(username);
+		if (eventPublisher != null)
+			eventPublisher.publish(new CacheInvalidationEvent(CACHE_NAMESPACE, Collections.singletonList(username)),
+					Scope.GLOBAL);
+	}
+
+	// UserDetails is shared by sessions of the same user, password hash is taken
+	// before credentials of shared instance could be erased
+	@Getter
+	private static class CachedPrincipal {
+
+		private final UserDetails userDetails;
+
+		private final String passwordHash;
+
+		CachedPrincipal(UserDetails userDetails) {
+			this.userDetails = userDetails;
+			this.passwordHash = userDetails.getPassword() != null ? CodecUtils.md5Hex(userDetails.getPassword())
+					: null;
+		}
+
+	}
 }
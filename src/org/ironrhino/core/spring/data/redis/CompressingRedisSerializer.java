@@ -0,0 +1,128 @@
+package org.ironrhino.core.spring.data.redis;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ironrhino.core.metrics.Metrics;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import lombok.Getter;
+
+public class CompressingRedisSerializer<T> implements RedisSerializer<T> {
+
+	// 0xFF never starts UTF-8 text or java serialization stream
+	public static final byte MAGIC = (byte) 0xFF;
+
+	public static final byte UNCOMPRESSED = 0;
+
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	// every codec ever written should stay readable after switching to another one
+	private static final Map<Byte, CompressionCodec> CODECS = new ConcurrentHashMap<>();
+
+	static {
+		registerCodec(new DeflateCompressionCodec());
+	}
+
+	@Getter
+	private final RedisSerializer<T> delegate;
+
+	@Getter
+	private final CompressionCodec codec;
+
+	@Getter
+	private final int threshold;
+
+	private String metricsName;
+
+	private String[] metricsTags;
+
+	public CompressingRedisSerializer(RedisSerializer<T> delegate) {
+		this(delegate, new DeflateCompressionCodec(), DEFAULT_THRESHOLD);
+	}
+
+	public CompressingRedisSerializer(RedisSerializer<T> delegate, CompressionCodec codec, int threshold) {
+		registerCodec(codec);
+		this.delegate = delegate;
+		this.codec = codec;
+		this.threshold = threshold;
+	}
+
+	public static void registerCodec(CompressionCodec codec) {
+		if (codec.getId() == UNCOMPRESSED)
+			throw new IllegalArgumentException("codec id " + UNCOMPRESSED + " is reserved");
+		CompressionCodec registered = CODECS.putIfAbsent(codec.getId(), codec);
+		if (registered != null && registered.getClass() != codec.getClass())
+			throw new IllegalArgumentException("codec id " + codec.getId() + " is already used by "
+					+ registered.getClass().getName() + ", should be unique");
+	}
+
+	@Override
+	public byte[] serialize(T object) throws SerializationException {
+		byte[] bytes = delegate.serialize(object);
+		if (bytes == null)
+			return null;
+		byte[] result;
+		if (bytes.length >= threshold) {
+			byte[] compressed;
+			try {
+				compressed = codec.compress(bytes);
+			} catch (Exception e) {
+				throw new SerializationException("Cannot compress", e);
+			}
+			result = compressed.length < bytes.length ? frame(codec.getId(), compressed) : frame(UNCOMPRESSED, bytes);
+		} else {
+			result = frame(UNCOMPRESSED, bytes);
+		}
+		if (metricsName != null) {
+			Metrics.recordSummary(metricsName, bytes.length, tags("raw"));
+			Metrics.recordSummary(metricsName, result.length, tags("stored"));
+		}
+		return result;
+	}
+
+	// record raw and stored size distribution tagged with type
+	public void setMetrics(String name, String... tags) {
+		this.metricsName = name;
+		this.metricsTags = tags;
+	}
+
+	private String[] tags(String type) {
+		String[] tags = Arrays.copyOf(metricsTags, metricsTags.length + 2);
+		tags[tags.length - 2] = "type";
+		tags[tags.length - 1] = type;
+		return tags;
+	}
+
+	@Override
+	public T deserialize(byte[] bytes) throws SerializationException {
+		if (bytes == null || bytes.length == 0)
+			return null;
+		if (bytes.length < 2 || bytes[0] != MAGIC)
+			return delegate.deserialize(bytes); // written before compression enabled
+		byte id = bytes[1];
+		if (id == UNCOMPRESSED)
+			return delegate.deserialize(Arrays.copyOfRange(bytes, 2, bytes.length));
+		CompressionCodec decoder = id == codec.getId() ? codec : CODECS.get(id);
+		if (decoder == null)
+			throw new SerializationException("Unknown compression codec: " + id);
+		try {
+			return delegate.deserialize(decoder.decompress(bytes, 2, bytes.length - 2));
+		} catch (SerializationException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SerializationException("Cannot decompress", e);
+		}
+	}
+
+	private static byte[] frame(byte id, byte[] payload) {
+		byte[] result = new byte[payload.length + 2];
+		result[0] = MAGIC;
+		result[1] = id;
+		System.arraycopy(payload, 0, result, 2, payload.length);
+		return result;
+	}
+
+}
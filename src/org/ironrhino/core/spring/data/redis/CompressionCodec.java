@@ -0,0 +1,14 @@
+package org.ironrhino.core.spring.data.redis;
+
+import java.io.IOException;
+
+public interface CompressionCodec {
+
+	// written into header, must be unique and never change once persisted
+	byte getId();
+
+	byte[] compress(byte[] bytes) throws IOException;
+
+	byte[] decompress(byte[] bytes, int offset, int length) throws IOException;
+
+}
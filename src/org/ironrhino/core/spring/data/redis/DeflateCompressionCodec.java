@@ -0,0 +1,65 @@
+package org.ironrhino.core.spring.data.redis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class DeflateCompressionCodec implements CompressionCodec {
+
+	public static final byte ID = 1;
+
+	private final int level;
+
+	public DeflateCompressionCodec() {
+		this(Deflater.BEST_SPEED);
+	}
+
+	public DeflateCompressionCodec(int level) {
+		this.level = level;
+	}
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public byte[] compress(byte[] bytes) throws IOException {
+		Deflater deflater = new Deflater(level);
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length / 2);
+			byte[] buffer = new byte[4096];
+			while (!deflater.finished())
+				bos.write(buffer, 0, deflater.deflate(buffer));
+			return bos.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	@Override
+	public byte[] decompress(byte[] bytes, int offset, int length) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(bytes, offset, length);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(length * 2);
+			byte[] buffer = new byte[4096];
+			while (!inflater.finished()) {
+				int n = inflater.inflate(buffer);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new IOException("Truncated deflate stream");
+				bos.write(buffer, 0, n);
+			}
+			return bos.toByteArray();
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
@@ -6,7 +6,7 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.ironrhino.core.aop.BaseAspect;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 import org.ironrhino.core.util.IllegalConcurrentAccessException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -24,14 +24,17 @@ public class ConcurrencyAspect extends BaseAspect {
 
 	@Around("execution(public * *(..)) and @annotation(concurrency)")
 	public Object control(ProceedingJoinPoint jp, Concurrency concurrency) throws Throwable {
-		Map<String, Object> context = buildContext(jp);
+		ExpressionTemplate keyTemplate = ExpressionTemplate.of(concurrency.key());
+		ExpressionTemplate permitsTemplate = ExpressionTemplate.of(concurrency.permits());
+		Map<String, Object> context = keyTemplate.isConstant() && permitsTemplate.isConstant() ? null
+				: buildContext(jp);
 		String key = concurrency.key();
 		if (!key.isEmpty()) {
-			key = ExpressionUtils.evalString(key, context);
+			key = keyTemplate.evalString(context);
 		} else {
 			key = buildKey(jp);
 		}
-		int permits = ExpressionUtils.evalInt(concurrency.permits(), context, 0);
+		int permits = permitsTemplate.evalInt(context, 0);
 		if (!concurrency.block()) {
 			if (concurrencyService.tryAcquire(key, permits, concurrency.timeout(), concurrency.timeUnit())) {
 				try {
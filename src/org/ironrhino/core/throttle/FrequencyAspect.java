@@ -7,7 +7,7 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.ironrhino.core.aop.BaseAspect;
 import org.ironrhino.core.cache.CacheManager;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -26,17 +26,20 @@ public class FrequencyAspect extends BaseAspect {
 
 	@Around("execution(public * *(..)) and @annotation(frequency)")
 	public Object control(ProceedingJoinPoint jp, Frequency frequency) throws Throwable {
-		Map<String, Object> context = buildContext(jp);
+		ExpressionTemplate keyTemplate = ExpressionTemplate.of(frequency.key());
+		ExpressionTemplate limitsTemplate = ExpressionTemplate.of(frequency.limits());
+		Map<String, Object> context = keyTemplate.isConstant() && limitsTemplate.isConstant() ? null
+				: buildContext(jp);
 		String key = frequency.key();
 		if (!key.isEmpty()) {
-			key = ExpressionUtils.evalString(key, context);
+			key = keyTemplate.evalString(context);
 		} else {
 			key = buildKey(jp);
 		}
 		long timestamp = System.currentTimeMillis();
 		long duration = frequency.timeUnit().toMillis(frequency.duration());
 		String actualKey = key + ":" + (timestamp - timestamp % duration);
-		int limits = ExpressionUtils.evalInt(frequency.limits(), context, 0);
+		int limits = limitsTemplate.evalInt(context, 0);
 		int used = (int) cacheManager.increment(actualKey, 1, frequency.duration(), frequency.timeUnit(), NAMESPACE);
 		if (limits >= used) {
 			return jp.proceed();
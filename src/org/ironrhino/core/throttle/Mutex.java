@@ -16,4 +16,6 @@ public @interface Mutex {
 
 	Scope scope() default Scope.GLOBAL;
 
+	long timeout() default 0; // ms, wait for release instead of failing immediately
+
 }
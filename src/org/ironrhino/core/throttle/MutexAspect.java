@@ -1,6 +1,6 @@
 package org.ironrhino.core.throttle;
 
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -9,7 +9,7 @@ import org.aspectj.lang.annotation.Aspect;
 import org.ironrhino.core.aop.BaseAspect;
 import org.ironrhino.core.coordination.LockService;
 import org.ironrhino.core.util.AppInfo;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 import org.ironrhino.core.util.LockFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -32,8 +32,8 @@ public class MutexAspect extends BaseAspect {
 		if (StringUtils.isBlank(key)) {
 			sb.append(buildKey(jp));
 		} else {
-			Map<String, Object> context = buildContext(jp);
-			sb.append(ExpressionUtils.evalString(key, context));
+			ExpressionTemplate keyTemplate = ExpressionTemplate.of(key);
+			sb.append(keyTemplate.evalString(keyTemplate.isConstant() ? null : buildContext(jp)));
 		}
 		switch (mutex.scope()) {
 		case GLOBAL:
@@ -48,7 +48,8 @@ public class MutexAspect extends BaseAspect {
 			break;
 		}
 		String lockName = sb.toString();
-		if (lockService.tryLock(lockName)) {
+		if (mutex.timeout() > 0 ? lockService.tryLock(lockName, mutex.timeout(), TimeUnit.MILLISECONDS)
+				: lockService.tryLock(lockName)) {
 			try {
 				return jp.proceed();
 			} finally {
@@ -6,6 +6,8 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
+import org.ironrhino.core.metadata.Scope;
+
 @Target({ METHOD })
 @Retention(RUNTIME)
 public @interface RateLimiter {
@@ -16,4 +18,9 @@ public @interface RateLimiter {
 
 	int limitForPeriod() default 100;
 
+	Scope scope() default Scope.LOCAL;
+
+	// permits acquired per round trip and consumed locally if scope is not LOCAL
+	int prefetch() default 1;
+
 }
@@ -1,17 +1,22 @@
 package org.ironrhino.core.throttle;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.ironrhino.core.aop.BaseAspect;
+import org.ironrhino.core.metadata.Scope;
 import org.ironrhino.core.spring.configuration.ClassPresentConditional;
+import org.ironrhino.core.util.AppInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
 
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 
 @Aspect
 @Component
@@ -21,17 +26,110 @@ public class RateLimiterAspect extends BaseAspect {
 	@Autowired
 	private RateLimiterRegistry rateLimiterRegistry;
 
+	@Autowired(required = false)
+	private RateLimiterService rateLimiterService;
+
+	private final Map<String, PrefetchedPermits> prefetchedPermits = new ConcurrentHashMap<>();
+
+	private final Map<String, io.github.resilience4j.ratelimiter.RateLimiter> rejectedRateLimiters =
+			new ConcurrentHashMap<>();
+
 	public RateLimiterAspect() {
 		order = Ordered.HIGHEST_PRECEDENCE + 2;
 	}
 
 	@Around("execution(public * *(..)) and @annotation(rateLimiter)")
 	public Object control(ProceedingJoinPoint jp, RateLimiter rateLimiter) throws Throwable {
-		return rateLimiterRegistry.of(buildKey(jp),
-				() -> RateLimiterConfig.custom().timeoutDuration(Duration.ofMillis(rateLimiter.timeoutDuration()))
-						.limitRefreshPeriod(Duration.ofMillis(rateLimiter.limitRefreshPeriod()))
-						.limitForPeriod(rateLimiter.limitForPeriod()).build())
-				.executeCheckedSupplier(jp::proceed);
+		if (rateLimiter.scope() == Scope.LOCAL || rateLimiterService == null)
+			return rateLimiterRegistry.of(buildKey(jp),
+					() -> RateLimiterConfig.custom().timeoutDuration(Duration.ofMillis(rateLimiter.timeoutDuration()))
+							.limitRefreshPeriod(Duration.ofMillis(rateLimiter.limitRefreshPeriod()))
+							.limitForPeriod(rateLimiter.limitForPeriod()).build())
+					.executeCheckedSupplier(jp::proceed);
+		String name = buildKey(jp);
+		if (rateLimiter.scope() == Scope.APPLICATION)
+			name = name + '-' + AppInfo.getAppName();
+		if (rateLimiter.prefetch() > 1) {
+			acquirePrefetched(name, rateLimiter);
+		} else if (rateLimiterService.tryAcquire(name, rateLimiter.limitForPeriod(), rateLimiter.limitRefreshPeriod(),
+				1, rateLimiter.timeoutDuration()) == 0) {
+			throw requestNotPermitted(name);
+		}
+		return jp.proceed();
+	}
+
+	// only one caller refills from service, others wait for it instead of refilling concurrently
+	private void acquirePrefetched(String name, RateLimiter rateLimiter) throws InterruptedException {
+		PrefetchedPermits permits = prefetchedPermits.computeIfAbsent(name, key -> new PrefetchedPermits());
+		long deadline = System.currentTimeMillis() + rateLimiter.timeoutDuration();
+		boolean waited = false;
+		while (!permits.tryTake()) {
+			// refilling is bounded by timeout, give up if it passed while waiting
+			if (waited && System.currentTimeMillis() > deadline)
+				throw requestNotPermitted(name);
+			if (permits.tryStartRefilling()) {
+				int granted = 0;
+				try {
+					granted = rateLimiterService.tryAcquire(name, rateLimiter.limitForPeriod(),
+							rateLimiter.limitRefreshPeriod(), rateLimiter.prefetch(), rateLimiter.timeoutDuration());
+				} finally {
+					// one of granted is taken by current caller
+					permits.finishRefilling(granted - 1,
+							System.currentTimeMillis() + rateLimiter.limitRefreshPeriod());
+				}
+				if (granted == 0)
+					throw requestNotPermitted(name);
+				return;
+			}
+			permits.awaitRefilling();
+			waited = true;
+		}
+	}
+
+	private RequestNotPermitted requestNotPermitted(String name) {
+		return RequestNotPermitted.createRequestNotPermitted(rejectedRateLimiters.computeIfAbsent(name,
+				io.github.resilience4j.ratelimiter.RateLimiter::ofDefaults));
+	}
+
+	private static class PrefetchedPermits {
+
+		private int remaining;
+
+		private long expiresAt;
+
+		private boolean refilling;
+
+		synchronized boolean tryTake() {
+			if (remaining <= 0 || System.currentTimeMillis() >= expiresAt)
+				return false;
+			remaining--;
+			return true;
+		}
+
+		synchronized boolean tryStartRefilling() {
+			if (refilling)
+				return false;
+			refilling = true;
+			return true;
+		}
+
+		// permits should not outlive the period otherwise burst will exceed limit
+		synchronized void finishRefilling(int permits, long expiresAt) {
+			refilling = false;
+			if (permits >= 0) {
+				if (System.currentTimeMillis() >= this.expiresAt)
+					remaining = 0;
+				remaining += permits;
+				this.expiresAt = expiresAt;
+			}
+			notifyAll();
+		}
+
+		synchronized void awaitRefilling() throws InterruptedException {
+			while (refilling)
+				wait();
+		}
+
 	}
 
 }
@@ -0,0 +1,13 @@
+package org.ironrhino.core.throttle;
+
+public interface RateLimiterService {
+
+	/**
+	 * acquire up to maxPermits permits, all time arguments are in milliseconds
+	 *
+	 * @return granted permits, zero means not permitted within timeout
+	 */
+	int tryAcquire(String name, int limitForPeriod, long limitRefreshPeriod, int maxPermits, long timeout)
+			throws InterruptedException;
+
+}
@@ -4,85 +4,304 @@ import static org.ironrhino.core.metadata.Profiles.CLOUD;
 import static org.ironrhino.core.metadata.Profiles.CLUSTER;
 import static org.ironrhino.core.metadata.Profiles.DUAL;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.ironrhino.core.spring.configuration.PriorityQualifier;
 import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
 import org.ironrhino.core.throttle.ConcurrencyService;
+import org.ironrhino.core.util.AppInfo;
+import org.ironrhino.core.util.NameableThreadFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fair semaphore built on leases, a lease is a member of sorted set scored by
+ * expiry time and renewed by watchdog, waiters are queued in FIFO order and
+ * released permits are handed off to queue head directly then notified via
+ * pub/sub. Permits could be released by any thread of the acquiring instance,
+ * lease acquired by current thread is preferred otherwise the oldest one.
+ */
 @Component("concurrencyService")
 @ServiceImplementationConditional(profiles = { DUAL, CLOUD, CLUSTER })
+@Slf4j
 public class RedisConcurrencyService implements ConcurrencyService {
 
 	private static final String NAMESPACE = "concurrency:";
 
+	private static final String CHANNEL = NAMESPACE + "granted";
+
+	private static final long POLL_INTERVAL = 100;
+
+	private static final String NOW = "redis.replicate_commands() local t = redis.call('time') "
+			+ "local now = t[1] * 1000 + math.floor(t[2] / 1000) ";
+
+	// KEYS: leases, queue, waiters ARGV: id, permits, leaseTime, enqueue, waiterTimeout
+	private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(NOW
+			+ "redis.call('zremrangebyscore', KEYS[1], '-inf', now) "
+			+ "for _, v in ipairs(redis.call('zrangebyscore', KEYS[3], '-inf', now)) do "
+			+ "redis.call('zrem', KEYS[2], v) redis.call('zrem', KEYS[3], v) end "
+			+ "if redis.call('zscore', KEYS[1], ARGV[1]) then return 1 end "
+			+ "local available = tonumber(ARGV[2]) - redis.call('zcard', KEYS[1]) "
+			+ "local rank = redis.call('zrank', KEYS[2], ARGV[1]) or redis.call('zcard', KEYS[2]) "
+			+ "if rank < available then redis.call('zadd', KEYS[1], now + tonumber(ARGV[3]), ARGV[1]) "
+			+ "redis.call('zrem', KEYS[2], ARGV[1]) redis.call('zrem', KEYS[3], ARGV[1]) return 1 end "
+			+ "if ARGV[4] == '1' then redis.call('zadd', KEYS[2], 'NX', now, ARGV[1]) "
+			+ "redis.call('zadd', KEYS[3], now + tonumber(ARGV[5]), ARGV[1]) end return 0", Long.class);
+
+	// KEYS: leases, queue, waiters ARGV: id, permits, leaseTime, channel
+	private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(NOW
+			+ "local removed = redis.call('zrem', KEYS[1], ARGV[1]) "
+			+ "redis.call('zrem', KEYS[2], ARGV[1]) redis.call('zrem', KEYS[3], ARGV[1]) "
+			+ "redis.call('zremrangebyscore', KEYS[1], '-inf', now) "
+			+ "local available = tonumber(ARGV[2]) - redis.call('zcard', KEYS[1]) "
+			+ "while available > 0 do local head = redis.call('zrange', KEYS[2], 0, 0)[1] "
+			+ "if not head then break end local expiry = redis.call('zscore', KEYS[3], head) "
+			+ "redis.call('zrem', KEYS[2], head) redis.call('zrem', KEYS[3], head) "
+			+ "if expiry and tonumber(expiry) > now then "
+			+ "redis.call('zadd', KEYS[1], now + tonumber(ARGV[3]), head) "
+			+ "redis.call('publish', ARGV[4], head) available = available - 1 end end return removed",
+			Long.class);
+
+	// KEYS: leases ARGV: id, leaseTime
+	private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+			NOW + "if redis.call('zscore', KEYS[1], ARGV[1]) then "
+					+ "redis.call('zadd', KEYS[1], now + tonumber(ARGV[2]), ARGV[1]) return 1 end return 0",
+			Long.class);
+
+	@Getter
+	@Value("${concurrencyService.watchdogTimeout:30000}")
+	private int watchdogTimeout = 30000;
+
 	@Autowired
 	@Qualifier("stringRedisTemplate")
 	@PriorityQualifier
 	private StringRedisTemplate throttleStringRedisTemplate;
 
+	@Autowired(required = false)
+	@PriorityQualifier
+	private RedisMessageListenerContainer throttleRedisMessageListenerContainer;
+
+	private ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
+			new NameableThreadFactory("redis-concurrency"));
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	// leaseId -> lease
+	private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+	// name -> leases
+	private final Map<String, Deque<Lease>> holdings = new ConcurrentHashMap<>();
+
+	// leaseId -> waiter
+	private final Map<String, Waiter> waiters = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		if (throttleRedisMessageListenerContainer != null)
+			throttleRedisMessageListenerContainer.addMessageListener((message, pattern) -> {
+				Waiter waiter = waiters.get(new String(message.getBody(), StandardCharsets.UTF_8));
+				if (waiter != null)
+					waiter.signal();
+			}, new ChannelTopic(CHANNEL));
+		long delay = watchdogTimeout / 3;
+		scheduler.scheduleWithFixedDelay(this::renew, delay, delay, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	private void destroy() {
+		scheduler.shutdown();
+	}
+
 	@Override
 	public boolean tryAcquire(String name, int permits) {
-		String key = NAMESPACE + name;
-		Long value = throttleStringRedisTemplate.opsForValue().increment(key, 1);
-		boolean success = value != null && value.intValue() <= permits;
-		if (!success)
-			throttleStringRedisTemplate.opsForValue().increment(key, -1);
-		return success;
+		String id = nextLeaseId();
+		if (!acquire(name, id, permits, false))
+			return false;
+		hold(name, id, permits);
+		return true;
 	}
 
 	@Override
 	public boolean tryAcquire(String name, int permits, long timeout, TimeUnit unit) throws InterruptedException {
 		if (timeout <= 0)
 			return tryAcquire(name, permits);
-		String key = NAMESPACE + name;
-		Long value = throttleStringRedisTemplate.opsForValue().increment(key, 1);
-		boolean success = value != null && value.intValue() <= permits;
-		if (!success)
-			throttleStringRedisTemplate.opsForValue().increment(key, -1);
-		long millisTimeout = unit.toMillis(timeout);
-		long start = System.nanoTime();
-		while (!success) {
-			Thread.sleep(100);
-			if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= millisTimeout)
-				break;
-			value = throttleStringRedisTemplate.opsForValue().increment(key, 1);
-			success = value != null && value.intValue() <= permits;
-			if (!success)
-				throttleStringRedisTemplate.opsForValue().increment(key, -1);
-		}
-		return success;
+		return await(name, permits, System.nanoTime() + unit.toNanos(timeout));
 	}
 
 	@Override
-	public void acquire(String name, int permits) {
-		String key = NAMESPACE + name;
-		Long value = throttleStringRedisTemplate.opsForValue().increment(key, 1);
-		boolean success = value != null && value.intValue() <= permits;
-		if (!success)
-			throttleStringRedisTemplate.opsForValue().increment(key, -1);
-		while (!success) {
+	public void acquire(String name, int permits) throws InterruptedException {
+		await(name, permits, Long.MAX_VALUE);
+	}
+
+	@Override
+	public void release(String name) {
+		Lease[] released = new Lease[1];
+		holdings.computeIfPresent(name, (key, held) -> {
+			long threadId = Thread.currentThread().getId();
+			Iterator<Lease> it = held.descendingIterator();
+			while (it.hasNext()) {
+				Lease lease = it.next();
+				if (lease.threadId == threadId) {
+					it.remove();
+					released[0] = lease;
+					break;
+				}
+			}
+			if (released[0] == null)
+				released[0] = held.pollFirst();
+			return held.isEmpty() ? null : held;
+		});
+		Lease lease = released[0];
+		if (lease == null)
+			throw new IllegalStateException("Semaphore '" + name + "' is not held by current instance");
+		leases.remove(lease.id);
+		release(name, lease.id, lease.permits);
+	}
+
+	private boolean await(String name, int permits, long deadline) throws InterruptedException {
+		String id = nextLeaseId();
+		Waiter waiter = new Waiter();
+		waiters.put(id, waiter);
+		try {
+			while (true) {
+				if (acquire(name, id, permits, true)) {
+					hold(name, id, permits);
+					return true;
+				}
+				long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE
+						: TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					release(name, id, permits);
+					return false;
+				}
+				// recheck periodically in case notification lost or holder crashed, poll
+				// frequently if notification is unavailable
+				waiter.await(Math.min(remaining,
+						throttleRedisMessageListenerContainer != null ? watchdogTimeout / 3 : POLL_INTERVAL));
+			}
+		} catch (InterruptedException e) {
+			release(name, id, permits);
+			throw e;
+		} finally {
+			waiters.remove(id);
+		}
+	}
+
+	private boolean acquire(String name, String id, int permits, boolean enqueue) {
+		Long ret = throttleStringRedisTemplate.execute(ACQUIRE_SCRIPT, keys(name), id, String.valueOf(permits),
+				String.valueOf(watchdogTimeout), enqueue ? "1" : "0", String.valueOf(watchdogTimeout));
+		if (ret == null)
+			throw new RuntimeException("Unexpected null");
+		return ret == 1;
+	}
+
+	private void release(String name, String id, int permits) {
+		throttleStringRedisTemplate.execute(RELEASE_SCRIPT, keys(name), id, String.valueOf(permits),
+				String.valueOf(watchdogTimeout), CHANNEL);
+	}
+
+	private void hold(String name, String id, int permits) {
+		Lease lease = new Lease(id, name, permits, Thread.currentThread().getId());
+		leases.put(id, lease);
+		holdings.compute(name, (key, held) -> {
+			if (held == null)
+				held = new ArrayDeque<>();
+			held.addLast(lease);
+			return held;
+		});
+	}
+
+	private void renew() {
+		leases.forEach((id, lease) -> {
 			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+				Long ret = throttleStringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key(lease.name)),
+						id, String.valueOf(watchdogTimeout));
+				if (ret != null && ret == 0) {
+					leases.remove(id);
+					log.warn("Lease {} of semaphore '{}' is expired", id, lease.name);
+				}
+			} catch (Exception e) {
+				log.error(e.getMessage(), e);
 			}
-			value = throttleStringRedisTemplate.opsForValue().increment(key, 1);
-			success = value != null && value.intValue() <= permits;
-			if (!success)
-				throttleStringRedisTemplate.opsForValue().increment(key, -1);
+		});
+	}
+
+	private String nextLeaseId() {
+		return AppInfo.getInstanceId() + '$' + Thread.currentThread().getId() + '$' + sequence.incrementAndGet();
+	}
+
+	private static String key(String name) {
+		// hash tag keeps all keys of one semaphore in the same slot, note that
+		// previous versions count permits in plain key "concurrency:name" which is
+		// invisible here, instances of old and new version don't share permits so
+		// upgrade all instances at once instead of rolling upgrade
+		return NAMESPACE + '{' + name + '}';
+	}
+
+	private static List<String> keys(String name) {
+		String key = key(name);
+		return Arrays.asList(key, key + ":queue", key + ":waiters");
+	}
+
+	private static class Lease {
+
+		private final String id;
+
+		private final String name;
+
+		private final int permits;
+
+		private final long threadId;
+
+		Lease(String id, String name, int permits, long threadId) {
+			this.id = id;
+			this.name = name;
+			this.permits = permits;
+			this.threadId = threadId;
 		}
 
 	}
 
-	@Override
-	public void release(String name) {
-		String key = NAMESPACE + name;
-		throttleStringRedisTemplate.opsForValue().increment(key, -1);
+	private static class Waiter {
+
+		private boolean signaled;
+
+		synchronized void signal() {
+			signaled = true;
+			notifyAll();
+		}
+
+		synchronized void await(long timeout) throws InterruptedException {
+			if (!signaled)
+				wait(timeout);
+			signaled = false;
+		}
+
 	}
 
 }
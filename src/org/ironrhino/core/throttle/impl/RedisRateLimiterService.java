@@ -0,0 +1,62 @@
+package org.ironrhino.core.throttle.impl;
+
+import static org.ironrhino.core.metadata.Profiles.CLOUD;
+import static org.ironrhino.core.metadata.Profiles.CLUSTER;
+import static org.ironrhino.core.metadata.Profiles.DUAL;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ironrhino.core.spring.configuration.PriorityQualifier;
+import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
+import org.ironrhino.core.throttle.RateLimiterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+@Component("rateLimiterService")
+@ServiceImplementationConditional(profiles = { DUAL, CLOUD, CLUSTER })
+public class RedisRateLimiterService implements RateLimiterService {
+
+	private static final String NAMESPACE = "rateLimiter:";
+
+	// GCRA, theoretical arrival time is stored and server time is used to avoid clock skew
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+			"redis.replicate_commands() local t = redis.call('time') local now = t[1] * 1000 + t[2] / 1000 "
+					+ "local interval = tonumber(ARGV[1]) local period = tonumber(ARGV[2]) "
+					+ "local tat = tonumber(redis.call('get', KEYS[1]) or '0') if tat < now then tat = now end "
+					+ "local granted = math.min(tonumber(ARGV[3]), math.floor((now + period - tat) / interval + 0.000001)) "
+					+ "local wait = 0 if granted < 1 then granted = 1 wait = tat + interval - period - now "
+					+ "if wait > tonumber(ARGV[4]) then return {0, math.ceil(wait)} end end "
+					+ "tat = tat + interval * granted "
+					+ "redis.call('set', KEYS[1], tostring(tat), 'px', math.ceil(tat - now) + 1) "
+					+ "return {granted, math.ceil(wait)}",
+			List.class);
+
+	@Autowired
+	@Qualifier("stringRedisTemplate")
+	@PriorityQualifier
+	private StringRedisTemplate throttleStringRedisTemplate;
+
+	@Override
+	public int tryAcquire(String name, int limitForPeriod, long limitRefreshPeriod, int maxPermits, long timeout)
+			throws InterruptedException {
+		double interval = (double) limitRefreshPeriod / limitForPeriod;
+		List<?> result = throttleStringRedisTemplate.execute(ACQUIRE_SCRIPT, Collections.singletonList(NAMESPACE + name),
+				String.valueOf(interval), String.valueOf(limitRefreshPeriod), String.valueOf(maxPermits),
+				String.valueOf(timeout));
+		if (result == null || result.size() < 2)
+			return 0;
+		int granted = ((Number) result.get(0)).intValue();
+		long wait = ((Number) result.get(1)).longValue();
+		if (granted > 0 && wait > 0)
+			TimeUnit.MILLISECONDS.sleep(wait);
+		return granted;
+	}
+
+}
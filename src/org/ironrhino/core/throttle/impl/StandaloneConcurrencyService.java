@@ -19,7 +19,13 @@ public class StandaloneConcurrencyService implements ConcurrencyService {
 
 	@Override
 	public boolean tryAcquire(String name, int permits) {
-		return getSemaphore(name, permits).tryAcquire();
+		try {
+			// untimed tryAcquire barges even if semaphore is fair
+			return getSemaphore(name, permits).tryAcquire(0, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
 	}
 
 	@Override
@@ -41,7 +47,7 @@ public class StandaloneConcurrencyService implements ConcurrencyService {
 	}
 
 	private Semaphore getSemaphore(String name, int permits) {
-		return semaphores.computeIfAbsent(name, key -> new Semaphore(permits));
+		return semaphores.computeIfAbsent(name, key -> new Semaphore(permits, true));
 	}
 
 }
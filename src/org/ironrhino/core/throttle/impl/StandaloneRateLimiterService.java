@@ -0,0 +1,49 @@
+package org.ironrhino.core.throttle.impl;
+
+import static org.ironrhino.core.metadata.Profiles.DEFAULT;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.ironrhino.core.spring.configuration.ServiceImplementationConditional;
+import org.ironrhino.core.throttle.RateLimiterService;
+import org.springframework.stereotype.Component;
+
+@Component("rateLimiterService")
+@ServiceImplementationConditional(profiles = DEFAULT)
+public class StandaloneRateLimiterService implements RateLimiterService {
+
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	@Override
+	public int tryAcquire(String name, int limitForPeriod, long limitRefreshPeriod, int maxPermits, long timeout)
+			throws InterruptedException {
+		double interval = (double) limitRefreshPeriod / limitForPeriod;
+		Bucket bucket = buckets.computeIfAbsent(name, key -> new Bucket());
+		int granted;
+		double wait = 0;
+		synchronized (bucket) {
+			double now = System.nanoTime() / 1000000.0;
+			double tat = Math.max(bucket.theoreticalArrivalTime, now);
+			granted = (int) Math.min(maxPermits, Math.floor((now + limitRefreshPeriod - tat) / interval + 1e-6));
+			if (granted < 1) {
+				granted = 1;
+				wait = tat + interval - limitRefreshPeriod - now;
+				if (wait > timeout)
+					return 0;
+			}
+			bucket.theoreticalArrivalTime = tat + interval * granted;
+		}
+		if (wait > 0)
+			TimeUnit.MILLISECONDS.sleep((long) Math.ceil(wait));
+		return granted;
+	}
+
+	private static class Bucket {
+
+		private double theoreticalArrivalTime = Double.NEGATIVE_INFINITY;
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package org.ironrhino.core.tracing;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import io.netty.handler.codec.http.HttpMessage;
+import io.opentracing.propagation.TextMap;
+
+public final class NettyHttpMessageTextMap implements TextMap {
+
+	private final HttpMessage message;
+
+	public NettyHttpMessageTextMap(HttpMessage message) {
+		this.message = message;
+	}
+
+	@Override
+	public Iterator<Map.Entry<String, String>> iterator() {
+		throw new UnsupportedOperationException("Should only be used with Tracer.inject()");
+	}
+
+	@Override
+	public void put(String key, String value) {
+		message.headers().set(key, value);
+	}
+}
@@ -268,6 +268,15 @@ public class Tracing {
 		}
 	}
 
+	public static void inject(io.netty.handler.codec.http.HttpMessage httpMessage) {
+		if (enabled) {
+			Tracer tracer = GlobalTracer.get();
+			Span span = tracer.activeSpan();
+			if (span != null)
+				tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new NettyHttpMessageTextMap(httpMessage));
+		}
+	}
+
 	public static void inject(HttpURLConnection connection) {
 		if (enabled) {
 			Tracer tracer = GlobalTracer.get();
@@ -15,7 +15,7 @@ import org.ironrhino.core.aop.BaseAspect;
 import org.ironrhino.core.service.BaseManager;
 import org.ironrhino.core.util.AppInfo;
 import org.ironrhino.core.util.AppInfo.Stage;
-import org.ironrhino.core.util.ExpressionUtils;
+import org.ironrhino.core.util.ExpressionTemplate;
 import org.ironrhino.core.util.ReflectionUtils;
 import org.springframework.core.Ordered;
 import org.springframework.transaction.annotation.Transactional;
@@ -67,10 +67,15 @@ public class TracingAspect extends BaseAspect {
 			Tracing.logError(ex);
 			throw ex;
 		} finally {
-			Map<String, Object> context = buildContext(pjp);
-			putReturnValueIntoContext(context, result);
-			for (Tag tag : traced.tags())
-				span.setTag(tag.name(), ExpressionUtils.evalString(tag.value(), context));
+			Map<String, Object> context = null;
+			for (Tag tag : traced.tags()) {
+				ExpressionTemplate template = ExpressionTemplate.of(tag.value());
+				if (context == null && !template.isConstant()) {
+					context = buildContext(pjp);
+					putReturnValueIntoContext(context, result);
+				}
+				span.setTag(tag.name(), template.evalString(context));
+			}
 			span.finish();
 		}
 	}
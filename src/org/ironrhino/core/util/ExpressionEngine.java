@@ -3,8 +3,9 @@ package org.ironrhino.core.util;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.CompiledExpression;
 import org.mvel2.compiler.ExpressionCompiler;
@@ -29,9 +30,10 @@ public enum ExpressionEngine {
 
 	MVEL {
 
-		private Map<String, CompiledTemplate> templateCache = new ConcurrentHashMap<>();
+		private Cache<String, CompiledTemplate> templateCache = newCache("mvel.template", CompiledTemplate.class);
 
-		private Map<String, CompiledExpression> expressionCache = new ConcurrentHashMap<>();
+		private Cache<String, CompiledExpression> expressionCache = newCache("mvel.expression",
+				CompiledExpression.class);
 
 		private ParserContext parserContext = new ParserContext();
 		{
@@ -47,55 +49,73 @@ public enum ExpressionEngine {
 		public Object evalExpression(String expression, Map<String, ?> context) {
 			if (expression.contains("java.") || expression.contains("javax."))
 				throw new IllegalArgumentException("Illegal expression: " + expression);
-			CompiledExpression ce = expressionCache.computeIfAbsent(expression,
-					key -> new ExpressionCompiler(key, parserContext).compile());
+			CompiledExpression ce = expressionCache.peek(expression);
+			if (ce == null) {
+				ce = new ExpressionCompiler(expression, parserContext).compile();
+				expressionCache.put(expression, ce);
+			}
 			return org.mvel2.MVEL.executeExpression(ce, context);
 		}
 
 		@Override
 		public Object eval(String template, Map<String, ?> context) {
-			CompiledTemplate ct = templateCache.computeIfAbsent(template,
-					key -> new TemplateCompiler(key, false, parserContext).compile());
+			CompiledTemplate ct = templateCache.peek(template);
+			if (ct == null) {
+				ct = new TemplateCompiler(template, false, parserContext).compile();
+				templateCache.put(template, ct);
+			}
 			return TemplateRuntime.execute(ct, context);
 		}
 
 	},
 	SPEL {
 
-		private Map<String, Expression> templateCache = new ConcurrentHashMap<>();
+		private Cache<String, Expression> templateCache = newCache("spel.template", Expression.class);
 
-		private Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+		private Cache<String, Expression> expressionCache = newCache("spel.expression", Expression.class);
+
+		private MapAccessor mapAccessor = new MapAccessor();
+
+		private MethodResolver mathMethodResolver = new MethodResolver() {
+			@Override
+			public MethodExecutor resolve(EvaluationContext ctx, Object targetObject, String name,
+					List<TypeDescriptor> argumentTypes) throws AccessException {
+				Method m = MathUtils.mathMethods.get(name);
+				if (m != null) {
+					return new ReflectiveMethodExecutor(m);
+				}
+				return null;
+			}
+		};
 
 		private SpelExpressionParser parser = new SpelExpressionParser(
 				new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, this.getClass().getClassLoader()));
 
 		@Override
 		public Object evalExpression(String expression, Map<String, ?> context) {
-			Expression ex = expressionCache.computeIfAbsent(expression, key -> parser.parseExpression(expression));
+			Expression ex = expressionCache.peek(expression);
+			if (ex == null) {
+				ex = parser.parseExpression(expression);
+				expressionCache.put(expression, ex);
+			}
 			return ex.getValue(build(context));
 		}
 
 		@Override
 		public Object eval(String template, Map<String, ?> context) {
-			Expression ex = templateCache.computeIfAbsent(template, key -> parser.parseExpression(template,
-					template.contains("${") ? new TemplateParserContext("${", "}") : new TemplateParserContext()));
+			Expression ex = templateCache.peek(template);
+			if (ex == null) {
+				ex = parser.parseExpression(template,
+						template.contains("${") ? new TemplateParserContext("${", "}") : new TemplateParserContext());
+				templateCache.put(template, ex);
+			}
 			return ex.getValue(build(context));
 		}
 
 		private EvaluationContext build(Map<String, ?> context) {
 			StandardEvaluationContext ctx = new StandardEvaluationContext(context);
-			ctx.addPropertyAccessor(new MapAccessor());
-			ctx.addMethodResolver(new MethodResolver() {
-				@Override
-				public MethodExecutor resolve(EvaluationContext ctx, Object targetObject, String name,
-						List<TypeDescriptor> argumentTypes) throws AccessException {
-					Method m = MathUtils.mathMethods.get(name);
-					if (m != null) {
-						return new ReflectiveMethodExecutor(m);
-					}
-					return null;
-				}
-			});
+			ctx.addPropertyAccessor(mapAccessor);
+			ctx.addMethodResolver(mathMethodResolver);
 			return ctx;
 		}
 
@@ -105,4 +125,12 @@ public enum ExpressionEngine {
 
 	public abstract Object eval(String template, Map<String, ?> context);
 
+	private static final int CACHE_CAPACITY = 10000;
+
+	static <V> Cache<String, V> newCache(String name, Class<V> valueType) {
+		return Cache2kBuilder.of(String.class, valueType)
+				.manager(org.cache2k.CacheManager.getInstance(ExpressionEngine.class.getName())).name(name)
+				.entryCapacity(CACHE_CAPACITY).eternal(true).build();
+	}
+
 }
\ No newline at end of file
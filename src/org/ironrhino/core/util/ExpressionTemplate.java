@@ -0,0 +1,229 @@
+package org.ironrhino.core.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.cache2k.Cache;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * Template analyzed once and evaluated many times, constant is folded and
+ * simple property path like <code>${user.name}</code> is evaluated by cached
+ * getters, others are delegated to {@link ExpressionUtils}
+ */
+public abstract class ExpressionTemplate {
+
+	private static final Pattern PROPERTY_PATH_PATTERN = Pattern
+			.compile("^[$#]\\{\\s*([A-Za-z_$][\\w$]*(?:\\.[A-Za-z_$][\\w$]*)*)\\s*\\}$");
+
+	// words have special meaning in SPEL
+	private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList("true", "false", "null", "new",
+			"and", "or", "not", "eq", "ne", "lt", "gt", "le", "ge", "div", "mod", "instanceof", "matches", "between",
+			"T"));
+
+	private static final Cache<String, ExpressionTemplate> cache = ExpressionEngine.newCache("template",
+			ExpressionTemplate.class);
+
+	protected final String template;
+
+	protected ExpressionTemplate(String template) {
+		this.template = template;
+	}
+
+	public static ExpressionTemplate of(String template) {
+		ExpressionTemplate et = cache.peek(template);
+		if (et == null) {
+			et = compile(template);
+			cache.put(template, et);
+		}
+		return et;
+	}
+
+	static ExpressionTemplate compile(String template) {
+		if (StringUtils.isBlank(template) || template.indexOf('{') < 0)
+			return new Constant(template);
+		Matcher matcher = PROPERTY_PATH_PATTERN.matcher(template);
+		if (matcher.matches()) {
+			String[] path = matcher.group(1).split("\\.");
+			if (!RESERVED_WORDS.contains(path[0]))
+				return new PropertyPath(template, path);
+		}
+		return new Dynamic(template);
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	public boolean isConstant() {
+		return false;
+	}
+
+	public abstract Object eval(Map<String, ?> context);
+
+	public String evalString(Map<String, ?> context) {
+		Object obj = eval(context);
+		if (obj == null)
+			return null;
+		return obj.toString();
+	}
+
+	public boolean evalBoolean(Map<String, ?> context, boolean defaultValue) {
+		if (StringUtils.isBlank(template))
+			return defaultValue;
+		Object obj = eval(context);
+		if (obj == null)
+			return defaultValue;
+		if (obj instanceof Boolean)
+			return (Boolean) obj;
+		return Boolean.parseBoolean(obj.toString());
+	}
+
+	public int evalInt(Map<String, ?> context, int defaultValue) {
+		if (StringUtils.isBlank(template))
+			return defaultValue;
+		Object obj = eval(context);
+		if (obj == null)
+			return defaultValue;
+		if (obj instanceof Integer)
+			return (Integer) obj;
+		return Integer.parseInt(obj.toString());
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> List<T> evalList(Map<String, ?> context) {
+		Object obj = eval(context);
+		if (obj == null)
+			return null;
+		if (obj instanceof List)
+			return (List<T>) obj;
+		return (List<T>) Arrays.asList(obj.toString().split("\\s*,\\s*"));
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+
+	private static class Constant extends ExpressionTemplate {
+
+		private Integer intValue;
+
+		Constant(String template) {
+			super(template);
+		}
+
+		@Override
+		public boolean isConstant() {
+			return true;
+		}
+
+		@Override
+		public Object eval(Map<String, ?> context) {
+			return template;
+		}
+
+		@Override
+		public int evalInt(Map<String, ?> context, int defaultValue) {
+			if (StringUtils.isBlank(template))
+				return defaultValue;
+			Integer value = intValue;
+			if (value == null)
+				intValue = value = Integer.valueOf(template);
+			return value;
+		}
+
+	}
+
+	private static class Dynamic extends ExpressionTemplate {
+
+		Dynamic(String template) {
+			super(template);
+		}
+
+		@Override
+		public Object eval(Map<String, ?> context) {
+			return ExpressionUtils.eval(template, context);
+		}
+
+	}
+
+	private static class PropertyPath extends ExpressionTemplate {
+
+		private final String[] path;
+
+		private final Getter[] getters;
+
+		PropertyPath(String template, String[] path) {
+			super(template);
+			this.path = path;
+			this.getters = new Getter[path.length];
+		}
+
+		@Override
+		public Object eval(Map<String, ?> context) {
+			Object value = context;
+			try {
+				for (int i = 0; i < path.length; i++) {
+					if (value instanceof Map) {
+						Map<?, ?> map = (Map<?, ?>) value;
+						if (!map.containsKey(path[i]))
+							return fallback(context);
+						value = map.get(path[i]);
+					} else if (value == null) {
+						return fallback(context);
+					} else {
+						Method m = getReadMethod(i, value.getClass());
+						if (m == null)
+							return fallback(context);
+						value = m.invoke(value);
+					}
+				}
+				return value;
+			} catch (Exception e) {
+				// keep semantics of expression engine
+				return fallback(context);
+			}
+		}
+
+		private Method getReadMethod(int index, Class<?> clazz) {
+			Getter getter = getters[index];
+			if (getter == null || getter.clazz != clazz) {
+				PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(clazz, path[index]);
+				Method m = pd != null ? pd.getReadMethod() : null;
+				if (m != null && !Modifier.isPublic(m.getDeclaringClass().getModifiers()))
+					m = null;
+				getters[index] = getter = new Getter(clazz, m);
+			}
+			return getter.method;
+		}
+
+		private Object fallback(Map<String, ?> context) {
+			return ExpressionUtils.eval(template, context);
+		}
+
+	}
+
+	private static class Getter {
+
+		private final Class<?> clazz;
+
+		private final Method method;
+
+		Getter(Class<?> clazz, Method method) {
+			this.clazz = clazz;
+			this.method = method;
+		}
+
+	}
+
+}
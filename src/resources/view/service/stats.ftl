@@ -144,6 +144,11 @@ Initialization.stats = function() {
 <#assign dataurl+='?'+request.queryString/>
 </#if>
 <div class="ajaxpanel" data-url="${dataurl}"></div>
+<#assign dataurl=actionBaseUrl+"/percentiles"/>
+<#if request.queryString?has_content>
+<#assign dataurl+='?'+request.queryString/>
+</#if>
+<div class="ajaxpanel" data-url="${dataurl}"></div>
 </div>
 </#if><#if service?has_content>
 <div class="ajaxpanel" data-url="${actionBaseUrl+"/samples?service="+service?url}" data-interval="60000" data-quiet="true"></div>
@@ -0,0 +1,36 @@
+<#ftl output_format='HTML'>
+<!DOCTYPE html>
+<html>
+<head>
+<title>${getText('service')}${getText('stats')}</title>
+</head>
+<body>
+<#if percentiles??>
+	<table class="table table-hover table-bordered" style="white-space: nowrap;">
+		<caption><h4>${getText('percentiles')}</h4></caption>
+		<thead>
+		<tr>
+			<th>${getText('count')}</th>
+			<th>${getText('meanTime')} (ms)</th>
+			<th>p50 (ms)</th>
+			<th>p90 (ms)</th>
+			<th>p99 (ms)</th>
+			<th>p999 (ms)</th>
+			<th>max (ms)</th>
+		</tr>
+		</thead>
+		<tbody>
+		<tr>
+			<td>${percentiles.count?string}</td>
+			<td>${percentiles.mean?string('0.##')}</td>
+			<td>${percentiles.p50?string}</td>
+			<td>${percentiles.p90?string}</td>
+			<td>${percentiles.p99?string}</td>
+			<td>${percentiles.p999?string}</td>
+			<td>${percentiles.max?string}</td>
+		</tr>
+		</tbody>
+	</table>
+</#if>
+</body>
+</html>
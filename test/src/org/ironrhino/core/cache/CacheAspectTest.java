@@ -11,6 +11,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aopalliance.intercept.MethodInterceptor;
@@ -64,6 +65,7 @@ public class CacheAspectTest {
 	@After
 	public void destroy() {
 		cacheManager.delete("test", PersonRepository.CACHE_NAMESPACE);
+		cacheManager.delete(CacheAspect.EXPIRATION + "test", PersonRepository.CACHE_NAMESPACE);
 		cacheManager.delete("notexists", PersonRepository.CACHE_NAMESPACE);
 		cacheManager.delete("nano", TimeService.CACHE_NAMESPACE);
 	}
@@ -141,6 +143,34 @@ public class CacheAspectTest {
 		es.shutdown();
 	}
 
+	@Test
+	public void testStaleWhileRevalidate() {
+		Person person = new Person();
+		person.setName("test");
+		personRepository.save(person);
+		assertThat(personRepository.getWithStale(person.getName()), is(person));
+		assertThat(personRepository.count(), is(1));
+		assertThat(personRepository.getWithStale(person.getName()), is(person));
+		assertThat(personRepository.count(), is(1));
+		// value itself is visible to direct readers
+		assertThat(cacheManager.get(person.getName(), PersonRepository.CACHE_NAMESPACE), is(person));
+		// expire logically instead of waiting for timeToLive
+		cacheManager.put(CacheAspect.EXPIRATION + person.getName(),
+				new CacheExpiration(System.currentTimeMillis() - 1, 0), 10, TimeUnit.SECONDS,
+				PersonRepository.CACHE_NAMESPACE);
+		// stale value is served to others while refreshing
+		cacheManager.increment("_REFRESH_" + person.getName(), 1, 10, TimeUnit.SECONDS,
+				PersonRepository.CACHE_NAMESPACE);
+		assertThat(personRepository.getWithStale(person.getName()), is(person));
+		assertThat(personRepository.count(), is(1));
+		cacheManager.delete("_REFRESH_" + person.getName(), PersonRepository.CACHE_NAMESPACE);
+		// caller wins the refresh and recomputes
+		assertThat(personRepository.getWithStale(person.getName()), is(person));
+		assertThat(personRepository.count(), is(2));
+		assertThat(personRepository.getWithStale(person.getName()), is(person));
+		assertThat(personRepository.count(), is(2));
+	}
+
 	@Test
 	public void testJdkDynamicProxy() throws Exception {
 		long nanoTime = timeService.nanoTime();
@@ -192,6 +222,12 @@ public class CacheAspectTest {
 			return people.get(name);
 		}
 
+		@CheckCache(key = "${name}", namespace = CACHE_NAMESPACE, timeToLive = "10", staleTimeToLive = "10")
+		public Person getWithStale(String name) {
+			count.incrementAndGet();
+			return people.get(name);
+		}
+
 		@EvictCache(key = "${name}", namespace = CACHE_NAMESPACE)
 		public void remove(String name) {
 			people.remove(name);
@@ -4,6 +4,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -73,6 +74,50 @@ public abstract class CacheManagerTestBase {
 		assertThat(cacheManager.mget(map.keySet(), NAMESPACE).get("test2"), is(nullValue()));
 	}
 
+	@Test
+	public void testMultiWithTtiAndIfAbsent() {
+		Map<String, Object> map = new HashMap<>();
+		for (int i = 0; i < 10; i++)
+			map.put("test" + i, "value" + i);
+		Map<String, Boolean> result = cacheManager.mputIfAbsent(map, 2, TimeUnit.SECONDS, NAMESPACE);
+		for (int i = 0; i < 10; i++)
+			assertThat(result.get("test" + i), is(true));
+		result = cacheManager.mputIfAbsent(map, 2, TimeUnit.SECONDS, NAMESPACE);
+		for (int i = 0; i < 10; i++)
+			assertThat(result.get("test" + i), is(false));
+		try {
+			TimeUnit.SECONDS.sleep(1);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		Map<String, Object> values = cacheManager.mgetWithTti(map.keySet(), NAMESPACE, 2, TimeUnit.SECONDS);
+		for (int i = 0; i < 10; i++)
+			assertThat(values.get("test" + i), is(map.get("test" + i)));
+		try {
+			TimeUnit.MILLISECONDS.sleep(1500);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		if (cacheManager.supportsUpdateTtl())
+			assertThat(cacheManager.exists("test1", NAMESPACE), is(true));
+		cacheManager.mdelete(map.keySet(), NAMESPACE);
+		assertThat(cacheManager.mget(map.keySet(), NAMESPACE).get("test2"), is(nullValue()));
+	}
+
+	@Test
+	public void testAsync() throws Exception {
+		String key = "key";
+		Object value = "value";
+		cacheManager.putAsync(key, value, 2, TimeUnit.SECONDS, NAMESPACE).get();
+		assertThat(cacheManager.getAsync(key, NAMESPACE).get(), is(value));
+		assertThat(cacheManager.mgetAsync(Collections.singleton(key), NAMESPACE).get().get(key), is(value));
+		cacheManager.delete(key, NAMESPACE);
+		assertThat(cacheManager.getAsync(key, NAMESPACE).get(), is(nullValue()));
+		assertThat(cacheManager.incrementAsync(key, 2, 2, TimeUnit.SECONDS, NAMESPACE).get(), is(2L));
+		assertThat(cacheManager.incrementAsync(key, 3, 2, TimeUnit.SECONDS, NAMESPACE).get(), is(5L));
+		cacheManager.delete(key, NAMESPACE);
+	}
+
 	@Test
 	public void testTtlAndIdle() {
 		String key = "key";
@@ -0,0 +1,12 @@
+package org.ironrhino.core.cache;
+
+import org.ironrhino.core.cache.impl.RedisCacheManager;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+		RedisCacheManager.COMPRESSORS_PREFIX
+				+ "test\\:test=org.ironrhino.core.spring.data.redis.DeflateCompressionCodec",
+		RedisCacheManager.COMPRESSION_THRESHOLD + "=0" })
+public class CompressingRedisCacheManagerTests extends RedisCacheManagerTests {
+
+}
@@ -0,0 +1,9 @@
+package org.ironrhino.core.cache;
+
+import org.ironrhino.core.cache.impl.RedisCacheManager;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = { RedisCacheManager.NEAR_CACHES_PREFIX + "test\\:test=1000" })
+public class NearCacheRedisCacheManagerTests extends RedisCacheManagerTests {
+
+}
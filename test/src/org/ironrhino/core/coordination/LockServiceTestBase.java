@@ -2,6 +2,7 @@ package org.ironrhino.core.coordination;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
@@ -83,6 +84,20 @@ public abstract class LockServiceTestBase {
 		assertThat(locked.get() > 0, is(true));
 	}
 
+	@Test
+	public void testFencingToken() {
+		String lockName = "fencing";
+		assertThat(lockService.getFencingToken(lockName), is(-1L));
+		assertThat(lockService.tryLock(lockName), is(true));
+		long token = lockService.getFencingToken(lockName);
+		assertThat(token, greaterThan(0L));
+		lockService.unlock(lockName);
+		assertThat(lockService.getFencingToken(lockName), is(-1L));
+		assertThat(lockService.tryLock(lockName), is(true));
+		assertThat(lockService.getFencingToken(lockName), greaterThan(token));
+		lockService.unlock(lockName);
+	}
+
 	@Test
 	public void testLock() throws InterruptedException {
 		ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
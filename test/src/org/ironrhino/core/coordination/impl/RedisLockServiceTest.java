@@ -46,18 +46,45 @@ public class RedisLockServiceTest {
 
 	@Test
 	public void testTryLockSuccessful() {
-		given(opsForValue.setIfAbsent("lock:key", RedisLockService.holder(), lockService.getWatchdogTimeout(),
-				TimeUnit.MILLISECONDS)).willReturn(true);
+		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+				argThat(keys -> keys != null && keys.contains("lock:key")), eq(RedisLockService.holder()),
+				eq(String.valueOf(lockService.getWatchdogTimeout())),
+				eq(String.valueOf(lockService.getFencingTokenTimeout())))).willReturn(10L);
 		assertThat(lockService.tryLock("key"), is(true));
+		assertThat(lockService.getFencingToken("key"), is(10L));
 	}
 
 	@Test
 	public void testTryLockFailed() {
-		given(opsForValue.setIfAbsent("lock:key", RedisLockService.holder(), lockService.getWatchdogTimeout(),
-				TimeUnit.MILLISECONDS)).willReturn(false);
+		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+				argThat(keys -> keys != null && keys.contains("lock:key")), eq(RedisLockService.holder()),
+				eq(String.valueOf(lockService.getWatchdogTimeout())),
+				eq(String.valueOf(lockService.getFencingTokenTimeout())))).willReturn(-1000L);
 		assertThat(lockService.tryLock("key"), is(false));
 	}
 
+	@Test
+	public void testTryLockWithTimeout() {
+		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+				argThat(keys -> keys != null && keys.contains("lock:key")), eq(RedisLockService.holder()),
+				eq(String.valueOf(lockService.getWatchdogTimeout())),
+				eq(String.valueOf(lockService.getFencingTokenTimeout())))).willReturn(-50L, -50L, 11L);
+		assertThat(lockService.tryLock("key", 1, TimeUnit.SECONDS), is(true));
+		assertThat(lockService.getFencingToken("key"), is(11L));
+	}
+
+	@Test
+	public void testTryLockPollsWithoutNotification() {
+		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+				argThat(keys -> keys != null && keys.contains("lock:key")), eq(RedisLockService.holder()),
+				eq(String.valueOf(lockService.getWatchdogTimeout())),
+				eq(String.valueOf(lockService.getFencingTokenTimeout())))).willReturn(-30000L, -30000L, 12L);
+		long start = System.currentTimeMillis();
+		assertThat(lockService.tryLock("key", 5, TimeUnit.SECONDS), is(true));
+		assertThat(System.currentTimeMillis() - start < 1000, is(true));
+		assertThat(lockService.getFencingToken("key"), is(12L));
+	}
+
 	@Test
 	public void testUnlockSuccessful() {
 		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
@@ -0,0 +1,216 @@
+package org.ironrhino.core.coordination.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.ironrhino.core.coordination.LeaderChangeListener;
+import org.ironrhino.core.coordination.impl.RedisMembershipTest.RedisMembershipConfig;
+import org.ironrhino.core.util.AppInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = RedisMembershipConfig.class)
+@TestPropertySource(properties = "redis.membership.heartbeat=" + RedisMembershipTest.HEARTBEAT)
+public class RedisMembershipTest {
+
+	private static final String GROUP = "test";
+
+	static final int HEARTBEAT = 200;
+
+	private static final String LEADER_KEY = "membership:{test}:leader";
+
+	private static final String LEGACY_KEY = "membership:test";
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private LeaderChangeListener leaderChangeListener;
+
+	@Autowired
+	private RedisMembership membership;
+
+	private ValueOperations<String, String> opsForValue;
+
+	private ZSetOperations<String, String> opsForZSet;
+
+	private ListOperations<String, String> opsForList;
+
+	private SetOperations<String, String> opsForSet;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() {
+		reset(stringRedisTemplate, leaderChangeListener);
+		given(stringRedisTemplate.opsForValue()).willReturn(opsForValue = mock(ValueOperations.class));
+		given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
+		given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
+		given(stringRedisTemplate.opsForSet()).willReturn(opsForSet = mock(SetOperations.class));
+		given(leaderChangeListener.supports(GROUP)).willReturn(true);
+	}
+
+	@After
+	public void cleanup() {
+		membership.leave(GROUP);
+	}
+
+	@Test
+	public void testJoinAsLeader() {
+		givenHeartbeat(AppInfo.getInstanceId());
+		membership.join(GROUP);
+		assertThat(membership.isLeader(GROUP), is(true));
+		assertThat(membership.getLeader(GROUP), is(AppInfo.getInstanceId()));
+		verify(leaderChangeListener).isLeader();
+		membership.leave(GROUP);
+		verify(leaderChangeListener).notLeader();
+	}
+
+	@Test
+	public void testJoinAsFollower() {
+		givenHeartbeat("other");
+		membership.join(GROUP);
+		assertThat(membership.isLeader(GROUP), is(false));
+		assertThat(membership.getLeader(GROUP), is("other"));
+		verify(leaderChangeListener, never()).isLeader();
+		// leadership view is cached
+		verify(opsForValue, never()).get(anyString());
+	}
+
+	@Test
+	public void testTakeOverOnLeaderExpired() {
+		givenHeartbeat("other");
+		membership.join(GROUP);
+		assertThat(membership.isLeader(GROUP), is(false));
+		givenHeartbeat(AppInfo.getInstanceId());
+		membership.onEvent("expired", LEADER_KEY);
+		assertThat(membership.isLeader(GROUP), is(true));
+		verify(leaderChangeListener, times(1)).isLeader();
+	}
+
+	@Test
+	public void testLeaderChanged() {
+		givenHeartbeat(AppInfo.getInstanceId());
+		membership.join(GROUP);
+		given(opsForValue.get(LEADER_KEY)).willReturn("other");
+		membership.onEvent("set", LEADER_KEY);
+		assertThat(membership.isLeader(GROUP), is(false));
+		verify(leaderChangeListener).notLeader();
+	}
+
+	@Test
+	public void testStepDownOnLeaseExpired() throws Exception {
+		givenHeartbeat(AppInfo.getInstanceId());
+		membership.join(GROUP);
+		assertThat(membership.isLeader(GROUP), is(true));
+		verify(leaderChangeListener).isLeader();
+		// heartbeat failed to renew lease
+		Thread.sleep(3L * HEARTBEAT + 100);
+		assertThat(membership.isLeader(GROUP), is(false));
+		verify(leaderChangeListener).notLeader();
+	}
+
+	@Test
+	public void testDeferToLegacyLeader() {
+		String self = AppInfo.getInstanceId();
+		given(opsForList.range(LEGACY_KEY, 0, -1)).willReturn(Arrays.asList("legacy", self));
+		given(opsForSet.members(anyString())).willReturn(Collections.singleton(self));
+		givenHeartbeat(self);
+		membership.join(GROUP);
+		assertThat(membership.isLeader(GROUP), is(false));
+		assertThat(membership.getLeader(GROUP), is("legacy"));
+		assertThat(membership.getMembers(GROUP).contains("legacy"), is(true));
+		verify(leaderChangeListener, never()).isLeader();
+		membership.leave(GROUP);
+		verify(opsForList).remove(LEGACY_KEY, 0, self);
+	}
+
+	@Test
+	public void testRegisterInLegacyList() {
+		String self = AppInfo.getInstanceId();
+		given(opsForList.range(LEGACY_KEY, 0, -1)).willReturn(Collections.singletonList("upgraded"));
+		given(opsForSet.members(anyString())).willReturn(new HashSet<>(Arrays.asList("upgraded", self)));
+		given(opsForZSet.rangeByScore(anyString(), anyDouble(), anyDouble()))
+				.willReturn(new HashSet<>(Arrays.asList("upgraded", self)));
+		givenHeartbeat(self);
+		membership.join(GROUP);
+		verify(opsForList).rightPush(LEGACY_KEY, self);
+		// upgraded member at head follows lease
+		assertThat(membership.isLeader(GROUP), is(true));
+		verify(opsForList, never()).remove(LEGACY_KEY, 0, "upgraded");
+	}
+
+	@Test
+	public void testRemoveCrashedUpgradedMemberFromLegacyList() {
+		String self = AppInfo.getInstanceId();
+		given(opsForList.range(LEGACY_KEY, 0, -1)).willReturn(Arrays.asList("crashed", self));
+		given(opsForSet.members(anyString())).willReturn(new HashSet<>(Arrays.asList("crashed", self)));
+		given(opsForZSet.rangeByScore(anyString(), anyDouble(), anyDouble()))
+				.willReturn(Collections.singleton(self));
+		givenHeartbeat(self);
+		membership.join(GROUP);
+		verify(opsForList).remove(LEGACY_KEY, 0, "crashed");
+		assertThat(membership.isLeader(GROUP), is(true));
+	}
+
+	private void givenHeartbeat(String leader) {
+		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<String>>any(),
+				argThat(keys -> keys != null && keys.contains(LEADER_KEY)), eq(AppInfo.getInstanceId()), any()))
+						.willReturn(leader);
+	}
+
+	@Configuration
+	static class RedisMembershipConfig {
+
+		@Bean
+		public StringRedisTemplate stringRedisTemplate() {
+			return mock(StringRedisTemplate.class);
+		}
+
+		@Bean
+		public TaskScheduler taskScheduler() {
+			return mock(TaskScheduler.class);
+		}
+
+		@Bean
+		public LeaderChangeListener leaderChangeListener() {
+			return mock(LeaderChangeListener.class);
+		}
+
+		@Bean
+		public RedisMembership membership() {
+			return new RedisMembership();
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package org.ironrhino.core.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.ironrhino.core.metrics.CacheMetrics.KeySampler;
+import org.junit.Test;
+
+public class CacheMetricsTest {
+
+	@Test
+	public void testKeySampler() {
+		KeySampler sampler = new KeySampler();
+		for (int i = 0; i < 100; i++) {
+			sampler.offer("key" + i);
+			sampler.offer("key" + i);
+		}
+		assertThat(sampler.estimate(), is(100.0));
+		sampler = new KeySampler();
+		for (int n = 0; n < 3; n++)
+			for (int i = 0; i < 100000; i++)
+				sampler.offer("key" + i);
+		assertThat(sampler.estimate(), both(greaterThan(80000.0)).and(lessThan(120000.0)));
+	}
+
+}
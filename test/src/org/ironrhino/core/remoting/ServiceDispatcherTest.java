@@ -0,0 +1,134 @@
+package org.ironrhino.core.remoting;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+
+import org.ironrhino.core.remoting.ServiceDispatcher.DispatchedMethod;
+import org.junit.Test;
+
+public class ServiceDispatcherTest {
+
+	private final ServiceDispatcher dispatcher = new ServiceDispatcher(EchoService.class, new EchoServiceImpl());
+
+	@Test
+	public void testGetMethod() {
+		DispatchedMethod dm = dispatcher.getMethod("echo", new Class<?>[] { String.class });
+		assertThat(dm, is(notNullValue()));
+		assertThat(dm.getSignature(), is("echo(String)"));
+		assertThat(dm.getServiceName(), is(EchoService.class.getName()));
+		assertThat(dm.getQualifiedSignature(), is(EchoService.class.getName() + ".echo(String)"));
+		dm = dispatcher.getMethod("echo", new Class<?>[] { String.class, int.class });
+		assertThat(dm.getSignature(), is("echo(String,int)"));
+		assertThat(dispatcher.getMethod("echo", new Class<?>[] { int.class }), is(nullValue()));
+		assertThat(dispatcher.getMethod("notExists", new Class<?>[0]), is(nullValue()));
+	}
+
+	@Test
+	public void testInvoke() throws Exception {
+		assertThat(dispatcher.getMethod("echo", new Class<?>[] { String.class }).invoke(new Object[] { "test" }),
+				is("test"));
+		assertThat(dispatcher.getMethod("echo", new Class<?>[] { String.class, int.class })
+				.invoke(new Object[] { "test", 2 }), is("testtest"));
+		assertThat(dispatcher.getMethod("optional", new Class<?>[0]).invoke(null), is(Optional.of("test")));
+		dispatcher.getMethod("run", new Class<?>[0]).invoke(new Object[0]);
+	}
+
+	@Test
+	public void testInvokeWithException() {
+		DispatchedMethod dm = dispatcher.getMethod("fail", new Class<?>[] { String.class });
+		try {
+			dm.invoke(new Object[] { "test" });
+			fail("InvocationTargetException expected");
+		} catch (InvocationTargetException e) {
+			assertThat(e.getTargetException(), instanceOf(IllegalStateException.class));
+			assertThat(e.getTargetException().getMessage(), is("test"));
+		}
+	}
+
+	@Test
+	public void testInvokeWithWrongArguments() throws Exception {
+		DispatchedMethod dm = dispatcher.getMethod("echo", new Class<?>[] { String.class, int.class });
+		try {
+			dm.invoke(new Object[] { 1, 2 });
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			dm.invoke(new Object[] { "test", null });
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+		}
+		assertThat(dm.invoke(new Object[] { null, 1 }), is("null"));
+	}
+
+	@Test
+	public void testInvokeWithClassCastExceptionThrownByTarget() {
+		DispatchedMethod dm = dispatcher.getMethod("cast", new Class<?>[] { Object.class });
+		try {
+			dm.invoke(new Object[] { 1 });
+			fail("InvocationTargetException expected");
+		} catch (InvocationTargetException e) {
+			assertThat(e.getTargetException(), instanceOf(ClassCastException.class));
+		}
+	}
+
+	public interface EchoService {
+
+		String echo(String value);
+
+		String echo(String value, int times);
+
+		Optional<String> optional();
+
+		void run();
+
+		void fail(String message);
+
+		String cast(Object value);
+
+	}
+
+	public static class EchoServiceImpl implements EchoService {
+
+		@Override
+		public String echo(String value) {
+			return value;
+		}
+
+		@Override
+		public String echo(String value, int times) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < times; i++)
+				sb.append(value);
+			return sb.toString();
+		}
+
+		@Override
+		public Optional<String> optional() {
+			return Optional.of("test");
+		}
+
+		@Override
+		public void run() {
+		}
+
+		@Override
+		public void fail(String message) {
+			throw new IllegalStateException(message);
+		}
+
+		@Override
+		public String cast(Object value) {
+			return (String) value;
+		}
+
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.ironrhino.core.remoting.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ironrhino.core.remoting.LoadBalancingStrategy;
+import org.junit.Test;
+
+public class DefaultLoadBalancerTest {
+
+	private static final String SERVICE_NAME = "test.FooService";
+
+	private static final List<String> CANDIDATES = Arrays.asList("node@0.0.0.0:8080", "node@0.0.0.0:8081",
+			"node@0.0.0.0:8082");
+
+	@Test
+	public void testRoundRobin() {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer();
+		String host1 = loadBalancer.choose(SERVICE_NAME, CANDIDATES);
+		String host2 = loadBalancer.choose(SERVICE_NAME, CANDIDATES);
+		String host3 = loadBalancer.choose(SERVICE_NAME, CANDIDATES);
+		assertThat(host2, is(not(host1)));
+		assertThat(host3, is(not(host2)));
+		assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is(host1));
+	}
+
+	@Test
+	public void testLeastOutstandingRequests() {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS);
+		loadBalancer.onRequestStart("0.0.0.0:8080");
+		loadBalancer.onRequestStart("0.0.0.0:8081");
+		for (int i = 0; i < 10; i++)
+			assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is("node@0.0.0.0:8082"));
+	}
+
+	@Test
+	public void testPeakEwma() {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer(LoadBalancingStrategy.PEAK_EWMA);
+		loadBalancer.setOutlierLatencyFactor(0);
+		complete(loadBalancer, "0.0.0.0:8080", 100, false);
+		complete(loadBalancer, "0.0.0.0:8081", 10, false);
+		complete(loadBalancer, "0.0.0.0:8082", 50, false);
+		for (int i = 0; i < 10; i++)
+			assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is("node@0.0.0.0:8081"));
+	}
+
+	@Test
+	public void testPowerOfTwoChoices() {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer(LoadBalancingStrategy.POWER_OF_TWO_CHOICES);
+		loadBalancer.setOutlierLatencyFactor(0);
+		complete(loadBalancer, "0.0.0.0:8080", 1000, false);
+		complete(loadBalancer, "0.0.0.0:8081", 10, false);
+		complete(loadBalancer, "0.0.0.0:8082", 10, false);
+		// slowest host never wins a comparison
+		for (int i = 0; i < 100; i++)
+			assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is(not("node@0.0.0.0:8080")));
+	}
+
+	@Test
+	public void testEjectAndReadmit() throws Exception {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer();
+		loadBalancer.setEjectionThreshold(2);
+		loadBalancer.setBaseEjectionTime(100);
+		complete(loadBalancer, "0.0.0.0:8080", 10, true);
+		complete(loadBalancer, "0.0.0.0:8080", 10, true);
+		for (int i = 0; i < 10; i++)
+			assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is(not("node@0.0.0.0:8080")));
+		Thread.sleep(150);
+		boolean readmitted = false;
+		for (int i = 0; i < 3; i++)
+			readmitted |= loadBalancer.choose(SERVICE_NAME, CANDIDATES).equals("node@0.0.0.0:8080");
+		assertThat(readmitted, is(true));
+	}
+
+	@Test
+	public void testEjectLatencyOutlier() {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer();
+		complete(loadBalancer, "0.0.0.0:8080", 1000, false);
+		complete(loadBalancer, "0.0.0.0:8081", 10, false);
+		complete(loadBalancer, "0.0.0.0:8082", 10, false);
+		for (int i = 0; i < 10; i++)
+			assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is(not("node@0.0.0.0:8080")));
+	}
+
+	@Test
+	public void testNeverEjectAll() {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer();
+		loadBalancer.setEjectionThreshold(1);
+		complete(loadBalancer, "0.0.0.0:8080", 10, true);
+		complete(loadBalancer, "0.0.0.0:8081", 10, true);
+		complete(loadBalancer, "0.0.0.0:8082", 10, true);
+		assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES) != null, is(true));
+	}
+
+	@Test
+	public void testRequestRejected() throws Exception {
+		DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer();
+		loadBalancer.setRejectionBackoffTime(100);
+		loadBalancer.onRequestStart("0.0.0.0:8080");
+		loadBalancer.onRequestRejected("0.0.0.0:8080", TimeUnit.MILLISECONDS.toNanos(1));
+		for (int i = 0; i < 10; i++)
+			assertThat(loadBalancer.choose(SERVICE_NAME, CANDIDATES), is(not("node@0.0.0.0:8080")));
+		Thread.sleep(150);
+		boolean readmitted = false;
+		for (int i = 0; i < 3; i++)
+			readmitted |= loadBalancer.choose(SERVICE_NAME, CANDIDATES).equals("node@0.0.0.0:8080");
+		assertThat(readmitted, is(true));
+	}
+
+	private static void complete(DefaultLoadBalancer loadBalancer, String host, long millis, boolean failed) {
+		loadBalancer.onRequestStart(host);
+		loadBalancer.onRequestComplete(host, TimeUnit.MILLISECONDS.toNanos(millis), failed);
+	}
+
+}
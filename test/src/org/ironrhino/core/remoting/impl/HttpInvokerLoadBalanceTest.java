@@ -36,6 +36,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
 import org.springframework.test.context.ContextConfiguration;
@@ -57,6 +58,7 @@ public class HttpInvokerLoadBalanceTest extends RedisServiceRegistryAdapter {
 	public void clear() throws Exception {
 		given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
 		given(stringRedisTemplate.opsForHash()).willReturn(opsForHash = mock(HashOperations.class));
+		given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
 		importedServiceCandidates.clear();
 		exportedServices.clear();
 		clearInvocations(serviceRegistry);
@@ -70,7 +72,6 @@ public class HttpInvokerLoadBalanceTest extends RedisServiceRegistryAdapter {
 		Class<?> serviceClass = client.getObjectType();
 		if (serviceClass != null) {
 			ReflectionUtils.setFieldValue(client, "serviceUrl", serviceUrl(host, serviceClass));
-			ReflectionUtils.setFieldValue(client, "discoveredHost", host);
 		}
 	}
 
@@ -155,6 +156,7 @@ public class HttpInvokerLoadBalanceTest extends RedisServiceRegistryAdapter {
 			StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
 			given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
 			given(stringRedisTemplate.opsForHash()).willReturn(opsForHash = mock(HashOperations.class));
+			given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
 			return stringRedisTemplate;
 		}
 
@@ -0,0 +1,252 @@
+package org.ironrhino.core.remoting.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.ironrhino.core.remoting.impl.RedisServiceRegistry.NAMESPACE_SERVICES;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.ironrhino.core.event.EventPublisher;
+import org.ironrhino.core.remoting.Remoting;
+import org.ironrhino.core.remoting.RemotingContext;
+import org.ironrhino.core.remoting.RemotingPolicy;
+import org.ironrhino.core.remoting.ServiceOverloadedException;
+import org.ironrhino.core.remoting.client.HttpInvokerRequestExecutor;
+import org.ironrhino.core.remoting.client.RemotingServiceRegistryPostProcessor;
+import org.ironrhino.core.remoting.impl.HttpInvokerPolicyTest.HttpInvokerConfiguration;
+import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = HttpInvokerConfiguration.class)
+public class HttpInvokerPolicyTest extends RedisServiceRegistryAdapter {
+
+	private static final String PROVIDER1 = "policyService@0.0.0.0:8080";
+
+	private static final String PROVIDER2 = "policyService@0.0.0.1:8080";
+
+	@Autowired
+	protected PolicyService policyService;
+	@Autowired
+	protected HttpInvokerRequestExecutor httpInvokerRequestExecutor;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void clear() throws Exception {
+		given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
+		given(stringRedisTemplate.opsForHash()).willReturn(opsForHash = mock(HashOperations.class));
+		given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
+		importedServiceCandidates.clear();
+		reset(httpInvokerRequestExecutor);
+		given(httpInvokerRequestExecutor.getSerializer()).willReturn(HttpInvokerSerializers.DEFAULT_SERIALIZER);
+		List<String> providers = Arrays.asList(PROVIDER1, PROVIDER2);
+		given(opsForList.range(NAMESPACE_SERVICES + PolicyService.class.getName(), 0, -1)).willReturn(providers);
+	}
+
+	@Test
+	public void testHedging() throws Exception {
+		AtomicInteger slowAttempts = new AtomicInteger();
+		AtomicInteger interruptedAttempts = new AtomicInteger();
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER1)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willAnswer(invocation -> {
+					slowAttempts.incrementAndGet();
+					try {
+						Thread.sleep(2000);
+					} catch (InterruptedException e) {
+						interruptedAttempts.incrementAndGet();
+						throw e;
+					}
+					return new RemoteInvocationResult("slow");
+				});
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER2)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willReturn(new RemoteInvocationResult("fast"));
+		for (int i = 0; i < 2; i++) {
+			long time = System.currentTimeMillis();
+			assertThat(policyService.hedged(), is("fast"));
+			assertThat(System.currentTimeMillis() - time, lessThan(1000L));
+		}
+		// losing attempts are interrupted
+		for (int i = 0; i < 10 && interruptedAttempts.get() < slowAttempts.get(); i++)
+			Thread.sleep(100);
+		assertThat(interruptedAttempts.get(), is(slowAttempts.get()));
+	}
+
+	@Test
+	public void testHedgingRetryOnEarlyFailure() throws Exception {
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER1)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willThrow(new ConnectException("Connection refused"));
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER2)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willReturn(new RemoteInvocationResult("fast"));
+		for (int i = 0; i < 5; i++) {
+			importedServiceCandidates.clear();
+			assertThat(policyService.hedged(), is("fast"));
+		}
+	}
+
+	@Test
+	public void testHedgingNotEvictOverloaded() throws Exception {
+		clearInvocations(serviceRegistry);
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER1)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willThrow(new ServiceOverloadedException(PolicyService.class.getName()));
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER2)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willReturn(new RemoteInvocationResult("fast"));
+		for (int i = 0; i < 5; i++)
+			assertThat(policyService.hedged(), is("fast"));
+		verify(serviceRegistry, never()).evict(any(String.class));
+	}
+
+	@Test
+	public void testHedgingWithoutAnotherHost() throws Exception {
+		given(opsForList.range(NAMESPACE_SERVICES + PolicyService.class.getName(), 0, -1))
+				.willReturn(Collections.singletonList(PROVIDER1));
+		given(httpInvokerRequestExecutor.executeRequest(eq(serviceUrl(PROVIDER1)), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willAnswer(invocation -> {
+					Thread.sleep(200);
+					return new RemoteInvocationResult("slow");
+				});
+		assertThat(policyService.hedged(), is("slow"));
+	}
+
+	@Test
+	public void testDeadline() throws Exception {
+		AtomicLong remaining = new AtomicLong();
+		given(httpInvokerRequestExecutor.executeRequest(any(String.class), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willAnswer(invocation -> {
+					remaining.set(RemotingContext.getRemainingTime());
+					return new RemoteInvocationResult("test");
+				});
+		assertThat(policyService.withDeadline(), is("test"));
+		assertThat(remaining.get(), both(greaterThan(0L)).and(lessThanOrEqualTo(500L)));
+		assertThat(RemotingContext.getDeadline(), is(nullValue()));
+
+		// inherited deadline is shorter
+		RemotingContext.setDeadline(System.currentTimeMillis() + 100);
+		try {
+			assertThat(policyService.withDeadline(), is("test"));
+			assertThat(remaining.get(), lessThanOrEqualTo(100L));
+		} finally {
+			RemotingContext.setDeadline(null);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testBatching() throws Exception {
+		AtomicInteger batches = new AtomicInteger();
+		given(httpInvokerRequestExecutor.executeBatchRequest(any(String.class), any(List.class), any(List.class)))
+				.willAnswer(invocation -> {
+					batches.incrementAndGet();
+					List<RemoteInvocation> invocations = invocation.getArgument(1);
+					return invocations.stream().map(ri -> new RemoteInvocationResult("echo:" + ri.getArguments()[0]))
+							.collect(Collectors.toList());
+				});
+		given(httpInvokerRequestExecutor.executeRequest(any(String.class), any(RemoteInvocation.class),
+				any(MethodInvocation.class))).willAnswer(invocation -> new RemoteInvocationResult(
+						"echo:" + ((RemoteInvocation) invocation.getArgument(1)).getArguments()[0]));
+		int concurrency = 8;
+		ExecutorService es = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < concurrency; i++) {
+				String argument = String.valueOf(i);
+				futures.add(es.submit(() -> policyService.batched(argument)));
+			}
+			for (int i = 0; i < concurrency; i++)
+				assertThat(futures.get(i).get(), is("echo:" + i));
+		} finally {
+			es.shutdown();
+		}
+		// at most one batch per provider
+		assertThat(batches.get(), both(greaterThan(0)).and(lessThanOrEqualTo(2)));
+	}
+
+	private static String serviceUrl(String host) {
+		return "http://" + normalizeHost(host) + "/remoting/httpinvoker/" + PolicyService.class.getName();
+	}
+
+	@Remoting
+	@RemotingPolicy(hedged = true, hedgingDelay = 100)
+	public interface PolicyService {
+
+		String hedged();
+
+		@RemotingPolicy(timeout = 500)
+		String withDeadline();
+
+		@RemotingPolicy(batchingWindow = 500)
+		String batched(String argument);
+
+	}
+
+	static class HttpInvokerConfiguration {
+
+		@Bean
+		@SuppressWarnings("unchecked")
+		public StringRedisTemplate stringRedisTemplate() {
+			StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+			given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
+			given(stringRedisTemplate.opsForHash()).willReturn(opsForHash = mock(HashOperations.class));
+			given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
+			return stringRedisTemplate;
+		}
+
+		@Bean
+		public EventPublisher eventPublisher() {
+			return spy(new EventPublisher());
+		}
+
+		@Bean
+		public RedisServiceRegistry redisServiceRegistry() {
+			return spy(new RedisServiceRegistry());
+		}
+
+		@Bean
+		public HttpInvokerRequestExecutor httpInvokerRequestExecutor() {
+			return mock(HttpInvokerRequestExecutor.class);
+		}
+
+		@Bean
+		public RemotingServiceRegistryPostProcessor remotingServiceRegistryPostProcessor() {
+			RemotingServiceRegistryPostProcessor registryPostProcessor = new RemotingServiceRegistryPostProcessor();
+			registryPostProcessor.setAnnotatedClasses(new Class[] { PolicyService.class });
+			return registryPostProcessor;
+		}
+	}
+}
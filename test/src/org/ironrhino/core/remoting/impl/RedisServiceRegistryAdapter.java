@@ -10,11 +10,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 
 public class RedisServiceRegistryAdapter {
 
 	protected static ListOperations<String, String> opsForList;
 	protected static HashOperations<String, Object, Object> opsForHash;
+	protected static ZSetOperations<String, String> opsForZSet;
 
 	@Autowired
 	protected EventPublisher eventPublisher;
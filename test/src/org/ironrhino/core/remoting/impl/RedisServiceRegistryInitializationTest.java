@@ -29,6 +29,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -85,6 +86,7 @@ public class RedisServiceRegistryInitializationTest extends RedisServiceRegistry
 			StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
 			given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
 			given(stringRedisTemplate.opsForHash()).willReturn(opsForHash = mock(HashOperations.class));
+			given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
 			given(opsForList.range(NAMESPACE_SERVICES + BarService.class.getName(), 0, -1))
 					.willReturn(Arrays.asList("barService@0.0.0.0:8080", "barService@0.0.0.1:8080"));
 			return stringRedisTemplate;
@@ -3,17 +3,23 @@ package org.ironrhino.core.remoting.impl;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.ironrhino.core.remoting.impl.RedisServiceRegistry.KEY_VERSIONS;
+import static org.ironrhino.core.remoting.impl.RedisServiceRegistry.NAMESPACE_HEARTBEATS;
 import static org.ironrhino.core.remoting.impl.RedisServiceRegistry.NAMESPACE_SERVICES;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.ironrhino.core.event.EventPublisher;
+import org.ironrhino.core.remoting.ServiceHostsChangedEvent;
 import org.ironrhino.core.remoting.impl.RedisServiceRegistryTest.RedisServiceRegistryConfiguration;
 import org.ironrhino.core.util.AppInfo;
 import org.ironrhino.sample.remoting.BarService;
@@ -26,7 +32,10 @@ import org.mockito.InOrder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -39,6 +48,7 @@ public class RedisServiceRegistryTest extends RedisServiceRegistryAdapter {
 	public void clear() throws Exception {
 		given(stringRedisTemplate.opsForList()).willReturn(opsForList = mock(ListOperations.class));
 		given(stringRedisTemplate.opsForHash()).willReturn(opsForHash = mock(HashOperations.class));
+		given(stringRedisTemplate.opsForZSet()).willReturn(opsForZSet = mock(ZSetOperations.class));
 		importedServiceCandidates.clear();
 		exportedServices.clear();
 		clearInvocations(serviceRegistry);
@@ -54,6 +64,14 @@ public class RedisServiceRegistryTest extends RedisServiceRegistryAdapter {
 		then(opsForList).should(order).rightPush(NAMESPACE_SERVICES + serviceName, serviceRegistry.getLocalHost());
 	}
 
+	@Test
+	public void testHeartbeatScoredByServerTime() {
+		given(stringRedisTemplate.execute(any(RedisCallback.class))).willReturn(1000000L);
+		String serviceName = TestService.class.getName();
+		serviceRegistry.register(serviceName, new TestServiceImpl());
+		then(opsForZSet).should().add(NAMESPACE_HEARTBEATS + serviceName, serviceRegistry.getLocalHost(), 1000000);
+	}
+
 	@Test
 	public void testUnregister() {
 		String serviceName = TestService.class.getName();
@@ -102,6 +120,76 @@ public class RedisServiceRegistryTest extends RedisServiceRegistryAdapter {
 		assertThat(host4, is(host2));
 	}
 
+	@Test
+	public void testApplyChanges() {
+		String serviceName = BarService.class.getName();
+		given(opsForHash.get(KEY_VERSIONS, serviceName)).willReturn("3");
+		given(opsForList.range(NAMESPACE_SERVICES + serviceName, 0, -1))
+				.willReturn(Arrays.asList("node@0.0.0.0:8080", "node@0.0.0.0:8081"));
+		serviceRegistry.discover(serviceName);
+
+		eventPublisher.publish(new ServiceHostsChangedEvent(serviceName, "node@0.0.0.0:8082", false, 4), null);
+		assertThat(importedServiceCandidates.get(serviceName),
+				is(Arrays.asList("node@0.0.0.0:8080", "node@0.0.0.0:8081", "node@0.0.0.0:8082")));
+
+		// stale
+		eventPublisher.publish(new ServiceHostsChangedEvent(serviceName, "node@0.0.0.0:8082", true, 4), null);
+		assertThat(importedServiceCandidates.get(serviceName).size(), is(3));
+
+		eventPublisher.publish(new ServiceHostsChangedEvent(serviceName, "node@0.0.0.0:8080", true, 5), null);
+		assertThat(importedServiceCandidates.get(serviceName),
+				is(Arrays.asList("node@0.0.0.0:8081", "node@0.0.0.0:8082")));
+
+		// gap
+		given(opsForHash.get(KEY_VERSIONS, serviceName)).willReturn("7");
+		given(opsForList.range(NAMESPACE_SERVICES + serviceName, 0, -1))
+				.willReturn(Arrays.asList("node@0.0.0.0:8083"));
+		eventPublisher.publish(new ServiceHostsChangedEvent(serviceName, "node@0.0.0.0:8083", false, 7), null);
+		assertThat(importedServiceCandidates.get(serviceName), is(Arrays.asList("node@0.0.0.0:8083")));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRemoveExpiredHosts() {
+		String serviceName = BarService.class.getName();
+		given(opsForList.range(NAMESPACE_SERVICES + serviceName, 0, -1))
+				.willReturn(Arrays.asList("node@0.0.0.0:8080", "node@0.0.0.0:8081"));
+		serviceRegistry.discover(serviceName);
+		given(stringRedisTemplate.executePipelined(any(SessionCallback.class)))
+				.willReturn(Arrays.asList(Collections.singleton("node@0.0.0.0:8080")));
+		given(opsForZSet.remove(NAMESPACE_HEARTBEATS + serviceName, "node@0.0.0.0:8080")).willReturn(1L);
+		given(opsForHash.increment(KEY_VERSIONS, serviceName, 1)).willReturn(1L);
+
+		serviceRegistry.heartbeat();
+
+		then(opsForList).should().remove(NAMESPACE_SERVICES + serviceName, 0, "node@0.0.0.0:8080");
+		assertThat(importedServiceCandidates.get(serviceName), is(Arrays.asList("node@0.0.0.0:8081")));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testResyncToEmptySnapshot() {
+		String serviceName = BarService.class.getName();
+		given(opsForHash.get(KEY_VERSIONS, serviceName)).willReturn("3");
+		given(opsForList.range(NAMESPACE_SERVICES + serviceName, 0, -1))
+				.willReturn(Arrays.asList("node@0.0.0.0:8080", "node@0.0.0.0:8081"));
+		serviceRegistry.discover(serviceName);
+
+		// all hosts are gone and change messages are lost
+		given(opsForHash.get(KEY_VERSIONS, serviceName)).willReturn("5");
+		given(opsForHash.multiGet(KEY_VERSIONS, Collections.singletonList(serviceName)))
+				.willReturn(Collections.singletonList("5"));
+		given(opsForList.range(NAMESPACE_SERVICES + serviceName, 0, -1)).willReturn(Collections.emptyList());
+		given(stringRedisTemplate.executePipelined(any(SessionCallback.class)))
+				.willReturn(Collections.singletonList(Collections.emptySet()));
+		clearInvocations(serviceRegistry);
+
+		serviceRegistry.heartbeat();
+		assertThat(importedServiceCandidates.get(serviceName), is(Collections.emptyList()));
+		serviceRegistry.heartbeat();
+		then(serviceRegistry).should(times(1)).lookup(serviceName);
+	}
+
 	static class RedisServiceRegistryConfiguration {
 
 		@Bean
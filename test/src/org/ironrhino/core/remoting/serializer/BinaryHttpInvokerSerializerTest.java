@@ -0,0 +1,105 @@
+package org.ironrhino.core.remoting.serializer;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import org.springframework.remoting.RemoteInvocationFailureException;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+public class BinaryHttpInvokerSerializerTest extends HttpInvokerSerializerTestBase {
+
+	@Override
+	protected String serializationType() {
+		return "BINARY";
+	}
+
+	@Test
+	public void testGenericPayloadWithoutClassNames() throws Exception {
+		Method method = EchoListService.class.getMethod("echo", List.class, int.class);
+		List<Echo> list = Arrays.asList(new Echo("a"), new Echo("b"));
+		MethodInvocation mi = createMethodInvocation(method, list, 2);
+		RemoteInvocation ri = serializer.createRemoteInvocation(mi);
+		byte[] data = writeRemoteInvocation(ri);
+		assertThat(new String(data, StandardCharsets.ISO_8859_1).contains(Echo.class.getSimpleName()), is(false));
+		ri = readRemoteInvocation(EchoListService.class, data);
+		assertThat(ri.getMethodName(), is("echo"));
+		assertThat(ri.getParameterTypes(), is(new Class<?>[] { List.class, int.class }));
+		List<?> arg = (List<?>) ri.getArguments()[0];
+		assertThat(arg.get(1), instanceOf(Echo.class));
+		assertThat(((Echo) arg.get(1)).getEcho(), is("b"));
+		assertThat(ri.getArguments()[1], is(2));
+
+		data = writeRemoteInvocationResult(ri, new RemoteInvocationResult(list));
+		assertThat(new String(data, StandardCharsets.ISO_8859_1).contains(Echo.class.getSimpleName()), is(false));
+		List<?> value = (List<?>) readRemoteInvocationResult(mi, data).getValue();
+		assertThat(value.size(), is(2));
+		assertThat(((Echo) value.get(0)).getEcho(), is("a"));
+	}
+
+	@Test
+	public void testExceptionWithCause() throws Exception {
+		Method method = EchoListService.class.getMethod("echo", List.class, int.class);
+		MethodInvocation mi = createMethodInvocation(method, null, 0);
+		RemoteInvocation ri = serializer.createRemoteInvocation(mi);
+		RemoteInvocationResult rir = new RemoteInvocationResult(new InvocationTargetException(
+				new UnknownException("error", new IllegalStateException("cause"))));
+		rir = readRemoteInvocationResult(mi, writeRemoteInvocationResult(ri, rir));
+		Throwable target = ((InvocationTargetException) rir.getException()).getTargetException();
+		assertThat(target, instanceOf(UnknownException.class));
+		assertThat(target.getMessage(), is("error"));
+		assertThat(target.getCause(), instanceOf(IllegalStateException.class));
+		assertThat(target.getCause().getMessage(), is("cause"));
+	}
+
+	@Test
+	public void testNotSerializableException() throws Exception {
+		Method method = EchoListService.class.getMethod("echo", List.class, int.class);
+		MethodInvocation mi = createMethodInvocation(method, null, 0);
+		RemoteInvocation ri = serializer.createRemoteInvocation(mi);
+		RemoteInvocationResult rir = new RemoteInvocationResult(
+				new InvocationTargetException(new NotSerializableException("error")));
+		rir = readRemoteInvocationResult(mi, writeRemoteInvocationResult(ri, rir));
+		Throwable target = ((InvocationTargetException) rir.getException()).getTargetException();
+		assertThat(target, instanceOf(RemoteInvocationFailureException.class));
+		assertThat(target.getMessage(), is(NotSerializableException.class.getName() + ": error"));
+	}
+
+	public interface EchoListService {
+
+		List<Echo> echo(List<Echo> list, int times);
+
+	}
+
+	static class UnknownException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private UnknownException(String message, Throwable cause) {
+			super(message, cause);
+		}
+
+	}
+
+	static class NotSerializableException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object source = new Object();
+
+		private NotSerializableException(String message) {
+			super(message);
+		}
+
+	}
+
+}
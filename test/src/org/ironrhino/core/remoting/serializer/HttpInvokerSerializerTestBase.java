@@ -9,11 +9,23 @@ import static org.mockito.Mockito.mock;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.aopalliance.intercept.MethodInvocation;
+import org.ironrhino.core.remoting.CloseableIterator;
 import org.ironrhino.sample.remoting.TestService;
 import org.junit.Test;
 import org.springframework.core.serializer.support.SerializationFailedException;
@@ -67,6 +79,127 @@ public abstract class HttpInvokerSerializerTestBase {
 		assertThat(ri.getParameterTypes(), is(new Class<?>[] { String.class }));
 	}
 
+	@Test
+	public void testWriteReadBatch() throws NoSuchMethodException, SecurityException, IOException {
+		Method method = TestService.class.getDeclaredMethod("echo", String.class);
+		List<MethodInvocation> mis = Arrays.asList(createMethodInvocation(method, "test1"),
+				createMethodInvocation(method, "test2"));
+		List<RemoteInvocation> ris = new ArrayList<>();
+		for (MethodInvocation mi : mis)
+			ris.add(serializer.createRemoteInvocation(mi));
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		HttpInvokerBatches.writeInvocations(serializer, ris, baos);
+		ris = HttpInvokerBatches.readInvocations(serializer, TestService.class,
+				new ByteArrayInputStream(baos.toByteArray()));
+		assertThat(ris.size(), is(2));
+		assertThat(ris.get(0).getArguments(), is(new Object[] { "test1" }));
+		assertThat(ris.get(1).getArguments(), is(new Object[] { "test2" }));
+
+		baos = new ByteArrayOutputStream();
+		HttpInvokerBatches.writeResults(serializer, ris, Arrays.asList(new RemoteInvocationResult("result1"),
+				new RemoteInvocationResult(new InvocationTargetException(new IllegalArgumentException("test")))),
+				baos);
+		List<RemoteInvocationResult> rirs = HttpInvokerBatches.readResults(serializer, mis,
+				new ByteArrayInputStream(baos.toByteArray()));
+		assertThat(rirs.size(), is(2));
+		assertThat(rirs.get(0).getValue(), is("result1"));
+		assertThat(rirs.get(1).hasInvocationTargetException(), is(true));
+	}
+
+	@Test(expected = SerializationFailedException.class)
+	public void testReadOversizedBatchEntry() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeInt(1);
+		dos.writeInt(HttpInvokerBatches.MAX_ENTRY_LENGTH + 1);
+		HttpInvokerBatches.readInvocations(serializer, TestService.class, new ByteArrayInputStream(baos.toByteArray()));
+	}
+
+	@Test(expected = EOFException.class)
+	public void testReadTruncatedBatchEntry() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeInt(1);
+		dos.writeInt(HttpInvokerBatches.MAX_ENTRY_LENGTH);
+		dos.write(new byte[100]);
+		HttpInvokerBatches.readInvocations(serializer, TestService.class, new ByteArrayInputStream(baos.toByteArray()));
+	}
+
+	@Test
+	public void testWriteReadStreamingResult() throws NoSuchMethodException, SecurityException, IOException {
+		Method method = StreamService.class.getDeclaredMethod("stream", int.class);
+		MethodInvocation mi = createMethodInvocation(method, 3);
+		RemoteInvocation ri = serializer.createRemoteInvocation(mi);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		HttpInvokerStreams.writeResult(serializer, ri, new RemoteInvocationResult(Stream.of("a", "b", "c")), baos,
+				ex -> ex);
+		RemoteInvocationResult rir = HttpInvokerStreams.readResult(serializer, mi,
+				new ByteArrayInputStream(baos.toByteArray()));
+		try (Stream<?> stream = (Stream<?>) rir.getValue()) {
+			assertThat(stream.collect(Collectors.toList()), is(Arrays.asList("a", "b", "c")));
+		}
+
+		baos = new ByteArrayOutputStream();
+		Iterator<String> failing = Stream.of("a", "b").map(s -> {
+			if (s.equals("b"))
+				throw new IllegalStateException("broken");
+			return s;
+		}).iterator();
+		HttpInvokerStreams.writeResult(serializer, ri, new RemoteInvocationResult(failing), baos, ex -> ex);
+		rir = HttpInvokerStreams.readResult(serializer, mi, new ByteArrayInputStream(baos.toByteArray()));
+		Iterator<?> it = ((Stream<?>) rir.getValue()).iterator();
+		assertThat(it.next(), is("a"));
+		Exception e = null;
+		try {
+			it.hasNext();
+		} catch (RuntimeException ex) {
+			e = ex;
+		}
+		assertThat(e, is(notNullValue()));
+		assertThat(e.getMessage(), is("broken"));
+
+		baos = new ByteArrayOutputStream();
+		HttpInvokerStreams.writeResult(serializer, ri,
+				new RemoteInvocationResult(new InvocationTargetException(new IllegalArgumentException("error"))), baos,
+				ex -> ex);
+		rir = HttpInvokerStreams.readResult(serializer, mi, new ByteArrayInputStream(baos.toByteArray()));
+		assertThat(rir.hasInvocationTargetException(), is(true));
+	}
+
+	@Test
+	public void testCloseStreamingIteratorPartlyConsumed() throws Exception {
+		Method method = StreamService.class.getDeclaredMethod("iterate", int.class);
+		MethodInvocation mi = createMethodInvocation(method, 3);
+		RemoteInvocation ri = serializer.createRemoteInvocation(mi);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		HttpInvokerStreams.writeResult(serializer, ri, new RemoteInvocationResult(Stream.of("a", "b", "c").iterator()),
+				baos, ex -> ex);
+		AtomicBoolean closed = new AtomicBoolean();
+		InputStream is = new FilterInputStream(new ByteArrayInputStream(baos.toByteArray())) {
+			@Override
+			public void close() throws IOException {
+				closed.set(true);
+				super.close();
+			}
+		};
+		RemoteInvocationResult rir = HttpInvokerStreams.readResult(serializer, mi, is);
+		try (CloseableIterator<?> it = (CloseableIterator<?>) rir.getValue()) {
+			assertThat(it.next(), is("a"));
+		}
+		assertThat(closed.get(), is(true));
+	}
+
+	@Test(expected = SerializationFailedException.class)
+	public void testReadOversizedStreamingFrame() throws Exception {
+		Method method = StreamService.class.getDeclaredMethod("stream", int.class);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeByte(1);
+		dos.writeInt(HttpInvokerStreams.MAX_FRAME_LENGTH + 1);
+		HttpInvokerStreams.readResult(serializer, createMethodInvocation(method, 1),
+				new ByteArrayInputStream(baos.toByteArray()));
+	}
+
 	@Test
 	public void testWriteReadRemoteInvocationResult() throws NoSuchMethodException, SecurityException, IOException {
 		Method method = TestService.class.getDeclaredMethod("echo", String.class);
@@ -147,6 +280,14 @@ public abstract class HttpInvokerSerializerTestBase {
 		}
 	}
 
+	public interface StreamService {
+
+		Stream<String> stream(int count);
+
+		CloseableIterator<String> iterate(int count);
+
+	}
+
 	static class EchoService {
 		public String echo(Echo echo) {
 			return echo.getEcho();
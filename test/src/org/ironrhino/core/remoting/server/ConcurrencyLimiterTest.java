@@ -0,0 +1,62 @@
+package org.ironrhino.core.remoting.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ConcurrencyLimiterTest {
+
+	@Test
+	public void testRejectBeyondLimit() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(5, 1, 10);
+		for (int i = 0; i < 5; i++)
+			assertThat(limiter.tryAcquire(), is(true));
+		assertThat(limiter.tryAcquire(), is(false));
+		assertThat(limiter.getInflight(), is(5));
+		limiter.release(0);
+		assertThat(limiter.tryAcquire(), is(true));
+	}
+
+	@Test
+	public void testShrinkWhenLatencyGrows() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, 10, 100);
+		saturate(limiter, 10, 10);
+		assertThat(limiter.getLimit(), is(100));
+		saturate(limiter, 1, 100);
+		assertThat(limiter.getLimit(), lessThan(50));
+	}
+
+	@Test
+	public void testGrowWhenLimited() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 10, 1000);
+		saturate(limiter, 100, 10);
+		assertThat(limiter.getLimit(), greaterThan(20));
+		assertThat(limiter.getLimit(), lessThan(1001));
+	}
+
+	@Test
+	public void testNotGrowWhenIdle() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 10, 1000);
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire();
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		assertThat(limiter.getLimit(), is(20));
+	}
+
+	private static void saturate(ConcurrencyLimiter limiter, int rounds, long millis) {
+		for (int i = 0; i < rounds; i++) {
+			int acquired = 0;
+			while (limiter.tryAcquire())
+				acquired++;
+			for (int j = 0; j < acquired; j++)
+				limiter.release(TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+	}
+
+}
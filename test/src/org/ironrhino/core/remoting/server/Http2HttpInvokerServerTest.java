@@ -0,0 +1,193 @@
+package org.ironrhino.core.remoting.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.ironrhino.core.remoting.client.Http2HttpInvokerRequestExecutor;
+import org.ironrhino.core.remoting.client.HttpInvokerClient;
+import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.ironrhino.sample.remoting.FooService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@TestPropertySource(properties = "httpInvoker.serializationType=JAVA")
+public class Http2HttpInvokerServerTest extends HttpInvokerServerTestBase {
+
+	@Autowired
+	private HttpInvokerServer httpInvokerServer;
+
+	@Value("${httpInvoker.serializationType:}")
+	private String serializationType;
+
+	private Server server;
+
+	private int port;
+
+	private Http2HttpInvokerRequestExecutor executor;
+
+	private FooService fooService;
+
+	@Before
+	public void setup() throws Exception {
+		startServer(0);
+		executor = new Http2HttpInvokerRequestExecutor();
+		executor.init();
+		fooService = createFooService(executor);
+	}
+
+	@After
+	public void destroy() throws Exception {
+		executor.destroy();
+		server.stop();
+	}
+
+	@Test
+	public void testRoundTrip() {
+		assertThat(fooService.test("h2c"), is("h2c"));
+		assertThat(fooService.test("h2c again"), is("h2c again"));
+	}
+
+	@Test
+	public void testMultiplexing() throws Exception {
+		ExecutorService es = Executors.newFixedThreadPool(10);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				String value = "value" + i;
+				futures.add(es.submit(() -> fooService.test(value)));
+			}
+			for (int i = 0; i < futures.size(); i++)
+				assertThat(futures.get(i).get(), is("value" + i));
+		} finally {
+			es.shutdown();
+		}
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		Method method = FooService.class.getMethod("test", String.class);
+		List<RemoteInvocation> invocations = new ArrayList<>();
+		List<MethodInvocation> methodInvocations = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			MethodInvocation mi = mock(MethodInvocation.class);
+			given(mi.getMethod()).willReturn(method);
+			given(mi.getArguments()).willReturn(new Object[] { "value" + i });
+			methodInvocations.add(mi);
+			invocations.add(executor.getSerializer().createRemoteInvocation(mi));
+		}
+		List<RemoteInvocationResult> results = executor.executeBatchRequest(
+				"http://localhost:" + port + "/remoting/httpinvoker/" + FooService.class.getName(), invocations,
+				methodInvocations);
+		assertThat(results.size(), is(3));
+		for (int i = 0; i < 3; i++)
+			assertThat(results.get(i).getValue(), is("value" + i));
+	}
+
+	@Test
+	public void testReconnectAfterServerRestart() throws Exception {
+		assertThat(fooService.test("before"), is("before"));
+		server.stop();
+		startServer(port);
+		assertThat(fooService.test("after"), is("after"));
+	}
+
+	@Test
+	public void testCloseIdleConnections() throws Exception {
+		Http2HttpInvokerRequestExecutor executor = new Http2HttpInvokerRequestExecutor();
+		executor.setIdleTimeout(200);
+		executor.init();
+		try {
+			FooService fooService = createFooService(executor);
+			assertThat(fooService.test("before"), is("before"));
+			assertThat(pools(executor).size(), is(1));
+			Thread.sleep(500);
+			assertThat(pools(executor).isEmpty(), is(true));
+			assertThat(fooService.test("after"), is("after"));
+		} finally {
+			executor.destroy();
+		}
+	}
+
+	@Test
+	public void testRemovePoolOfDownHost() throws Exception {
+		assertThat(fooService.test("before"), is("before"));
+		server.stop();
+		try {
+			fooService.test("down");
+		} catch (Exception e) {
+			// expected
+		}
+		assertThat(pools(executor).isEmpty(), is(true));
+	}
+
+	private FooService createFooService(Http2HttpInvokerRequestExecutor executor) {
+		executor.setSerializer(HttpInvokerSerializers.ofSerializationType(serializationType));
+		HttpInvokerClient client = new HttpInvokerClient();
+		client.setServiceInterface(FooService.class);
+		client.setBaseUrl("http://localhost:" + port);
+		client.setHttpInvokerRequestExecutor(executor);
+		client.afterPropertiesSet();
+		return (FooService) client.getObject();
+	}
+
+	private static Map<?, ?> pools(Http2HttpInvokerRequestExecutor executor) {
+		return (Map<?, ?>) ReflectionTestUtils.getField(executor, "pools");
+	}
+
+	private void startServer(int port) throws Exception {
+		server = new Server();
+		ServerConnector connector = new ServerConnector(server,
+				new HTTP2CServerConnectionFactory(new HttpConfiguration()));
+		connector.setPort(port);
+		server.addConnector(connector);
+		ServletContextHandler context = new ServletContextHandler();
+		ServletHolder holder = new ServletHolder(new HttpServlet() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+				try {
+					httpInvokerServer.handleRequest(request, response);
+				} catch (javax.servlet.ServletException e) {
+					throw new IOException(e);
+				}
+			}
+		});
+		holder.setAsyncSupported(true);
+		context.addServlet(holder, "/remoting/httpinvoker/*");
+		server.setHandler(context);
+		server.start();
+		this.port = connector.getLocalPort();
+	}
+
+}
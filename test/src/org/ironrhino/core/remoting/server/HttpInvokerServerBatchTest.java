@@ -0,0 +1,48 @@
+package org.ironrhino.core.remoting.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.junit.Test;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class HttpInvokerServerBatchTest {
+
+	private static final String SERVICE = "slowService";
+
+	@Test
+	public void testPermitHeldUntilExpiredEntryFinished() throws Exception {
+		HttpInvokerServer server = new HttpInvokerServer();
+		ReflectionTestUtils.setField(server, "concurrencyLimitEnabled", true);
+		ConcurrencyLimiter limiter = ReflectionTestUtils.invokeMethod(server, "getConcurrencyLimiter", SERVICE);
+		RemoteInvocation invocation = new RemoteInvocation("slow", new Class<?>[0], new Object[0]);
+		List<RemoteInvocationResult> results = ReflectionTestUtils.invokeMethod(server, "invokeBatch",
+				new SlowService(), SERVICE, null, HttpInvokerSerializers.DEFAULT_SERIALIZER,
+				Arrays.asList(invocation, invocation), System.currentTimeMillis() + 100);
+		assertThat(results.size(), is(2));
+		assertThat(results.get(1).hasInvocationTargetException(), is(true));
+		// second entry ignores interrupt and still occupies its own permit
+		assertThat(limiter.getInflight(), is(1));
+		for (int i = 0; i < 20 && limiter.getInflight() > 0; i++)
+			Thread.sleep(100);
+		assertThat(limiter.getInflight(), is(0));
+	}
+
+	public static class SlowService {
+
+		public String slow() {
+			long deadline = System.currentTimeMillis() + 500;
+			while (System.currentTimeMillis() < deadline)
+				Thread.interrupted();
+			return "done";
+		}
+
+	}
+
+}
@@ -0,0 +1,51 @@
+package org.ironrhino.core.remoting.stats;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+	@Test
+	public void testEncodeAndMerge() {
+		LatencyRecorder recorder1 = new LatencyRecorder();
+		LatencyRecorder recorder2 = new LatencyRecorder();
+		assertThat(recorder1.encodeInterval(), is(nullValue()));
+		for (int i = 1; i <= 99; i++)
+			recorder1.record(i);
+		recorder2.record(100_000);
+		LatencyPercentiles percentiles = LatencyRecorder
+				.merge(Arrays.asList(recorder1.encodeInterval(), recorder2.encodeInterval()));
+		assertThat(percentiles.getCount(), is(100L));
+		assertThat(percentiles.getMin(), is(1L));
+		assertThat(percentiles.getP50(), is(50L));
+		assertThat(percentiles.getP99(), is(99L));
+		assertThat(percentiles.getMax() >= 100_000 && percentiles.getMax() < 101_000, is(true));
+		assertThat(recorder1.encodeInterval(), is(nullValue()));
+	}
+
+	@Test
+	public void testCombine() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		recorder.record(10);
+		String first = recorder.encodeInterval();
+		recorder.record(20);
+		recorder.record(30);
+		String combined = LatencyRecorder.combine(Arrays.asList(first, recorder.encodeInterval(), "invalid"));
+		LatencyPercentiles percentiles = LatencyRecorder.merge(Arrays.asList(combined));
+		assertThat(percentiles.getCount(), is(3L));
+		assertThat(percentiles.getMin(), is(10L));
+		assertThat(percentiles.getMax(), is(30L));
+		assertThat(LatencyRecorder.combine(Arrays.asList("invalid")), is(nullValue()));
+	}
+
+	@Test
+	public void testMergeInvalid() {
+		assertThat(LatencyRecorder.merge(Arrays.asList("invalid")), is(nullValue()));
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.ironrhino.core.remoting.stats;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RedisServiceStatsTest {
+
+	private static final String SERVICE = RedisServiceStatsTest.class.getName();
+
+	@After
+	public void cleanup() {
+		for (StatsType type : StatsType.values()) {
+			type.getCountBuffer().remove(SERVICE);
+			type.getSampleBuffer().remove(SERVICE + ".test()");
+		}
+	}
+
+	@Test
+	public void testCountsRestoredWhenFlushFailed() {
+		StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+		given(stringRedisTemplate.executePipelined(any(SessionCallback.class)))
+				.willThrow(new RedisConnectionFailureException("Connection refused"));
+		RedisServiceStats serviceStats = new RedisServiceStats();
+		ReflectionTestUtils.setField(serviceStats, "remotingStringRedisTemplate", stringRedisTemplate);
+		serviceStats.serverSideEmit(SERVICE, "test()", 10);
+		serviceStats.serverSideEmit(SERVICE, "test()", 20);
+		try {
+			serviceStats.flush();
+			fail("RedisConnectionFailureException expected");
+		} catch (RedisConnectionFailureException e) {
+		}
+		assertThat(StatsType.SERVER_SIDE.getCountBuffer().get(SERVICE).get("test()").sum(), is(2L));
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void testPercentilesRolledUp() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		recorder.record(10);
+		String first = recorder.encodeInterval();
+		recorder.record(20);
+		List<String> entries = Arrays.asList(first, recorder.encodeInterval());
+		StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+		given(stringRedisTemplate.executePipelined(any(SessionCallback.class)))
+				.willReturn(Collections.singletonList(entries));
+		RedisServiceStats serviceStats = new RedisServiceStats();
+		ReflectionTestUtils.setField(serviceStats, "remotingStringRedisTemplate", stringRedisTemplate);
+		Date hourAgo = new Date(System.currentTimeMillis() - 3600_000);
+		LatencyPercentiles percentiles = serviceStats.getPercentiles(SERVICE + ".test()", StatsType.SERVER_SIDE,
+				hourAgo, hourAgo);
+		assertThat(percentiles.getCount(), is(2L));
+
+		ArgumentCaptor<SessionCallback> callback = ArgumentCaptor.forClass(SessionCallback.class);
+		verify(stringRedisTemplate).execute(callback.capture());
+		RedisOperations operations = mock(RedisOperations.class);
+		ListOperations opsForList = mock(ListOperations.class);
+		given(operations.opsForList()).willReturn(opsForList);
+		given(opsForList.size(any())).willReturn(2L);
+		callback.getValue().execute(operations);
+		verify(opsForList).rightPush(any(), eq(LatencyRecorder.combine(entries)));
+		verify(opsForList).trim(any(), eq(2L), eq(-1L));
+		verify(operations).exec();
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.ironrhino.core.sequence.simple;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SegmentedSimpleSequenceTest {
+
+	@Test
+	public void testSequential() {
+		ReservableCountingSequence delegate = new ReservableCountingSequence();
+		SegmentedSimpleSequence seq = new SegmentedSimpleSequence(delegate);
+		for (int i = 1; i <= 1000; i++)
+			assertThat(seq.nextLongValue() > 0, is(true));
+		assertThat(delegate.reserved.get(), lessThan(100));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		ReservableCountingSequence delegate = new ReservableCountingSequence();
+		SegmentedSimpleSequence seq = new SegmentedSimpleSequence(delegate);
+		Set<Long> values = ConcurrentHashMap.newKeySet();
+		AtomicInteger duplicated = new AtomicInteger();
+		ExecutorService es = Executors.newFixedThreadPool(10);
+		for (int i = 0; i < 10; i++) {
+			es.execute(() -> {
+				for (int j = 0; j < 10000; j++)
+					if (!values.add(seq.nextLongValue()))
+						duplicated.incrementAndGet();
+			});
+		}
+		es.shutdown();
+		es.awaitTermination(1, TimeUnit.MINUTES);
+		assertThat(duplicated.get(), is(0));
+		assertThat(values.size(), is(100000));
+		assertThat(delegate.reserved.get(), lessThan(1000));
+	}
+
+	@Test
+	public void testAdaptiveSegmentSize() {
+		ReservableCountingSequence delegate = new ReservableCountingSequence();
+		SegmentedSimpleSequence seq = new SegmentedSimpleSequence(delegate);
+		seq.setSegmentDuration(60000);
+		for (int i = 0; i < 100000; i++)
+			seq.nextLongValue();
+		assertThat(delegate.lastReserveSize, is(seq.getMaxSegmentSize()));
+	}
+
+	@Test
+	public void testRestart() {
+		ReservableCountingSequence delegate = new ReservableCountingSequence();
+		SegmentedSimpleSequence seq = new SegmentedSimpleSequence(delegate);
+		for (int i = 0; i < 100; i++)
+			seq.nextLongValue();
+		seq.restart();
+		assertThat(seq.nextLongValue(), is(1L));
+	}
+
+	@Test
+	public void testReserveNotSupported() {
+		CountingSequence delegate = new CountingSequence();
+		SegmentedSimpleSequence seq = new SegmentedSimpleSequence(delegate);
+		assertThat(seq.nextLongValue(), is(1L));
+		assertThat(seq.nextLongValue(), is(2L));
+		assertThat(delegate.value.get(), is(2L));
+	}
+
+	@Test
+	public void testRestartConcurrently() throws Exception {
+		ExecutorService es = Executors.newSingleThreadExecutor();
+		AtomicReference<Future<Long>> concurrent = new AtomicReference<>();
+		AtomicReference<SegmentedSimpleSequence> ref = new AtomicReference<>();
+		ReservableCountingSequence delegate = new ReservableCountingSequence() {
+			@Override
+			public void restart() {
+				// values of previous segment shouldn't be handed out once restart begins
+				concurrent.set(es.submit(() -> ref.get().nextLongValue()));
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.restart();
+			}
+		};
+		SegmentedSimpleSequence seq = new SegmentedSimpleSequence(delegate);
+		ref.set(seq);
+		for (int i = 0; i < 100; i++)
+			seq.nextLongValue();
+		seq.restart();
+		assertThat(concurrent.get().get(), is(1L));
+		es.shutdown();
+	}
+
+	static class CountingSequence extends AbstractSimpleSequence {
+
+		final AtomicLong value = new AtomicLong();
+
+		@Override
+		public void afterPropertiesSet() {
+		}
+
+		@Override
+		public long nextLongValue() {
+			return value.incrementAndGet();
+		}
+
+		@Override
+		public void restart() {
+			value.set(0);
+		}
+
+	}
+
+	static class ReservableCountingSequence extends CountingSequence implements ReservableSequence {
+
+		private final AtomicInteger reserved = new AtomicInteger();
+
+		private volatile int lastReserveSize;
+
+		@Override
+		public long reserve(int size) {
+			reserved.incrementAndGet();
+			lastReserveSize = size;
+			return value.addAndGet(size);
+		}
+
+	}
+
+}
@@ -1,6 +1,7 @@
 package org.ironrhino.core.session;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -8,25 +9,39 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.Cookie;
 
 import org.ironrhino.core.cache.CacheManager;
+import org.ironrhino.core.security.event.PasswordChangedEvent;
 import org.ironrhino.core.session.impl.CacheBasedHttpSessionStore;
+import org.ironrhino.core.session.impl.SecurityContextSessionCompressor;
 import org.ironrhino.core.util.CodecUtils;
 import org.ironrhino.core.util.JsonUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @TestPropertySource(properties = "httpSessionManager.alwaysUseCacheBased=true")
 public class CacheBasedHttpSessionTest extends BaseHttpSessionTest {
@@ -42,6 +57,9 @@ public class CacheBasedHttpSessionTest extends BaseHttpSessionTest {
 	@Autowired
 	protected UserDetailsService userDetailsService;
 
+	@Autowired
+	protected SecurityContextSessionCompressor securityContextSessionCompressor;
+
 	@Before
 	public void clearInvocations() {
 		Mockito.clearInvocations(httpSessionManager, cacheBased, request, response);
@@ -104,4 +122,86 @@ public class CacheBasedHttpSessionTest extends BaseHttpSessionTest {
 		assertThat(session.getSessionTracker(), is(sessionId));
 		then(response).should(never()).addCookie(any(Cookie.class));
 	}
+
+	@Test
+	public void testDirtyAttributeNames() {
+		request.setCookies(new Cookie[0]);
+		WrappedHttpSession session = new WrappedHttpSession(request, response, servletContext, httpSessionManager);
+		assertThat(session.isDirty(), is(false));
+		session.setAttribute("a", "1");
+		session.setAttribute("b", "2");
+		session.removeAttribute("b");
+		assertThat(session.isDirty(), is(true));
+		assertThat(session.getDirtyAttributeNames(), is(new HashSet<>(Arrays.asList("a", "b"))));
+		session.markAsDirty();
+		assertThat(session.getDirtyAttributeNames(), is(nullValue()));
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void testSaveToHashWithAttributeModifiedInPlace() {
+		SessionCompressorManager sessionCompressorManager = mock(SessionCompressorManager.class);
+		given(sessionCompressorManager.compress(any(String.class), any()))
+				.willAnswer(i -> String.valueOf((Object) i.getArgument(1)));
+		RedisTemplate<String, String> sessionRedisTemplate = mock(RedisTemplate.class);
+		RedisOperations operations = mock(RedisOperations.class);
+		HashOperations hashOperations = mock(HashOperations.class);
+		given(operations.opsForHash()).willReturn(hashOperations);
+		given(sessionRedisTemplate.executePipelined(any(SessionCallback.class)))
+				.willAnswer(i -> ((SessionCallback) i.getArgument(0)).execute(operations));
+		CacheBasedHttpSessionStore store = new CacheBasedHttpSessionStore(cacheManager);
+		ReflectionTestUtils.setField(store, "sessionCompressorManager", sessionCompressorManager);
+		ReflectionTestUtils.setField(store, "sessionRedisTemplate", sessionRedisTemplate);
+
+		Map<String, String> stored = new HashMap<>();
+		stored.put("a", "1");
+		stored.put("b", "[1]");
+		stored.put("c", "3");
+		Map<String, Object> attrMap = new HashMap<>();
+		attrMap.put("a", "2");
+		attrMap.put("b", Arrays.asList(1, 2)); // modified in place
+		attrMap.put("c", "3");
+		WrappedHttpSession session = mock(WrappedHttpSession.class);
+		given(session.getId()).willReturn("test");
+		given(session.isDirty()).willReturn(true);
+		given(session.getAttrMap(false)).willReturn(attrMap);
+		given(session.getDirtyAttributeNames()).willReturn(Collections.singleton("a"));
+		given(session.getStoredAttributes()).willReturn(stored);
+		store.save(session);
+
+		Map<String, String> expected = new HashMap<>();
+		expected.put("a", "2");
+		expected.put("b", "[1, 2]");
+		then(hashOperations).should().putAll("session:attributes:test", expected);
+	}
+
+	@Test
+	public void testPrincipalCache() {
+		UserDetails ud = new User("cached", "password", Collections.emptyList());
+		given(userDetailsService.loadUserByUsername("cached")).willReturn(ud);
+		securityContextSessionCompressor.evict("cached");
+		Mockito.clearInvocations(userDetailsService);
+
+		String compressed = CodecUtils.md5Hex("password") + ",cached";
+		Object principal = null;
+		for (int i = 0; i < 3; i++) {
+			Authentication auth = securityContextSessionCompressor.uncompress(compressed).getAuthentication();
+			assertThat(auth.getName(), is("cached"));
+			// decoded principal is cached
+			if (principal != null)
+				assertThat(auth.getPrincipal() == principal, is(true));
+			principal = auth.getPrincipal();
+			// erased credentials of shared principal don't invalidate other sessions
+			((User) principal).eraseCredentials();
+		}
+		assertThat(securityContextSessionCompressor.compress(SecurityContextHolder.getContext()), is(compressed));
+		then(userDetailsService).should(times(1)).loadUserByUsername("cached");
+
+		securityContextSessionCompressor.onApplicationEvent(new PasswordChangedEvent("cached", "127.0.0.1"));
+		given(userDetailsService.loadUserByUsername("cached"))
+				.willReturn(new User("cached", "newpassword", Collections.emptyList()));
+		securityContextSessionCompressor.uncompress(compressed);
+		then(userDetailsService).should(times(2)).loadUserByUsername("cached");
+		SecurityContextHolder.clearContext();
+	}
 }
@@ -0,0 +1,84 @@
+package org.ironrhino.core.spring.data.redis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+public class CompressingRedisSerializerTest extends RedisSerializerTestBase {
+
+	@Override
+	protected RedisSerializer<Object> getRedisSerializer() {
+		return new CompressingRedisSerializer<>(new FallbackToStringSerializer(), new DeflateCompressionCodec(), 0);
+	}
+
+	@Test
+	public void testCompress() {
+		CompressingRedisSerializer<Object> serializer = new CompressingRedisSerializer<>(
+				new FallbackToStringSerializer());
+		String value = StringUtils.repeat("test", 1000);
+		byte[] bytes = serializer.serialize(value);
+		assertThat(bytes[0], is(CompressingRedisSerializer.MAGIC));
+		assertThat(bytes[1], is(DeflateCompressionCodec.ID));
+		assertThat(bytes.length < value.length(), is(true));
+		assertThat(serializer.deserialize(bytes), is(value));
+		bytes = serializer.serialize("test");
+		assertThat(bytes[1], is(CompressingRedisSerializer.UNCOMPRESSED));
+		assertThat(serializer.deserialize(bytes), is("test"));
+	}
+
+	@Test
+	public void testReadWrittenByOtherCodec() {
+		String value = StringUtils.repeat("test", 1000);
+		byte[] bytes = new CompressingRedisSerializer<>(new FallbackToStringSerializer()).serialize(value);
+		CompressingRedisSerializer<Object> serializer = new CompressingRedisSerializer<>(
+				new FallbackToStringSerializer(), new WrappedDeflateCompressionCodec(), 0);
+		assertThat(serializer.deserialize(bytes), is(value));
+		bytes = serializer.serialize(value);
+		assertThat(bytes[1], is(WrappedDeflateCompressionCodec.ID));
+		assertThat(serializer.deserialize(bytes), is(value));
+		assertThat(new CompressingRedisSerializer<>(new FallbackToStringSerializer()).deserialize(bytes), is(value));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicatedCodecId() {
+		CompressingRedisSerializer.registerCodec(new DeflateCompressionCodec() {
+		});
+	}
+
+	@Test
+	public void testReadLegacy() {
+		FallbackToStringSerializer legacy = new FallbackToStringSerializer();
+		CompressingRedisSerializer<Object> serializer = new CompressingRedisSerializer<>(legacy);
+		assertThat(serializer.deserialize(legacy.serialize("test")), is("test"));
+		assertThat(serializer.deserialize(legacy.serialize(100L)), is(100L));
+	}
+
+	static class WrappedDeflateCompressionCodec implements CompressionCodec {
+
+		static final byte ID = 100;
+
+		private final DeflateCompressionCodec deflate = new DeflateCompressionCodec();
+
+		@Override
+		public byte getId() {
+			return ID;
+		}
+
+		@Override
+		public byte[] compress(byte[] bytes) throws IOException {
+			return deflate.compress(bytes);
+		}
+
+		@Override
+		public byte[] decompress(byte[] bytes, int offset, int length) throws IOException {
+			return deflate.decompress(bytes, offset, length);
+		}
+
+	}
+
+}
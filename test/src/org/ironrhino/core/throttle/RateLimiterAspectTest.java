@@ -1,6 +1,23 @@
 package org.ironrhino.core.throttle;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.spy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.ironrhino.core.metadata.Scope;
 import org.ironrhino.core.throttle.RateLimiterAspectTest.RateLimiterConfiguration;
+import org.ironrhino.core.throttle.impl.StandaloneRateLimiterService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +36,9 @@ public class RateLimiterAspectTest {
 	@Autowired
 	private TestService testService;
 
+	@Autowired
+	private RateLimiterService rateLimiterService;
+
 	@Test
 	public void testPermit() throws Exception {
 		Thread.sleep(500);
@@ -43,6 +63,61 @@ public class RateLimiterAspectTest {
 		}
 	}
 
+	@Test
+	public void testClusterPermit() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			testService.testClusterPermit();
+		}
+	}
+
+	@Test(expected = RequestNotPermitted.class)
+	public void testClusterNotPermit() throws Exception {
+		for (int i = 0; i < 101; i++) {
+			testService.testClusterNotPermit();
+		}
+	}
+
+	@Test(expected = RequestNotPermitted.class)
+	public void testClusterPrefetchNotPermit() throws Exception {
+		for (int i = 0; i < 101; i++) {
+			testService.testClusterPrefetch();
+		}
+	}
+
+	@Test
+	public void testClusterPrefetchConcurrently() throws Exception {
+		willAnswer(i -> {
+			Thread.sleep(50);
+			return i.callRealMethod();
+		}).given(rateLimiterService).tryAcquire(contains("testClusterPrefetchConcurrently"), anyInt(), anyLong(),
+				anyInt(), anyLong());
+		int threads = 20;
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService es = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++)
+			futures.add(es.submit(() -> {
+				latch.await();
+				testService.testClusterPrefetchConcurrently();
+				return null;
+			}));
+		latch.countDown();
+		for (Future<?> f : futures)
+			f.get();
+		es.shutdown();
+		// refilled by one caller at a time
+		then(rateLimiterService).should(atMost(3)).tryAcquire(contains("testClusterPrefetchConcurrently"), anyInt(),
+				anyLong(), anyInt(), anyLong());
+	}
+
+	@Test
+	public void testClusterTimeout() throws InterruptedException {
+		Thread.sleep(500);
+		for (int i = 0; i < 101; i++) {
+			testService.testClusterTimeout();
+		}
+	}
+
 	public static class TestService {
 		@RateLimiter(timeoutDuration = 0, limitForPeriod = 100)
 		public void test() {
@@ -51,6 +126,27 @@ public class RateLimiterAspectTest {
 		@RateLimiter(timeoutDuration = 600)
 		public void testTimeout() {
 		}
+
+		@RateLimiter(timeoutDuration = 0, limitRefreshPeriod = 60000, limitForPeriod = 100, scope = Scope.APPLICATION)
+		public void testClusterPermit() {
+		}
+
+		@RateLimiter(timeoutDuration = 0, limitRefreshPeriod = 60000, limitForPeriod = 100, scope = Scope.APPLICATION)
+		public void testClusterNotPermit() {
+		}
+
+		@RateLimiter(timeoutDuration = 0, limitRefreshPeriod = 60000, limitForPeriod = 100, scope = Scope.APPLICATION,
+				prefetch = 10)
+		public void testClusterPrefetch() {
+		}
+
+		@RateLimiter(limitRefreshPeriod = 60000, limitForPeriod = 1000, scope = Scope.APPLICATION, prefetch = 10)
+		public void testClusterPrefetchConcurrently() {
+		}
+
+		@RateLimiter(timeoutDuration = 600, scope = Scope.APPLICATION)
+		public void testClusterTimeout() {
+		}
 	}
 
 	@Configuration
@@ -67,6 +163,11 @@ public class RateLimiterAspectTest {
 			return new RateLimiterAspect();
 		}
 
+		@Bean
+		public RateLimiterService rateLimiterService() {
+			return spy(new StandaloneRateLimiterService());
+		}
+
 		@Bean
 		public RateLimiterRegistry rateLimiterRegistry() {
 			return new RateLimiterRegistry();
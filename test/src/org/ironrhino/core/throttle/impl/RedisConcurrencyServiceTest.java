@@ -0,0 +1,117 @@
+package org.ironrhino.core.throttle.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.ironrhino.core.throttle.ConcurrencyService;
+import org.ironrhino.core.throttle.impl.RedisConcurrencyServiceTest.RedisConcurrencyServiceConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = RedisConcurrencyServiceConfig.class)
+public class RedisConcurrencyServiceTest {
+
+	private static final String KEY = "concurrency:{key}";
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private ConcurrencyService concurrencyService;
+
+	@Before
+	public void cleanup() {
+		reset(stringRedisTemplate);
+	}
+
+	@Test
+	public void testTryAcquireSuccessful() {
+		givenAcquire(1L);
+		assertThat(concurrencyService.tryAcquire("key", 2), is(true));
+		concurrencyService.release("key");
+		verifyRelease(1);
+	}
+
+	@Test
+	public void testTryAcquireFailed() {
+		givenAcquire(0L);
+		assertThat(concurrencyService.tryAcquire("key", 2), is(false));
+	}
+
+	@Test
+	public void testTryAcquireWithTimeout() throws Exception {
+		givenAcquire(0L, 0L, 1L);
+		assertThat(concurrencyService.tryAcquire("key", 2, 1, TimeUnit.SECONDS), is(true));
+		concurrencyService.release("key");
+		verifyRelease(1);
+	}
+
+	@Test
+	public void testTryAcquireTimeout() throws Exception {
+		givenAcquire(0L);
+		assertThat(concurrencyService.tryAcquire("key", 2, 200, TimeUnit.MILLISECONDS), is(false));
+		// leave the queue
+		verifyRelease(1);
+	}
+
+	@Test
+	public void testReleaseByAnotherThread() throws Exception {
+		givenAcquire(1L);
+		assertThat(concurrencyService.tryAcquire("key", 2), is(true));
+		CompletableFuture.runAsync(() -> concurrencyService.release("key")).get();
+		verifyRelease(1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleaseNotHeld() {
+		concurrencyService.release("key");
+	}
+
+	private void givenAcquire(Long result, Long... results) {
+		given(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+				argThat(keys -> keys != null && keys.contains(KEY)), anyString(), eq("2"), any(), any(), any()))
+						.willReturn(result, results);
+	}
+
+	private void verifyRelease(int times) {
+		verify(stringRedisTemplate, times(times)).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+				argThat(keys -> keys != null && keys.contains(KEY)), anyString(), eq("2"), any(),
+				eq("concurrency:granted"));
+	}
+
+	@Configuration
+	static class RedisConcurrencyServiceConfig {
+
+		@Bean
+		public StringRedisTemplate stringRedisTemplate() {
+			return mock(StringRedisTemplate.class);
+		}
+
+		@Bean
+		public ConcurrencyService concurrencyService() {
+			return new RedisConcurrencyService();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.ironrhino.core.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+public class ExpressionTemplateTest {
+
+	@Test
+	public void testConstant() {
+		ExpressionTemplate template = ExpressionTemplate.of("100");
+		assertThat(template.isConstant(), is(true));
+		assertThat(template.evalInt(null, 0), is(100));
+		assertThat(ExpressionTemplate.of("").evalInt(null, 10), is(10));
+		assertThat(ExpressionTemplate.of("").evalBoolean(null, true), is(true));
+		assertThat(ExpressionTemplate.of("a,b").evalList(null), equalTo(Arrays.asList("a", "b")));
+		assertThat(ExpressionTemplate.of("${a}").isConstant(), is(false));
+	}
+
+	@Test
+	public void testPropertyPath() {
+		Map<String, Object> context = new HashMap<>();
+		context.put("user", new User("test", new User("parent", null)));
+		context.put("map", Collections.singletonMap("key", "value"));
+		context.put("$this", "this");
+		for (int i = 0; i < 3; i++) {
+			assertThat(ExpressionTemplate.of("${user.name}").eval(context), equalTo("test"));
+			assertThat(ExpressionTemplate.of("${user.parent.name}").eval(context), equalTo("parent"));
+			assertThat(ExpressionTemplate.of("#{map.key}").eval(context), equalTo("value"));
+			assertThat(ExpressionTemplate.of("${$this}").eval(context), equalTo("this"));
+			assertThat(ExpressionTemplate.of("${user.parent.parent}").eval(context), is(nullValue()));
+		}
+		context.put("user", Collections.singletonMap("name", "map"));
+		assertThat(ExpressionTemplate.of("${user.name}").eval(context), equalTo("map"));
+	}
+
+	@Test
+	public void testDelegateToExpressionEngine() {
+		Map<String, Object> context = new HashMap<>();
+		context.put("user", new User("test", null));
+		context.put("integer", 12);
+		assertThat(ExpressionTemplate.of("${integer+12}").evalInt(context, 0), is(24));
+		assertThat(ExpressionTemplate.of("${true}").evalBoolean(context, false), is(true));
+		assertThat(ExpressionTemplate.of("${user.name}-${integer}").evalString(context), equalTo("test-12"));
+	}
+
+	@Test(expected = org.mvel2.PropertyAccessException.class)
+	public void testNullIntermediateProperty() {
+		Map<String, Object> context = new HashMap<>();
+		context.put("user", new User("test", null));
+		ExpressionTemplate.of("${user.parent.name}").eval(context);
+	}
+
+	@Data
+	@AllArgsConstructor
+	public static class User {
+
+		private String name;
+
+		private User parent;
+
+	}
+
+}
@@ -0,0 +1,119 @@
+package org.ironrhino.jmh;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.ironrhino.core.cache.CacheManager;
+import org.ironrhino.core.cache.impl.RedisCacheManager;
+import org.ironrhino.core.spring.configuration.RedisConfiguration;
+import org.ironrhino.core.util.AppInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheManagerBenchmarkTests {
+
+	private static final String NAMESPACE = "benchmark";
+
+	@Param({ "10", "1000" })
+	private int size;
+
+	private AnnotationConfigApplicationContext ctx;
+	private CacheManager cacheManager;
+	private RedisTemplate<String, Object> redisTemplate;
+	private Map<String, Object> map;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setup() {
+		AppInfo.initialize();
+		ctx = new AnnotationConfigApplicationContext(Config.class);
+		cacheManager = ctx.getBean(CacheManager.class);
+		redisTemplate = ctx.getBean("redisTemplate", RedisTemplate.class);
+		map = new HashMap<>();
+		for (int i = 0; i < size; i++)
+			map.put("key" + i, "value" + i);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cacheManager.mdelete(map.keySet(), NAMESPACE);
+		ctx.close();
+	}
+
+	@Benchmark
+	public void baseline() {
+		// multiSet followed by one expire per key
+		Map<String, Object> temp = new HashMap<>();
+		map.forEach((key, value) -> temp.put(NAMESPACE + ':' + key, value));
+		redisTemplate.opsForValue().multiSet(temp);
+		temp.keySet().forEach(key -> redisTemplate.expire(key, 60, TimeUnit.SECONDS));
+	}
+
+	@Benchmark
+	public void measureMput() {
+		cacheManager.mput(map, 60, TimeUnit.SECONDS, NAMESPACE);
+	}
+
+	@Benchmark
+	public Map<String, Object> measureMgetWithTti() {
+		return cacheManager.mgetWithTti(map.keySet(), NAMESPACE, 60, TimeUnit.SECONDS);
+	}
+
+	@Benchmark
+	public Map<String, Boolean> measureMputIfAbsent(AbsentKeys absentKeys) {
+		return cacheManager.mputIfAbsent(map, 60, TimeUnit.SECONDS, NAMESPACE);
+	}
+
+	@State(Scope.Thread)
+	public static class AbsentKeys {
+
+		// keys are deleted before every invocation otherwise only the already exists path is measured
+		@Setup(Level.Invocation)
+		public void clear(CacheManagerBenchmarkTests benchmark) {
+			benchmark.cacheManager.mdelete(benchmark.map.keySet(), NAMESPACE);
+		}
+
+	}
+
+	@Configuration
+	static class Config extends RedisConfiguration {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new RedisCacheManager();
+		}
+
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(CacheManagerBenchmarkTests.class.getName())
+				.shouldFailOnError(true).build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,100 @@
+package org.ironrhino.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ironrhino.core.remoting.ServiceDispatcher;
+import org.ironrhino.core.remoting.ServiceDispatcher.DispatchedMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.util.ClassUtils;
+
+// server side per call overhead excluding transport and serialization
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpInvokerDispatchBenchmarkTests {
+
+	private Object target;
+	private ServiceDispatcher dispatcher;
+	private RemoteInvocation invocation;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		target = new EchoServiceImpl();
+		dispatcher = new ServiceDispatcher(EchoService.class, target);
+		invocation = new RemoteInvocation("echo", new Class<?>[] { String.class, int.class },
+				new Object[] { "test", 1 });
+	}
+
+	@Benchmark
+	public void reflection(Blackhole bh) throws Exception {
+		Class<?> serviceInterface = ClassUtils.forName(EchoService.class.getName(), null);
+		List<String> parameterTypeList = new ArrayList<>(invocation.getParameterTypes().length);
+		for (Class<?> cl : invocation.getParameterTypes())
+			parameterTypeList.add(cl.getSimpleName());
+		String method = invocation.getMethodName() + "(" + String.join(",", parameterTypeList) + ")";
+		String service = serviceInterface.getName() + '.' + method;
+		int index = service.substring(0, service.indexOf('(')).lastIndexOf('.');
+		bh.consume(service.substring(0, index));
+		bh.consume(service.substring(index + 1));
+		bh.consume(invocation.invoke(target));
+	}
+
+	@Benchmark
+	public void dispatchTable(Blackhole bh) throws Exception {
+		DispatchedMethod dispatchedMethod = dispatcher.getMethod(invocation.getMethodName(),
+				invocation.getParameterTypes());
+		bh.consume(dispatchedMethod.getQualifiedSignature());
+		bh.consume(dispatchedMethod.getServiceName());
+		bh.consume(dispatchedMethod.getSignature());
+		bh.consume(dispatchedMethod.invoke(invocation.getArguments()));
+	}
+
+	public interface EchoService {
+
+		String echo(String value);
+
+		String echo(String value, int times);
+
+	}
+
+	public static class EchoServiceImpl implements EchoService {
+
+		@Override
+		public String echo(String value) {
+			return value;
+		}
+
+		@Override
+		public String echo(String value, int times) {
+			return times == 1 ? value : value + times;
+		}
+
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(HttpInvokerDispatchBenchmarkTests.class.getName())
+				.shouldFailOnError(true).build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,153 @@
+package org.ironrhino.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.ironrhino.core.remoting.serializer.HttpInvokerSerializer;
+import org.ironrhino.core.remoting.serializer.HttpInvokerSerializers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// request and response round trip of typical DTO payloads
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpInvokerSerializerBenchmarkTests {
+
+	@Param({ "JAVA", "FST", "JSON", "SMILE", "CBOR", "BINARY" })
+	private String serializationType;
+
+	private HttpInvokerSerializer serializer;
+	private MethodInvocation methodInvocation;
+	private List<Person> persons;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		serializer = HttpInvokerSerializers.ofSerializationType(serializationType);
+		persons = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Person p = new Person();
+			p.setId(i);
+			p.setName("name" + i);
+			p.setEmail("name" + i + "@ironrhino.org");
+			p.setBirthday(LocalDate.of(1990, 1, 1).plusDays(i));
+			p.setTags(Arrays.asList("tag1", "tag2"));
+			persons.add(p);
+		}
+		methodInvocation = new SimpleMethodInvocation(PersonService.class.getMethod("search", String.class, int.class),
+				new Object[] { "name", 20 });
+	}
+
+	@Benchmark
+	public Object roundTrip() throws IOException {
+		RemoteInvocation invocation = serializer.createRemoteInvocation(methodInvocation);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+		serializer.writeRemoteInvocation(invocation, baos);
+		invocation = serializer.readRemoteInvocation(PersonService.class,
+				new ByteArrayInputStream(baos.toByteArray()));
+		baos = new ByteArrayOutputStream(4096);
+		serializer.writeRemoteInvocationResult(invocation, new RemoteInvocationResult(persons), baos);
+		return serializer.readRemoteInvocationResult(methodInvocation, new ByteArrayInputStream(baos.toByteArray()))
+				.getValue();
+	}
+
+	public interface PersonService {
+
+		List<Person> search(String keyword, int limit);
+
+	}
+
+	@Getter
+	@Setter
+	public static class Person implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private long id;
+
+		private String name;
+
+		private String email;
+
+		private LocalDate birthday;
+
+		private List<String> tags;
+
+	}
+
+	private static class SimpleMethodInvocation implements MethodInvocation {
+
+		private final Method method;
+
+		private final Object[] arguments;
+
+		SimpleMethodInvocation(Method method, Object[] arguments) {
+			this.method = method;
+			this.arguments = arguments;
+		}
+
+		@Override
+		public Method getMethod() {
+			return method;
+		}
+
+		@Override
+		public Object[] getArguments() {
+			return arguments;
+		}
+
+		@Override
+		public Object proceed() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Object getThis() {
+			return null;
+		}
+
+		@Override
+		public AccessibleObject getStaticPart() {
+			return method;
+		}
+
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(HttpInvokerSerializerBenchmarkTests.class.getName())
+				.shouldFailOnError(true).build();
+		new Runner(opt).run();
+	}
+}